@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.api.v1;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link RunnableTask} that processes many inputs in one call more efficiently than one by one, for
+ * instance, model inference or bulk lookups. Executors can collect invocations of the same task
+ * that are ready to run into batches.
+ */
+public interface BatchRunnableTask extends RunnableTask {
+
+  /**
+   * Runs task for each of inputs.
+   *
+   * @param inputs inputs, at most {@link #getMaxBatchSize()}
+   * @return outputs, in the same order as inputs
+   */
+  List<Map<String, Literal>> runBatch(List<Map<String, Literal>> inputs);
+
+  int getMaxBatchSize();
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.api.v1;
+
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+
+/**
+ * Opaque snapshot of task progress. Retries of a task get the last snapshot back, and can resume
+ * from it instead of starting over.
+ */
+public interface Checkpoint {
+
+  /**
+   * Returns the last snapshot written by this or a previous attempt of the task.
+   *
+   * @return snapshot, or null if there isn't any
+   */
+  @Nullable
+  byte[] read();
+
+  /**
+   * Replaces snapshot. Writes aren't incremental, each snapshot should contain all progress.
+   *
+   * @param snapshot snapshot
+   */
+  void write(byte[] snapshot);
+
+  /**
+   * Returns checkpoint keeping snapshot in memory. It survives retries within the same process, for
+   * instance, in local executions.
+   *
+   * @return checkpoint
+   */
+  static Checkpoint inMemory() {
+    return new Checkpoint() {
+      private final AtomicReference<byte[]> snapshot = new AtomicReference<>();
+
+      @Nullable
+      @Override
+      public byte[] read() {
+        byte[] current = snapshot.get();
+
+        return current != null ? current.clone() : null;
+      }
+
+      @Override
+      public void write(byte[] snapshot) {
+        this.snapshot.set(snapshot.clone());
+      }
+    };
+  }
+}
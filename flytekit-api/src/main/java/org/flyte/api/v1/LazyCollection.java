@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.api.v1;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Collection of literals produced on demand by {@link Iterable}. Iteration goes directly to the
+ * underlying iterable, so elements don't need to be in memory at the same time, which allows tasks
+ * to produce outputs that don't fit into memory.
+ *
+ * <p>Iterable must return a new iterator with the same elements on every call, because consumers
+ * can iterate collection more than once, for instance, to compute serialized size before writing
+ * it. Random access methods, such as {@link #get(int)} and {@link #size()}, read all elements into
+ * memory, and should be avoided.
+ */
+public final class LazyCollection extends AbstractList<Literal> {
+  private final Iterable<Literal> elements;
+  private List<Literal> materialized;
+
+  private LazyCollection(Iterable<Literal> elements) {
+    this.elements = elements;
+  }
+
+  public static LazyCollection of(Iterable<Literal> elements) {
+    return new LazyCollection(elements);
+  }
+
+  @Override
+  public Iterator<Literal> iterator() {
+    return elements.iterator();
+  }
+
+  @Override
+  public Spliterator<Literal> spliterator() {
+    return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return !iterator().hasNext();
+  }
+
+  @Override
+  public Literal get(int index) {
+    return materialize().get(index);
+  }
+
+  @Override
+  public int size() {
+    return materialize().size();
+  }
+
+  private synchronized List<Literal> materialize() {
+    if (materialized == null) {
+      List<Literal> list = new ArrayList<>();
+      elements.forEach(list::add);
+
+      materialized = Collections.unmodifiableList(list);
+    }
+
+    return materialized;
+  }
+}
@@ -17,6 +17,7 @@
 package org.flyte.api.v1;
 
 import com.google.auto.value.AutoOneOf;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -54,6 +55,47 @@ public abstract class Literal {
     return AutoOneOf_Literal.collection(collection);
   }
 
+  /**
+   * Creates collection of integers packed into an array, see {@link PrimitiveCollection}.
+   *
+   * @param values values, not copied
+   * @return literal
+   */
+  public static Literal ofIntegerCollection(long[] values) {
+    return ofCollection(PrimitiveCollection.ofIntegers(values));
+  }
+
+  /**
+   * Creates collection of floats packed into an array, see {@link PrimitiveCollection}.
+   *
+   * @param values values, not copied
+   * @return literal
+   */
+  public static Literal ofFloatCollection(double[] values) {
+    return ofCollection(PrimitiveCollection.ofFloats(values));
+  }
+
+  /**
+   * Creates collection of booleans packed into a bit set, see {@link PrimitiveCollection}.
+   *
+   * @param values values
+   * @param size number of elements
+   * @return literal
+   */
+  public static Literal ofBooleanCollection(BitSet values, int size) {
+    return ofCollection(PrimitiveCollection.ofBooleans(values, size));
+  }
+
+  /**
+   * Creates collection which elements are produced on demand, see {@link LazyCollection}.
+   *
+   * @param elements iterable returning the same elements every time it's iterated
+   * @return literal
+   */
+  public static Literal ofLazyCollection(Iterable<Literal> elements) {
+    return ofCollection(LazyCollection.of(elements));
+  }
+
   public static Literal ofMap(Map<String, Literal> map) {
     return AutoOneOf_Literal.map(map);
   }
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.api.v1;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.RandomAccess;
+
+/**
+ * Collection of primitives of the same type, backed by a primitive array. It's a memory-efficient
+ * alternative to a list of literals, elements are wrapped into {@link Literal} only when they are
+ * accessed through {@link java.util.List} interface. Consumers that know about packed collections
+ * can read elements directly with {@link #integer(int)}, {@link #float_(int)} and {@link
+ * #boolean_(int)}.
+ *
+ * <p>Arrays aren't copied, and must not be modified after collection is created.
+ */
+public abstract class PrimitiveCollection extends AbstractList<Literal> implements RandomAccess {
+
+  private PrimitiveCollection() {}
+
+  /**
+   * Returns type of elements, one of {@link SimpleType#INTEGER}, {@link SimpleType#FLOAT}, or
+   * {@link SimpleType#BOOLEAN}.
+   *
+   * @return type of elements
+   */
+  public abstract SimpleType type();
+
+  /**
+   * Returns element of {@link SimpleType#INTEGER} collection.
+   *
+   * @param index index of element
+   * @return element
+   */
+  public long integer(int index) {
+    throw new UnsupportedOperationException("integer() isn't supported for " + type());
+  }
+
+  /**
+   * Returns element of {@link SimpleType#FLOAT} collection.
+   *
+   * @param index index of element
+   * @return element
+   */
+  public double float_(int index) {
+    throw new UnsupportedOperationException("float_() isn't supported for " + type());
+  }
+
+  /**
+   * Returns element of {@link SimpleType#BOOLEAN} collection.
+   *
+   * @param index index of element
+   * @return element
+   */
+  public boolean boolean_(int index) {
+    throw new UnsupportedOperationException("boolean_() isn't supported for " + type());
+  }
+
+  public static PrimitiveCollection ofIntegers(long[] values) {
+    return new Integers(values);
+  }
+
+  public static PrimitiveCollection ofFloats(double[] values) {
+    return new Floats(values);
+  }
+
+  public static PrimitiveCollection ofBooleans(BitSet values, int size) {
+    if (size < values.length()) {
+      throw new IllegalArgumentException(
+          "size [" + size + "] is smaller than length of bit set [" + values.length() + "]");
+    }
+
+    return new Booleans((BitSet) values.clone(), size);
+  }
+
+  private static Literal literalOf(Primitive primitive) {
+    return Literal.ofScalar(Scalar.ofPrimitive(primitive));
+  }
+
+  private static final class Integers extends PrimitiveCollection {
+    private final long[] values;
+
+    private Integers(long[] values) {
+      this.values = values;
+    }
+
+    @Override
+    public SimpleType type() {
+      return SimpleType.INTEGER;
+    }
+
+    @Override
+    public long integer(int index) {
+      return values[index];
+    }
+
+    @Override
+    public Literal get(int index) {
+      return literalOf(Primitive.ofInteger(values[index]));
+    }
+
+    @Override
+    public int size() {
+      return values.length;
+    }
+  }
+
+  private static final class Floats extends PrimitiveCollection {
+    private final double[] values;
+
+    private Floats(double[] values) {
+      this.values = values;
+    }
+
+    @Override
+    public SimpleType type() {
+      return SimpleType.FLOAT;
+    }
+
+    @Override
+    public double float_(int index) {
+      return values[index];
+    }
+
+    @Override
+    public Literal get(int index) {
+      return literalOf(Primitive.ofFloat(values[index]));
+    }
+
+    @Override
+    public int size() {
+      return values.length;
+    }
+  }
+
+  private static final class Booleans extends PrimitiveCollection {
+    private final BitSet values;
+    private final int size;
+
+    private Booleans(BitSet values, int size) {
+      this.values = values;
+      this.size = size;
+    }
+
+    @Override
+    public SimpleType type() {
+      return SimpleType.BOOLEAN;
+    }
+
+    @Override
+    public boolean boolean_(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+
+      return values.get(index);
+    }
+
+    @Override
+    public Literal get(int index) {
+      return literalOf(Primitive.ofBoolean(boolean_(index)));
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.api.v1;
+
+import static java.util.Collections.emptyMap;
+
+import com.google.auto.value.AutoValue;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+
+/** A customizable interface to convey resources requested for a container. */
+@AutoValue
+public abstract class Resources {
+
+  /** Known resource names. */
+  public enum ResourceName {
+    UNKNOWN,
+    CPU,
+    GPU,
+    MEMORY,
+    STORAGE
+  }
+
+  /**
+   * The desired set of resources requested. Values must be valid Kubernetes quantities, e.g. "500m"
+   * or "2Gi".
+   *
+   * @return resource requests
+   */
+  public abstract Map<ResourceName, String> requests();
+
+  /**
+   * Defines a set of bounds within which the task can reliably run. Values must be valid Kubernetes
+   * quantities.
+   *
+   * @return resource limits
+   */
+  public abstract Map<ResourceName, String> limits();
+
+  /**
+   * Number of processors a container can use. It's CPU limit, or CPU request if limit isn't set,
+   * rounded up to a whole number. If neither is set, it's the number of processors available to
+   * JVM.
+   *
+   * @return number of processors
+   */
+  public int availableProcessors() {
+    String cpuLimit = limits().get(ResourceName.CPU);
+    String cpu = cpuLimit != null ? cpuLimit : requests().get(ResourceName.CPU);
+
+    if (cpu == null) {
+      return Runtime.getRuntime().availableProcessors();
+    }
+
+    return Math.max(1, parseCpu(cpu).setScale(0, RoundingMode.CEILING).intValueExact());
+  }
+
+  // CPU quantities are either whole or fractional cores, e.g. "2" or "0.5", or millicores, e.g.
+  // "500m"
+  private static BigDecimal parseCpu(String quantity) {
+    try {
+      if (quantity.endsWith("m")) {
+        return new BigDecimal(quantity.substring(0, quantity.length() - 1)).movePointLeft(3);
+      }
+
+      return new BigDecimal(quantity);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+          String.format("Invalid CPU quantity [%s], expected cores or millicores", quantity), e);
+    }
+  }
+
+  public static Builder builder() {
+    return new AutoValue_Resources.Builder().requests(emptyMap()).limits(emptyMap());
+  }
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+    public abstract Builder requests(Map<ResourceName, String> requests);
+
+    public abstract Builder limits(Map<ResourceName, String> limits);
+
+    public abstract Resources build();
+  }
+}
@@ -16,16 +16,84 @@
  */
 package org.flyte.api.v1;
 
+import java.time.Duration;
 import java.util.Map;
+import javax.annotation.Nullable;
 
-/** Building block for tasks that execute Java code. */
+/**
+ * Building block for tasks that execute Java code.
+ *
+ * <p>Methods added after the initial version have defaults, so implementations written against it
+ * keep compiling.
+ */
 public interface RunnableTask {
 
   String getName();
 
   TypedInterface getInterface();
 
+  /**
+   * Prepares task to run, for instance, loads models or creates connection pools. Called once per
+   * process before the first {@link #run(Map)}, state created here is reused by all following runs.
+   */
+  default void setUp() {}
+
   Map<String, Literal> run(Map<String, Literal> inputs);
 
+  /**
+   * Releases resources acquired in {@link #setUp()}. Called once per process after the last {@link
+   * #run(Map)}, even if it has failed.
+   */
+  default void tearDown() {}
+
   RetryStrategy getRetries();
+
+  /**
+   * Resources requested by the task, and their limits.
+   *
+   * @return resources, empty to use platform defaults
+   */
+  default Resources getResources() {
+    return Resources.builder().build();
+  }
+
+  /**
+   * Overall timeout of the task, including retries. Executors expose deadline derived from it with
+   * {@link TaskContext#deadline()}.
+   *
+   * @return timeout, or null if task doesn't have one
+   */
+  @Nullable
+  default Duration getTimeout() {
+    return null;
+  }
+
+  /**
+   * Indicates whether outputs of the task are cached.
+   *
+   * @return true if outputs are cached
+   */
+  default boolean isDiscoverable() {
+    return false;
+  }
+
+  /**
+   * Indicates whether the task only computes outputs from inputs. Executors can skip running such
+   * task if its outputs aren't used, or run it once for several nodes with the same inputs.
+   *
+   * @return true if task doesn't have side effects
+   */
+  default boolean isSideEffectFree() {
+    return false;
+  }
+
+  /**
+   * Version of cached outputs, changing it invalidates outputs cached by previous versions.
+   *
+   * @return cache version, or null if outputs aren't cached
+   */
+  @Nullable
+  default String getDiscoveryVersion() {
+    return null;
+  }
 }
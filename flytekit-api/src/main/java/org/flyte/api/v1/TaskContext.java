@@ -0,0 +1,187 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.api.v1;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Resources and signals of a running task. Executors create a context for each run, make it
+ * available with {@link #current()} while task runs, and close it when task ends.
+ *
+ * <p>Pools come from {@link TaskPools} shared by all tasks in the process. {@link #forkJoinPool()}
+ * is sized to processors available to the container, so CPU-bound work saturates CPU allotment
+ * without oversubscribing it, and {@link #ioExecutor()} creates threads on demand for blocking I/O.
+ * Tasks should periodically check {@link #isCancelled()} and {@link #deadline()} in long-running
+ * loops, and stop early. Progress can be saved with {@link #checkpoint()}, so retries don't start
+ * over.
+ */
+public final class TaskContext implements AutoCloseable {
+  private static final ThreadLocal<TaskContext> CURRENT = new ThreadLocal<>();
+
+  private final TaskPools pools;
+  @Nullable private final Instant deadline;
+  private final Checkpoint checkpoint;
+  private final Clock clock;
+
+  private final AtomicBoolean cancelled;
+
+  private TaskContext(
+      TaskPools pools,
+      @Nullable Instant deadline,
+      Checkpoint checkpoint,
+      Clock clock,
+      AtomicBoolean cancelled) {
+    this.pools = pools;
+    this.deadline = deadline;
+    this.checkpoint = checkpoint;
+    this.clock = clock;
+    this.cancelled = cancelled;
+  }
+
+  /**
+   * Creates a context for a single run of task. Deadline is derived from task timeout.
+   *
+   * @param task task
+   * @param pools pools shared by tasks in the process, they aren't closed with the context
+   * @param checkpoint checkpoint shared by all attempts of the task
+   * @param clock clock used to compute deadline
+   * @return context
+   */
+  public static TaskContext create(
+      RunnableTask task, TaskPools pools, Checkpoint checkpoint, Clock clock) {
+    Duration timeout = task.getTimeout();
+    Instant deadline = timeout != null ? clock.instant().plus(timeout) : null;
+
+    return create(pools, deadline, checkpoint, clock);
+  }
+
+  public static TaskContext create(
+      TaskPools pools, @Nullable Instant deadline, Checkpoint checkpoint, Clock clock) {
+    return new TaskContext(pools, deadline, checkpoint, clock, new AtomicBoolean());
+  }
+
+  /**
+   * Creates a context for a part of the task, for instance, a member of a fused task, that saves
+   * progress to its own checkpoint. Everything else is shared with this context, including
+   * cancellation.
+   *
+   * @param checkpoint checkpoint of the part
+   * @return context
+   */
+  public TaskContext withCheckpoint(Checkpoint checkpoint) {
+    return new TaskContext(pools, deadline, checkpoint, clock, cancelled);
+  }
+
+  /**
+   * Returns context of the task running in the current thread. Threads created by the task don't
+   * have the context, capture it in {@link RunnableTask#run} and pass it to them.
+   *
+   * @return context
+   * @throws IllegalStateException if called outside of a running task
+   */
+  public static TaskContext current() {
+    TaskContext context = CURRENT.get();
+
+    if (context == null) {
+      throw new IllegalStateException("Task context is only available while task is running");
+    }
+
+    return context;
+  }
+
+  /**
+   * Calls function with this context available as {@link #current()}.
+   *
+   * @param fn function, usually running a task
+   * @param <T> type of result
+   * @return result of function
+   */
+  public <T> T call(Supplier<T> fn) {
+    TaskContext previous = CURRENT.get();
+    CURRENT.set(this);
+
+    try {
+      return fn.get();
+    } finally {
+      if (previous != null) {
+        CURRENT.set(previous);
+      } else {
+        CURRENT.remove();
+      }
+    }
+  }
+
+  /** @return pool for CPU-bound work, sized to processors available to the container */
+  public ForkJoinPool forkJoinPool() {
+    return pools.forkJoinPool();
+  }
+
+  /** @return executor for blocking I/O, creating threads on demand */
+  public ExecutorService ioExecutor() {
+    return pools.ioExecutor();
+  }
+
+  /** @return time task should complete by, or null if task doesn't have a timeout */
+  @Nullable
+  public Instant deadline() {
+    return deadline;
+  }
+
+  /** @return checkpoint to save progress of the task, and resume it on retry */
+  public Checkpoint checkpoint() {
+    return checkpoint;
+  }
+
+  /** Signals task to stop, for instance, because container is shutting down. */
+  public void cancel() {
+    cancelled.set(true);
+  }
+
+  /** @return true if task was cancelled, or its deadline has passed */
+  public boolean isCancelled() {
+    return cancelled.get() || (deadline != null && !clock.instant().isBefore(deadline));
+  }
+
+  /**
+   * Throws if task was cancelled, or its deadline has passed.
+   *
+   * @throws CancellationException if task should stop
+   */
+  public void checkCancelled() {
+    if (isCancelled()) {
+      throw new CancellationException(
+          cancelled.get() ? "Task was cancelled" : "Task deadline " + deadline + " has passed");
+    }
+  }
+
+  /**
+   * Cancels task, work it has left in pools should check {@link #isCancelled()} and stop. Pools
+   * aren't shut down, because they are shared with other tasks.
+   */
+  @Override
+  public void close() {
+    cancel();
+  }
+}
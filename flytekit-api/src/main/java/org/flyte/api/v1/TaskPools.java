@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.api.v1;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pools shared by all tasks running in the same process. Executors create them once, pass
+ * them to each {@link TaskContext}, and close them when they are done running tasks, so tasks
+ * running one after another, or concurrently, don't create more threads than processors available
+ * to the container.
+ */
+public final class TaskPools implements AutoCloseable {
+  private final ForkJoinPool forkJoinPool;
+  private final ExecutorService ioExecutor;
+
+  private TaskPools(int parallelism) {
+    this.forkJoinPool = new ForkJoinPool(parallelism);
+    this.ioExecutor = Executors.newCachedThreadPool(daemonThreadFactory("flyte-task-io-%d"));
+  }
+
+  /**
+   * Creates pools for the given number of processors.
+   *
+   * @param parallelism parallelism of {@link #forkJoinPool()}
+   * @return pools
+   */
+  public static TaskPools create(int parallelism) {
+    return new TaskPools(parallelism);
+  }
+
+  /**
+   * Creates pools for a process running a single task. Parallelism is number of processors
+   * available to the task, but never more than processors available to JVM.
+   *
+   * @param task task
+   * @return pools
+   */
+  public static TaskPools forTask(RunnableTask task) {
+    return create(
+        Math.min(
+            task.getResources().availableProcessors(), Runtime.getRuntime().availableProcessors()));
+  }
+
+  /**
+   * Creates pools for a process running many tasks, sized to processors available to JVM.
+   *
+   * @return pools
+   */
+  public static TaskPools forProcess() {
+    return create(Runtime.getRuntime().availableProcessors());
+  }
+
+  /** @return pool for CPU-bound work */
+  public ForkJoinPool forkJoinPool() {
+    return forkJoinPool;
+  }
+
+  /** @return executor for blocking I/O, creating threads on demand */
+  public ExecutorService ioExecutor() {
+    return ioExecutor;
+  }
+
+  /** Shuts down pools without waiting for running work. */
+  @Override
+  public void close() {
+    forkJoinPool.shutdownNow();
+    ioExecutor.shutdownNow();
+  }
+
+  private static ThreadFactory daemonThreadFactory(String nameFormat) {
+    AtomicInteger counter = new AtomicInteger();
+
+    return runnable -> {
+      Thread thread = new Thread(runnable, String.format(nameFormat, counter.getAndIncrement()));
+      thread.setDaemon(true);
+
+      return thread;
+    };
+  }
+}
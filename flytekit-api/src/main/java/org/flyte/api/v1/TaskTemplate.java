@@ -17,6 +17,7 @@
 package org.flyte.api.v1;
 
 import com.google.auto.value.AutoValue;
+import java.time.Duration;
 import javax.annotation.Nullable;
 
 /**
@@ -33,8 +34,33 @@ public abstract class TaskTemplate {
 
   public abstract RetryStrategy retries();
 
+  /**
+   * Indicates whether the system should attempt to look up this task's output to avoid duplication
+   * of work.
+   *
+   * @return true if outputs are cached
+   */
+  public abstract boolean discoverable();
+
+  /**
+   * Logical version of the task for the purpose of discovery. Cached outputs are only reused by
+   * tasks with the same version.
+   *
+   * @return discovery version, or null if task isn't discoverable
+   */
+  @Nullable
+  public abstract String discoveryVersion();
+
+  /**
+   * The overall timeout of a task including retries.
+   *
+   * @return timeout, or null if task doesn't have one
+   */
+  @Nullable
+  public abstract Duration timeout();
+
   public static Builder builder() {
-    return new AutoValue_TaskTemplate.Builder();
+    return new AutoValue_TaskTemplate.Builder().discoverable(false);
   }
 
   @AutoValue.Builder
@@ -46,6 +72,12 @@ public abstract class TaskTemplate {
 
     public abstract Builder retries(RetryStrategy retries);
 
+    public abstract Builder discoverable(boolean discoverable);
+
+    public abstract Builder discoveryVersion(String discoveryVersion);
+
+    public abstract Builder timeout(Duration timeout);
+
     public abstract TaskTemplate build();
   }
 }
@@ -17,18 +17,21 @@
 package org.flyte.flytekit.jackson;
 
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.flyte.api.v1.Literal;
 import org.flyte.api.v1.LiteralType;
@@ -43,15 +46,36 @@ public class JacksonSdkType<T> extends SdkType<T> {
           .registerModule(new JavaTimeModule())
           .registerModule(new ParameterNamesModule());
 
+  private static final ObjectWriter LITERAL_MAP_WRITER =
+      OBJECT_MAPPER.writerFor(new TypeReference<Map<String, Literal>>() {});
+
+  // JacksonSdkType is immutable, and creating it requires introspection, so it's shared
+  private static final Map<Class<?>, JacksonSdkType<?>> CACHE = new ConcurrentHashMap<>();
+
   private final Class<T> clazz;
   private final Map<String, Variable> variableMap;
+  private final ObjectReader reader;
+  private final ObjectWriter writer;
+  private final LiteralMapDeserializer literalMapDeserializer;
 
   private JacksonSdkType(Class<T> clazz, Map<String, Variable> variableMap) {
     this.clazz = Objects.requireNonNull(clazz);
     this.variableMap = Objects.requireNonNull(variableMap);
+    this.reader = OBJECT_MAPPER.readerFor(clazz);
+    this.writer = OBJECT_MAPPER.writerFor(clazz);
+
+    Map<String, LiteralType> literalTypeMap =
+        variableMap.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, x -> x.getValue().literalType()));
+    this.literalMapDeserializer = new LiteralMapDeserializer(literalTypeMap);
   }
 
+  @SuppressWarnings("unchecked")
   public static <T> JacksonSdkType<T> of(Class<T> clazz) {
+    return (JacksonSdkType<T>) CACHE.computeIfAbsent(clazz, JacksonSdkType::create);
+  }
+
+  private static <T> JacksonSdkType<T> create(Class<T> clazz) {
     try {
       // preemptively check that serializer is known to throw exceptions earlier
       SerializerProvider serializerProvider = OBJECT_MAPPER.getSerializerProviderInstance();
@@ -82,24 +106,18 @@ public class JacksonSdkType<T> extends SdkType<T> {
   @Override
   public Map<String, Literal> toLiteralMap(T value) {
     try {
-      JsonNode tree = OBJECT_MAPPER.valueToTree(value);
-
-      Map<String, LiteralType> literalTypeMap =
-          getVariableMap().entrySet().stream()
-              .collect(Collectors.toMap(Map.Entry::getKey, x -> x.getValue().literalType()));
+      // bean is written into a token buffer, and read back as literals, it avoids building
+      // JsonNode tree, and converting it into tokens again
+      TokenBuffer tokens = new TokenBuffer(OBJECT_MAPPER, /* hasNativeIds= */ false);
+      writer.writeValue(tokens, value);
 
-      // The previous trick with JavaType and withValueHandler did't work because
-      // Jackson caches serializers, without considering valueHandler as significant part
-      // of the caching key.
+      try (JsonParser parser = tokens.asParser(OBJECT_MAPPER)) {
+        parser.nextToken();
 
-      JsonParser tokens = OBJECT_MAPPER.treeAsTokens(tree);
-      tokens.nextToken();
-
-      LiteralMapDeserializer deserializer = new LiteralMapDeserializer(literalTypeMap);
-      JacksonLiteralMap jacksonLiteralMap =
-          deserializer.deserialize(tokens, OBJECT_MAPPER.getDeserializationContext());
-
-      return jacksonLiteralMap.getLiteralMap();
+        return literalMapDeserializer
+            .deserialize(parser, OBJECT_MAPPER.getDeserializationContext())
+            .getLiteralMap();
+      }
     } catch (IOException e) {
       throw new UncheckedIOException(e);
     }
@@ -113,10 +131,13 @@ public class JacksonSdkType<T> extends SdkType<T> {
   @Override
   public T fromLiteralMap(Map<String, Literal> value) {
     try {
-      JsonNode tree = OBJECT_MAPPER.valueToTree(value);
+      TokenBuffer tokens = new TokenBuffer(OBJECT_MAPPER, /* hasNativeIds= */ false);
+      LITERAL_MAP_WRITER.writeValue(tokens, value);
 
-      return OBJECT_MAPPER.treeToValue(tree, clazz);
-    } catch (JsonProcessingException e) {
+      try (JsonParser parser = tokens.asParser(OBJECT_MAPPER)) {
+        return reader.readValue(parser);
+      }
+    } catch (IOException e) {
       throw new RuntimeException("fromLiteralMap failed for [" + clazz.getName() + "]", e);
     }
   }
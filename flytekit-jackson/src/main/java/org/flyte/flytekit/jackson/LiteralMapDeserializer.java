@@ -18,20 +18,26 @@ package org.flyte.flytekit.jackson;
 
 import static java.util.Collections.unmodifiableList;
 import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.google.errorprone.annotations.Var;
 import java.io.IOException;
 import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.flyte.api.v1.Literal;
 import org.flyte.api.v1.LiteralType;
 import org.flyte.api.v1.Primitive;
@@ -41,6 +47,12 @@ import org.flyte.api.v1.SimpleType;
 class LiteralMapDeserializer extends StdDeserializer<JacksonLiteralMap> {
   private static final long serialVersionUID = 0L;
 
+  // collections of these types are packed into arrays, see PrimitiveCollection
+  private static final Set<SimpleType> PACKED_TYPES =
+      unmodifiableSet(EnumSet.of(SimpleType.INTEGER, SimpleType.FLOAT, SimpleType.BOOLEAN));
+
+  private static final int INITIAL_CAPACITY = 16;
+
   private final transient Map<String, LiteralType> literalTypeMap;
 
   public LiteralMapDeserializer(Map<String, LiteralType> literalTypeMap) {
@@ -82,6 +94,13 @@ class LiteralMapDeserializer extends StdDeserializer<JacksonLiteralMap> {
         return deserialize(p, literalType.simpleType());
 
       case COLLECTION_TYPE:
+        LiteralType elementType = literalType.collectionType();
+
+        if (elementType.getKind() == LiteralType.Kind.SIMPLE_TYPE
+            && PACKED_TYPES.contains(elementType.simpleType())) {
+          return deserializePacked(p, elementType.simpleType());
+        }
+
         List<Literal> collection = new ArrayList<>();
 
         verifyToken(p, JsonToken.START_ARRAY);
@@ -120,6 +139,80 @@ class LiteralMapDeserializer extends StdDeserializer<JacksonLiteralMap> {
         String.format("Unexpected LiteralType.Kind: [%s]", literalType.getKind()));
   }
 
+  private static Literal deserializePacked(JsonParser p, SimpleType simpleType) throws IOException {
+    verifyToken(p, JsonToken.START_ARRAY);
+
+    switch (simpleType) {
+      case INTEGER:
+        @Var long[] integers = new long[INITIAL_CAPACITY];
+        @Var int integersSize = 0;
+
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+          if (integersSize == integers.length) {
+            integers = Arrays.copyOf(integers, integersSize * 2);
+          }
+
+          integers[integersSize++] = readLong(p);
+        }
+
+        return Literal.ofIntegerCollection(Arrays.copyOf(integers, integersSize));
+
+      case FLOAT:
+        @Var double[] floats = new double[INITIAL_CAPACITY];
+        @Var int floatsSize = 0;
+
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+          if (floatsSize == floats.length) {
+            floats = Arrays.copyOf(floats, floatsSize * 2);
+          }
+
+          floats[floatsSize++] = readDouble(p);
+        }
+
+        return Literal.ofFloatCollection(Arrays.copyOf(floats, floatsSize));
+
+      case BOOLEAN:
+        BitSet booleans = new BitSet();
+        @Var int booleansSize = 0;
+
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+          booleans.set(booleansSize++, readBoolean(p));
+        }
+
+        return Literal.ofBooleanCollection(booleans, booleansSize);
+
+      default:
+        throw new AssertionError(String.format("Unexpected packed SimpleType: [%s]", simpleType));
+    }
+  }
+
+  // read numbers and booleans straight from the parser, only tokens that need coercion, e.g. "NaN"
+  // written as a string, go through readValueAs the same way as in scalar literals
+  private static long readLong(JsonParser p) throws IOException {
+    if (p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+      return p.getLongValue();
+    }
+
+    return p.readValueAs(Long.class);
+  }
+
+  private static double readDouble(JsonParser p) throws IOException {
+    if (p.currentToken() == JsonToken.VALUE_NUMBER_FLOAT
+        || p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+      return p.getDoubleValue();
+    }
+
+    return p.readValueAs(Double.class);
+  }
+
+  private static boolean readBoolean(JsonParser p) throws IOException {
+    if (p.currentToken() == JsonToken.VALUE_TRUE || p.currentToken() == JsonToken.VALUE_FALSE) {
+      return p.getBooleanValue();
+    }
+
+    return p.readValueAs(Boolean.class);
+  }
+
   private static Literal deserialize(JsonParser p, SimpleType simpleType) throws IOException {
     switch (simpleType) {
       case STRING:
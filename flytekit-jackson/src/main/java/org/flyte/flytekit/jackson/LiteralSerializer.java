@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.util.Map;
 import org.flyte.api.v1.Literal;
 import org.flyte.api.v1.Primitive;
+import org.flyte.api.v1.PrimitiveCollection;
 import org.flyte.api.v1.Scalar;
 
 class LiteralSerializer extends StdSerializer<Literal> {
@@ -51,6 +52,11 @@ class LiteralSerializer extends StdSerializer<Literal> {
         return;
 
       case COLLECTION:
+        if (value.collection() instanceof PrimitiveCollection) {
+          serialize((PrimitiveCollection) value.collection(), gen);
+          return;
+        }
+
         gen.writeStartArray();
         for (Literal element : value.collection()) {
           serialize(element, gen, serializers);
@@ -63,6 +69,29 @@ class LiteralSerializer extends StdSerializer<Literal> {
     throw new AssertionError("Unexpected Literal.Kind: [" + value.kind() + "]");
   }
 
+  // reads primitives directly from arrays, without wrapping each of them into Literal first
+  private static void serialize(PrimitiveCollection value, JsonGenerator gen) throws IOException {
+    gen.writeStartArray();
+
+    for (int i = 0; i < value.size(); i++) {
+      switch (value.type()) {
+        case INTEGER:
+          gen.writeNumber(value.integer(i));
+          break;
+        case FLOAT:
+          gen.writeNumber(value.float_(i));
+          break;
+        case BOOLEAN:
+          gen.writeBoolean(value.boolean_(i));
+          break;
+        default:
+          throw new AssertionError("Unexpected packed type: [" + value.type() + "]");
+      }
+    }
+
+    gen.writeEndArray();
+  }
+
   public void serialize(Scalar value, JsonGenerator gen, SerializerProvider serializers)
       throws IOException {
     switch (value.kind()) {
@@ -16,12 +16,15 @@
  */
 package org.flyte.flytekit.jackson;
 
+import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 import static org.flyte.api.v1.LiteralType.ofSimpleType;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -31,6 +34,7 @@ import com.fasterxml.jackson.databind.util.StdConverter;
 import com.google.auto.value.AutoValue;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +42,7 @@ import java.util.Objects;
 import org.flyte.api.v1.Literal;
 import org.flyte.api.v1.LiteralType;
 import org.flyte.api.v1.Primitive;
+import org.flyte.api.v1.PrimitiveCollection;
 import org.flyte.api.v1.Scalar;
 import org.flyte.api.v1.SimpleType;
 import org.flyte.api.v1.Variable;
@@ -119,6 +124,66 @@ public class JacksonSdkTypeTest {
     assertThat(literalMap, equalTo(expected));
   }
 
+  @Test
+  void testRoundtrip() {
+    JacksonSdkType<AutoValueInput> sdkType = JacksonSdkType.of(AutoValueInput.class);
+    AutoValueInput input =
+        AutoValueInput.create(
+            /* i= */ Long.MAX_VALUE,
+            /* f= */ 0.1d,
+            /* s= */ "",
+            /* b= */ true,
+            /* t= */ Instant.ofEpochSecond(-1, 999_999_999),
+            /* d= */ Duration.ofSeconds(3, 1),
+            /* l= */ Arrays.asList("a", "b", "c"),
+            /* m= */ emptyMap());
+
+    assertThat(sdkType.fromLiteralMap(sdkType.toLiteralMap(input)), equalTo(input));
+  }
+
+  @Test
+  void testPackedCollections() {
+    JacksonSdkType<PackedInput> sdkType = JacksonSdkType.of(PackedInput.class);
+    PackedInput input =
+        PackedInput.create(
+            /* i= */ Arrays.asList(1L, 2L),
+            /* f= */ Arrays.asList(1.0, 2.0),
+            /* b= */ Arrays.asList(true, false, true));
+
+    Map<String, Literal> literalMap = sdkType.toLiteralMap(input);
+
+    assertThat(literalMap.get("i").collection(), instanceOf(PrimitiveCollection.class));
+    assertThat(literalMap.get("f").collection(), instanceOf(PrimitiveCollection.class));
+    assertThat(literalMap.get("b").collection(), instanceOf(PrimitiveCollection.class));
+    assertThat(
+        literalMap.get("b"),
+        equalTo(
+            Literal.ofCollection(
+                Arrays.asList(
+                    literalOf(Primitive.ofBoolean(true)),
+                    literalOf(Primitive.ofBoolean(false)),
+                    literalOf(Primitive.ofBoolean(true))))));
+    assertThat(sdkType.fromLiteralMap(literalMap), equalTo(input));
+  }
+
+  @Test
+  void testPackedCollectionsRoundtripExtremeValues() {
+    JacksonSdkType<PackedInput> sdkType = JacksonSdkType.of(PackedInput.class);
+    PackedInput input =
+        PackedInput.create(
+            /* i= */ Arrays.asList(Long.MIN_VALUE, Long.MAX_VALUE),
+            /* f= */ Arrays.asList(
+                Double.NaN, Double.NEGATIVE_INFINITY, Double.MIN_VALUE, Double.MAX_VALUE),
+            /* b= */ Arrays.asList(false, true));
+
+    assertThat(sdkType.fromLiteralMap(sdkType.toLiteralMap(input)), equalTo(input));
+  }
+
+  @Test
+  void testOfReturnsSameInstance() {
+    assertSame(JacksonSdkType.of(PojoInput.class), JacksonSdkType.of(PojoInput.class));
+  }
+
   @Test
   public void testPojoToLiteralMap() {
     PojoInput input = new PojoInput();
@@ -249,6 +314,22 @@ public class JacksonSdkTypeTest {
     }
   }
 
+  @AutoValue
+  @JsonSerialize(as = PackedInput.class)
+  @JsonDeserialize
+  public abstract static class PackedInput {
+    public abstract List<Long> getI();
+
+    public abstract List<Double> getF();
+
+    public abstract List<Boolean> getB();
+
+    @JsonCreator
+    public static PackedInput create(List<Long> i, List<Double> f, List<Boolean> b) {
+      return new AutoValue_JacksonSdkTypeTest_PackedInput(i, f, b);
+    }
+  }
+
   public static final class PojoInput {
     public long a;
 
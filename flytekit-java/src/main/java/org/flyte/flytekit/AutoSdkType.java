@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.flytekit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates {@link SdkType} for annotated AutoValue class or record at compile time, it requires
+ * {@code flytekit-processor} on annotation processor path.
+ *
+ * <p>For class {@code Foo}, generated class is named {@code AutoSdkType_Foo}, and it's in the same
+ * package. For AutoValue classes, properties are read with abstract getters, and instances are
+ * created with a static factory method with parameters named after properties. Supported property
+ * types are {@code long}, {@code double}, {@code boolean}, their boxed counterparts, {@link
+ * String}, {@link java.time.Instant}, {@link java.time.Duration}, and {@link java.util.List} or
+ * {@link java.util.Map} with {@link String} keys of any of them.
+ *
+ * <pre>
+ * &#64;AutoValue
+ * &#64;AutoSdkType
+ * abstract class Input {
+ *   abstract String name();
+ *
+ *   static Input create(String name) {
+ *     return new AutoValue_Input(name);
+ *   }
+ *
+ *   static SdkType&lt;Input&gt; sdkType() {
+ *     return new AutoSdkType_Input();
+ *   }
+ * }
+ * </pre>
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface AutoSdkType {}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.flytekit;
+
+import static java.util.Collections.singletonList;
+
+import java.util.List;
+
+/**
+ * Building block for tasks that process many inputs at once, for instance, model inference or bulk
+ * lookups. When the same task is used by many nodes, executors can run them with a single call to
+ * {@link #runBatch(List)}.
+ */
+public abstract class SdkBatchRunnableTask<InputT, OutputT>
+    extends SdkRunnableTask<InputT, OutputT> {
+
+  private static final long serialVersionUID = 42L;
+
+  public SdkBatchRunnableTask(SdkType<InputT> inputType, SdkType<OutputT> outputType) {
+    super(inputType, outputType);
+  }
+
+  /**
+   * Maximum number of inputs passed to a single {@link #runBatch(List)} call.
+   *
+   * @return maximum batch size
+   */
+  public int getMaxBatchSize() {
+    return 100;
+  }
+
+  /**
+   * Runs task for a batch of inputs.
+   *
+   * @param inputs inputs, at most {@link #getMaxBatchSize()}
+   * @return outputs, in the same order as inputs
+   */
+  public abstract List<OutputT> runBatch(List<InputT> inputs);
+
+  @Override
+  public final OutputT run(InputT input) {
+    List<OutputT> outputs = runBatch(singletonList(input));
+
+    if (outputs.size() != 1) {
+      throw new IllegalStateException(
+          String.format(
+              "Task [%s] returned %s outputs for a single input", getName(), outputs.size()));
+    }
+
+    return outputs.get(0);
+  }
+}
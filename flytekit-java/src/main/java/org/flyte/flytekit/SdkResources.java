@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.flytekit;
+
+import com.google.auto.value.AutoValue;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import org.flyte.api.v1.Resources;
+
+/**
+ * Resources requested by a task, and their limits. Values are Kubernetes quantities, e.g. "500m" or
+ * "2" for CPU, and "512Mi" or "4G" for memory. Resources that aren't set use platform defaults.
+ */
+@AutoValue
+public abstract class SdkResources {
+  private static final Pattern QUANTITY =
+      Pattern.compile("^[0-9]+(\\.[0-9]+)?(m|k|M|G|T|P|E|Ki|Mi|Gi|Ti|Pi|Ei)?$");
+  private static final Pattern CPU_QUANTITY = Pattern.compile("^[0-9]+(\\.[0-9]+)?m?$");
+
+  private static final SdkResources EMPTY = builder().build();
+
+  @Nullable
+  public abstract String cpuRequest();
+
+  @Nullable
+  public abstract String cpuLimit();
+
+  @Nullable
+  public abstract String memoryRequest();
+
+  @Nullable
+  public abstract String memoryLimit();
+
+  @Nullable
+  public abstract String gpuRequest();
+
+  @Nullable
+  public abstract String gpuLimit();
+
+  public static SdkResources empty() {
+    return EMPTY;
+  }
+
+  public static Builder builder() {
+    return new AutoValue_SdkResources.Builder();
+  }
+
+  /**
+   * Number of processors available to the task. It's CPU limit, or CPU request if limit isn't set,
+   * rounded up to a whole number. If neither is set, it's the number of processors available to
+   * JVM.
+   *
+   * <p>Use it to size thread pools created by a task. JVM can see more processors than a container
+   * is allowed to use, and thread pools sized by {@link Runtime#availableProcessors()} end up
+   * throttled.
+   *
+   * @return number of processors
+   */
+  public int availableProcessors() {
+    return toIdl().availableProcessors();
+  }
+
+  Resources toIdl() {
+    Map<Resources.ResourceName, String> requests = new EnumMap<>(Resources.ResourceName.class);
+    putIfNotNull(requests, Resources.ResourceName.CPU, cpuRequest());
+    putIfNotNull(requests, Resources.ResourceName.MEMORY, memoryRequest());
+    putIfNotNull(requests, Resources.ResourceName.GPU, gpuRequest());
+
+    Map<Resources.ResourceName, String> limits = new EnumMap<>(Resources.ResourceName.class);
+    putIfNotNull(limits, Resources.ResourceName.CPU, cpuLimit());
+    putIfNotNull(limits, Resources.ResourceName.MEMORY, memoryLimit());
+    putIfNotNull(limits, Resources.ResourceName.GPU, gpuLimit());
+
+    return Resources.builder().requests(requests).limits(limits).build();
+  }
+
+  private static void putIfNotNull(
+      Map<Resources.ResourceName, String> map,
+      Resources.ResourceName name,
+      @Nullable String value) {
+    if (value != null) {
+      map.put(name, value);
+    }
+  }
+
+  // CPU quantities are either whole or fractional cores, e.g. "2" or "0.5", or millicores, e.g.
+  // "500m"
+  private static void checkCpuQuantity(String name, @Nullable String quantity) {
+    if (quantity != null && !CPU_QUANTITY.matcher(quantity).matches()) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalid CPU quantity for [%s]: [%s], expected cores or millicores", name, quantity));
+    }
+  }
+
+  private static void checkQuantity(String name, @Nullable String quantity) {
+    if (quantity != null && !QUANTITY.matcher(quantity).matches()) {
+      throw new IllegalArgumentException(
+          String.format("Invalid quantity for [%s]: [%s]", name, quantity));
+    }
+  }
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+    public abstract Builder cpuRequest(String cpuRequest);
+
+    public abstract Builder cpuLimit(String cpuLimit);
+
+    public abstract Builder memoryRequest(String memoryRequest);
+
+    public abstract Builder memoryLimit(String memoryLimit);
+
+    public abstract Builder gpuRequest(String gpuRequest);
+
+    public abstract Builder gpuLimit(String gpuLimit);
+
+    abstract SdkResources autoBuild();
+
+    public SdkResources build() {
+      SdkResources resources = autoBuild();
+
+      checkQuantity("cpuRequest", resources.cpuRequest());
+      checkQuantity("cpuLimit", resources.cpuLimit());
+      checkQuantity("memoryRequest", resources.memoryRequest());
+      checkQuantity("memoryLimit", resources.memoryLimit());
+      checkQuantity("gpuRequest", resources.gpuRequest());
+      checkQuantity("gpuLimit", resources.gpuLimit());
+
+      checkCpuQuantity("cpuRequest", resources.cpuRequest());
+      checkCpuQuantity("cpuLimit", resources.cpuLimit());
+
+      return resources;
+    }
+  }
+}
@@ -17,9 +17,12 @@
 package org.flyte.flytekit;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.flyte.api.v1.PartialTaskIdentifier;
+import org.flyte.api.v1.TaskContext;
 
 /** Building block for tasks that execute Java code. */
 public abstract class SdkRunnableTask<InputT, OutputT> extends SdkTransform
@@ -66,6 +69,61 @@ public abstract class SdkRunnableTask<InputT, OutputT> extends SdkTransform
     return 0;
   }
 
+  /**
+   * Resources requested by the task, and their limits. By default, platform defaults are used.
+   *
+   * <p>Instead of creating thread pools in {@link #run(Object)}, use pools from {@link
+   * #getContext()}, they are sized to processors available to the task.
+   *
+   * @return resources
+   */
+  public SdkResources getResources() {
+    return SdkResources.empty();
+  }
+
+  /**
+   * Overall timeout of the task, including retries. While task runs, deadline derived from it is
+   * available with {@link #getContext()}.
+   *
+   * @return timeout, or null if task doesn't have one
+   */
+  @Nullable
+  public Duration getTimeout() {
+    return null;
+  }
+
+  /**
+   * Indicates whether outputs of the task are cached. Flyte skips running a cached task if it has
+   * outputs of a previous run with the same inputs and the same cache version.
+   *
+   * @return true if outputs are cached
+   */
+  public boolean isCached() {
+    return false;
+  }
+
+  /**
+   * Indicates whether the task only computes outputs from inputs, without side effects, such as
+   * writing to external systems. When running workflows locally, such tasks can be skipped if their
+   * outputs aren't used, and nodes with the same inputs can share a single run.
+   *
+   * @return true if task doesn't have side effects
+   */
+  public boolean isSideEffectFree() {
+    return false;
+  }
+
+  /**
+   * Version of cached outputs. It must be set for cached tasks, and changed whenever changes in the
+   * task make previously cached outputs invalid.
+   *
+   * @return cache version, or null if task isn't cached
+   */
+  @Nullable
+  public String getCacheVersion() {
+    return null;
+  }
+
   @Override
   public SdkNode apply(
       SdkWorkflowBuilder builder,
@@ -84,5 +142,51 @@ public abstract class SdkRunnableTask<InputT, OutputT> extends SdkTransform
         builder, nodeId, taskId, upstreamNodeIds, inputs, outputType.getVariableMap());
   }
 
+  /**
+   * Called once per process before the first {@link #run(Object)}. Override it to build expensive
+   * state, such as models, connection pools or lookup tables, once instead of on every run. The
+   * same task instance is used for all runs in the process, so state can be kept in fields.
+   */
+  public void setUp() {}
+
   public abstract OutputT run(InputT input);
+
+  /**
+   * Returns context of the current run, with thread pools sized to resources available to the task,
+   * and cancellation and deadline signals. Pools are shut down when the run ends. It's only
+   * available in the thread calling {@link #run(Object)}.
+   *
+   * @return context
+   */
+  protected final TaskContext getContext() {
+    return TaskContext.current();
+  }
+
+  /**
+   * Returns the last snapshot saved with {@link #writeCheckpoint(byte[])} by this or a previous
+   * attempt of the task. Long-running tasks can use it to resume on retry, instead of starting
+   * over.
+   *
+   * @return snapshot, or null if nothing was saved yet
+   */
+  @Nullable
+  protected final byte[] readCheckpoint() {
+    return getContext().checkpoint().read();
+  }
+
+  /**
+   * Saves snapshot of task progress, replacing the previous one. Snapshot is opaque to Flyte, for
+   * instance, it can be offset of the last processed record, or serialized partial results.
+   *
+   * @param snapshot snapshot
+   */
+  protected final void writeCheckpoint(byte[] snapshot) {
+    getContext().checkpoint().write(snapshot);
+  }
+
+  /**
+   * Called once per process after the last {@link #run(Object)}, even if it has failed. Override it
+   * to release resources acquired in {@link #setUp()}.
+   */
+  public void tearDown() {}
 }
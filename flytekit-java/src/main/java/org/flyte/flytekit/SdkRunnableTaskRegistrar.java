@@ -16,13 +16,20 @@
  */
 package org.flyte.flytekit;
 
+import static java.util.stream.Collectors.toList;
+
 import com.google.auto.service.AutoService;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import org.flyte.api.v1.BatchRunnableTask;
 import org.flyte.api.v1.Literal;
+import org.flyte.api.v1.Resources;
 import org.flyte.api.v1.RetryStrategy;
 import org.flyte.api.v1.RunnableTask;
 import org.flyte.api.v1.RunnableTaskRegistrar;
@@ -54,6 +61,11 @@ public class SdkRunnableTaskRegistrar extends RunnableTaskRegistrar {
           .build();
     }
 
+    @Override
+    public void setUp() {
+      sdkTask.setUp();
+    }
+
     @Override
     public Map<String, Literal> run(Map<String, Literal> inputs) {
       InputT value = sdkTask.getInputType().fromLiteralMap(inputs);
@@ -62,17 +74,80 @@ public class SdkRunnableTaskRegistrar extends RunnableTaskRegistrar {
       return sdkTask.getOutputType().toLiteralMap(output);
     }
 
+    @Override
+    public void tearDown() {
+      sdkTask.tearDown();
+    }
+
     @Override
     public RetryStrategy getRetries() {
       return RetryStrategy.builder().retries(sdkTask.getRetries()).build();
     }
 
+    @Override
+    public Resources getResources() {
+      return sdkTask.getResources().toIdl();
+    }
+
+    @Override
+    @Nullable
+    public Duration getTimeout() {
+      return sdkTask.getTimeout();
+    }
+
+    @Override
+    public boolean isDiscoverable() {
+      return sdkTask.isCached();
+    }
+
+    @Override
+    public boolean isSideEffectFree() {
+      return sdkTask.isSideEffectFree();
+    }
+
+    @Override
+    @Nullable
+    public String getDiscoveryVersion() {
+      return sdkTask.getCacheVersion();
+    }
+
     @Override
     public String getName() {
       return sdkTask.getName();
     }
   }
 
+  private static class BatchRunnableTaskImpl<InputT, OutputT>
+      extends RunnableTaskImpl<InputT, OutputT> implements BatchRunnableTask {
+    private final SdkBatchRunnableTask<InputT, OutputT> sdkTask;
+
+    private BatchRunnableTaskImpl(SdkBatchRunnableTask<InputT, OutputT> sdkTask) {
+      super(sdkTask);
+      this.sdkTask = sdkTask;
+    }
+
+    @Override
+    public List<Map<String, Literal>> runBatch(List<Map<String, Literal>> inputs) {
+      List<InputT> values =
+          inputs.stream().map(sdkTask.getInputType()::fromLiteralMap).collect(toList());
+      List<OutputT> outputs = sdkTask.runBatch(values);
+
+      if (outputs.size() != inputs.size()) {
+        throw new IllegalStateException(
+            String.format(
+                "Task [%s] returned %s outputs for %s inputs",
+                sdkTask.getName(), outputs.size(), inputs.size()));
+      }
+
+      return outputs.stream().map(sdkTask.getOutputType()::toLiteralMap).collect(toList());
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+      return sdkTask.getMaxBatchSize();
+    }
+  }
+
   @Override
   @SuppressWarnings("rawtypes")
   public Map<TaskIdentifier, RunnableTask> load(Map<String, String> env, ClassLoader classLoader) {
@@ -94,7 +169,16 @@ public class SdkRunnableTaskRegistrar extends RunnableTaskRegistrar {
               .build();
       LOG.fine(String.format("Discovered [%s]", name));
 
-      RunnableTask task = new RunnableTaskImpl<>(sdkTask);
+      String cacheVersion = sdkTask.getCacheVersion();
+      if (sdkTask.isCached() && (cacheVersion == null || cacheVersion.isEmpty())) {
+        throw new IllegalArgumentException(
+            String.format("Cached task [%s] must have non-empty cache version", name));
+      }
+
+      RunnableTask task =
+          sdkTask instanceof SdkBatchRunnableTask
+              ? new BatchRunnableTaskImpl<>((SdkBatchRunnableTask<?, ?>) sdkTask)
+              : new RunnableTaskImpl<>(sdkTask);
       RunnableTask previous = tasks.put(taskId, task);
 
       if (previous != null) {
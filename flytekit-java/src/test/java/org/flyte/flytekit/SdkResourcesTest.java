@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.flytekit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class SdkResourcesTest {
+
+  @Test
+  public void testAvailableProcessorsFromLimit() {
+    SdkResources resources = SdkResources.builder().cpuRequest("1").cpuLimit("2500m").build();
+
+    assertThat(resources.availableProcessors(), equalTo(3));
+  }
+
+  @Test
+  public void testAvailableProcessorsFromRequest() {
+    assertThat(SdkResources.builder().cpuRequest("4").build().availableProcessors(), equalTo(4));
+    assertThat(SdkResources.builder().cpuRequest("100m").build().availableProcessors(), equalTo(1));
+    assertThat(SdkResources.builder().cpuRequest("0.5").build().availableProcessors(), equalTo(1));
+  }
+
+  @Test
+  public void testAvailableProcessorsDefault() {
+    assertThat(
+        SdkResources.empty().availableProcessors(),
+        equalTo(Runtime.getRuntime().availableProcessors()));
+  }
+
+  @Test
+  public void testInvalidQuantity() {
+    assertThrows(
+        IllegalArgumentException.class, () -> SdkResources.builder().memoryLimit("1 GB").build());
+    assertThrows(
+        IllegalArgumentException.class, () -> SdkResources.builder().cpuRequest("1Gi").build());
+  }
+}
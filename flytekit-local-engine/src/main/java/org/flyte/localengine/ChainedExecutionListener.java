@@ -37,6 +37,16 @@ public class ChainedExecutionListener implements ExecutionListener {
     listeners.forEach(listener -> listener.pending(node));
   }
 
+  @Override
+  public void deduplicated(ExecutionNode node, ExecutionNode original) {
+    listeners.forEach(listener -> listener.deduplicated(node, original));
+  }
+
+  @Override
+  public void pruned(ExecutionNode node) {
+    listeners.forEach(listener -> listener.pruned(node));
+  }
+
   @Override
   public void retrying(ExecutionNode node, Map<String, Literal> inputs, Throwable e, int attempt) {
     listeners.forEach(listener -> listener.retrying(node, inputs, e, attempt));
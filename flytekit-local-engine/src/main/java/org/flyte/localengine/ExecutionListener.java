@@ -23,6 +23,22 @@ public interface ExecutionListener {
 
   void pending(ExecutionNode node);
 
+  /**
+   * Called when compiler merges a node into another node with the same task and inputs. The node
+   * doesn't run, and its outputs are outputs of the other node.
+   *
+   * @param node merged node
+   * @param original node that runs instead
+   */
+  default void deduplicated(ExecutionNode node, ExecutionNode original) {}
+
+  /**
+   * Called when compiler drops a node without side effects, because its outputs aren't used.
+   *
+   * @param node dropped node
+   */
+  default void pruned(ExecutionNode node) {}
+
   void retrying(ExecutionNode node, Map<String, Literal> inputs, Throwable e, int attempt);
 
   void error(ExecutionNode node, Map<String, Literal> inputs, Throwable e);
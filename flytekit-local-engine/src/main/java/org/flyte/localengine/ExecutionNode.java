@@ -34,6 +34,8 @@ public abstract class ExecutionNode {
 
   public abstract int attempts();
 
+  abstract Builder toBuilder();
+
   static Builder builder() {
     return new AutoValue_ExecutionNode.Builder();
   }
@@ -18,11 +18,15 @@ package org.flyte.localengine;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 import static org.flyte.api.v1.Node.START_NODE_ID;
 
+import com.google.auto.value.AutoValue;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
@@ -35,6 +39,7 @@ import java.util.stream.Stream;
 import org.flyte.api.v1.Binding;
 import org.flyte.api.v1.BindingData;
 import org.flyte.api.v1.Node;
+import org.flyte.api.v1.OutputReference;
 import org.flyte.api.v1.RunnableTask;
 
 /**
@@ -46,6 +51,7 @@ import org.flyte.api.v1.RunnableTask;
  *   <li>All upstream nodes exist and there are no cycles.
  *   <li>Execution nodes are topologically sorted.
  *   <li>All nodes are connected to other nodes, or start-node.
+ *   <li>Optionally, duplicate nodes are merged, and nodes with unused outputs are pruned.
  *   <li>TODO type checking
  *   <li>TODO type conversion
  * </ul>
@@ -67,6 +73,168 @@ class ExecutionNodeCompiler {
     return sort(executableNodes);
   }
 
+  /**
+   * Compiles nodes same as {@link #compile(List, Map)}, and optimizes them with {@link
+   * #optimize(List, List, ExecutionListener)}.
+   *
+   * @param nodes nodes
+   * @param outputs workflow outputs
+   * @param runnableTasks runnable tasks
+   * @param listener listener notified about merged and pruned nodes
+   * @return optimized execution nodes, and workflow outputs referencing them
+   */
+  static CompiledWorkflow compile(
+      List<Node> nodes,
+      List<Binding> outputs,
+      Map<String, RunnableTask> runnableTasks,
+      ExecutionListener listener) {
+    return optimize(compile(nodes, runnableTasks), outputs, listener);
+  }
+
+  /**
+   * Removes nodes that don't change workflow outputs.
+   *
+   * <ul>
+   *   <li>Nodes with the same task, inputs and upstream nodes are merged into the first of them, if
+   *       the task is side-effect free or cached. References to merged nodes are replaced, so nodes
+   *       downstream of them can become duplicates as well.
+   *   <li>Nodes with side-effect free tasks are pruned, if workflow outputs don't depend on them,
+   *       and there are no nodes with side effects that depend on them.
+   * </ul>
+   *
+   * @param nodes topologically sorted execution nodes
+   * @param outputs workflow outputs
+   * @param listener listener notified about merged and pruned nodes
+   * @return optimized execution nodes, and workflow outputs referencing them
+   */
+  static CompiledWorkflow optimize(
+      List<ExecutionNode> nodes, List<Binding> outputs, ExecutionListener listener) {
+    // node id of merged node to node id of the node running instead
+    Map<String, String> replacements = new HashMap<>();
+    Map<List<Object>, ExecutionNode> nodesByKey = new HashMap<>();
+    List<ExecutionNode> deduplicated = new ArrayList<>();
+
+    for (ExecutionNode node : nodes) {
+      ExecutionNode rewritten = rewrite(node, replacements);
+      RunnableTask runnableTask = rewritten.runnableTask();
+
+      if (!runnableTask.isSideEffectFree() && !runnableTask.isDiscoverable()) {
+        deduplicated.add(rewritten);
+        continue;
+      }
+
+      // inputs are compared by name, because order of bindings doesn't matter
+      List<Object> key =
+          Arrays.asList(
+              runnableTask.getName(),
+              rewritten.bindings().stream().collect(toMap(Binding::var_, Binding::binding)),
+              new HashSet<>(rewritten.upstreamNodeIds()));
+      ExecutionNode original = nodesByKey.putIfAbsent(key, rewritten);
+
+      if (original == null) {
+        deduplicated.add(rewritten);
+      } else {
+        replacements.put(node.nodeId(), original.nodeId());
+        listener.deduplicated(node, original);
+      }
+    }
+
+    List<Binding> rewrittenOutputs =
+        outputs.stream().map(binding -> rewrite(binding, replacements)).collect(toList());
+
+    Map<String, ExecutionNode> lookup = new HashMap<>();
+    Deque<String> queue = new ArrayDeque<>();
+
+    for (ExecutionNode node : deduplicated) {
+      lookup.put(node.nodeId(), node);
+
+      if (!node.runnableTask().isSideEffectFree()) {
+        queue.add(node.nodeId());
+      }
+    }
+
+    rewrittenOutputs.stream()
+        .map(Binding::binding)
+        .flatMap(ExecutionNodeCompiler::unpackBindingData)
+        .filter(x -> x.kind() == BindingData.Kind.PROMISE)
+        .forEach(x -> queue.add(x.promise().nodeId()));
+
+    Set<String> usedNodeIds = new HashSet<>();
+
+    while (!queue.isEmpty()) {
+      String nodeId = queue.pollFirst();
+      ExecutionNode node = lookup.get(nodeId);
+
+      if (node != null && usedNodeIds.add(nodeId)) {
+        queue.addAll(node.upstreamNodeIds());
+      }
+    }
+
+    List<ExecutionNode> pruned = new ArrayList<>();
+
+    for (ExecutionNode node : deduplicated) {
+      if (usedNodeIds.contains(node.nodeId())) {
+        pruned.add(node);
+      } else {
+        listener.pruned(node);
+      }
+    }
+
+    return CompiledWorkflow.create(unmodifiableList(pruned), unmodifiableList(rewrittenOutputs));
+  }
+
+  private static ExecutionNode rewrite(ExecutionNode node, Map<String, String> replacements) {
+    if (replacements.isEmpty()) {
+      return node;
+    }
+
+    List<Binding> bindings =
+        node.bindings().stream().map(binding -> rewrite(binding, replacements)).collect(toList());
+    List<String> upstreamNodeIds =
+        node.upstreamNodeIds().stream()
+            .map(nodeId -> replacements.getOrDefault(nodeId, nodeId))
+            .distinct()
+            .collect(toList());
+
+    return node.toBuilder().bindings(bindings).upstreamNodeIds(upstreamNodeIds).build();
+  }
+
+  private static Binding rewrite(Binding binding, Map<String, String> replacements) {
+    return Binding.builder()
+        .var_(binding.var_())
+        .binding(rewrite(binding.binding(), replacements))
+        .build();
+  }
+
+  private static BindingData rewrite(BindingData bindingData, Map<String, String> replacements) {
+    switch (bindingData.kind()) {
+      case SCALAR:
+        return bindingData;
+
+      case COLLECTION:
+        return BindingData.ofCollection(
+            bindingData.collection().stream().map(x -> rewrite(x, replacements)).collect(toList()));
+
+      case MAP:
+        return BindingData.ofMap(
+            bindingData.map().entrySet().stream()
+                .collect(toMap(Map.Entry::getKey, x -> rewrite(x.getValue(), replacements))));
+
+      case PROMISE:
+        OutputReference promise = bindingData.promise();
+        String nodeId = replacements.get(promise.nodeId());
+
+        if (nodeId == null) {
+          return bindingData;
+        }
+
+        return BindingData.ofOutputReference(
+            OutputReference.builder().nodeId(nodeId).var(promise.var()).build());
+    }
+
+    throw new AssertionError("Unexpected BindingData.Kind: " + bindingData.kind());
+  }
+
   static ExecutionNode compile(Node node, Map<String, RunnableTask> runnableTasks) {
     List<String> upstreamNodeIds = new ArrayList<>();
 
@@ -198,4 +366,15 @@ class ExecutionNodeCompiler {
       return Stream.of(bindingData);
     }
   }
+
+  @AutoValue
+  abstract static class CompiledWorkflow {
+    abstract List<ExecutionNode> executionNodes();
+
+    abstract List<Binding> outputs();
+
+    static CompiledWorkflow create(List<ExecutionNode> executionNodes, List<Binding> outputs) {
+      return new AutoValue_ExecutionNodeCompiler_CompiledWorkflow(executionNodes, outputs);
+    }
+  }
 }
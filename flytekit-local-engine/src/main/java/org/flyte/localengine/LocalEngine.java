@@ -16,21 +16,34 @@
  */
 package org.flyte.localengine;
 
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static org.flyte.api.v1.Node.START_NODE_ID;
 
 import com.google.errorprone.annotations.Var;
+import java.time.Clock;
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import org.flyte.api.v1.BatchRunnableTask;
 import org.flyte.api.v1.Binding;
 import org.flyte.api.v1.BindingData;
+import org.flyte.api.v1.Checkpoint;
 import org.flyte.api.v1.ContainerError;
 import org.flyte.api.v1.Literal;
 import org.flyte.api.v1.RunnableTask;
+import org.flyte.api.v1.TaskContext;
+import org.flyte.api.v1.TaskPools;
 import org.flyte.api.v1.WorkflowTemplate;
 
 public class LocalEngine {
@@ -53,6 +66,35 @@ public class LocalEngine {
     return execute(executionNodes, inputs, template.outputs(), listener);
   }
 
+  /**
+   * Compiles and executes workflow, optionally merging duplicate nodes, and pruning nodes with
+   * unused outputs. Optimizations only apply to side-effect free or cached tasks, and are reported
+   * to listener.
+   *
+   * @param template workflow
+   * @param runnableTasks runnable tasks by name
+   * @param inputs workflow inputs
+   * @param listener execution listener
+   * @param optimize true to optimize workflow graph before execution
+   * @return workflow outputs
+   */
+  public static Map<String, Literal> compileAndExecute(
+      WorkflowTemplate template,
+      Map<String, RunnableTask> runnableTasks,
+      Map<String, Literal> inputs,
+      ExecutionListener listener,
+      boolean optimize) {
+    if (!optimize) {
+      return compileAndExecute(template, runnableTasks, inputs, listener);
+    }
+
+    ExecutionNodeCompiler.CompiledWorkflow compiled =
+        ExecutionNodeCompiler.compile(
+            template.nodes(), template.outputs(), runnableTasks, listener);
+
+    return execute(compiled.executionNodes(), inputs, compiled.outputs(), listener);
+  }
+
   static Map<String, Literal> execute(
       List<ExecutionNode> executionNodes,
       Map<String, Literal> workflowInputs,
@@ -64,26 +106,287 @@ public class LocalEngine {
     Map<String, Map<String, Literal>> nodeOutputs = new HashMap<>();
     nodeOutputs.put(START_NODE_ID, workflowInputs);
 
-    for (ExecutionNode executionNode : executionNodes) {
-      Map<String, Literal> inputs = getLiteralMap(nodeOutputs, executionNode.bindings());
+    // outputs of discoverable tasks, same as on Flyte, they are reused by tasks with
+    // the same name, discovery version and inputs
+    Map<List<Object>, Map<String, Literal>> discoveredOutputs = new HashMap<>();
+
+    // each task is set up once, before the first node using it runs, and torn down
+    // when execution completes, so fan-outs don't repeat expensive set up
+    Set<RunnableTask> setUpTasks = Collections.newSetFromMap(new IdentityHashMap<>());
+    List<RunnableTask> tearDownOrder = new ArrayList<>();
+
+    // pools are shared by all tasks, so they never use more threads than processors
+    try (TaskPools pools = TaskPools.forProcess()) {
+      Map<String, Literal> workflowOutputs;
+
+      try {
+        for (int i = 0; i < executionNodes.size(); i++) {
+          ExecutionNode executionNode = executionNodes.get(i);
+
+          if (nodeOutputs.containsKey(executionNode.nodeId())) {
+            // already completed as a part of batch
+            continue;
+          }
+
+          RunnableTask runnableTask = executionNode.runnableTask();
+          if (!setUpTasks.contains(runnableTask)) {
+            runnableTask.setUp();
+            setUpTasks.add(runnableTask);
+            tearDownOrder.add(0, runnableTask);
+          }
+
+          List<ExecutionNode> batch = collectBatch(executionNodes, i, nodeOutputs);
+
+          if (batch.size() > 1) {
+            executeBatch(batch, nodeOutputs, listener, discoveredOutputs, pools);
+            continue;
+          }
+
+          Map<String, Literal> inputs = getLiteralMap(nodeOutputs, executionNode.bindings());
+
+          listener.starting(executionNode, inputs);
+
+          Map<String, Literal> outputs =
+              runWithDiscovery(executionNode, inputs, listener, discoveredOutputs, pools);
+          putOutputs(nodeOutputs, executionNode, outputs);
+
+          listener.completed(executionNode, inputs, outputs);
+        }
+
+        workflowOutputs = getLiteralMap(nodeOutputs, bindings);
+      } catch (Throwable e) {
+        // failure of tear down shouldn't hide failure of the task
+        try {
+          tearDownAll(tearDownOrder);
+        } catch (RuntimeException tearDownFailure) {
+          e.addSuppressed(tearDownFailure);
+        }
+
+        throw e;
+      }
+
+      tearDownAll(tearDownOrder);
 
-      listener.starting(executionNode, inputs);
+      return workflowOutputs;
+    }
+  }
 
-      Map<String, Literal> outputs = runWithRetries(executionNode, inputs, listener);
-      Map<String, Literal> previous = nodeOutputs.put(executionNode.nodeId(), outputs);
+  /**
+   * Collects nodes that can run together with the node at the given position. These are following
+   * nodes that use the same {@link BatchRunnableTask}, and have all upstream nodes completed, so
+   * running them earlier doesn't change results.
+   *
+   * @param executionNodes topologically sorted nodes
+   * @param position position of the next node to run
+   * @param nodeOutputs outputs of completed nodes
+   * @return nodes to run, starting with the node at the given position
+   */
+  static List<ExecutionNode> collectBatch(
+      List<ExecutionNode> executionNodes,
+      int position,
+      Map<String, Map<String, Literal>> nodeOutputs) {
+    ExecutionNode first = executionNodes.get(position);
+
+    if (!(first.runnableTask() instanceof BatchRunnableTask)) {
+      return singletonList(first);
+    }
 
-      if (previous != null) {
-        throw new IllegalStateException("invariant failed");
+    int maxBatchSize = ((BatchRunnableTask) first.runnableTask()).getMaxBatchSize();
+    List<ExecutionNode> batch = new ArrayList<>();
+    batch.add(first);
+
+    for (int i = position + 1; i < executionNodes.size() && batch.size() < maxBatchSize; i++) {
+      ExecutionNode executionNode = executionNodes.get(i);
+
+      if (executionNode.runnableTask() == first.runnableTask()
+          && !nodeOutputs.containsKey(executionNode.nodeId())
+          && nodeOutputs.keySet().containsAll(executionNode.upstreamNodeIds())) {
+        batch.add(executionNode);
       }
+    }
+
+    return unmodifiableList(batch);
+  }
+
+  private static void executeBatch(
+      List<ExecutionNode> batch,
+      Map<String, Map<String, Literal>> nodeOutputs,
+      ExecutionListener listener,
+      Map<List<Object>, Map<String, Literal>> discoveredOutputs,
+      TaskPools pools) {
+    List<Map<String, Literal>> inputs = new ArrayList<>();
 
-      listener.completed(executionNode, inputs, outputs);
+    for (ExecutionNode executionNode : batch) {
+      Map<String, Literal> nodeInputs = getLiteralMap(nodeOutputs, executionNode.bindings());
+
+      inputs.add(nodeInputs);
+      listener.starting(executionNode, nodeInputs);
     }
 
-    return getLiteralMap(nodeOutputs, bindings);
+    List<Map<String, Literal>> outputs =
+        runBatchWithDiscovery(batch, inputs, listener, discoveredOutputs, pools);
+
+    for (int i = 0; i < batch.size(); i++) {
+      putOutputs(nodeOutputs, batch.get(i), outputs.get(i));
+      listener.completed(batch.get(i), inputs.get(i), outputs.get(i));
+    }
+  }
+
+  private static void putOutputs(
+      Map<String, Map<String, Literal>> nodeOutputs,
+      ExecutionNode executionNode,
+      Map<String, Literal> outputs) {
+    Map<String, Literal> previous = nodeOutputs.put(executionNode.nodeId(), outputs);
+
+    if (previous != null) {
+      throw new IllegalStateException("invariant failed");
+    }
+  }
+
+  static List<Map<String, Literal>> runBatchWithDiscovery(
+      List<ExecutionNode> batch,
+      List<Map<String, Literal>> inputs,
+      ExecutionListener listener,
+      Map<List<Object>, Map<String, Literal>> discoveredOutputs,
+      TaskPools pools) {
+    RunnableTask runnableTask = batch.get(0).runnableTask();
+
+    if (!runnableTask.isDiscoverable()) {
+      return runBatchWithRetries(batch, inputs, listener, pools);
+    }
+
+    // only run nodes with distinct inputs that weren't discovered yet
+    Map<List<Object>, Integer> missing = new LinkedHashMap<>();
+    List<List<Object>> keys = new ArrayList<>();
+
+    for (int i = 0; i < batch.size(); i++) {
+      List<Object> key =
+          Arrays.asList(runnableTask.getName(), runnableTask.getDiscoveryVersion(), inputs.get(i));
+
+      keys.add(key);
+
+      if (!discoveredOutputs.containsKey(key)) {
+        missing.putIfAbsent(key, i);
+      }
+    }
+
+    if (!missing.isEmpty()) {
+      List<ExecutionNode> missingNodes = new ArrayList<>();
+      List<Map<String, Literal>> missingInputs = new ArrayList<>();
+
+      for (int i : missing.values()) {
+        missingNodes.add(batch.get(i));
+        missingInputs.add(inputs.get(i));
+      }
+
+      List<List<Object>> missingKeys = new ArrayList<>(missing.keySet());
+      List<Map<String, Literal>> outputs =
+          runBatchWithRetries(missingNodes, missingInputs, listener, pools);
+
+      for (int i = 0; i < missingKeys.size(); i++) {
+        discoveredOutputs.put(missingKeys.get(i), outputs.get(i));
+      }
+    }
+
+    return keys.stream().map(discoveredOutputs::get).collect(toList());
+  }
+
+  static List<Map<String, Literal>> runBatchWithRetries(
+      List<ExecutionNode> batch,
+      List<Map<String, Literal>> inputs,
+      ExecutionListener listener,
+      TaskPools pools) {
+    BatchRunnableTask runnableTask = (BatchRunnableTask) batch.get(0).runnableTask();
+    int attempts = batch.get(0).attempts();
+    @Var int attempt = 0;
+
+    if (attempts <= 0) {
+      throw new IllegalStateException("invariant failed: attempts > 0");
+    }
+
+    try (TaskContext context =
+        TaskContext.create(runnableTask, pools, Checkpoint.inMemory(), Clock.systemUTC())) {
+      while (true) {
+        try {
+          attempt++;
+
+          List<Map<String, Literal>> outputs = context.call(() -> runnableTask.runBatch(inputs));
+
+          if (outputs.size() != inputs.size()) {
+            throw new IllegalStateException(
+                String.format(
+                    "invariant failed: expected %s outputs, got %s",
+                    inputs.size(), outputs.size()));
+          }
+
+          return outputs;
+        } catch (Throwable e) {
+          if (!isRecoverable(e) || attempt > attempts) {
+            for (int i = 0; i < batch.size(); i++) {
+              listener.error(batch.get(i), inputs.get(i), e);
+            }
+            throw e;
+          } else {
+            for (int i = 0; i < batch.size(); i++) {
+              listener.retrying(batch.get(i), inputs.get(i), e, attempt);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static void tearDownAll(List<RunnableTask> runnableTasks) {
+    @Var RuntimeException failure = null;
+
+    for (RunnableTask runnableTask : runnableTasks) {
+      try {
+        runnableTask.tearDown();
+      } catch (RuntimeException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  static Map<String, Literal> runWithDiscovery(
+      ExecutionNode executionNode,
+      Map<String, Literal> inputs,
+      ExecutionListener listener,
+      Map<List<Object>, Map<String, Literal>> discoveredOutputs,
+      TaskPools pools) {
+    RunnableTask runnableTask = executionNode.runnableTask();
+
+    if (!runnableTask.isDiscoverable()) {
+      return runWithRetries(executionNode, inputs, listener, pools);
+    }
+
+    List<Object> key =
+        Arrays.asList(runnableTask.getName(), runnableTask.getDiscoveryVersion(), inputs);
+    Map<String, Literal> discovered = discoveredOutputs.get(key);
+
+    if (discovered != null) {
+      return discovered;
+    }
+
+    Map<String, Literal> outputs = runWithRetries(executionNode, inputs, listener, pools);
+    discoveredOutputs.put(key, outputs);
+
+    return outputs;
   }
 
   static Map<String, Literal> runWithRetries(
-      ExecutionNode executionNode, Map<String, Literal> inputs, ExecutionListener listener) {
+      ExecutionNode executionNode,
+      Map<String, Literal> inputs,
+      ExecutionListener listener,
+      TaskPools pools) {
     int attempts = executionNode.attempts();
     @Var int attempt = 0;
 
@@ -91,17 +394,24 @@ public class LocalEngine {
       throw new IllegalStateException("invariant failed: attempts > 0");
     }
 
-    while (true) {
-      try {
-        attempt++;
+    RunnableTask runnableTask = executionNode.runnableTask();
 
-        return executionNode.runnableTask().run(inputs);
-      } catch (Throwable e) {
-        if (!isRecoverable(e) || attempt > attempts) {
-          listener.error(executionNode, inputs, e);
-          throw e;
-        } else {
-          listener.retrying(executionNode, inputs, e, attempt);
+    // same as on Flyte, timeout includes retries, so all attempts share the same context,
+    // and retries get snapshot written to checkpoint by previous attempts
+    try (TaskContext context =
+        TaskContext.create(runnableTask, pools, Checkpoint.inMemory(), Clock.systemUTC())) {
+      while (true) {
+        try {
+          attempt++;
+
+          return context.call(() -> runnableTask.run(inputs));
+        } catch (Throwable e) {
+          if (!isRecoverable(e) || attempt > attempts) {
+            listener.error(executionNode, inputs, e);
+            throw e;
+          } else {
+            listener.retrying(executionNode, inputs, e, attempt);
+          }
         }
       }
     }
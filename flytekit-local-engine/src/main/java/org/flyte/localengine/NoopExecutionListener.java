@@ -30,6 +30,12 @@ public class NoopExecutionListener implements ExecutionListener {
   @Override
   public void pending(ExecutionNode node) {}
 
+  @Override
+  public void deduplicated(ExecutionNode node, ExecutionNode original) {}
+
+  @Override
+  public void pruned(ExecutionNode node) {}
+
   @Override
   public void retrying(ExecutionNode node, Map<String, Literal> inputs, Throwable e, int attempt) {}
 
@@ -17,8 +17,10 @@
 package org.flyte.localengine;
 
 import static org.flyte.localengine.TestingListener.ofCompleted;
+import static org.flyte.localengine.TestingListener.ofDeduplicated;
 import static org.flyte.localengine.TestingListener.ofError;
 import static org.flyte.localengine.TestingListener.ofPending;
+import static org.flyte.localengine.TestingListener.ofPruned;
 import static org.flyte.localengine.TestingListener.ofRetrying;
 import static org.flyte.localengine.TestingListener.ofStarting;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -53,6 +55,8 @@ public class ChainedExecutionListenerTest {
     Literal a = Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofInteger(42L)));
     Literal b = Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofInteger(1337L)));
 
+    chained.deduplicated(node, node);
+    chained.pruned(node);
     chained.pending(node);
     chained.starting(node, ImmutableMap.of("a", a));
     chained.retrying(node, ImmutableMap.of("a", a), new RuntimeException("oops"), /* attempt= */ 0);
@@ -60,12 +64,15 @@ public class ChainedExecutionListenerTest {
     chained.error(node, ImmutableMap.of("a", a), new RuntimeException("oops"));
 
     List<List<Object>> expected =
-        ImmutableList.of(
-            ofPending("node-1"),
-            ofStarting("node-1", ImmutableMap.of("a", a)),
-            ofRetrying("node-1", ImmutableMap.of("a", a), "oops", /* attempt= */ 0),
-            ofCompleted("node-1", ImmutableMap.of("a", a), ImmutableMap.of("b", b)),
-            ofError("node-1", ImmutableMap.of("a", a), "oops"));
+        ImmutableList.<List<Object>>builder()
+            .add(ofDeduplicated("node-1", "node-1"))
+            .add(ofPruned("node-1"))
+            .add(ofPending("node-1"))
+            .add(ofStarting("node-1", ImmutableMap.of("a", a)))
+            .add(ofRetrying("node-1", ImmutableMap.of("a", a), "oops", /* attempt= */ 0))
+            .add(ofCompleted("node-1", ImmutableMap.of("a", a), ImmutableMap.of("b", b)))
+            .add(ofError("node-1", ImmutableMap.of("a", a), "oops"))
+            .build();
 
     assertEquals(expected, listener1.actions);
     assertEquals(expected, listener2.actions);
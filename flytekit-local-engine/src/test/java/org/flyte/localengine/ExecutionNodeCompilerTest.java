@@ -30,8 +30,10 @@ import org.flyte.api.v1.Literal;
 import org.flyte.api.v1.Node;
 import org.flyte.api.v1.OutputReference;
 import org.flyte.api.v1.PartialTaskIdentifier;
+import org.flyte.api.v1.Primitive;
 import org.flyte.api.v1.RetryStrategy;
 import org.flyte.api.v1.RunnableTask;
+import org.flyte.api.v1.Scalar;
 import org.flyte.api.v1.TaskNode;
 import org.flyte.api.v1.TypedInterface;
 import org.junit.jupiter.api.Test;
@@ -194,6 +196,73 @@ class ExecutionNodeCompilerTest {
     assertEquals(ImmutableList.of("node-1", "node-2", "node-3"), execNode.upstreamNodeIds());
   }
 
+  @Test
+  void testOptimize() {
+    // a-1 and a-2 are the same, so are b-1 and b-2 once a-2 is replaced with a-1,
+    // c isn't used, and d has side effects
+
+    RunnableTask task = new EmptyRunnableTask(/* sideEffectFree= */ true);
+    BindingData one = BindingData.ofScalar(Scalar.ofPrimitive(Primitive.ofInteger(1L)));
+
+    ExecutionNode a1 = createExecutionNode("a-1", task, one, ImmutableList.of(START_NODE_ID));
+    ExecutionNode a2 = createExecutionNode("a-2", task, one, ImmutableList.of(START_NODE_ID));
+    ExecutionNode b1 = createExecutionNode("b-1", task, promise("a-1"), ImmutableList.of("a-1"));
+    ExecutionNode b2 = createExecutionNode("b-2", task, promise("a-2"), ImmutableList.of("a-2"));
+    ExecutionNode c = createExecutionNode("c", task, one, ImmutableList.of("a-2"));
+    ExecutionNode d =
+        createExecutionNode("d", new EmptyRunnableTask(), promise("a-2"), ImmutableList.of("a-2"));
+
+    TestingListener listener = new TestingListener();
+    ExecutionNodeCompiler.CompiledWorkflow compiled =
+        ExecutionNodeCompiler.optimize(
+            ImmutableList.of(a1, a2, b1, b2, c, d),
+            ImmutableList.of(Binding.builder().var_("x").binding(promise("b-2")).build()),
+            listener);
+
+    assertEquals(ImmutableList.of("a-1", "b-1", "d"), getNodeIds(compiled.executionNodes()));
+    assertEquals(
+        ImmutableList.of(Binding.builder().var_("x").binding(promise("b-1")).build()),
+        compiled.outputs());
+    assertEquals(
+        ImmutableList.of(Binding.builder().var_("x").binding(promise("a-1")).build()),
+        compiled.executionNodes().get(2).bindings());
+    assertEquals(
+        ImmutableList.of(
+            TestingListener.ofDeduplicated("a-2", "a-1"),
+            TestingListener.ofDeduplicated("b-2", "b-1"),
+            TestingListener.ofPruned("c")),
+        listener.actions);
+  }
+
+  @Test
+  void testOptimize_keepsNodesWithSideEffects() {
+    ExecutionNode node1 = createExecutionNode("node-1", ImmutableList.of(START_NODE_ID));
+    ExecutionNode node2 = createExecutionNode("node-2", ImmutableList.of(START_NODE_ID));
+
+    TestingListener listener = new TestingListener();
+    ExecutionNodeCompiler.CompiledWorkflow compiled =
+        ExecutionNodeCompiler.optimize(
+            ImmutableList.of(node1, node2), ImmutableList.of(), listener);
+
+    assertEquals(ImmutableList.of(node1, node2), compiled.executionNodes());
+    assertEquals(ImmutableList.of(), listener.actions);
+  }
+
+  private static BindingData promise(String nodeId) {
+    return BindingData.ofOutputReference(OutputReference.builder().nodeId(nodeId).var("c").build());
+  }
+
+  private static ExecutionNode createExecutionNode(
+      String nodeId, RunnableTask task, BindingData input, List<String> upstreamNodeIds) {
+    return ExecutionNode.builder()
+        .nodeId(nodeId)
+        .upstreamNodeIds(upstreamNodeIds)
+        .runnableTask(task)
+        .bindings(ImmutableList.of(Binding.builder().var_("x").binding(input).build()))
+        .attempts(1)
+        .build();
+  }
+
   private static List<String> getNodeIds(List<ExecutionNode> nodes) {
     return nodes.stream().map(ExecutionNode::nodeId).collect(toList());
   }
@@ -221,6 +290,15 @@ class ExecutionNodeCompilerTest {
   }
 
   private static class EmptyRunnableTask implements RunnableTask {
+    private final boolean sideEffectFree;
+
+    EmptyRunnableTask() {
+      this(/* sideEffectFree= */ false);
+    }
+
+    EmptyRunnableTask(boolean sideEffectFree) {
+      this.sideEffectFree = sideEffectFree;
+    }
 
     @Override
     public String getName() {
@@ -241,5 +319,10 @@ class ExecutionNodeCompilerTest {
     public RetryStrategy getRetries() {
       return RetryStrategy.builder().retries(0).build();
     }
+
+    @Override
+    public boolean isSideEffectFree() {
+      return sideEffectFree;
+    }
   }
 }
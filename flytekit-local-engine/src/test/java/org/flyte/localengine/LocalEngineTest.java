@@ -38,6 +38,8 @@ import org.flyte.api.v1.TaskIdentifier;
 import org.flyte.api.v1.WorkflowIdentifier;
 import org.flyte.api.v1.WorkflowTemplate;
 import org.flyte.api.v1.WorkflowTemplateRegistrar;
+import org.flyte.localengine.examples.BatchSumTask;
+import org.flyte.localengine.examples.BatchSumWorkflow;
 import org.flyte.localengine.examples.FibonacciWorkflow;
 import org.flyte.localengine.examples.ListWorkflow;
 import org.flyte.localengine.examples.MapWorkflow;
@@ -203,6 +205,37 @@ class LocalEngineTest {
     }
   }
 
+  @Test
+  public void testBatchTask() {
+    String workflowName = new BatchSumWorkflow().getName();
+
+    Map<String, WorkflowTemplate> workflows = loadWorkflows();
+    Map<String, RunnableTask> tasks = loadTasks();
+    WorkflowTemplate workflow = workflows.get(workflowName);
+
+    TestingListener listener = new TestingListener();
+
+    // make sure we don't run two tests in parallel
+    synchronized (BatchSumTask.class) {
+      BatchSumTask.BATCH_SIZES.clear();
+
+      Map<String, Literal> outputs =
+          LocalEngine.compileAndExecute(workflow, tasks, ImmutableMap.of(), listener);
+
+      Literal i3 = Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofInteger(3)));
+      Literal i7 = Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofInteger(7)));
+      Literal i11 = Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofInteger(11)));
+      Literal i10 = Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofInteger(10)));
+
+      // sum-4 is ready once sum-1 and sum-2 complete, so it runs together with sum-3
+      assertEquals(ImmutableMap.of("c3", i11, "c4", i10), outputs);
+      assertEquals(ImmutableList.of(2, 2), BatchSumTask.BATCH_SIZES);
+      assertEquals(
+          ofCompleted("sum-4", ImmutableMap.of("a", i3, "b", i7), ImmutableMap.of("c", i10)),
+          listener.actions.get(listener.actions.size() - 1));
+    }
+  }
+
   private static Map<String, WorkflowTemplate> loadWorkflows() {
     Map<String, String> env =
         ImmutableMap.of(
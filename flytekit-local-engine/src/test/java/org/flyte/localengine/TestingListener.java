@@ -29,6 +29,16 @@ public class TestingListener implements ExecutionListener {
     actions.add(ofPending(node.nodeId()));
   }
 
+  @Override
+  public void deduplicated(ExecutionNode node, ExecutionNode original) {
+    actions.add(ofDeduplicated(node.nodeId(), original.nodeId()));
+  }
+
+  @Override
+  public void pruned(ExecutionNode node) {
+    actions.add(ofPruned(node.nodeId()));
+  }
+
   @Override
   public void retrying(ExecutionNode node, Map<String, Literal> inputs, Throwable e, int attempt) {
     actions.add(ofRetrying(node.nodeId(), inputs, e.getMessage(), attempt));
@@ -73,4 +83,12 @@ public class TestingListener implements ExecutionListener {
   static List<Object> ofPending(String nodeId) {
     return ImmutableList.of("pending", nodeId);
   }
+
+  static List<Object> ofDeduplicated(String nodeId, String originalNodeId) {
+    return ImmutableList.of("deduplicated", nodeId, originalNodeId);
+  }
+
+  static List<Object> ofPruned(String nodeId) {
+    return ImmutableList.of("pruned", nodeId);
+  }
 }
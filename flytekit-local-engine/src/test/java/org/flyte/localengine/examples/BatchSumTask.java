@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.localengine.examples;
+
+import static java.util.stream.Collectors.toList;
+
+import com.google.auto.service.AutoService;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.flyte.flytekit.SdkBatchRunnableTask;
+import org.flyte.flytekit.SdkRunnableTask;
+import org.flyte.flytekit.jackson.JacksonSdkType;
+
+/** Used to test batching. Shares global list of batch sizes that only works in testing mode. */
+@AutoService(SdkRunnableTask.class)
+public class BatchSumTask extends SdkBatchRunnableTask<SumTask.SumInput, SumTask.SumOutput> {
+  private static final long serialVersionUID = 0L;
+
+  public static final List<Integer> BATCH_SIZES = new CopyOnWriteArrayList<>();
+
+  public BatchSumTask() {
+    super(JacksonSdkType.of(SumTask.SumInput.class), JacksonSdkType.of(SumTask.SumOutput.class));
+  }
+
+  @Override
+  public int getMaxBatchSize() {
+    return 2;
+  }
+
+  @Override
+  public List<SumTask.SumOutput> runBatch(List<SumTask.SumInput> inputs) {
+    BATCH_SIZES.add(inputs.size());
+
+    return inputs.stream()
+        .map(input -> SumTask.SumOutput.create(input.a() + input.b()))
+        .collect(toList());
+  }
+}
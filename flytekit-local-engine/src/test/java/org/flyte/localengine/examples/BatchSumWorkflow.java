@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.localengine.examples;
+
+import com.google.auto.service.AutoService;
+import org.flyte.flytekit.SdkNode;
+import org.flyte.flytekit.SdkWorkflow;
+import org.flyte.flytekit.SdkWorkflowBuilder;
+
+@AutoService(SdkWorkflow.class)
+public class BatchSumWorkflow extends SdkWorkflow {
+  @Override
+  public void expand(SdkWorkflowBuilder builder) {
+    SdkNode sum1 = builder.apply("sum-1", new BatchSumTask().withInput("a", 1).withInput("b", 2));
+    SdkNode sum2 = builder.apply("sum-2", new BatchSumTask().withInput("a", 3).withInput("b", 4));
+    SdkNode sum3 = builder.apply("sum-3", new BatchSumTask().withInput("a", 5).withInput("b", 6));
+    SdkNode sum4 =
+        builder.apply(
+            "sum-4",
+            new BatchSumTask()
+                .withInput("a", sum1.getOutput("c"))
+                .withInput("b", sum2.getOutput("c")));
+
+    builder.output("c3", sum3.getOutput("c"));
+    builder.output("c4", sum4.getOutput("c"));
+  }
+}
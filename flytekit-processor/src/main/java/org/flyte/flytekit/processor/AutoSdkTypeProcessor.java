@@ -0,0 +1,456 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.flytekit.processor;
+
+import com.google.auto.service.AutoService;
+import com.google.errorprone.annotations.Var;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates {@code SdkType} implementations for classes annotated with {@code
+ * org.flyte.flytekit.AutoSdkType}. Generated code doesn't use reflection, it calls getters and
+ * factory methods directly.
+ */
+@AutoService(Processor.class)
+public class AutoSdkTypeProcessor extends AbstractProcessor {
+  // referenced by name, so processor path doesn't need flytekit-java
+  static final String ANNOTATION = "org.flyte.flytekit.AutoSdkType";
+
+  static final String PREFIX = "AutoSdkType_";
+
+  private static final String AUTO_VALUE_BUILDER = "com.google.auto.value.AutoValue.Builder";
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton(ANNOTATION);
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        try {
+          generate((TypeElement) element);
+        } catch (ProcessingException e) {
+          processingEnv
+              .getMessager()
+              .printMessage(Diagnostic.Kind.ERROR, e.getMessage(), e.element);
+        }
+      }
+    }
+
+    return false;
+  }
+
+  private void generate(TypeElement type) {
+    if (!type.getTypeParameters().isEmpty()) {
+      throw new ProcessingException(type, "@AutoSdkType doesn't support generic types");
+    }
+
+    // ElementKind.RECORD doesn't exist in Java 8, that we compile with
+    boolean isRecord = type.getKind().name().equals("RECORD");
+
+    if (!isRecord && !type.getModifiers().contains(Modifier.ABSTRACT)) {
+      throw new ProcessingException(
+          type, "@AutoSdkType is only supported for AutoValue classes and records");
+    }
+
+    if (isRecord) {
+      writeSource(type, recordProperties(type), "new " + type.getQualifiedName());
+    } else {
+      Map<String, Property> properties = getterProperties(type);
+      ExecutableElement factory = findFactory(type, properties);
+
+      // arguments are passed in the order of factory parameters
+      Map<String, Property> ordered = new LinkedHashMap<>();
+      for (VariableElement parameter : factory.getParameters()) {
+        String name = parameter.getSimpleName().toString();
+        ordered.put(name, properties.get(name));
+      }
+
+      writeSource(type, ordered, type.getQualifiedName() + "." + factory.getSimpleName());
+    }
+  }
+
+  private Map<String, Property> recordProperties(TypeElement type) {
+    Map<String, Property> properties = new LinkedHashMap<>();
+
+    // record components are backed by private final fields declared in the same order
+    for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+      if (!field.getModifiers().contains(Modifier.STATIC)) {
+        String name = field.getSimpleName().toString();
+
+        properties.put(name, new Property(name + "()", field.asType(), propertyType(field)));
+      }
+    }
+
+    return properties;
+  }
+
+  private Map<String, Property> getterProperties(TypeElement type) {
+    List<ExecutableElement> getters =
+        ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type)).stream()
+            .filter(method -> method.getModifiers().contains(Modifier.ABSTRACT))
+            .filter(method -> method.getParameters().isEmpty())
+            .filter(method -> method.getReturnType().getKind() != TypeKind.VOID)
+            .filter(method -> !isObjectMethod(method))
+            .filter(method -> !isToBuilder(method))
+            .collect(Collectors.toList());
+
+    // same as in AutoValue, prefixes are only removed if all getters have them
+    boolean allPrefixed =
+        getters.stream().allMatch(method -> stripPrefix(method.getSimpleName().toString()) != null);
+
+    Map<String, Property> properties = new LinkedHashMap<>();
+
+    for (ExecutableElement getter : getters) {
+      String methodName = getter.getSimpleName().toString();
+      String name = allPrefixed ? stripPrefix(methodName) : methodName;
+
+      properties.put(
+          name, new Property(methodName + "()", getter.getReturnType(), propertyType(getter)));
+    }
+
+    return properties;
+  }
+
+  private ExecutableElement findFactory(TypeElement type, Map<String, Property> properties) {
+    for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+      if (method.getModifiers().contains(Modifier.STATIC)
+          && !method.getModifiers().contains(Modifier.PRIVATE)
+          && processingEnv.getTypeUtils().isSameType(method.getReturnType(), type.asType())
+          && matchesProperties(method.getParameters(), properties)) {
+        return method;
+      }
+    }
+
+    throw new ProcessingException(
+        type,
+        String.format(
+            "Can't find static factory method with parameters %s, make sure it exists, "
+                + "and parameters are named after properties",
+            properties.keySet()));
+  }
+
+  private boolean matchesProperties(
+      List<? extends VariableElement> parameters, Map<String, Property> properties) {
+    if (parameters.size() != properties.size()) {
+      return false;
+    }
+
+    for (VariableElement parameter : parameters) {
+      Property property = properties.get(parameter.getSimpleName().toString());
+
+      if (property == null
+          || !processingEnv.getTypeUtils().isSameType(parameter.asType(), property.javaType)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private PropertyType propertyType(Element element) {
+    TypeMirror type =
+        element.getKind() == ElementKind.METHOD
+            ? ((ExecutableElement) element).getReturnType()
+            : element.asType();
+    PropertyType propertyType = propertyType(type);
+
+    if (propertyType == null) {
+      throw new ProcessingException(
+          element,
+          String.format("Unsupported type [%s] of property [%s]", type, element.getSimpleName()));
+    }
+
+    return propertyType;
+  }
+
+  @Nullable
+  private static PropertyType propertyType(TypeMirror type) {
+    switch (type.getKind()) {
+      case LONG:
+        return PropertyType.simple("INTEGER", "ofInteger", "integer");
+      case DOUBLE:
+        return PropertyType.simple("FLOAT", "ofFloat", "float_");
+      case BOOLEAN:
+        return PropertyType.simple("BOOLEAN", "ofBoolean", "boolean_");
+      case DECLARED:
+        return declaredPropertyType((DeclaredType) type);
+      default:
+        return null;
+    }
+  }
+
+  @Nullable
+  private static PropertyType declaredPropertyType(DeclaredType type) {
+    String name = ((TypeElement) type.asElement()).getQualifiedName().toString();
+    List<? extends TypeMirror> arguments = type.getTypeArguments();
+
+    switch (name) {
+      case "java.lang.Long":
+        return PropertyType.simple("INTEGER", "ofInteger", "integer");
+      case "java.lang.Double":
+        return PropertyType.simple("FLOAT", "ofFloat", "float_");
+      case "java.lang.Boolean":
+        return PropertyType.simple("BOOLEAN", "ofBoolean", "boolean_");
+      case "java.lang.String":
+        return PropertyType.simple("STRING", "ofString", "string");
+      case "java.time.Instant":
+        return PropertyType.simple("DATETIME", "ofDatetime", "datetime");
+      case "java.time.Duration":
+        return PropertyType.simple("DURATION", "ofDuration", "duration");
+      case "java.util.List":
+        {
+          PropertyType elementType = boxedPropertyType(arguments.get(0));
+
+          return elementType == null ? null : PropertyType.collection(elementType);
+        }
+      case "java.util.Map":
+        {
+          if (!arguments.get(0).toString().equals("java.lang.String")) {
+            return null;
+          }
+
+          PropertyType valueType = boxedPropertyType(arguments.get(1));
+
+          return valueType == null ? null : PropertyType.map(valueType);
+        }
+      default:
+        return null;
+    }
+  }
+
+  @Nullable
+  private static PropertyType boxedPropertyType(TypeMirror type) {
+    // raw types and wildcards aren't supported
+    return type.getKind() == TypeKind.DECLARED ? declaredPropertyType((DeclaredType) type) : null;
+  }
+
+  private void writeSource(TypeElement type, Map<String, Property> properties, String creator) {
+    PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+    String packageName = packageElement.getQualifiedName().toString();
+    String className = generatedClassName(type);
+    String typeName = type.getQualifiedName().toString();
+
+    List<String> lines = new ArrayList<>();
+    if (!packageElement.isUnnamed()) {
+      lines.add("package " + packageName + ";");
+      lines.add("");
+    }
+    lines.add("/** Generated by {@code " + AutoSdkTypeProcessor.class.getName() + "}. */");
+    String generated = generatedAnnotation();
+    if (generated != null) {
+      lines.add("@" + generated + "(\"" + AutoSdkTypeProcessor.class.getName() + "\")");
+    }
+    lines.add(
+        "final class " + className + " extends org.flyte.flytekit.SdkType<" + typeName + "> {");
+    lines.add(
+        "  private static final java.util.Map<String, org.flyte.api.v1.Variable> VARIABLES =");
+    lines.add("      createVariableMap();");
+    lines.add("");
+    lines.add("  @Override");
+    lines.add("  public java.util.Map<String, org.flyte.api.v1.Literal> toLiteralMap(");
+    lines.add("      " + typeName + " value) {");
+    lines.add("    java.util.Map<String, org.flyte.api.v1.Literal> literalMap =");
+    lines.add("        new java.util.HashMap<>();");
+    properties.forEach(
+        (name, property) ->
+            lines.add(
+                String.format(
+                    "    literalMap.put(\"%s\", %s);",
+                    name, property.type.toLiteral("value." + property.accessor, 0))));
+    lines.add("    return java.util.Collections.unmodifiableMap(literalMap);");
+    lines.add("  }");
+    lines.add("");
+    lines.add("  @Override");
+    lines.add("  public " + typeName + " fromLiteralMap(");
+    lines.add("      java.util.Map<String, org.flyte.api.v1.Literal> value) {");
+    lines.add("    return " + creator + "(");
+    lines.add(
+        properties.entrySet().stream()
+            .map(
+                entry ->
+                    "        "
+                        + entry
+                            .getValue()
+                            .type
+                            .fromLiteral("get(value, \"" + entry.getKey() + "\")", 0))
+            .collect(Collectors.joining(",\n")));
+    lines.add("    );");
+    lines.add("  }");
+    lines.add("");
+    lines.add("  @Override");
+    lines.add("  public java.util.Map<String, org.flyte.api.v1.Variable> getVariableMap() {");
+    lines.add("    return VARIABLES;");
+    lines.add("  }");
+    lines.add("");
+    lines.add(
+        "  private static java.util.Map<String, org.flyte.api.v1.Variable> createVariableMap() {");
+    lines.add("    java.util.Map<String, org.flyte.api.v1.Variable> variableMap =");
+    lines.add("        new java.util.HashMap<>();");
+    properties.forEach(
+        (name, property) ->
+            lines.add(
+                String.format(
+                    "    variableMap.put(\"%s\", org.flyte.api.v1.Variable.builder()"
+                        + ".literalType(%s).description(\"\").build());",
+                    name, property.type.literalType())));
+    lines.add("    return java.util.Collections.unmodifiableMap(variableMap);");
+    lines.add("  }");
+    lines.add("");
+    lines.add("  private static org.flyte.api.v1.Literal get(");
+    lines.add("      java.util.Map<String, org.flyte.api.v1.Literal> literalMap, String name) {");
+    lines.add("    org.flyte.api.v1.Literal literal = literalMap.get(name);");
+    lines.add("    if (literal == null) {");
+    lines.add("      throw new IllegalArgumentException(\"Missing literal [\" + name + \"]\");");
+    lines.add("    }");
+    lines.add("    return literal;");
+    lines.add("  }");
+    lines.add("}");
+
+    String qualifiedName = packageElement.isUnnamed() ? className : packageName + "." + className;
+
+    try (Writer writer =
+        processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+      writer.write(String.join("\n", lines));
+      writer.write("\n");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static String generatedClassName(TypeElement type) {
+    // same as AutoValue, nested classes are joined with underscore
+    StringBuilder name = new StringBuilder(type.getSimpleName());
+    @Var Element enclosing = type.getEnclosingElement();
+
+    while (enclosing instanceof TypeElement) {
+      name.insert(0, enclosing.getSimpleName() + "_");
+      enclosing = enclosing.getEnclosingElement();
+    }
+
+    return PREFIX + name;
+  }
+
+  @Nullable
+  private static String stripPrefix(String methodName) {
+    for (String prefix : new String[] {"get", "is"}) {
+      if (methodName.length() > prefix.length()
+          && methodName.startsWith(prefix)
+          && Character.isUpperCase(methodName.charAt(prefix.length()))) {
+        String name = methodName.substring(prefix.length());
+
+        return name.substring(0, 1).toLowerCase(Locale.ROOT) + name.substring(1);
+      }
+    }
+
+    return null;
+  }
+
+  // same as AutoValue, uses annotation available in the target version of Java
+  @Nullable
+  private String generatedAnnotation() {
+    for (String name :
+        new String[] {"javax.annotation.processing.Generated", "javax.annotation.Generated"}) {
+      if (processingEnv.getElementUtils().getTypeElement(name) != null) {
+        return name;
+      }
+    }
+
+    return null;
+  }
+
+  // AutoValue classes can have abstract toBuilder methods, they aren't properties
+  private static boolean isToBuilder(ExecutableElement method) {
+    TypeMirror returnType = method.getReturnType();
+
+    if (returnType.getKind() != TypeKind.DECLARED) {
+      return false;
+    }
+
+    return ((DeclaredType) returnType)
+        .asElement().getAnnotationMirrors().stream()
+            .anyMatch(
+                annotation ->
+                    ((TypeElement) annotation.getAnnotationType().asElement())
+                        .getQualifiedName()
+                        .contentEquals(AUTO_VALUE_BUILDER));
+  }
+
+  private static boolean isObjectMethod(ExecutableElement method) {
+    String name = method.getSimpleName().toString();
+
+    return name.equals("toString") || name.equals("hashCode");
+  }
+
+  private static class Property {
+    private final String accessor;
+    private final TypeMirror javaType;
+    private final PropertyType type;
+
+    private Property(String accessor, TypeMirror javaType, PropertyType type) {
+      this.accessor = accessor;
+      this.javaType = javaType;
+      this.type = type;
+    }
+  }
+
+  private static class ProcessingException extends RuntimeException {
+    private static final long serialVersionUID = 0L;
+
+    private final transient Element element;
+
+    private ProcessingException(Element element, String message) {
+      super(message);
+
+      this.element = element;
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.flytekit.processor;
+
+/**
+ * Type of property supported by {@link AutoSdkTypeProcessor}, knows how to generate code that
+ * converts values of this type to and from literals.
+ */
+abstract class PropertyType {
+  private static final String LITERAL = "org.flyte.api.v1.Literal";
+  private static final String LITERAL_TYPE = "org.flyte.api.v1.LiteralType";
+
+  /**
+   * Returns expression creating {@code LiteralType}.
+   *
+   * @return expression
+   */
+  abstract String literalType();
+
+  /**
+   * Returns expression converting value into {@code Literal}.
+   *
+   * @param value expression of value
+   * @param depth nesting level, used to name lambda parameters
+   * @return expression
+   */
+  abstract String toLiteral(String value, int depth);
+
+  /**
+   * Returns expression converting {@code Literal} into value.
+   *
+   * @param literal expression of literal
+   * @param depth nesting level, used to name lambda parameters
+   * @return expression
+   */
+  abstract String fromLiteral(String literal, int depth);
+
+  static PropertyType simple(String simpleType, String factory, String getter) {
+    return new PropertyType() {
+      @Override
+      String literalType() {
+        return LITERAL_TYPE + ".ofSimpleType(org.flyte.api.v1.SimpleType." + simpleType + ")";
+      }
+
+      @Override
+      String toLiteral(String value, int depth) {
+        return String.format(
+            "%s.ofScalar(org.flyte.api.v1.Scalar.ofPrimitive(org.flyte.api.v1.Primitive.%s(%s)))",
+            LITERAL, factory, value);
+      }
+
+      @Override
+      String fromLiteral(String literal, int depth) {
+        return String.format("%s.scalar().primitive().%s()", literal, getter);
+      }
+    };
+  }
+
+  static PropertyType collection(PropertyType elementType) {
+    return new PropertyType() {
+      @Override
+      String literalType() {
+        return LITERAL_TYPE + ".ofCollectionType(" + elementType.literalType() + ")";
+      }
+
+      @Override
+      String toLiteral(String value, int depth) {
+        String element = "v" + depth;
+
+        return String.format(
+            "%s.ofCollection(%s.stream().map(%s -> %s).collect(java.util.stream.Collectors.toList()))",
+            LITERAL, value, element, elementType.toLiteral(element, depth + 1));
+      }
+
+      @Override
+      String fromLiteral(String literal, int depth) {
+        String element = "v" + depth;
+
+        return String.format(
+            "%s.collection().stream().map(%s -> %s).collect(java.util.stream.Collectors.toList())",
+            literal, element, elementType.fromLiteral(element, depth + 1));
+      }
+    };
+  }
+
+  static PropertyType map(PropertyType valueType) {
+    return new PropertyType() {
+      @Override
+      String literalType() {
+        return LITERAL_TYPE + ".ofMapValueType(" + valueType.literalType() + ")";
+      }
+
+      @Override
+      String toLiteral(String value, int depth) {
+        String entry = "v" + depth;
+
+        return String.format(
+            "%s.ofMap(%s.entrySet().stream().collect(java.util.stream.Collectors.toMap("
+                + "java.util.Map.Entry::getKey, %s -> %s)))",
+            LITERAL, value, entry, valueType.toLiteral(entry + ".getValue()", depth + 1));
+      }
+
+      @Override
+      String fromLiteral(String literal, int depth) {
+        String entry = "v" + depth;
+
+        return String.format(
+            "%s.map().entrySet().stream().collect(java.util.stream.Collectors.toMap("
+                + "java.util.Map.Entry::getKey, %s -> %s))",
+            literal, entry, valueType.fromLiteral(entry + ".getValue()", depth + 1));
+      }
+    };
+  }
+}
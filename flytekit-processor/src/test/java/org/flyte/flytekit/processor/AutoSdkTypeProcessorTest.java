@@ -0,0 +1,308 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.flytekit.processor;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.auto.value.AutoValue;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import org.flyte.api.v1.Literal;
+import org.flyte.api.v1.LiteralType;
+import org.flyte.api.v1.Primitive;
+import org.flyte.api.v1.Scalar;
+import org.flyte.api.v1.SimpleType;
+import org.flyte.api.v1.Variable;
+import org.flyte.flytekit.SdkType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AutoSdkTypeProcessorTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void testGeneratesSdkType() throws Exception {
+    String source =
+        String.join(
+            "\n",
+            "package example;",
+            "",
+            "import java.time.Instant;",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "import org.flyte.flytekit.AutoSdkType;",
+            "import org.flyte.flytekit.SdkType;",
+            "",
+            "@AutoSdkType",
+            "public abstract class Input {",
+            "  public abstract long getI();",
+            "  public abstract String getS();",
+            "  public abstract Instant getT();",
+            "  public abstract List<Double> getL();",
+            "  public abstract Map<String, List<Boolean>> getM();",
+            "",
+            "  static Input create(Map<String, List<Boolean>> m, long i, String s, Instant t,",
+            "      List<Double> l) {",
+            "    return new Input() {",
+            "      public long getI() { return i; }",
+            "      public String getS() { return s; }",
+            "      public Instant getT() { return t; }",
+            "      public List<Double> getL() { return l; }",
+            "      public Map<String, List<Boolean>> getM() { return m; }",
+            "    };",
+            "  }",
+            "",
+            "  public static SdkType<Input> sdkType() {",
+            "    return new AutoSdkType_Input();",
+            "  }",
+            "}");
+
+    Result result = compile("Input.java", source);
+    assertTrue(result.success, result.diagnostics.toString());
+
+    SdkType<Object> sdkType = result.sdkType("example.Input");
+
+    Map<String, Variable> expectedVariables = new HashMap<>();
+    expectedVariables.put("i", variable(LiteralType.ofSimpleType(SimpleType.INTEGER)));
+    expectedVariables.put("s", variable(LiteralType.ofSimpleType(SimpleType.STRING)));
+    expectedVariables.put("t", variable(LiteralType.ofSimpleType(SimpleType.DATETIME)));
+    expectedVariables.put(
+        "l", variable(LiteralType.ofCollectionType(LiteralType.ofSimpleType(SimpleType.FLOAT))));
+    expectedVariables.put(
+        "m",
+        variable(
+            LiteralType.ofMapValueType(
+                LiteralType.ofCollectionType(LiteralType.ofSimpleType(SimpleType.BOOLEAN)))));
+
+    Map<String, Literal> literalMap = new HashMap<>();
+    literalMap.put("i", literalOf(Primitive.ofInteger(42L)));
+    literalMap.put("s", literalOf(Primitive.ofString("foo")));
+    literalMap.put("t", literalOf(Primitive.ofDatetime(Instant.ofEpochSecond(42, 1))));
+    literalMap.put(
+        "l",
+        Literal.ofCollection(
+            asList(literalOf(Primitive.ofFloat(1.0)), literalOf(Primitive.ofFloat(2.0)))));
+    literalMap.put(
+        "m",
+        Literal.ofMap(
+            singletonMap(
+                "bar", Literal.ofCollection(singletonList(literalOf(Primitive.ofBoolean(true)))))));
+
+    assertThat(sdkType.getVariableMap(), equalTo(expectedVariables));
+    assertThat(sdkType.toLiteralMap(sdkType.fromLiteralMap(literalMap)), equalTo(literalMap));
+  }
+
+  @Test
+  void testSkipsToBuilder() throws Exception {
+    String source =
+        String.join(
+            "\n",
+            "package example;",
+            "",
+            "import com.google.auto.value.AutoValue;",
+            "import org.flyte.flytekit.AutoSdkType;",
+            "import org.flyte.flytekit.SdkType;",
+            "",
+            "@AutoSdkType",
+            "public abstract class Input {",
+            "  public abstract String x();",
+            "",
+            "  abstract Builder toBuilder();",
+            "",
+            "  static Input create(String x) {",
+            "    return new Input() {",
+            "      public String x() { return x; }",
+            "      Builder toBuilder() { return null; }",
+            "    };",
+            "  }",
+            "",
+            "  public static SdkType<Input> sdkType() {",
+            "    return new AutoSdkType_Input();",
+            "  }",
+            "",
+            "  @AutoValue.Builder",
+            "  abstract static class Builder {",
+            "    abstract Builder x(String x);",
+            "",
+            "    abstract Input build();",
+            "  }",
+            "}");
+
+    Result result = compile("Input.java", source);
+    assertTrue(result.success, result.diagnostics.toString());
+
+    SdkType<Object> sdkType = result.sdkType("example.Input");
+    String generated =
+        new String(
+            Files.readAllBytes(tempDir.resolve("generated/example/AutoSdkType_Input.java")),
+            StandardCharsets.UTF_8);
+
+    assertThat(
+        sdkType.getVariableMap(),
+        equalTo(singletonMap("x", variable(LiteralType.ofSimpleType(SimpleType.STRING)))));
+    assertThat(
+        generated, containsString("Generated(\"" + AutoSdkTypeProcessor.class.getName() + "\")"));
+  }
+
+  @Test
+  void testUnsupportedType() throws IOException {
+    String source =
+        String.join(
+            "\n",
+            "package example;",
+            "",
+            "@org.flyte.flytekit.AutoSdkType",
+            "public abstract class Input {",
+            "  public abstract Object x();",
+            "}");
+
+    Result result = compile("Input.java", source);
+
+    assertThat(result.success, equalTo(false));
+    assertThat(
+        result.diagnostics.toString(),
+        containsString("Unsupported type [java.lang.Object] of property [x]"));
+  }
+
+  @Test
+  void testMissingFactory() throws IOException {
+    String source =
+        String.join(
+            "\n",
+            "package example;",
+            "",
+            "@org.flyte.flytekit.AutoSdkType",
+            "public abstract class Input {",
+            "  public abstract String x();",
+            "",
+            "  static Input create(String y) {",
+            "    return null;",
+            "  }",
+            "}");
+
+    Result result = compile("Input.java", source);
+
+    assertThat(result.success, equalTo(false));
+    assertThat(
+        result.diagnostics.toString(),
+        containsString("Can't find static factory method with parameters [x]"));
+  }
+
+  private Result compile(String fileName, String source) throws IOException {
+    // javac doesn't require source files to be in directories matching packages
+    Path sourceFile = Files.createDirectories(tempDir.resolve("src")).resolve(fileName);
+    Path classes = Files.createDirectories(tempDir.resolve("classes"));
+    Files.write(sourceFile, source.getBytes(StandardCharsets.UTF_8));
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+      fileManager.setLocation(StandardLocation.CLASS_OUTPUT, singletonList(classes.toFile()));
+      fileManager.setLocation(
+          StandardLocation.SOURCE_OUTPUT,
+          singletonList(Files.createDirectories(tempDir.resolve("generated")).toFile()));
+      fileManager.setLocation(
+          StandardLocation.CLASS_PATH,
+          asList(location(SdkType.class), location(Literal.class), location(AutoValue.class)));
+
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(
+              /* out= */ null,
+              fileManager,
+              diagnostics,
+              /* options= */ null,
+              /* classes= */ null,
+              fileManager.getJavaFileObjects(sourceFile.toFile()));
+      task.setProcessors(singletonList(new AutoSdkTypeProcessor()));
+
+      boolean success = task.call();
+
+      List<String> messages =
+          diagnostics.getDiagnostics().stream()
+              .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+              .map(diagnostic -> diagnostic.getMessage(/* locale= */ null))
+              .collect(Collectors.toList());
+
+      return new Result(success, messages, classes);
+    }
+  }
+
+  private static File location(Class<?> clazz) {
+    try {
+      return Paths.get(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).toFile();
+    } catch (URISyntaxException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  private static Variable variable(LiteralType literalType) {
+    return Variable.builder().literalType(literalType).description("").build();
+  }
+
+  private static Literal literalOf(Primitive primitive) {
+    return Literal.ofScalar(Scalar.ofPrimitive(primitive));
+  }
+
+  private static class Result {
+    private final boolean success;
+    private final List<String> diagnostics;
+    private final Path classes;
+
+    private Result(boolean success, List<String> diagnostics, Path classes) {
+      this.success = success;
+      this.diagnostics = diagnostics;
+      this.classes = classes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private SdkType<Object> sdkType(String className) throws Exception {
+      URLClassLoader classLoader =
+          new URLClassLoader(
+              new URL[] {classes.toUri().toURL()}, AutoSdkTypeProcessorTest.class.getClassLoader());
+
+      return (SdkType<Object>) classLoader.loadClass(className).getMethod("sdkType").invoke(null);
+    }
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.flytekit.protobuf;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.flyte.api.v1.Literal;
+import org.flyte.api.v1.LiteralType;
+
+/**
+ * Reads protobuf message field as {@link Literal}, and sets it back using field descriptor. Single,
+ * repeated and map fields are supported, map fields must have string keys.
+ */
+abstract class FieldConverter {
+  final FieldDescriptor field;
+
+  private FieldConverter(FieldDescriptor field) {
+    this.field = field;
+  }
+
+  String name() {
+    return field.getName();
+  }
+
+  abstract LiteralType literalType();
+
+  abstract Literal get(Message message);
+
+  abstract void set(Message.Builder builder, Literal literal);
+
+  /**
+   * Creates converter for a field of a message.
+   *
+   * @param field field descriptor
+   * @param prototype default instance of message containing the field
+   * @return converter
+   */
+  static FieldConverter create(FieldDescriptor field, Message prototype) {
+    if (field.getContainingOneof() != null) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Unsupported field [%s] of oneof [%s], oneof fields aren't supported",
+              field.getFullName(), field.getContainingOneof().getName()));
+    }
+
+    if (field.isMapField()) {
+      return new MapFieldConverter(field, prototype);
+    }
+
+    ValueConverter valueConverter = ValueConverter.create(field, fieldPrototype(prototype, field));
+
+    if (field.isRepeated()) {
+      return new RepeatedFieldConverter(field, valueConverter);
+    }
+
+    return new SingleFieldConverter(field, valueConverter);
+  }
+
+  // default instance of field message type, or null if field isn't a message
+  @Nullable
+  private static Message fieldPrototype(Message prototype, FieldDescriptor field) {
+    if (field.getJavaType() != FieldDescriptor.JavaType.MESSAGE) {
+      return null;
+    }
+
+    return prototype.newBuilderForType().newBuilderForField(field).getDefaultInstanceForType();
+  }
+
+  private static class SingleFieldConverter extends FieldConverter {
+    private final ValueConverter valueConverter;
+
+    SingleFieldConverter(FieldDescriptor field, ValueConverter valueConverter) {
+      super(field);
+
+      this.valueConverter = valueConverter;
+    }
+
+    @Override
+    LiteralType literalType() {
+      return valueConverter.literalType();
+    }
+
+    @Override
+    Literal get(Message message) {
+      return valueConverter.toLiteral(message.getField(field));
+    }
+
+    @Override
+    void set(Message.Builder builder, Literal literal) {
+      builder.setField(field, valueConverter.fromLiteral(literal));
+    }
+  }
+
+  private static class RepeatedFieldConverter extends FieldConverter {
+    private final ValueConverter valueConverter;
+    private final LiteralType literalType;
+
+    RepeatedFieldConverter(FieldDescriptor field, ValueConverter valueConverter) {
+      super(field);
+
+      this.valueConverter = valueConverter;
+      this.literalType = LiteralType.ofCollectionType(valueConverter.literalType());
+    }
+
+    @Override
+    LiteralType literalType() {
+      return literalType;
+    }
+
+    @Override
+    Literal get(Message message) {
+      List<?> values = (List<?>) message.getField(field);
+
+      // numbers and booleans are packed into arrays, without creating literal per element
+      switch (field.getJavaType()) {
+        case LONG:
+          long[] longs = new long[values.size()];
+          for (int i = 0; i < longs.length; i++) {
+            longs[i] = (Long) values.get(i);
+          }
+          return Literal.ofIntegerCollection(longs);
+
+        case DOUBLE:
+        case FLOAT:
+          double[] doubles = new double[values.size()];
+          for (int i = 0; i < doubles.length; i++) {
+            doubles[i] = ((Number) values.get(i)).doubleValue();
+          }
+          return Literal.ofFloatCollection(doubles);
+
+        case BOOLEAN:
+          BitSet booleans = new BitSet(values.size());
+          for (int i = 0; i < values.size(); i++) {
+            booleans.set(i, (Boolean) values.get(i));
+          }
+          return Literal.ofBooleanCollection(booleans, values.size());
+
+        default:
+          List<Literal> literals = new ArrayList<>(values.size());
+          for (Object value : values) {
+            literals.add(valueConverter.toLiteral(value));
+          }
+          return Literal.ofCollection(literals);
+      }
+    }
+
+    @Override
+    void set(Message.Builder builder, Literal literal) {
+      List<Literal> literals = literal.collection();
+      List<Object> values = new ArrayList<>(literals.size());
+
+      for (Literal element : literals) {
+        values.add(valueConverter.fromLiteral(element));
+      }
+
+      builder.setField(field, values);
+    }
+  }
+
+  private static class MapFieldConverter extends FieldConverter {
+    private final Message entryPrototype;
+    private final FieldDescriptor key;
+    private final FieldDescriptor value;
+    private final ValueConverter valueConverter;
+    private final LiteralType literalType;
+
+    MapFieldConverter(FieldDescriptor field, Message prototype) {
+      super(field);
+
+      this.entryPrototype =
+          prototype.newBuilderForType().newBuilderForField(field).getDefaultInstanceForType();
+      this.key = field.getMessageType().findFieldByNumber(1);
+      this.value = field.getMessageType().findFieldByNumber(2);
+
+      if (key.getType() != FieldDescriptor.Type.STRING) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Unsupported map field [%s], only string keys are supported, got [%s]",
+                field.getFullName(), key.getType()));
+      }
+
+      this.valueConverter = ValueConverter.create(value, fieldPrototype(entryPrototype, value));
+      this.literalType = LiteralType.ofMapValueType(valueConverter.literalType());
+    }
+
+    @Override
+    LiteralType literalType() {
+      return literalType;
+    }
+
+    @Override
+    Literal get(Message message) {
+      List<?> entries = (List<?>) message.getField(field);
+      Map<String, Literal> literals = new LinkedHashMap<>();
+
+      for (Object entry : entries) {
+        Message entryMessage = (Message) entry;
+
+        literals.put(
+            (String) entryMessage.getField(key),
+            valueConverter.toLiteral(entryMessage.getField(value)));
+      }
+
+      return Literal.ofMap(literals);
+    }
+
+    @Override
+    void set(Message.Builder builder, Literal literal) {
+      Map<String, Literal> literals = literal.map();
+      List<Message> entries = new ArrayList<>(literals.size());
+
+      for (Map.Entry<String, Literal> entry : literals.entrySet()) {
+        entries.add(
+            entryPrototype
+                .newBuilderForType()
+                .setField(key, entry.getKey())
+                .setField(value, valueConverter.fromLiteral(entry.getValue()))
+                .build());
+      }
+
+      builder.setField(field, entries);
+    }
+  }
+}
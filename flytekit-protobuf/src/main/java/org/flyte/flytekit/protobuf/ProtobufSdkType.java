@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.flytekit.protobuf;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Internal;
+import com.google.protobuf.Message;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.flyte.api.v1.Literal;
+import org.flyte.api.v1.Variable;
+import org.flyte.flytekit.SdkType;
+
+/**
+ * {@link SdkType} for protobuf messages. Each field of a message becomes a variable with the same
+ * name. Fields are converted to literals and back using message descriptor, without intermediate
+ * JSON representation.
+ *
+ * <p>Supported field types are numbers, booleans, strings, enums (represented as strings), {@code
+ * google.protobuf.Timestamp}, {@code google.protobuf.Duration} and wrapper types, such as {@code
+ * google.protobuf.Int64Value}. Fields can be repeated, and maps with string keys. Oneof fields,
+ * bytes and other nested messages aren't supported.
+ *
+ * <p>Variables missing in a literal map are left unset when creating a message.
+ */
+public class ProtobufSdkType<T extends Message> extends SdkType<T> {
+
+  // ProtobufSdkType is immutable, and creating it requires looking up descriptors, so it's shared
+  private static final Map<Class<?>, ProtobufSdkType<?>> CACHE = new ConcurrentHashMap<>();
+
+  private final T defaultInstance;
+  private final List<FieldConverter> fields;
+  private final Map<String, Variable> variableMap;
+
+  private ProtobufSdkType(T defaultInstance, List<FieldConverter> fields) {
+    this.defaultInstance = Objects.requireNonNull(defaultInstance);
+    this.fields = unmodifiableList(fields);
+
+    Map<String, Variable> variableMap = new LinkedHashMap<>();
+    for (FieldConverter field : fields) {
+      variableMap.put(
+          field.name(),
+          Variable.builder().description("").literalType(field.literalType()).build());
+    }
+
+    this.variableMap = unmodifiableMap(variableMap);
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T extends Message> ProtobufSdkType<T> of(Class<T> clazz) {
+    return (ProtobufSdkType<T>)
+        CACHE.computeIfAbsent(clazz, x -> create(Internal.getDefaultInstance(clazz)));
+  }
+
+  private static <T extends Message> ProtobufSdkType<T> create(T defaultInstance) {
+    List<FieldConverter> fields = new ArrayList<>();
+
+    for (FieldDescriptor field : defaultInstance.getDescriptorForType().getFields()) {
+      fields.add(FieldConverter.create(field, defaultInstance));
+    }
+
+    return new ProtobufSdkType<>(defaultInstance, fields);
+  }
+
+  @Override
+  public Map<String, Literal> toLiteralMap(T value) {
+    Map<String, Literal> literalMap = new LinkedHashMap<>();
+
+    for (FieldConverter field : fields) {
+      literalMap.put(field.name(), field.get(value));
+    }
+
+    return unmodifiableMap(literalMap);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T fromLiteralMap(Map<String, Literal> value) {
+    Message.Builder builder = defaultInstance.newBuilderForType();
+
+    for (FieldConverter field : fields) {
+      Literal literal = value.get(field.name());
+
+      if (literal != null) {
+        field.set(builder, literal);
+      }
+    }
+
+    return (T) builder.build();
+  }
+
+  @Override
+  public Map<String, Variable> getVariableMap() {
+    return variableMap;
+  }
+}
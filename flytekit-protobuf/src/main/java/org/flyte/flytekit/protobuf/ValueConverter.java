@@ -0,0 +1,371 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.flytekit.protobuf;
+
+import static org.flyte.api.v1.LiteralType.ofSimpleType;
+
+import com.google.errorprone.annotations.Var;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import java.time.Duration;
+import java.time.Instant;
+import javax.annotation.Nullable;
+import org.flyte.api.v1.Literal;
+import org.flyte.api.v1.LiteralType;
+import org.flyte.api.v1.Primitive;
+import org.flyte.api.v1.Scalar;
+import org.flyte.api.v1.SimpleType;
+
+/**
+ * Converts a single value of protobuf field to {@link Literal}, and back. Values are represented
+ * the same way as in {@code Message.getField}.
+ */
+abstract class ValueConverter {
+
+  abstract LiteralType literalType();
+
+  abstract Literal toLiteral(Object value);
+
+  abstract Object fromLiteral(Literal literal);
+
+  /**
+   * Creates converter for values of a field, for repeated fields converter handles a single
+   * element.
+   *
+   * @param field field descriptor
+   * @param prototype default instance of field message type, or null if field isn't a message
+   * @return converter
+   */
+  static ValueConverter create(FieldDescriptor field, @Nullable Message prototype) {
+    switch (field.getJavaType()) {
+      case INT:
+        return field.getType() == FieldDescriptor.Type.UINT32
+                || field.getType() == FieldDescriptor.Type.FIXED32
+            ? UINT32
+            : INT32;
+      case LONG:
+        return INT64;
+      case FLOAT:
+        return FLOAT;
+      case DOUBLE:
+        return DOUBLE;
+      case BOOLEAN:
+        return BOOLEAN;
+      case STRING:
+        return STRING;
+      case ENUM:
+        return new EnumConverter(field);
+      case MESSAGE:
+        return createForMessage(field, prototype);
+      case BYTE_STRING:
+        break;
+    }
+
+    throw new IllegalArgumentException(
+        String.format(
+            "Unsupported type of field [%s]: [%s]", field.getFullName(), field.getType()));
+  }
+
+  private static ValueConverter createForMessage(
+      FieldDescriptor field, @Nullable Message prototype) {
+    if (prototype == null) {
+      throw new IllegalArgumentException("Prototype is required for message fields");
+    }
+
+    Descriptor descriptor = field.getMessageType();
+
+    switch (descriptor.getFullName()) {
+      case "google.protobuf.Timestamp":
+        return new TimestampConverter(prototype);
+      case "google.protobuf.Duration":
+        return new DurationConverter(prototype);
+      case "google.protobuf.Int32Value":
+      case "google.protobuf.UInt32Value":
+      case "google.protobuf.Int64Value":
+      case "google.protobuf.UInt64Value":
+      case "google.protobuf.FloatValue":
+      case "google.protobuf.DoubleValue":
+      case "google.protobuf.BoolValue":
+      case "google.protobuf.StringValue":
+        return new WrapperConverter(prototype);
+      default:
+        throw new IllegalArgumentException(
+            String.format(
+                "Unsupported type of field [%s]: [%s], only well-known message types are supported",
+                field.getFullName(), descriptor.getFullName()));
+    }
+  }
+
+  private static final ValueConverter INT32 =
+      new PrimitiveConverter(SimpleType.INTEGER) {
+        @Override
+        Literal toLiteral(Object value) {
+          return literalOf(Primitive.ofInteger((Integer) value));
+        }
+
+        @Override
+        Object fromLiteral(Literal literal) {
+          return Math.toIntExact(primitiveOf(literal).integer());
+        }
+      };
+
+  // unsigned 32-bit values are stored in int, and don't fit into it if interpreted as signed
+  private static final ValueConverter UINT32 =
+      new PrimitiveConverter(SimpleType.INTEGER) {
+        @Override
+        Literal toLiteral(Object value) {
+          return literalOf(Primitive.ofInteger(Integer.toUnsignedLong((Integer) value)));
+        }
+
+        @Override
+        Object fromLiteral(Literal literal) {
+          long value = primitiveOf(literal).integer();
+
+          if (value < 0 || value > 0xFFFFFFFFL) {
+            throw new ArithmeticException("integer overflow");
+          }
+
+          return (int) value;
+        }
+      };
+
+  private static final ValueConverter INT64 =
+      new PrimitiveConverter(SimpleType.INTEGER) {
+        @Override
+        Literal toLiteral(Object value) {
+          return literalOf(Primitive.ofInteger((Long) value));
+        }
+
+        @Override
+        Object fromLiteral(Literal literal) {
+          return primitiveOf(literal).integer();
+        }
+      };
+
+  private static final ValueConverter FLOAT =
+      new PrimitiveConverter(SimpleType.FLOAT) {
+        @Override
+        Literal toLiteral(Object value) {
+          return literalOf(Primitive.ofFloat((Float) value));
+        }
+
+        @Override
+        Object fromLiteral(Literal literal) {
+          return (float) primitiveOf(literal).float_();
+        }
+      };
+
+  private static final ValueConverter DOUBLE =
+      new PrimitiveConverter(SimpleType.FLOAT) {
+        @Override
+        Literal toLiteral(Object value) {
+          return literalOf(Primitive.ofFloat((Double) value));
+        }
+
+        @Override
+        Object fromLiteral(Literal literal) {
+          return primitiveOf(literal).float_();
+        }
+      };
+
+  private static final ValueConverter BOOLEAN =
+      new PrimitiveConverter(SimpleType.BOOLEAN) {
+        @Override
+        Literal toLiteral(Object value) {
+          return literalOf(Primitive.ofBoolean((Boolean) value));
+        }
+
+        @Override
+        Object fromLiteral(Literal literal) {
+          return primitiveOf(literal).boolean_();
+        }
+      };
+
+  private static final ValueConverter STRING =
+      new PrimitiveConverter(SimpleType.STRING) {
+        @Override
+        Literal toLiteral(Object value) {
+          return literalOf(Primitive.ofString((String) value));
+        }
+
+        @Override
+        Object fromLiteral(Literal literal) {
+          return primitiveOf(literal).string();
+        }
+      };
+
+  private abstract static class PrimitiveConverter extends ValueConverter {
+    private final LiteralType literalType;
+
+    PrimitiveConverter(SimpleType simpleType) {
+      this.literalType = ofSimpleType(simpleType);
+    }
+
+    @Override
+    LiteralType literalType() {
+      return literalType;
+    }
+  }
+
+  /** Enums are represented with names of their values, same as in protobuf JSON format. */
+  private static class EnumConverter extends PrimitiveConverter {
+    private final FieldDescriptor field;
+
+    EnumConverter(FieldDescriptor field) {
+      super(SimpleType.STRING);
+
+      this.field = field;
+    }
+
+    @Override
+    Literal toLiteral(Object value) {
+      return literalOf(Primitive.ofString(((EnumValueDescriptor) value).getName()));
+    }
+
+    @Override
+    Object fromLiteral(Literal literal) {
+      String name = primitiveOf(literal).string();
+      EnumValueDescriptor value = field.getEnumType().findValueByName(name);
+
+      if (value == null) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Unknown value of enum [%s]: [%s]", field.getEnumType().getFullName(), name));
+      }
+
+      return value;
+    }
+  }
+
+  private static class TimestampConverter extends PrimitiveConverter {
+    private final Message prototype;
+    private final FieldDescriptor seconds;
+    private final FieldDescriptor nanos;
+
+    TimestampConverter(Message prototype) {
+      super(SimpleType.DATETIME);
+
+      this.prototype = prototype;
+      this.seconds = prototype.getDescriptorForType().findFieldByName("seconds");
+      this.nanos = prototype.getDescriptorForType().findFieldByName("nanos");
+    }
+
+    @Override
+    Literal toLiteral(Object value) {
+      Message message = (Message) value;
+      Instant instant =
+          Instant.ofEpochSecond(
+              (Long) message.getField(seconds), (Integer) message.getField(nanos));
+
+      return literalOf(Primitive.ofDatetime(instant));
+    }
+
+    @Override
+    Object fromLiteral(Literal literal) {
+      Instant instant = primitiveOf(literal).datetime();
+
+      return prototype
+          .newBuilderForType()
+          .setField(seconds, instant.getEpochSecond())
+          .setField(nanos, instant.getNano())
+          .build();
+    }
+  }
+
+  private static class DurationConverter extends PrimitiveConverter {
+    private final Message prototype;
+    private final FieldDescriptor seconds;
+    private final FieldDescriptor nanos;
+
+    DurationConverter(Message prototype) {
+      super(SimpleType.DURATION);
+
+      this.prototype = prototype;
+      this.seconds = prototype.getDescriptorForType().findFieldByName("seconds");
+      this.nanos = prototype.getDescriptorForType().findFieldByName("nanos");
+    }
+
+    @Override
+    Literal toLiteral(Object value) {
+      Message message = (Message) value;
+      Duration duration =
+          Duration.ofSeconds((Long) message.getField(seconds), (Integer) message.getField(nanos));
+
+      return literalOf(Primitive.ofDuration(duration));
+    }
+
+    @Override
+    Object fromLiteral(Literal literal) {
+      Duration duration = primitiveOf(literal).duration();
+
+      // unlike java.time.Duration, nanos have the same sign as seconds in protobuf
+      @Var long seconds = duration.getSeconds();
+      @Var int nanos = duration.getNano();
+      if (seconds < 0 && nanos > 0) {
+        seconds += 1;
+        nanos -= 1_000_000_000;
+      }
+
+      return prototype
+          .newBuilderForType()
+          .setField(this.seconds, seconds)
+          .setField(this.nanos, nanos)
+          .build();
+    }
+  }
+
+  /** Wrapper types, e.g. google.protobuf.Int64Value, are represented as values they wrap. */
+  private static class WrapperConverter extends ValueConverter {
+    private final Message prototype;
+    private final FieldDescriptor value;
+    private final ValueConverter valueConverter;
+
+    WrapperConverter(Message prototype) {
+      this.prototype = prototype;
+      this.value = prototype.getDescriptorForType().findFieldByName("value");
+      this.valueConverter = create(value, /* prototype= */ null);
+    }
+
+    @Override
+    LiteralType literalType() {
+      return valueConverter.literalType();
+    }
+
+    @Override
+    Literal toLiteral(Object value) {
+      return valueConverter.toLiteral(((Message) value).getField(this.value));
+    }
+
+    @Override
+    Object fromLiteral(Literal literal) {
+      return prototype
+          .newBuilderForType()
+          .setField(value, valueConverter.fromLiteral(literal))
+          .build();
+    }
+  }
+
+  private static Literal literalOf(Primitive primitive) {
+    return Literal.ofScalar(Scalar.ofPrimitive(primitive));
+  }
+
+  private static Primitive primitiveOf(Literal literal) {
+    return literal.scalar().primitive();
+  }
+}
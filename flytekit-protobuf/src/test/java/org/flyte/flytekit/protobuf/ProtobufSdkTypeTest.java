@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.flytekit.protobuf;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static org.flyte.api.v1.LiteralType.ofSimpleType;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.protobuf.Duration;
+import com.google.protobuf.Int64Value;
+import com.google.protobuf.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import org.flyte.api.v1.Literal;
+import org.flyte.api.v1.LiteralType;
+import org.flyte.api.v1.Primitive;
+import org.flyte.api.v1.PrimitiveCollection;
+import org.flyte.api.v1.Scalar;
+import org.flyte.api.v1.SimpleType;
+import org.flyte.api.v1.Variable;
+import org.flyte.flytekit.protobuf.test.BytesMessage;
+import org.flyte.flytekit.protobuf.test.Color;
+import org.flyte.flytekit.protobuf.test.TestMessage;
+import org.flyte.flytekit.protobuf.test.UnsupportedMessage;
+import org.junit.jupiter.api.Test;
+
+public class ProtobufSdkTypeTest {
+
+  @Test
+  void testVariableMap() {
+    Map<String, Variable> expected = new HashMap<>();
+    expected.put("i", createVar(ofSimpleType(SimpleType.INTEGER)));
+    expected.put("u", createVar(ofSimpleType(SimpleType.INTEGER)));
+    expected.put("f", createVar(ofSimpleType(SimpleType.FLOAT)));
+    expected.put("s", createVar(ofSimpleType(SimpleType.STRING)));
+    expected.put("b", createVar(ofSimpleType(SimpleType.BOOLEAN)));
+    expected.put("c", createVar(ofSimpleType(SimpleType.STRING)));
+    expected.put("t", createVar(ofSimpleType(SimpleType.DATETIME)));
+    expected.put("d", createVar(ofSimpleType(SimpleType.DURATION)));
+    expected.put("w", createVar(ofSimpleType(SimpleType.INTEGER)));
+    expected.put("l", createVar(LiteralType.ofCollectionType(ofSimpleType(SimpleType.INTEGER))));
+    expected.put("ls", createVar(LiteralType.ofCollectionType(ofSimpleType(SimpleType.STRING))));
+    expected.put("m", createVar(LiteralType.ofMapValueType(ofSimpleType(SimpleType.DURATION))));
+
+    assertEquals(expected, ProtobufSdkType.of(TestMessage.class).getVariableMap());
+  }
+
+  @Test
+  void testToLiteralMap() {
+    TestMessage message =
+        TestMessage.newBuilder()
+            .setI(123L)
+            .setU(-1)
+            .setF(1.5)
+            .setS("foo")
+            .setB(true)
+            .setC(Color.GREEN)
+            .setT(Timestamp.newBuilder().setSeconds(12).setNanos(34))
+            .setD(Duration.newBuilder().setSeconds(56).setNanos(78))
+            .setW(Int64Value.of(42L))
+            .addAllL(asList(1L, 2L))
+            .addAllLs(asList("a", "b"))
+            .putM("x", Duration.newBuilder().setSeconds(1).build())
+            .build();
+
+    Map<String, Literal> literalMap = ProtobufSdkType.of(TestMessage.class).toLiteralMap(message);
+
+    assertEquals(literalOf(Primitive.ofInteger(123L)), literalMap.get("i"));
+    assertEquals(literalOf(Primitive.ofInteger(0xFFFFFFFFL)), literalMap.get("u"));
+    assertEquals(literalOf(Primitive.ofFloat(1.5)), literalMap.get("f"));
+    assertEquals(literalOf(Primitive.ofString("foo")), literalMap.get("s"));
+    assertEquals(literalOf(Primitive.ofBoolean(true)), literalMap.get("b"));
+    assertEquals(literalOf(Primitive.ofString("GREEN")), literalMap.get("c"));
+    assertEquals(
+        literalOf(Primitive.ofDatetime(Instant.ofEpochSecond(12, 34))), literalMap.get("t"));
+    assertEquals(
+        literalOf(Primitive.ofDuration(java.time.Duration.ofSeconds(56, 78))), literalMap.get("d"));
+    assertEquals(literalOf(Primitive.ofInteger(42L)), literalMap.get("w"));
+    assertThat(literalMap.get("l").collection(), instanceOf(PrimitiveCollection.class));
+    assertEquals(
+        Literal.ofCollection(
+            asList(literalOf(Primitive.ofInteger(1L)), literalOf(Primitive.ofInteger(2L)))),
+        literalMap.get("l"));
+    assertEquals(
+        Literal.ofCollection(
+            asList(literalOf(Primitive.ofString("a")), literalOf(Primitive.ofString("b")))),
+        literalMap.get("ls"));
+    assertEquals(
+        Literal.ofMap(
+            singletonMap("x", literalOf(Primitive.ofDuration(java.time.Duration.ofSeconds(1))))),
+        literalMap.get("m"));
+  }
+
+  @Test
+  void testRoundtrip() {
+    TestMessage message =
+        TestMessage.newBuilder()
+            .setI(-123L)
+            .setU(7)
+            .setF(-0.25)
+            .setS("bar")
+            .setC(Color.GREEN)
+            .setT(Timestamp.newBuilder().setSeconds(-12).setNanos(34))
+            .setD(Duration.newBuilder().setSeconds(-1).setNanos(-500))
+            .setW(Int64Value.of(-42L))
+            .addAllL(asList(3L, 4L, 5L))
+            .addAllLs(asList("c", "d"))
+            .putM("y", Duration.newBuilder().setSeconds(2).setNanos(3).build())
+            .build();
+
+    ProtobufSdkType<TestMessage> sdkType = ProtobufSdkType.of(TestMessage.class);
+
+    assertEquals(message, sdkType.fromLiteralMap(sdkType.toLiteralMap(message)));
+  }
+
+  @Test
+  void testFromLiteralMapLeavesMissingFieldsUnset() {
+    ProtobufSdkType<TestMessage> sdkType = ProtobufSdkType.of(TestMessage.class);
+
+    TestMessage message =
+        sdkType.fromLiteralMap(singletonMap("s", literalOf(Primitive.ofString("foo"))));
+
+    assertEquals(TestMessage.newBuilder().setS("foo").build(), message);
+  }
+
+  @Test
+  void testFromLiteralMapUnknownEnumValue() {
+    ProtobufSdkType<TestMessage> sdkType = ProtobufSdkType.of(TestMessage.class);
+
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> sdkType.fromLiteralMap(singletonMap("c", literalOf(Primitive.ofString("BLUE")))));
+
+    assertThat(e.getMessage(), containsString("BLUE"));
+  }
+
+  @Test
+  void testOneofIsUnsupported() {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class, () -> ProtobufSdkType.of(UnsupportedMessage.class));
+
+    assertThat(e.getMessage(), containsString("oneof [value]"));
+  }
+
+  @Test
+  void testBytesAreUnsupported() {
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> ProtobufSdkType.of(BytesMessage.class));
+
+    assertThat(
+        e.getMessage(),
+        equalTo("Unsupported type of field [flytekit.protobuf.test.BytesMessage.b]: [BYTES]"));
+  }
+
+  @Test
+  void testOfReturnsSameInstance() {
+    assertSame(ProtobufSdkType.of(TestMessage.class), ProtobufSdkType.of(TestMessage.class));
+  }
+
+  private static Variable createVar(LiteralType literalType) {
+    return Variable.builder().literalType(literalType).description("").build();
+  }
+
+  private static Literal literalOf(Primitive primitive) {
+    return Literal.ofScalar(Scalar.ofPrimitive(primitive));
+  }
+}
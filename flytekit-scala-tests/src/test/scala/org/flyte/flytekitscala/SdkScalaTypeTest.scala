@@ -18,16 +18,18 @@ package org.flyte.flytekitscala
 
 import java.time.{Duration, Instant}
 
-import collection.JavaConverters.mapAsJavaMap
+import collection.JavaConverters.{mapAsJavaMap, seqAsJavaList}
+import org.flyte.api.v1.LiteralType.ofSimpleType
 import org.flyte.api.v1.{
   Literal,
   LiteralType,
   Primitive,
+  PrimitiveCollection,
   Scalar,
   SimpleType,
   Variable
 }
-import org.junit.Assert.assertEquals
+import org.junit.Assert.{assertEquals, assertTrue}
 import org.junit.Test
 
 class SdkScalaTypeTest {
@@ -57,10 +59,13 @@ class SdkScalaTypeTest {
     assertEquals(mapAsJavaMap(expected), output)
   }
 
-  private def createVar(simpleType: SimpleType) = {
+  private def createVar(simpleType: SimpleType): Variable =
+    createVar(LiteralType.ofSimpleType(simpleType))
+
+  private def createVar(literalType: LiteralType): Variable = {
     Variable
       .builder()
-      .literalType(LiteralType.ofSimpleType(simpleType))
+      .literalType(literalType)
       .description("")
       .build()
   }
@@ -137,5 +142,79 @@ class SdkScalaTypeTest {
     assertEquals(mapAsJavaMap(expected), output)
   }
 
+  case class CollectionInput(
+      longs: List[Long],
+      strings: Seq[String],
+      booleans: Seq[Boolean],
+      nested: List[List[Double]],
+      durations: Map[String, Duration]
+  )
+
+  @Test
+  def testCollectionInterface(): Unit = {
+    def collectionOf(literalType: LiteralType) =
+      LiteralType.ofCollectionType(literalType)
+
+    val expected = Map(
+      "longs" -> createVar(collectionOf(ofSimpleType(SimpleType.INTEGER))),
+      "strings" -> createVar(collectionOf(ofSimpleType(SimpleType.STRING))),
+      "booleans" -> createVar(collectionOf(ofSimpleType(SimpleType.BOOLEAN))),
+      "nested" -> createVar(
+        collectionOf(collectionOf(ofSimpleType(SimpleType.FLOAT)))
+      ),
+      "durations" -> createVar(
+        LiteralType.ofMapValueType(ofSimpleType(SimpleType.DURATION))
+      )
+    )
+
+    val output = SdkScalaType[CollectionInput].getVariableMap
+
+    assertEquals(mapAsJavaMap(expected), output)
+  }
+
+  @Test
+  def testCollectionRoundtrip(): Unit = {
+    val input = CollectionInput(
+      longs = List(1L, 2L, 3L),
+      strings = Seq("a", "b"),
+      booleans = Seq(true, false, true),
+      nested = List(List(1.5), List.empty),
+      durations = Map("x" -> Duration.ofSeconds(1))
+    )
+
+    val sdkType = SdkScalaType[CollectionInput]
+    val literalMap = sdkType.toLiteralMap(input)
+
+    assertTrue(
+      literalMap.get("longs").collection().isInstanceOf[PrimitiveCollection]
+    )
+    assertEquals(
+      Literal.ofCollection(
+        seqAsJavaList(
+          Seq(
+            Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofString("a"))),
+            Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofString("b")))
+          )
+        )
+      ),
+      literalMap.get("strings")
+    )
+    assertEquals(input, sdkType.fromLiteralMap(literalMap))
+  }
+
+  @Test
+  def testFromUnpackedCollection(): Unit = {
+    val longs = Literal.ofCollection(
+      seqAsJavaList(
+        Seq(Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofInteger(42L))))
+      )
+    )
+
+    assertEquals(
+      List(42L),
+      SdkScalaType.listLiteralType[Long].fromLiteral(longs)
+    )
+  }
+
   // Typed[String] doesn't compile aka illtyped
 }
@@ -24,7 +24,8 @@ import org.flyte.api.v1._
 import org.flyte.flytekit.SdkType
 
 import scala.annotation.implicitNotFound
-import scala.collection.JavaConverters
+import scala.collection.generic.CanBuildFrom
+import scala.collection.mutable
 
 /** Type class to map between Flyte `Variable` and `Literal` and Scala case classes. */
 sealed trait SdkScalaType[T]
@@ -77,8 +78,15 @@ object SdkScalaType {
     }
 
     new SdkScalaProductType[T] {
-      def getVariableMap: ju.Map[String, Variable] = {
-        val scalaMap = params.map { param =>
+      // everything that doesn't depend on value is computed once per derived type,
+      // conversions only iterate over arrays and write into presized Java maps
+      private val labels = params.map(_.label).toArray
+      private val typeclasses =
+        params.map(_.typeclass.asInstanceOf[SdkScalaLiteralType[Any]]).toArray
+
+      private val variableMap: ju.Map[String, Variable] = {
+        val map = newHashMap[Variable](labels.length)
+        params.foreach { param =>
           val variable =
             Variable
               .builder()
@@ -86,35 +94,51 @@ object SdkScalaType {
               .description("")
               .build()
 
-          param.label -> variable
-        }.toMap
+          map.put(param.label, variable)
+        }
 
-        new ju.HashMap(JavaConverters.mapAsJavaMap(scalaMap))
+        ju.Collections.unmodifiableMap(map)
       }
 
+      def getVariableMap: ju.Map[String, Variable] = variableMap
+
       def toLiteralMap(value: T): ju.Map[String, Literal] = {
-        val scalaMap = params.map { param =>
-          param.label -> param.typeclass.toLiteral(param.dereference(value))
-        }.toMap
+        val map = newHashMap[Literal](labels.length)
+        var i = 0
+
+        params.foreach { param =>
+          map.put(labels(i), typeclasses(i).toLiteral(param.dereference(value)))
+          i += 1
+        }
 
-        new ju.HashMap(JavaConverters.mapAsJavaMap(scalaMap))
+        map
       }
 
       def fromLiteralMap(literal: ju.Map[String, Literal]): T = {
-        ctx.rawConstruct(params.map { param =>
-          val paramLiteral = literal.get(param.label)
+        val values = new Array[Any](labels.length)
+        var i = 0
+
+        while (i < labels.length) {
+          val paramLiteral = literal.get(labels(i))
 
           require(
             paramLiteral != null,
-            s"field ${param.label} not found in literal map"
+            s"field ${labels(i)} not found in literal map"
           )
 
-          param.typeclass.fromLiteral(paramLiteral)
-        })
+          values(i) = typeclasses(i).fromLiteral(paramLiteral)
+          i += 1
+        }
+
+        ctx.rawConstruct(values)
       }
     }
   }
 
+  // presized to avoid rehashing with the default load factor
+  private def newHashMap[V](size: Int): ju.HashMap[String, V] =
+    new ju.HashMap[String, V]((size / 0.75).toInt + 1)
+
   implicit def stringLiteralType: SdkScalaLiteralType[String] =
     SdkScalaLiteralType[String](
       LiteralType.ofSimpleType(SimpleType.STRING),
@@ -122,7 +146,9 @@ object SdkScalaType {
       _.scalar().primitive().string()
     )
 
-  implicit def longLiteralType: SdkScalaLiteralType[Long] =
+  implicit def longLiteralType: SdkScalaLiteralType[Long] = LongLiteralType
+
+  private val LongLiteralType =
     SdkScalaLiteralType[Long](
       LiteralType.ofSimpleType(SimpleType.INTEGER),
       value => Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofInteger(value))),
@@ -130,6 +156,9 @@ object SdkScalaType {
     )
 
   implicit def doubleLiteralType: SdkScalaLiteralType[Double] =
+    DoubleLiteralType
+
+  private val DoubleLiteralType =
     SdkScalaLiteralType[Double](
       LiteralType.ofSimpleType(SimpleType.FLOAT),
       value => Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofFloat(value))),
@@ -137,6 +166,9 @@ object SdkScalaType {
     )
 
   implicit def booleanLiteralType: SdkScalaLiteralType[Boolean] =
+    BooleanLiteralType
+
+  private val BooleanLiteralType =
     SdkScalaLiteralType[Boolean](
       LiteralType.ofSimpleType(SimpleType.BOOLEAN),
       value => Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofBoolean(value))),
@@ -159,6 +191,134 @@ object SdkScalaType {
       _.scalar().primitive().duration()
     )
 
+  implicit def listLiteralType[T](
+      implicit
+      elem: SdkScalaLiteralType[T]
+  ): SdkScalaLiteralType[List[T]] =
+    collectionLiteralType[T, List[T]](elem)
+
+  implicit def seqLiteralType[T](
+      implicit
+      elem: SdkScalaLiteralType[T]
+  ): SdkScalaLiteralType[Seq[T]] =
+    collectionLiteralType[T, Seq[T]](elem)
+
+  implicit def mapLiteralType[T](
+      implicit
+      value: SdkScalaLiteralType[T]
+  ): SdkScalaLiteralType[Map[String, T]] =
+    SdkScalaLiteralType[Map[String, T]](
+      LiteralType.ofMapValueType(value.getLiteralType),
+      map => {
+        val literals = newHashMap[Literal](map.size)
+        map.foreach { case (k, v) => literals.put(k, value.toLiteral(v)) }
+        Literal.ofMap(literals)
+      },
+      literal => {
+        val builder = Map.newBuilder[String, T]
+        literal.map().forEach((k, v) => builder += k -> value.fromLiteral(v))
+        builder.result()
+      }
+    )
+
+  // longs, doubles and booleans are written into packed collections, and read
+  // from them without creating a literal per element
+  private def collectionLiteralType[T, C <: Seq[T]](
+      elem: SdkScalaLiteralType[T]
+  )(implicit cbf: CanBuildFrom[Nothing, T, C]): SdkScalaLiteralType[C] = {
+    val packedType: Option[SimpleType] =
+      if (elem eq LongLiteralType) Some(SimpleType.INTEGER)
+      else if (elem eq DoubleLiteralType) Some(SimpleType.FLOAT)
+      else if (elem eq BooleanLiteralType) Some(SimpleType.BOOLEAN)
+      else None
+
+    val toLiteral: C => Literal = packedType match {
+      case Some(SimpleType.INTEGER) =>
+        value =>
+          Literal.ofIntegerCollection(value.asInstanceOf[Seq[Long]].toArray)
+      case Some(SimpleType.FLOAT) =>
+        value =>
+          Literal.ofFloatCollection(value.asInstanceOf[Seq[Double]].toArray)
+      case Some(SimpleType.BOOLEAN) =>
+        value => {
+          val bits = new ju.BitSet(value.size)
+          var i = 0
+          value.asInstanceOf[Seq[Boolean]].foreach { x =>
+            bits.set(i, x); i += 1
+          }
+          Literal.ofBooleanCollection(bits, i)
+        }
+      case _ =>
+        value => {
+          val literals = new ju.ArrayList[Literal](value.size)
+          value.foreach(x => literals.add(elem.toLiteral(x)))
+          Literal.ofCollection(literals)
+        }
+    }
+
+    def fromElements(elements: ju.List[Literal]): C = {
+      val builder = cbf()
+      builder.sizeHint(elements.size())
+      elements.forEach(x => builder += elem.fromLiteral(x))
+      builder.result()
+    }
+
+    // each element type has its own loop, so that elements are added to
+    // the builder straight from primitives, without widening to AnyVal
+    val fromPacked: PrimitiveCollection => C = packedType match {
+      case Some(SimpleType.INTEGER) =>
+        packed => {
+          val builder = cbf().asInstanceOf[mutable.Builder[Long, C]]
+          builder.sizeHint(packed.size())
+          var i = 0
+          while (i < packed.size()) {
+            builder += packed.integer(i)
+            i += 1
+          }
+          builder.result()
+        }
+      case Some(SimpleType.FLOAT) =>
+        packed => {
+          val builder = cbf().asInstanceOf[mutable.Builder[Double, C]]
+          builder.sizeHint(packed.size())
+          var i = 0
+          while (i < packed.size()) {
+            builder += packed.float_(i)
+            i += 1
+          }
+          builder.result()
+        }
+      case Some(SimpleType.BOOLEAN) =>
+        packed => {
+          val builder = cbf().asInstanceOf[mutable.Builder[Boolean, C]]
+          builder.sizeHint(packed.size())
+          var i = 0
+          while (i < packed.size()) {
+            builder += packed.boolean_(i)
+            i += 1
+          }
+          builder.result()
+        }
+      case _ =>
+        packed => fromElements(packed)
+    }
+
+    val fromLiteral: Literal => C = literal =>
+      literal.collection() match {
+        case packed: PrimitiveCollection
+            if packedType.contains(packed.`type`()) =>
+          fromPacked(packed)
+        case elements =>
+          fromElements(elements)
+      }
+
+    SdkScalaLiteralType[C](
+      LiteralType.ofCollectionType(elem.getLiteralType),
+      toLiteral,
+      fromLiteral
+    )
+  }
+
   @implicitNotFound("Cannot derive SdkScalaType for sealed trait")
   sealed trait Dispatchable[T]
 
@@ -18,11 +18,13 @@ package org.flyte.flytekit.testing;
 
 import static java.util.Collections.emptyMap;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 import org.flyte.api.v1.Literal;
 import org.flyte.api.v1.PartialTaskIdentifier;
+import org.flyte.api.v1.Resources;
 import org.flyte.api.v1.RetryStrategy;
 import org.flyte.api.v1.RunnableTask;
 import org.flyte.api.v1.TypedInterface;
@@ -41,17 +43,32 @@ class TestingRunnableTask<InputT, OutputT> implements RunnableTask {
 
   private final Map<InputT, OutputT> fixedOutputs;
 
+  private final boolean discoverable;
+
+  // @Nullable
+  private final String discoveryVersion;
+
+  // task with lifecycle hooks, null if task is remote, or its run function was replaced
+  // @Nullable
+  private final SdkRunnableTask<InputT, OutputT> lifecycleTask;
+
   private TestingRunnableTask(
       PartialTaskIdentifier taskId,
       SdkType<InputT> inputType,
       SdkType<OutputT> outputType,
       Function<InputT, OutputT> runFn,
-      Map<InputT, OutputT> fixedOutputs) {
+      Map<InputT, OutputT> fixedOutputs,
+      boolean discoverable,
+      String discoveryVersion,
+      SdkRunnableTask<InputT, OutputT> lifecycleTask) {
     this.taskId = taskId;
     this.inputType = inputType;
     this.outputType = outputType;
     this.runFn = runFn;
     this.fixedOutputs = fixedOutputs;
+    this.discoverable = discoverable;
+    this.discoveryVersion = discoveryVersion;
+    this.lifecycleTask = lifecycleTask;
   }
 
   static <InputT, OutputT> TestingRunnableTask<InputT, OutputT> create(
@@ -59,14 +76,29 @@ class TestingRunnableTask<InputT, OutputT> implements RunnableTask {
     PartialTaskIdentifier taskId = PartialTaskIdentifier.builder().name(task.getName()).build();
 
     return new TestingRunnableTask<>(
-        taskId, task.getInputType(), task.getOutputType(), task::run, emptyMap());
+        taskId,
+        task.getInputType(),
+        task.getOutputType(),
+        task::run,
+        emptyMap(),
+        task.isCached(),
+        task.getCacheVersion(),
+        task);
   }
 
   static <InputT, OutputT> TestingRunnableTask<InputT, OutputT> create(
       String name, SdkType<InputT> inputType, SdkType<OutputT> outputType) {
     PartialTaskIdentifier taskId = PartialTaskIdentifier.builder().name(name).build();
 
-    return new TestingRunnableTask<>(taskId, inputType, outputType, /* runFn= */ null, emptyMap());
+    return new TestingRunnableTask<>(
+        taskId,
+        inputType,
+        outputType,
+        /* runFn= */ null,
+        emptyMap(),
+        /* discoverable= */ false,
+        /* discoveryVersion= */ null,
+        /* lifecycleTask= */ null);
   }
 
   @Override
@@ -82,6 +114,13 @@ class TestingRunnableTask<InputT, OutputT> implements RunnableTask {
         .build();
   }
 
+  @Override
+  public void setUp() {
+    if (lifecycleTask != null) {
+      lifecycleTask.setUp();
+    }
+  }
+
   @Override
   public Map<String, Literal> run(Map<String, Literal> inputs) {
     InputT input = inputType.fromLiteralMap(inputs);
@@ -104,20 +143,71 @@ class TestingRunnableTask<InputT, OutputT> implements RunnableTask {
     return outputType.toLiteralMap(runFn.apply(input));
   }
 
+  @Override
+  public void tearDown() {
+    if (lifecycleTask != null) {
+      lifecycleTask.tearDown();
+    }
+  }
+
   @Override
   public RetryStrategy getRetries() {
     // no retries in testing
     return RetryStrategy.builder().retries(1).build();
   }
 
+  @Override
+  public Resources getResources() {
+    // resources aren't requested in testing
+    return Resources.builder().build();
+  }
+
+  @Override
+  public Duration getTimeout() {
+    return lifecycleTask != null ? lifecycleTask.getTimeout() : null;
+  }
+
+  @Override
+  public boolean isDiscoverable() {
+    return discoverable;
+  }
+
+  @Override
+  public boolean isSideEffectFree() {
+    // stubs are never skipped, so calls to them can be verified
+    return lifecycleTask != null && lifecycleTask.isSideEffectFree();
+  }
+
+  @Override
+  public String getDiscoveryVersion() {
+    return discoveryVersion;
+  }
+
   public TestingRunnableTask<InputT, OutputT> withFixedOutput(InputT input, OutputT output) {
     Map<InputT, OutputT> newFixedOutputs = new HashMap<>(fixedOutputs);
     newFixedOutputs.put(input, output);
 
-    return new TestingRunnableTask<>(taskId, inputType, outputType, runFn, newFixedOutputs);
+    return new TestingRunnableTask<>(
+        taskId,
+        inputType,
+        outputType,
+        runFn,
+        newFixedOutputs,
+        discoverable,
+        discoveryVersion,
+        lifecycleTask);
   }
 
   public TestingRunnableTask<InputT, OutputT> withRunFn(Function<InputT, OutputT> runFn) {
-    return new TestingRunnableTask<>(taskId, inputType, outputType, runFn, fixedOutputs);
+    // mocked run function doesn't need set up of the real task
+    return new TestingRunnableTask<>(
+        taskId,
+        inputType,
+        outputType,
+        runFn,
+        fixedOutputs,
+        discoverable,
+        discoveryVersion,
+        /* lifecycleTask= */ null);
   }
 }
@@ -16,16 +16,21 @@
  */
 package org.flyte.flytekit.testing;
 
+import static java.util.Collections.singletonList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.flyte.api.v1.TaskContext;
+import org.flyte.flytekit.SdkNode;
 import org.flyte.flytekit.SdkWorkflow;
 import org.flyte.flytekit.SdkWorkflowBuilder;
 import org.flyte.flytekit.testing.RemoteSumTask.RemoteSumInput;
 import org.flyte.flytekit.testing.RemoteSumTask.RemoteSumOutput;
+import org.flyte.flytekit.testing.SumTask.SumOutput;
 import org.junit.jupiter.api.Test;
 
 public class SdkTestingExecutorTest {
@@ -191,4 +196,199 @@ public class SdkTestingExecutorTest {
             "Can't find input RemoteSumInput{a=1, b=2} for remote task [remote_sum_task] across known "
                 + "task inputs, use SdkTestingExecutor#withTaskOutput or SdkTestingExecutor#withTask"));
   }
+
+  @Test
+  public void testCachedTask() {
+    AtomicInteger runs = new AtomicInteger();
+    SumTask task =
+        new SumTask() {
+          private static final long serialVersionUID = 0L;
+
+          @Override
+          public boolean isCached() {
+            return true;
+          }
+
+          @Override
+          public String getCacheVersion() {
+            return "1";
+          }
+        };
+
+    SdkWorkflow workflow =
+        new SdkWorkflow() {
+          @Override
+          public void expand(SdkWorkflowBuilder builder) {
+            SdkNode sum1 = builder.apply("sum-1", task.withInput("a", 1L).withInput("b", 2L));
+            SdkNode sum2 = builder.apply("sum-2", task.withInput("a", 1L).withInput("b", 2L));
+
+            builder.output("c1", sum1.getOutput("c"));
+            builder.output("c2", sum2.getOutput("c"));
+          }
+        };
+
+    SdkTestingExecutor.Result result =
+        SdkTestingExecutor.of(workflow, singletonList(task))
+            .withTask(
+                task,
+                input -> {
+                  runs.incrementAndGet();
+                  return SumOutput.create(input.a() + input.b());
+                })
+            .execute();
+
+    assertThat(result.getIntegerOutput("c1"), equalTo(3L));
+    assertThat(result.getIntegerOutput("c2"), equalTo(3L));
+    assertThat(runs.get(), equalTo(1));
+  }
+
+  @Test
+  public void testTaskLifecycle() {
+    AtomicInteger setUps = new AtomicInteger();
+    AtomicInteger tearDowns = new AtomicInteger();
+    SumTask task =
+        new SumTask() {
+          private static final long serialVersionUID = 0L;
+
+          @Override
+          public void setUp() {
+            setUps.incrementAndGet();
+          }
+
+          @Override
+          public void tearDown() {
+            tearDowns.incrementAndGet();
+          }
+        };
+
+    SdkWorkflow workflow =
+        new SdkWorkflow() {
+          @Override
+          public void expand(SdkWorkflowBuilder builder) {
+            SdkNode sum1 = builder.apply("sum-1", task.withInput("a", 1L).withInput("b", 2L));
+            SdkNode sum2 =
+                builder.apply("sum-2", task.withInput("a", sum1.getOutput("c")).withInput("b", 3L));
+
+            builder.output("c", sum2.getOutput("c"));
+          }
+        };
+
+    SdkTestingExecutor.Result result =
+        SdkTestingExecutor.of(workflow, singletonList(task)).execute();
+
+    assertThat(result.getIntegerOutput("c"), equalTo(6L));
+    assertThat(setUps.get(), equalTo(1));
+    assertThat(tearDowns.get(), equalTo(1));
+  }
+
+  @Test
+  public void testTaskLifecycle_tearDownFailureDoesNotHideTaskFailure() {
+    SumTask task =
+        new SumTask() {
+          private static final long serialVersionUID = 0L;
+
+          @Override
+          public SumOutput run(SumTask.SumInput input) {
+            throw new RuntimeException("run failed");
+          }
+
+          @Override
+          public void tearDown() {
+            throw new RuntimeException("tearDown failed");
+          }
+        };
+
+    SdkWorkflow workflow =
+        new SdkWorkflow() {
+          @Override
+          public void expand(SdkWorkflowBuilder builder) {
+            SdkNode sum = builder.apply("sum", task.withInput("a", 1L).withInput("b", 2L));
+
+            builder.output("c", sum.getOutput("c"));
+          }
+        };
+
+    RuntimeException e =
+        assertThrows(
+            RuntimeException.class,
+            () -> SdkTestingExecutor.of(workflow, singletonList(task)).execute());
+
+    assertThat(e.getMessage(), equalTo("run failed"));
+    assertThat(e.getSuppressed()[0].getMessage(), equalTo("tearDown failed"));
+  }
+
+  @Test
+  public void testTaskContext() {
+    SumTask task =
+        new SumTask() {
+          private static final long serialVersionUID = 0L;
+
+          @Override
+          public Duration getTimeout() {
+            return Duration.ofHours(1);
+          }
+
+          @Override
+          public SumOutput run(SumTask.SumInput input) {
+            TaskContext context = getContext();
+
+            if (context.deadline() == null || context.isCancelled()) {
+              throw new IllegalStateException("Expected deadline in an hour");
+            }
+
+            return context.forkJoinPool().submit(() -> super.run(input)).join();
+          }
+        };
+
+    SdkWorkflow workflow =
+        new SdkWorkflow() {
+          @Override
+          public void expand(SdkWorkflowBuilder builder) {
+            SdkNode sum = builder.apply("sum", task.withInput("a", 1L).withInput("b", 2L));
+
+            builder.output("c", sum.getOutput("c"));
+          }
+        };
+
+    SdkTestingExecutor.Result result =
+        SdkTestingExecutor.of(workflow, singletonList(task)).execute();
+
+    assertThat(result.getIntegerOutput("c"), equalTo(3L));
+  }
+
+  @Test
+  public void testCheckpoint() {
+    SumTask task =
+        new SumTask() {
+          private static final long serialVersionUID = 0L;
+
+          @Override
+          public SumOutput run(SumTask.SumInput input) {
+            byte[] snapshot = readCheckpoint();
+
+            if (snapshot == null) {
+              writeCheckpoint(new byte[] {42});
+
+              throw new RuntimeException("Attempt failed after checkpoint");
+            }
+
+            return SumOutput.create(input.a() + input.b() + snapshot[0]);
+          }
+        };
+
+    SdkWorkflow workflow =
+        new SdkWorkflow() {
+          @Override
+          public void expand(SdkWorkflowBuilder builder) {
+            SdkNode sum = builder.apply("sum", task.withInput("a", 1L).withInput("b", 2L));
+
+            builder.output("c", sum.getOutput("c"));
+          }
+        };
+
+    SdkTestingExecutor.Result result =
+        SdkTestingExecutor.of(workflow, singletonList(task)).execute();
+
+    assertThat(result.getIntegerOutput("c"), equalTo(45L));
+  }
 }
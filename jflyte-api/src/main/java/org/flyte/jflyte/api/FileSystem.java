@@ -17,14 +17,30 @@
 package org.flyte.jflyte.api;
 
 import com.google.errorprone.annotations.MustBeClosed;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import javax.annotation.Nullable;
 
 /**
  * File system interface for jflyte.
  *
- * <p>Defines APIs for file system agnostic code.
+ * <p>Defines APIs for file system agnostic code. Bulk and asynchronous methods have default
+ * implementations on top of blocking methods, implementations can override them to use native APIs
+ * of the underlying storage.
  */
 public interface FileSystem {
 
@@ -44,4 +60,90 @@ public interface FileSystem {
    */
   @Nullable
   Manifest getManifest(String uri);
+
+  /**
+   * Returns manifests for given resources. Resources that don't exist are absent in the result.
+   *
+   * @param uris uris
+   * @return manifests of existing resources by uri
+   */
+  default Map<String, Manifest> getManifests(List<String> uris) {
+    Map<String, Manifest> manifests = new LinkedHashMap<>();
+
+    for (String uri : uris) {
+      Manifest manifest = getManifest(uri);
+
+      if (manifest != null) {
+        manifests.put(uri, manifest);
+      }
+    }
+
+    return manifests;
+  }
+
+  /**
+   * Downloads resource into a local file, replacing it if it exists.
+   *
+   * @param uri uri of resource
+   * @param destination local file
+   * @param executor executor for blocking I/O, if implementation needs it
+   * @return future completed once file is written
+   */
+  default CompletableFuture<Void> readAsync(String uri, Path destination, Executor executor) {
+    return CompletableFuture.runAsync(
+        () -> {
+          try (ReadableByteChannel reader = reader(uri);
+              InputStream inputStream = Channels.newInputStream(reader)) {
+            Files.copy(inputStream, destination, StandardCopyOption.REPLACE_EXISTING);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        },
+        executor);
+  }
+
+  /**
+   * Uploads local file to resource.
+   *
+   * @param source local file
+   * @param uri uri of resource
+   * @param executor executor for blocking I/O, if implementation needs it
+   * @return future completed once resource is written
+   */
+  default CompletableFuture<Void> writeAsync(Path source, String uri, Executor executor) {
+    return CompletableFuture.runAsync(
+        () -> {
+          try (WritableByteChannel writer = writer(uri);
+              OutputStream outputStream = Channels.newOutputStream(writer)) {
+            Files.copy(source, outputStream);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        },
+        executor);
+  }
+
+  /**
+   * Copies resource within the file system. Implementations should copy on the server side, without
+   * downloading the content.
+   *
+   * @param sourceUri uri of source resource
+   * @param targetUri uri of target resource
+   */
+  default void copy(String sourceUri, String targetUri) {
+    try (ReadableByteChannel reader = reader(sourceUri);
+        WritableByteChannel writer = writer(targetUri)) {
+      ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+      while (reader.read(buffer) != -1) {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          writer.write(buffer);
+        }
+        buffer.clear();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte.api;
+
+import com.google.auto.value.AutoValue;
+import java.util.Map;
+
+/**
+ * Options for reading large objects as byte ranges fetched concurrently, see {@link
+ * ParallelReadableByteChannel}. Disabled by default.
+ */
+@AutoValue
+public abstract class ParallelReadOptions {
+  private static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+  private static final long DEFAULT_THRESHOLD = 64 * 1024 * 1024;
+
+  /**
+   * Max number of ranges in flight, 1 disables parallel reads. Together with the range being read,
+   * up to {@code (parallelism + 1) * chunkSize} bytes are buffered per object.
+   */
+  public abstract int parallelism();
+
+  /** Size of a single range in bytes. */
+  public abstract int chunkSize();
+
+  /** Objects larger than threshold are read in parallel. */
+  public abstract long threshold();
+
+  public boolean isEnabled() {
+    return parallelism() > 1;
+  }
+
+  /**
+   * Returns if object of given size should be read in parallel.
+   *
+   * @param size size of object in bytes
+   * @return true if object should be read in parallel
+   */
+  public boolean shouldSplit(long size) {
+    return isEnabled() && size > threshold() && size > chunkSize();
+  }
+
+  public static ParallelReadOptions create(int parallelism, int chunkSize, long threshold) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive, but was " + parallelism);
+    }
+
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive, but was " + chunkSize);
+    }
+
+    return new AutoValue_ParallelReadOptions(parallelism, chunkSize, threshold);
+  }
+
+  public static ParallelReadOptions disabled() {
+    return create(/* parallelism= */ 1, DEFAULT_CHUNK_SIZE, DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Reads options from {@code FLYTE_PARALLEL_READ_PARALLELISM}, {@code
+   * FLYTE_PARALLEL_READ_CHUNK_SIZE} and {@code FLYTE_PARALLEL_READ_THRESHOLD}.
+   *
+   * @param env environment variables
+   * @return options
+   */
+  public static ParallelReadOptions fromEnv(Map<String, String> env) {
+    return create(
+        /* parallelism= */ Math.toIntExact(getOrDefault(env, "FLYTE_PARALLEL_READ_PARALLELISM", 1)),
+        /* chunkSize= */ Math.toIntExact(
+            getOrDefault(env, "FLYTE_PARALLEL_READ_CHUNK_SIZE", DEFAULT_CHUNK_SIZE)),
+        /* threshold= */ getOrDefault(env, "FLYTE_PARALLEL_READ_THRESHOLD", DEFAULT_THRESHOLD));
+  }
+
+  private static long getOrDefault(Map<String, String> env, String name, long defaultValue) {
+    String value = env.get(name);
+
+    if (value == null) {
+      return defaultValue;
+    }
+
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+          "Environment variable '" + name + "' isn't a number: " + value, e);
+    }
+  }
+}
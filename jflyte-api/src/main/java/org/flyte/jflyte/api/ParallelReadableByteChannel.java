@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads an object as a sequence of byte ranges fetched concurrently. Ranges are returned in order,
+ * and at most {@code parallelism} ranges are buffered or in flight at any time, in addition to the
+ * range being read by the caller, so memory use is bounded by {@code (parallelism + 1) *
+ * chunkSize}.
+ *
+ * <p>It's used by {@link FileSystem} implementations to get more throughput than a single
+ * connection gives when reading large objects. Ranges are fetched by executor shared by all
+ * channels of a file system, see {@link #newExecutor(ParallelReadOptions)}, so concurrent readers
+ * share the same threads, instead of each of them starting its own.
+ */
+public final class ParallelReadableByteChannel implements ReadableByteChannel {
+  private final RangeReader reader;
+  private final long size;
+  private final int chunkSize;
+  private final ExecutorService executor;
+  private final Deque<Future<ByteBuffer>> chunks = new ArrayDeque<>();
+
+  private long nextOffset;
+  private ByteBuffer current;
+  private boolean open = true;
+
+  /** Reads a range of an object. */
+  @FunctionalInterface
+  public interface RangeReader {
+    /**
+     * Reads exactly {@code length} bytes starting at {@code offset}.
+     *
+     * @param offset offset of the first byte
+     * @param length number of bytes
+     * @return bytes
+     * @throws IOException if read has failed
+     */
+    byte[] read(long offset, int length) throws IOException;
+  }
+
+  private ParallelReadableByteChannel(
+      ByteBuffer head,
+      RangeReader reader,
+      long size,
+      int chunkSize,
+      int parallelism,
+      ExecutorService executor) {
+    this.reader = reader;
+    this.size = size;
+    this.chunkSize = chunkSize;
+    this.executor = executor;
+    this.current = head;
+    this.nextOffset = head.remaining();
+
+    for (int i = 0; i < parallelism && nextOffset < size; i++) {
+      submitNextChunk();
+    }
+  }
+
+  /**
+   * Creates channel and starts reading first ranges.
+   *
+   * @param reader function reading a range
+   * @param size size of object in bytes
+   * @param options options
+   * @param executor executor fetching ranges, it isn't shut down when channel is closed
+   * @return channel
+   */
+  public static ParallelReadableByteChannel create(
+      RangeReader reader, long size, ParallelReadOptions options, ExecutorService executor) {
+    return create(ByteBuffer.allocate(0), reader, size, options, executor);
+  }
+
+  /**
+   * Creates channel that returns {@code head} first, and reads the rest of object in ranges. It's
+   * used when the beginning of object was already fetched, e.g. by the request that returned its
+   * size.
+   *
+   * @param head bytes at the beginning of object, at most {@code chunkSize}
+   * @param reader function reading a range
+   * @param size size of object in bytes
+   * @param options options
+   * @param executor executor fetching ranges, it isn't shut down when channel is closed
+   * @return channel
+   */
+  public static ParallelReadableByteChannel create(
+      ByteBuffer head,
+      RangeReader reader,
+      long size,
+      ParallelReadOptions options,
+      ExecutorService executor) {
+    if (head.remaining() > options.chunkSize()) {
+      throw new IllegalArgumentException(
+          String.format(
+              "head must be at most %d bytes, but was %d", options.chunkSize(), head.remaining()));
+    }
+
+    return new ParallelReadableByteChannel(
+        head, reader, size, options.chunkSize(), options.parallelism(), executor);
+  }
+
+  /**
+   * Creates executor for channels of a file system. It has at most {@code parallelism} daemon
+   * threads, which are started on demand, and stop when idle.
+   *
+   * @param options options
+   * @return executor
+   */
+  public static ExecutorService newExecutor(ParallelReadOptions options) {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            /* corePoolSize= */ options.parallelism(),
+            /* maximumPoolSize= */ options.parallelism(),
+            /* keepAliveTime= */ 60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            ParallelReadableByteChannel::newThread);
+    executor.allowCoreThreadTimeOut(true);
+
+    return executor;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+
+    if (!current.hasRemaining()) {
+      if (chunks.isEmpty()) {
+        return -1;
+      }
+
+      current = awaitChunk(chunks.removeFirst());
+
+      if (nextOffset < size) {
+        submitNextChunk();
+      }
+    }
+
+    int length = Math.min(current.remaining(), dst.remaining());
+    ByteBuffer slice = current.duplicate();
+    slice.limit(slice.position() + length);
+
+    dst.put(slice);
+    current.position(current.position() + length);
+
+    return length;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() {
+    open = false;
+
+    // executor is shared, so only ranges of this channel are cancelled
+    chunks.forEach(chunk -> chunk.cancel(/* mayInterruptIfRunning= */ true));
+    chunks.clear();
+  }
+
+  private void submitNextChunk() {
+    long offset = nextOffset;
+    int length = (int) Math.min(chunkSize, size - offset);
+
+    chunks.addLast(executor.submit(() -> ByteBuffer.wrap(reader.read(offset, length))));
+    nextOffset = offset + length;
+  }
+
+  private ByteBuffer awaitChunk(Future<ByteBuffer> chunk) throws IOException {
+    try {
+      return chunk.get();
+    } catch (ExecutionException e) {
+      close();
+
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+
+      throw new IOException("Failed to read range", cause);
+    } catch (InterruptedException e) {
+      close();
+      Thread.currentThread().interrupt();
+
+      throw new InterruptedIOException("Interrupted while reading range");
+    }
+  }
+
+  private static Thread newThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, "parallel-read");
+    thread.setDaemon(true);
+
+    return thread;
+  }
+}
@@ -27,20 +27,44 @@ import com.amazonaws.services.s3.AmazonS3URI;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectId;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.util.IOUtils;
+import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
 import org.flyte.jflyte.api.FileSystem;
 import org.flyte.jflyte.api.Manifest;
+import org.flyte.jflyte.api.ParallelReadOptions;
+import org.flyte.jflyte.api.ParallelReadableByteChannel;
 
 public class S3FileSystem implements FileSystem {
+  // PutObject can upload at most 5 GiB, larger files are uploaded in parts by the writer
+  private static final long MAX_PUT_OBJECT_SIZE = 5L * 1024 * 1024 * 1024;
+
   private final AmazonS3 s3;
+  private final ParallelReadOptions readOptions;
+  // shared by all readers, so concurrent reads don't multiply threads
+  private final ExecutorService readExecutor;
+  private final int writerPartSize;
+  private final int writerMaxPartsInFlight;
+  // shared by all writers, threads are started on demand, and stop when idle
+  private final ExecutorService uploadExecutor =
+      Executors.newCachedThreadPool(S3FileSystem::newUploadThread);
 
   private static final Logger LOG = Logger.getLogger(S3FileSystem.class.getName());
 
@@ -50,7 +74,40 @@ public class S3FileSystem implements FileSystem {
   }
 
   public S3FileSystem(AmazonS3 s3) {
+    this(s3, ParallelReadOptions.disabled());
+  }
+
+  public S3FileSystem(AmazonS3 s3, ParallelReadOptions readOptions) {
+    this(
+        s3,
+        readOptions,
+        S3WritableByteChannel.DEFAULT_PART_SIZE,
+        S3WritableByteChannel.DEFAULT_MAX_PARTS_IN_FLIGHT);
+  }
+
+  S3FileSystem(
+      AmazonS3 s3,
+      ParallelReadOptions readOptions,
+      int writerPartSize,
+      int writerMaxPartsInFlight) {
+    if (writerPartSize < S3WritableByteChannel.MIN_PART_SIZE) {
+      throw new IllegalArgumentException(
+          String.format(
+              "FLYTE_S3_WRITER_PART_SIZE must be at least %s bytes, but was %s",
+              S3WritableByteChannel.MIN_PART_SIZE, writerPartSize));
+    }
+
+    if (writerMaxPartsInFlight <= 0) {
+      throw new IllegalArgumentException(
+          "FLYTE_S3_WRITER_MAX_PARTS_IN_FLIGHT must be positive, but was "
+              + writerMaxPartsInFlight);
+    }
+
     this.s3 = s3;
+    this.readOptions = readOptions;
+    this.readExecutor = ParallelReadableByteChannel.newExecutor(readOptions);
+    this.writerPartSize = writerPartSize;
+    this.writerMaxPartsInFlight = writerMaxPartsInFlight;
   }
 
   public static S3FileSystem create(Map<String, String> env) {
@@ -84,7 +141,29 @@ public class S3FileSystem implements FileSystem {
       builder.withRegion(Regions.DEFAULT_REGION);
     }
 
-    return new S3FileSystem(builder.build());
+    return new S3FileSystem(
+        builder.build(),
+        ParallelReadOptions.fromEnv(env),
+        getIntOrDefault(env, "FLYTE_S3_WRITER_PART_SIZE", S3WritableByteChannel.DEFAULT_PART_SIZE),
+        getIntOrDefault(
+            env,
+            "FLYTE_S3_WRITER_MAX_PARTS_IN_FLIGHT",
+            S3WritableByteChannel.DEFAULT_MAX_PARTS_IN_FLIGHT));
+  }
+
+  private static int getIntOrDefault(Map<String, String> env, String name, int defaultValue) {
+    String value = env.get(name);
+
+    if (value == null) {
+      return defaultValue;
+    }
+
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+          "Environment variable '" + name + "' isn't a number: " + value, e);
+    }
   }
 
   @Override
@@ -96,24 +175,130 @@ public class S3FileSystem implements FileSystem {
   public ReadableByteChannel reader(String uri) {
     AmazonS3URI s3Uri = new AmazonS3URI(uri);
     S3ObjectId objectId = new S3ObjectId(s3Uri.getBucket(), s3Uri.getKey(), s3Uri.getVersionId());
+
     S3Object object = s3.getObject(new GetObjectRequest(objectId));
 
+    // size is known from the response, so small objects are read without extra requests
+    long size = object.getObjectMetadata().getContentLength();
+
+    if (readOptions.shouldSplit(size)) {
+      ByteBuffer head = readHead(object, readOptions.chunkSize());
+      // all ranges must be read from the same version of object
+      String etag = object.getObjectMetadata().getETag();
+
+      return ParallelReadableByteChannel.create(
+          head,
+          (offset, length) -> readRange(objectId, etag, offset, length),
+          size,
+          readOptions,
+          readExecutor);
+    }
+
     return Channels.newChannel(object.getObjectContent());
   }
 
+  // reads the first range from response, the rest of it is discarded, and read in parallel
+  private static ByteBuffer readHead(S3Object object, int length) {
+    S3ObjectInputStream inputStream = object.getObjectContent();
+    ReadableByteChannel channel = Channels.newChannel(inputStream);
+    ByteBuffer head = ByteBuffer.allocate(length);
+
+    try {
+      while (head.hasRemaining()) {
+        if (channel.read(head) < 0) {
+          throw new EOFException("Unexpected end of " + object.getKey() + " at " + head.position());
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      // closing would read the rest of object to reuse connection
+      inputStream.abort();
+    }
+
+    head.flip();
+
+    return head;
+  }
+
+  private byte[] readRange(S3ObjectId objectId, String etag, long offset, int length)
+      throws IOException {
+    GetObjectRequest request =
+        new GetObjectRequest(objectId)
+            .withRange(offset, offset + length - 1)
+            .withMatchingETagConstraint(etag);
+    S3Object object = s3.getObject(request);
+
+    // null means that constraint didn't match
+    if (object == null) {
+      throw new IOException("Object was modified while reading: " + objectId);
+    }
+
+    try (InputStream inputStream = object.getObjectContent()) {
+      byte[] bytes = IOUtils.toByteArray(inputStream);
+
+      if (bytes.length != length) {
+        throw new IOException(
+            String.format(
+                "Expected %d bytes at offset %d, but got %d: %s",
+                length, offset, bytes.length, objectId));
+      }
+
+      return bytes;
+    }
+  }
+
+  @Override
+  public CompletableFuture<Void> readAsync(String uri, Path destination, Executor executor) {
+    if (readOptions.isEnabled()) {
+      return FileSystem.super.readAsync(uri, destination, executor);
+    }
+
+    AmazonS3URI s3Uri = new AmazonS3URI(uri);
+    GetObjectRequest request =
+        new GetObjectRequest(s3Uri.getBucket(), s3Uri.getKey(), s3Uri.getVersionId());
+
+    // SDK downloads directly into the file, and validates checksum
+    return CompletableFuture.runAsync(() -> s3.getObject(request, destination.toFile()), executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> writeAsync(Path source, String uri, Executor executor) {
+    File file = source.toFile();
+
+    if (file.length() > MAX_PUT_OBJECT_SIZE) {
+      return FileSystem.super.writeAsync(source, uri, executor);
+    }
+
+    AmazonS3URI s3Uri = new AmazonS3URI(uri);
+
+    // SDK uploads directly from the file with a single request, without buffering it in memory,
+    // and can retry the request, because file can be read again
+    return CompletableFuture.runAsync(
+        () -> s3.putObject(s3Uri.getBucket(), s3Uri.getKey(), file), executor);
+  }
+
+  @Override
+  public void copy(String sourceUri, String targetUri) {
+    AmazonS3URI source = new AmazonS3URI(sourceUri);
+    AmazonS3URI target = new AmazonS3URI(targetUri);
+
+    s3.copyObject(source.getBucket(), source.getKey(), target.getBucket(), target.getKey());
+  }
+
   @Override
   public WritableByteChannel writer(String uri) {
     AmazonS3URI s3Uri = new AmazonS3URI(uri);
 
     LOG.fine("bucket=" + s3Uri.getBucket() + " key=" + s3Uri.getKey());
-    LOG.fine(s3.listBuckets() + "");
 
-    try {
-      return S3WritableByteChannel.create(
-          s3, /* bucketName= */ s3Uri.getBucket(), /* key= */ s3Uri.getKey());
-    } catch (IOException e) {
-      throw new UncheckedIOException(e);
-    }
+    return new S3WritableByteChannel(
+        s3,
+        /* bucketName= */ s3Uri.getBucket(),
+        /* key= */ s3Uri.getKey(),
+        /* partSize= */ writerPartSize,
+        /* maxPartsInFlight= */ writerMaxPartsInFlight,
+        uploadExecutor);
   }
 
   @Nullable
@@ -129,4 +314,11 @@ public class S3FileSystem implements FileSystem {
 
     return Manifest.create();
   }
+
+  private static Thread newUploadThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, "s3-upload");
+    thread.setDaemon(true);
+
+    return thread;
+  }
 }
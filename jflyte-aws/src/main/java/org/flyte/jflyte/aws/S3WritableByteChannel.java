@@ -17,63 +17,244 @@
 package org.flyte.jflyte.aws;
 
 import com.amazonaws.services.s3.AmazonS3;
-import java.io.File;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.WritableByteChannel;
-import java.nio.file.Files;
-import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
+/**
+ * Streams data to S3 while it's written. Data is buffered in memory in parts of {@code partSize}
+ * bytes. Payloads that fit into a single part are uploaded with a single PUT on close. Otherwise,
+ * multipart upload is started once the first part is full, and parts are uploaded concurrently,
+ * with at most {@code maxPartsInFlight} parts in flight. Memory use is bounded by {@code
+ * (maxPartsInFlight + 1) * partSize}.
+ *
+ * <p>Buffer starts small, and grows up to {@code partSize}, so small payloads don't allocate a
+ * whole part. Buffers of uploaded parts are reused for the next parts. Parts are uploaded with an
+ * executor shared by all writers of the same file system.
+ *
+ * <p>If anything fails, multipart upload is aborted, so that S3 doesn't keep uploaded parts.
+ */
 class S3WritableByteChannel implements WritableByteChannel {
-  private final File file;
+  private static final Logger LOG = Logger.getLogger(S3WritableByteChannel.class.getName());
+
+  // S3 requires all parts, except the last one, to be at least 5 MiB
+  static final int DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+  static final int DEFAULT_MAX_PARTS_IN_FLIGHT = 4;
+  static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+  private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+  private final AmazonS3 s3;
   private final String bucketName;
   private final String key;
-  private final WritableByteChannel fileChannel;
-  private final AmazonS3 s3;
+  private final int partSize;
+  private final Semaphore permits;
+  private final List<Future<PartETag>> parts = new ArrayList<>();
+  private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+  private final ExecutorService executor;
 
-  // TODO ideally, we should buffer into file only if it's nescessary, but for now we
-  //  got with a simple option of always creating a file given that the code isn't
-  //  performance-critical
+  private ByteBuffer buffer;
+  private boolean open = true;
+  @Nullable private String uploadId;
 
   S3WritableByteChannel(
-      AmazonS3 s3, String bucketName, String key, File file, WritableByteChannel fileChannel) {
+      AmazonS3 s3,
+      String bucketName,
+      String key,
+      int partSize,
+      int maxPartsInFlight,
+      ExecutorService executor) {
     this.s3 = s3;
     this.bucketName = bucketName;
     this.key = key;
-    this.file = file;
-    this.fileChannel = fileChannel;
+    this.partSize = partSize;
+    this.permits = new Semaphore(maxPartsInFlight);
+    this.buffer = ByteBuffer.allocate(Math.min(INITIAL_BUFFER_SIZE, partSize));
+    this.executor = executor;
   }
 
-  public static S3WritableByteChannel create(AmazonS3 s3, String bucketName, String key)
-      throws IOException {
-    String fileName = key.replaceAll("\\W+", "_");
-    File file = File.createTempFile("s3-upload", fileName);
-    file.deleteOnExit();
+  @Override
+  public int write(ByteBuffer src) throws IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
 
-    WritableByteChannel fileChannel = Files.newByteChannel(file.toPath(), StandardOpenOption.WRITE);
+    int written = src.remaining();
 
-    return new S3WritableByteChannel(
-        s3,
-        /* bucketName= */ bucketName,
-        /* key= */ key,
-        /* file= */ file,
-        /* fileChannel= */ fileChannel);
-  }
+    try {
+      while (src.hasRemaining()) {
+        // part is uploaded only once we know there is more data, so that payloads
+        // of exactly one part still go with a single PUT
+        if (!buffer.hasRemaining()) {
+          if (buffer.capacity() < partSize) {
+            growBuffer();
+          } else {
+            uploadPart();
+          }
+        }
 
-  @Override
-  public int write(ByteBuffer src) throws IOException {
-    return fileChannel.write(src);
+        int length = Math.min(buffer.remaining(), src.remaining());
+        ByteBuffer slice = src.duplicate();
+        slice.limit(slice.position() + length);
+
+        buffer.put(slice);
+        src.position(src.position() + length);
+      }
+    } catch (IOException | RuntimeException e) {
+      abort();
+      throw e;
+    }
+
+    return written;
   }
 
   @Override
   public boolean isOpen() {
-    return fileChannel.isOpen();
+    return open;
   }
 
   @Override
   public void close() throws IOException {
-    fileChannel.close();
+    if (!open) {
+      return;
+    }
+
+    if (uploadId == null) {
+      open = false;
+      putObject();
+      return;
+    }
+
+    try {
+      uploadPart();
+
+      List<PartETag> partETags = new ArrayList<>();
+      for (Future<PartETag> part : parts) {
+        partETags.add(getPartETag(part));
+      }
+
+      s3.completeMultipartUpload(
+          new CompleteMultipartUploadRequest(bucketName, key, uploadId, partETags));
+    } catch (IOException | RuntimeException e) {
+      abort();
+      throw e;
+    } finally {
+      open = false;
+    }
+  }
+
+  private void putObject() {
+    ObjectMetadata metadata = new ObjectMetadata();
+    metadata.setContentLength(buffer.position());
+
+    s3.putObject(bucketName, key, newInputStream(buffer), metadata);
+  }
+
+  private void uploadPart() throws IOException {
+    if (uploadId == null) {
+      uploadId =
+          s3.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, key))
+              .getUploadId();
+    }
+
+    checkFailedParts();
+
+    // blocks until one of the parts in flight is uploaded, and its buffer can be reused
+    permits.acquireUninterruptibly();
+
+    ByteBuffer part = buffer;
+    ByteBuffer free = freeBuffers.poll();
+    buffer = free != null ? free : ByteBuffer.allocate(partSize);
+
+    UploadPartRequest request =
+        new UploadPartRequest()
+            .withBucketName(bucketName)
+            .withKey(key)
+            .withUploadId(uploadId)
+            .withPartNumber(parts.size() + 1)
+            .withInputStream(newInputStream(part))
+            .withPartSize(part.position());
+
+    parts.add(
+        executor.submit(
+            () -> {
+              try {
+                PartETag partETag = s3.uploadPart(request).getPartETag();
+
+                part.clear();
+                freeBuffers.add(part);
+
+                return partETag;
+              } finally {
+                permits.release();
+              }
+            }));
+  }
+
+  private void growBuffer() {
+    ByteBuffer grown = ByteBuffer.allocate(Math.min(buffer.capacity() * 2, partSize));
+    buffer.flip();
+    grown.put(buffer);
+
+    buffer = grown;
+  }
+
+  private void checkFailedParts() throws IOException {
+    for (Future<PartETag> part : parts) {
+      if (part.isDone()) {
+        getPartETag(part);
+      }
+    }
+  }
+
+  private static PartETag getPartETag(Future<PartETag> part) throws IOException {
+    try {
+      return part.get();
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to upload part", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while uploading part", e);
+    }
+  }
+
+  private void abort() {
+    open = false;
+
+    // executor is shared, only parts of this upload are cancelled
+    parts.forEach(part -> part.cancel(/* mayInterruptIfRunning= */ true));
+
+    if (uploadId == null) {
+      return;
+    }
+
+    try {
+      s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+    } catch (RuntimeException e) {
+      LOG.log(Level.WARNING, "Failed to abort multipart upload [" + uploadId + "]", e);
+    }
+  }
 
-    s3.putObject(/* bucketName= */ bucketName, /* key= */ key, file);
+  private static ByteArrayInputStream newInputStream(ByteBuffer buffer) {
+    return new ByteArrayInputStream(buffer.array(), buffer.arrayOffset(), buffer.position());
   }
 }
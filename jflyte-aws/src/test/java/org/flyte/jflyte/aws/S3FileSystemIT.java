@@ -26,13 +26,18 @@ import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.util.IOUtils;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.ThreadLocalRandom;
 import org.flyte.jflyte.api.Manifest;
+import org.flyte.jflyte.api.ParallelReadOptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.testcontainers.containers.localstack.LocalStackContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -80,6 +85,93 @@ public class S3FileSystemIT {
     assertEquals(Manifest.create(), manifest);
   }
 
+  @Test
+  public void testWriteAndReadMultipart() throws IOException {
+    S3FileSystem fileSystem = new S3FileSystem(s3);
+    String uri = "s3://flyteorg/0z/b5bc9ba2b0ad44b5bc4a3b5fb0c0ab62";
+
+    byte[] inputBytes = new byte[2 * S3WritableByteChannel.DEFAULT_PART_SIZE + 42];
+    ThreadLocalRandom.current().nextBytes(inputBytes);
+
+    try (WritableByteChannel writer = fileSystem.writer(uri)) {
+      ByteArrayInputStream input = new ByteArrayInputStream(inputBytes);
+      IOUtils.copy(input, Channels.newOutputStream(writer));
+    }
+
+    byte[] outputBytes;
+    try (ReadableByteChannel reader = fileSystem.reader(uri)) {
+      outputBytes = IOUtils.toByteArray(Channels.newInputStream(reader));
+    }
+
+    assertArrayEquals(inputBytes, outputBytes);
+  }
+
+  @Test
+  public void testParallelRead() throws IOException {
+    S3FileSystem fileSystem =
+        new S3FileSystem(
+            s3,
+            ParallelReadOptions.create(
+                /* parallelism= */ 4, /* chunkSize= */ 1000, /* threshold= */ 0));
+    String uri = "s3://flyteorg/0z/4d3a52e8fa1a4a1f93b1e3a3fae2d58e";
+
+    byte[] inputBytes = new byte[10_042];
+    ThreadLocalRandom.current().nextBytes(inputBytes);
+    try (WritableByteChannel writer = fileSystem.writer(uri)) {
+      ByteArrayInputStream input = new ByteArrayInputStream(inputBytes);
+      IOUtils.copy(input, Channels.newOutputStream(writer));
+    }
+
+    byte[] outputBytes;
+    try (ReadableByteChannel reader = fileSystem.reader(uri)) {
+      outputBytes = IOUtils.toByteArray(Channels.newInputStream(reader));
+    }
+
+    assertArrayEquals(inputBytes, outputBytes);
+  }
+
+  @Test
+  public void testCopyAndReadAsync(@TempDir Path tempDir) throws Exception {
+    S3FileSystem fileSystem = new S3FileSystem(s3);
+    String source = "s3://flyteorg/0z/source";
+    String target = "s3://flyteorg/0z/target";
+
+    byte[] inputBytes = new byte[42];
+    ThreadLocalRandom.current().nextBytes(inputBytes);
+
+    try (WritableByteChannel writer = fileSystem.writer(source)) {
+      writer.write(ByteBuffer.wrap(inputBytes));
+    }
+
+    fileSystem.copy(source, target);
+
+    Path destination = tempDir.resolve("target");
+    fileSystem.readAsync(target, destination, Runnable::run).get();
+
+    assertArrayEquals(inputBytes, Files.readAllBytes(destination));
+  }
+
+  @Test
+  public void testWriteAsync(@TempDir Path tempDir) throws Exception {
+    S3FileSystem fileSystem = new S3FileSystem(s3);
+    String uri = "s3://flyteorg/0z/3c2a1e0f4d5b4c6a8e7f9a0b1c2d3e4f";
+
+    byte[] inputBytes = new byte[42];
+    ThreadLocalRandom.current().nextBytes(inputBytes);
+
+    Path source = tempDir.resolve("source");
+    Files.write(source, inputBytes);
+
+    fileSystem.writeAsync(source, uri, Runnable::run).get();
+
+    byte[] outputBytes;
+    try (ReadableByteChannel reader = fileSystem.reader(uri)) {
+      outputBytes = IOUtils.toByteArray(Channels.newInputStream(reader));
+    }
+
+    assertArrayEquals(inputBytes, outputBytes);
+  }
+
   @Test
   public void testFileNotExists() {
     S3FileSystem fileSystem = new S3FileSystem(s3);
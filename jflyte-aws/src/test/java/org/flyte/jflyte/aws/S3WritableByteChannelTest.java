@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte.aws;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.amazonaws.util.IOUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+public class S3WritableByteChannelTest {
+  private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool();
+
+  @Test
+  public void testSinglePut() throws IOException {
+    FakeS3 s3 = new FakeS3();
+
+    try (S3WritableByteChannel channel = newChannel(s3)) {
+      channel.write(utf8("abcd"));
+    }
+
+    assertEquals("abcd", s3.object);
+    assertNull(s3.uploadId);
+  }
+
+  @Test
+  public void testMultipartUpload() throws IOException {
+    FakeS3 s3 = new FakeS3();
+
+    try (S3WritableByteChannel channel = newChannel(s3)) {
+      channel.write(utf8("abcdefghij"));
+      channel.write(utf8("k"));
+    }
+
+    assertEquals("abcdefghijk", s3.object);
+    assertEquals("upload-id", s3.uploadId);
+    assertEquals(3, s3.parts.size());
+    assertFalse(s3.aborted);
+  }
+
+  @Test
+  public void testAbortOnFailure() {
+    FakeS3 s3 = new FakeS3();
+    s3.failPart = 2;
+
+    S3WritableByteChannel channel = newChannel(s3);
+
+    assertThrows(
+        IOException.class,
+        () -> {
+          channel.write(utf8("abcdefghijk"));
+          channel.close();
+        });
+
+    assertTrue(s3.aborted);
+    assertNull(s3.object);
+    assertFalse(channel.isOpen());
+  }
+
+  @Test
+  public void testGrowsBufferUpToPartSize() throws IOException {
+    FakeS3 s3 = new FakeS3();
+    byte[] bytes = new byte[200 * 1024];
+    Arrays.fill(bytes, (byte) 'a');
+
+    try (S3WritableByteChannel channel =
+        new S3WritableByteChannel(
+            s3,
+            /* bucketName= */ "bucket",
+            /* key= */ "key",
+            /* partSize= */ 1024 * 1024,
+            /* maxPartsInFlight= */ 2,
+            EXECUTOR)) {
+      channel.write(ByteBuffer.wrap(bytes));
+    }
+
+    assertEquals(new String(bytes, StandardCharsets.UTF_8), s3.object);
+    assertNull(s3.uploadId);
+  }
+
+  @Test
+  public void testDoesNotShutDownSharedExecutor() throws IOException {
+    FakeS3 s3 = new FakeS3();
+
+    try (S3WritableByteChannel channel = newChannel(s3)) {
+      channel.write(utf8("abcdefghijk"));
+    }
+
+    assertFalse(EXECUTOR.isShutdown());
+  }
+
+  private static S3WritableByteChannel newChannel(FakeS3 s3) {
+    return new S3WritableByteChannel(
+        s3,
+        /* bucketName= */ "bucket",
+        /* key= */ "key",
+        /* partSize= */ 4,
+        /* maxPartsInFlight= */ 2,
+        EXECUTOR);
+  }
+
+  private static ByteBuffer utf8(String value) {
+    return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String read(InputStream inputStream) {
+    try {
+      return new String(IOUtils.toByteArray(inputStream), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static class FakeS3 extends AbstractAmazonS3 {
+    private final Map<Integer, String> parts = new ConcurrentSkipListMap<>();
+    private volatile String object;
+    private volatile String uploadId;
+    private volatile boolean aborted;
+    private volatile int failPart;
+
+    @Override
+    public PutObjectResult putObject(
+        String bucketName, String key, InputStream input, ObjectMetadata metadata) {
+      object = read(input);
+
+      return new PutObjectResult();
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(
+        InitiateMultipartUploadRequest request) {
+      uploadId = "upload-id";
+
+      InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+      result.setUploadId(uploadId);
+
+      return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+      if (request.getPartNumber() == failPart) {
+        throw new SdkClientException("part failed");
+      }
+
+      parts.put(request.getPartNumber(), read(request.getInputStream()));
+
+      UploadPartResult result = new UploadPartResult();
+      result.setPartNumber(request.getPartNumber());
+      result.setETag("etag-" + request.getPartNumber());
+
+      return result;
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(
+        CompleteMultipartUploadRequest request) {
+      assertArrayEquals(
+          parts.keySet().stream().map(x -> "etag-" + x).toArray(),
+          request.getPartETags().stream().map(PartETag::getETag).toArray());
+
+      object = String.join("", parts.values());
+
+      return new CompleteMultipartUploadResult();
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+      aborted = true;
+    }
+  }
+}
@@ -18,33 +18,67 @@ package org.flyte.jflyte.gcp;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.util.stream.Collectors.toList;
 
+import com.google.cloud.ReadChannel;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
 import com.google.cloud.storage.StorageOptions;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import com.google.errorprone.annotations.MustBeClosed;
+import com.google.errorprone.annotations.Var;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 import org.flyte.jflyte.api.FileSystem;
 import org.flyte.jflyte.api.Manifest;
+import org.flyte.jflyte.api.ParallelReadOptions;
+import org.flyte.jflyte.api.ParallelReadableByteChannel;
 
-/** Implementation of {@link FileSystem} for Google Cloud Storage. */
+/**
+ * Implementation of {@link FileSystem} for Google Cloud Storage.
+ *
+ * <p>{@link #readAsync} and {@link #writeAsync} use default implementations, which stream through
+ * {@link #reader} and {@link #writer}. They already read with a single request, or with parallel
+ * ranged requests, and write small blobs with a single request, and large blobs with resumable
+ * uploads. google-cloud-storage doesn't have a faster way to upload a file, and {@code
+ * Blob.downloadTo} would only add a metadata request.
+ */
 public class GcsFileSystem implements FileSystem {
   private static final String SCHEME = "gs";
+  private static final int HEAD_SIZE = 8 * 1024;
+  private static final int MAX_BATCH_SIZE = 100;
   private static final Pattern GCS_URI =
       Pattern.compile("(?<SCHEME>[^:]+)://(?<BUCKET>[^/]+)(/(?<OBJECT>.*))?");
 
+  // same as default chunk size of resumable uploads in google-cloud-storage
+  private static final int DEFAULT_WRITER_CHUNK_SIZE = 15 * 1024 * 1024;
+  // resumable uploads require chunks to be multiples of 256 KiB
+  private static final int WRITER_CHUNK_SIZE_GRANULARITY = 256 * 1024;
+
   private final Storage storage;
+  private final ParallelReadOptions readOptions;
+  // shared by all readers, so concurrent reads don't multiply threads
+  private final ExecutorService readExecutor;
+  private final int writerChunkSize;
 
   public GcsFileSystem() {
     this(StorageOptions.getDefaultInstance().getService());
@@ -52,7 +86,53 @@ public class GcsFileSystem implements FileSystem {
 
   @VisibleForTesting
   GcsFileSystem(Storage storage) {
+    this(storage, ParallelReadOptions.disabled());
+  }
+
+  @VisibleForTesting
+  GcsFileSystem(Storage storage, ParallelReadOptions readOptions) {
+    this(storage, readOptions, DEFAULT_WRITER_CHUNK_SIZE);
+  }
+
+  @VisibleForTesting
+  GcsFileSystem(Storage storage, ParallelReadOptions readOptions, int writerChunkSize) {
+    checkArgument(writerChunkSize > 0, "Invalid writer chunk size [%s]", writerChunkSize);
+
     this.storage = Objects.requireNonNull(storage);
+    this.readOptions = Objects.requireNonNull(readOptions);
+    this.readExecutor = ParallelReadableByteChannel.newExecutor(readOptions);
+    this.writerChunkSize = writerChunkSize;
+  }
+
+  public static GcsFileSystem create(Map<String, String> env) {
+    return new GcsFileSystem(
+        StorageOptions.getDefaultInstance().getService(),
+        ParallelReadOptions.fromEnv(env),
+        parseWriterChunkSize(env.get("FLYTE_GCS_WRITER_CHUNK_SIZE")));
+  }
+
+  @VisibleForTesting
+  static int parseWriterChunkSize(@Nullable String value) {
+    if (value == null) {
+      return DEFAULT_WRITER_CHUNK_SIZE;
+    }
+
+    int chunkSize;
+    try {
+      chunkSize = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+          "Environment variable 'FLYTE_GCS_WRITER_CHUNK_SIZE' isn't a number: " + value, e);
+    }
+
+    checkArgument(
+        chunkSize > 0 && chunkSize % WRITER_CHUNK_SIZE_GRANULARITY == 0,
+        "Environment variable 'FLYTE_GCS_WRITER_CHUNK_SIZE' must be a positive multiple of %s,"
+            + " but was %s",
+        WRITER_CHUNK_SIZE_GRANULARITY,
+        chunkSize);
+
+    return chunkSize;
   }
 
   @Override
@@ -63,20 +143,123 @@ public class GcsFileSystem implements FileSystem {
   @Override
   @MustBeClosed
   public ReadableByteChannel reader(String uri) {
-    Blob blob = guard(() -> storage.get(parseUri(uri)), () -> "Couldn't read resource: " + uri);
+    if (!readOptions.isEnabled()) {
+      return guard(() -> openReader(parseUri(uri), uri), () -> "Couldn't read resource: " + uri);
+    }
+
+    return guard(
+        () -> openParallelReader(parseUri(uri), uri), () -> "Couldn't read resource: " + uri);
+  }
+
+  // opens reader, and reads the first chunk of blob, getting metadata before reading would cost an
+  // extra request, instead, missing blobs are detected by the first read
+  private ReadableByteChannel openReader(BlobId blobId, String uri) throws IOException {
+    ReadChannel channel = storage.reader(blobId);
+    ByteBuffer head = readHead(channel, uri, HEAD_SIZE);
+
+    return new PrefetchedReadableByteChannel(head, channel);
+  }
+
+  // same as openReader, but the first request fetches the whole first range, blobs that fit into it
+  // are read without getting metadata, ReadChannel doesn't expose size of blob, so it's fetched
+  // only for larger blobs, to decide if they should be read in parallel
+  private ReadableByteChannel openParallelReader(BlobId blobId, String uri) throws IOException {
+    int chunkSize = readOptions.chunkSize();
+    ReadChannel channel = storage.reader(blobId);
+    channel.setChunkSize(chunkSize);
+    ByteBuffer head = readHead(channel, uri, chunkSize);
+
+    if (head.remaining() < chunkSize) {
+      return new PrefetchedReadableByteChannel(head, channel);
+    }
+
+    Blob blob;
+    try {
+      blob = storage.get(blobId);
+    } catch (RuntimeException e) {
+      channel.close();
+      throw e;
+    }
 
     if (blob == null) {
+      channel.close();
       throw new IllegalArgumentException("Resource doesn't exist: " + uri);
     }
 
-    return blob.reader();
+    Long size = blob.getSize();
+
+    if (size == null || !readOptions.shouldSplit(size)) {
+      return new PrefetchedReadableByteChannel(head, channel);
+    }
+
+    channel.close();
+
+    // pin generation, so that all ranges are read from the same version of object, generation of
+    // head isn't known, so it's read again
+    BlobId pinnedBlobId = BlobId.of(blob.getBucket(), blob.getName(), blob.getGeneration());
+
+    return ParallelReadableByteChannel.create(
+        (offset, length) -> readRange(pinnedBlobId, offset, length),
+        size,
+        readOptions,
+        readExecutor);
+  }
+
+  // reads up to maxSize bytes, buffer grows as bytes arrive, so that small blobs don't allocate
+  // maxSize bytes, fewer bytes are returned only if blob has ended
+  private static ByteBuffer readHead(ReadChannel channel, String uri, int maxSize)
+      throws IOException {
+    @Var ByteBuffer head = ByteBuffer.allocate(Math.min(HEAD_SIZE, maxSize));
+
+    try {
+      while (channel.read(head) >= 0) {
+        if (!head.hasRemaining()) {
+          if (head.capacity() == maxSize) {
+            break;
+          }
+
+          head.flip();
+          head = ByteBuffer.allocate((int) Math.min(2L * head.capacity(), maxSize)).put(head);
+        }
+      }
+    } catch (StorageException e) {
+      channel.close();
+
+      if (e.getCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+        throw new IllegalArgumentException("Resource doesn't exist: " + uri, e);
+      }
+
+      throw e;
+    }
+
+    head.flip();
+
+    return head;
+  }
+
+  private byte[] readRange(BlobId blobId, long offset, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+
+    try (ReadChannel channel = storage.reader(blobId)) {
+      // fetch the whole range with a single request
+      channel.setChunkSize(length);
+      channel.seek(offset);
+
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          throw new EOFException("Unexpected end of " + blobId + " at " + buffer.position());
+        }
+      }
+    }
+
+    return buffer.array();
   }
 
   @Override
   public WritableByteChannel writer(String uri) {
-    return guard(
-        () -> storage.writer(BlobInfo.newBuilder(parseUri(uri)).build()),
-        () -> "Couldn't write resource: " + uri);
+    BlobInfo blobInfo = BlobInfo.newBuilder(parseUri(uri)).build();
+
+    return new GcsWritableByteChannel(storage, uri, blobInfo, writerChunkSize);
   }
 
   @Nullable
@@ -92,6 +275,36 @@ public class GcsFileSystem implements FileSystem {
     return Manifest.create();
   }
 
+  @Override
+  public Map<String, Manifest> getManifests(List<String> uris) {
+    Map<String, Manifest> manifests = new LinkedHashMap<>();
+
+    // batch requests are limited to 100 calls
+    for (List<String> batch : Lists.partition(uris, MAX_BATCH_SIZE)) {
+      List<BlobId> blobIds = batch.stream().map(GcsFileSystem::parseUri).collect(toList());
+      List<Blob> blobs =
+          guard(() -> storage.get(blobIds), () -> "Couldn't get manifests for resources: " + batch);
+
+      for (int i = 0; i < batch.size(); i++) {
+        if (blobs.get(i) != null) {
+          manifests.put(batch.get(i), Manifest.create());
+        }
+      }
+    }
+
+    return manifests;
+  }
+
+  @Override
+  public void copy(String sourceUri, String targetUri) {
+    Storage.CopyRequest request = Storage.CopyRequest.of(parseUri(sourceUri), parseUri(targetUri));
+
+    // large objects are copied in multiple requests, getResult waits for all of them
+    guard(
+        () -> storage.copy(request).getResult(),
+        () -> "Couldn't copy resource " + sourceUri + " to " + targetUri);
+  }
+
   private <T> T guard(Callable<T> callable, Supplier<String> errMessageSupplier) {
     try {
       return callable.call();
@@ -28,6 +28,6 @@ public class GcsFileSystemRegistrar extends FileSystemRegistrar {
 
   @Override
   public Iterable<FileSystem> load(Map<String, String> env) {
-    return Collections.singletonList(new GcsFileSystem());
+    return Collections.singletonList(GcsFileSystem.create(env));
   }
 }
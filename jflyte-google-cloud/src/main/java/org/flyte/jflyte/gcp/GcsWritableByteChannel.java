@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte.gcp;
+
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import javax.annotation.Nullable;
+
+/**
+ * Uploads data that fits into a single chunk with a single request, and switches to resumable
+ * upload otherwise. Resumable upload needs an extra request to start a session, and for small
+ * objects it dominates latency.
+ */
+class GcsWritableByteChannel implements WritableByteChannel {
+  private final Storage storage;
+  private final String uri;
+  private final BlobInfo blobInfo;
+  private final int chunkSize;
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+  @Nullable private WriteChannel writer;
+  private boolean open = true;
+
+  GcsWritableByteChannel(Storage storage, String uri, BlobInfo blobInfo, int chunkSize) {
+    this.storage = storage;
+    this.uri = uri;
+    this.blobInfo = blobInfo;
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public int write(ByteBuffer src) throws IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+
+    WriteChannel currentWriter = writer;
+    if (currentWriter != null) {
+      return currentWriter.write(src);
+    }
+
+    int length = src.remaining();
+
+    if (pending.size() + length <= chunkSize) {
+      byte[] bytes = new byte[length];
+      src.get(bytes);
+      pending.write(bytes, 0, length);
+
+      return length;
+    }
+
+    try {
+      WriteChannel newWriter = storage.writer(blobInfo);
+      newWriter.setChunkSize(chunkSize);
+      writer = newWriter;
+
+      ByteBuffer buffered = ByteBuffer.wrap(pending.toByteArray());
+      while (buffered.hasRemaining()) {
+        newWriter.write(buffered);
+      }
+      pending.reset();
+
+      return newWriter.write(src);
+    } catch (StorageException e) {
+      throw new IOException("Couldn't write resource: " + uri, e);
+    }
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!open) {
+      return;
+    }
+
+    open = false;
+
+    WriteChannel currentWriter = writer;
+
+    try {
+      if (currentWriter != null) {
+        currentWriter.close();
+      } else {
+        storage.create(blobInfo, pending.toByteArray());
+      }
+    } catch (StorageException e) {
+      throw new IOException("Couldn't write resource: " + uri, e);
+    }
+  }
+}
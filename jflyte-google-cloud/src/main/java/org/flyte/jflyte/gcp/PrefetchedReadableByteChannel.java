@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte.gcp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/** Returns bytes that were already read from {@code channel}, and then the rest of it. */
+class PrefetchedReadableByteChannel implements ReadableByteChannel {
+  private final ByteBuffer head;
+  private final ReadableByteChannel channel;
+
+  PrefetchedReadableByteChannel(ByteBuffer head, ReadableByteChannel channel) {
+    this.head = head;
+    this.channel = channel;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    if (!head.hasRemaining()) {
+      return channel.read(dst);
+    }
+
+    int length = Math.min(head.remaining(), dst.remaining());
+    ByteBuffer slice = head.duplicate();
+    slice.limit(slice.position() + length);
+
+    dst.put(slice);
+    head.position(head.position() + length);
+
+    return length;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return channel.isOpen();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -17,29 +17,45 @@
 package org.flyte.jflyte.gcp;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
-import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.cloud.ReadChannel;
+import com.google.cloud.RestorableState;
 import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.CopyWriter;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import org.flyte.jflyte.api.Manifest;
+import org.flyte.jflyte.api.ParallelReadOptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -60,41 +76,214 @@ class GcsFileSystemTest {
     assertThat(gcsFs.getScheme(), equalTo("gs"));
   }
 
-  @SuppressWarnings("MustBeClosedChecker")
   @Test
-  void testReaderPropagatesCallToStorage() {
-    Blob mockerReturn = mock(Blob.class);
-    when(storage.get(any(BlobId.class))).thenReturn(mockerReturn);
-    ReadChannel expectedChannel = mock(ReadChannel.class);
-    when(mockerReturn.reader()).thenReturn(expectedChannel);
+  void testReaderPropagatesCallToStorage() throws IOException {
+    when(storage.reader(any(BlobId.class))).thenReturn(new FakeReadChannel("content"));
 
-    ReadableByteChannel actualChannel = gcsFs.reader("gs://bucket/path/to/file");
+    try (ReadableByteChannel channel = gcsFs.reader("gs://bucket/path/to/file")) {
+      assertThat(read(channel), equalTo("content"));
+    }
 
-    assertThat(actualChannel, sameInstance(expectedChannel));
-    verify(storage).get(BlobId.of("bucket", "path/to/file"));
+    verify(storage).reader(BlobId.of("bucket", "path/to/file"));
+    verify(storage, never()).get(any(BlobId.class));
+  }
+
+  @Test
+  void testReaderReportsMissingResource() throws IOException {
+    ReadChannel channel = mock(ReadChannel.class);
+    when(storage.reader(any(BlobId.class))).thenReturn(channel);
+    doThrow(new StorageException(404, "Not Found")).when(channel).read(any());
+
+    IllegalArgumentException exception =
+        assertThrows(IllegalArgumentException.class, () -> gcsFs.reader("gs://bucket/file"));
+
+    assertThat(exception.getMessage(), equalTo("Resource doesn't exist: gs://bucket/file"));
+    verify(channel).close();
+  }
+
+  @Test
+  void testReaderReadsLargeBlobsInParallel() throws IOException {
+    String content = "0123456789abcdefghij";
+    Blob blob = mock(Blob.class);
+    when(blob.getSize()).thenReturn((long) content.length());
+    when(blob.getBucket()).thenReturn("bucket");
+    when(blob.getName()).thenReturn("path/to/file");
+    when(blob.getGeneration()).thenReturn(42L);
+    when(storage.get(BlobId.of("bucket", "path/to/file"))).thenReturn(blob);
+    when(storage.reader(BlobId.of("bucket", "path/to/file")))
+        .thenAnswer(invocation -> new FakeReadChannel(content));
+    when(storage.reader(BlobId.of("bucket", "path/to/file", 42L)))
+        .thenAnswer(invocation -> new FakeReadChannel(content));
+
+    GcsFileSystem fs =
+        new GcsFileSystem(
+            storage,
+            ParallelReadOptions.create(
+                /* parallelism= */ 2, /* chunkSize= */ 3, /* threshold= */ 0));
+
+    try (ReadableByteChannel channel = fs.reader("gs://bucket/path/to/file")) {
+      assertThat(read(channel), equalTo(content));
+    }
+  }
+
+  @Test
+  void testReaderDoesntGetMetadataOfSmallBlobs() throws IOException {
+    when(storage.reader(any(BlobId.class)))
+        .thenAnswer(invocation -> new FakeReadChannel("content"));
+
+    GcsFileSystem fs =
+        new GcsFileSystem(
+            storage,
+            ParallelReadOptions.create(
+                /* parallelism= */ 2, /* chunkSize= */ 8, /* threshold= */ 0));
+
+    try (ReadableByteChannel channel = fs.reader("gs://bucket/path/to/file")) {
+      assertThat(read(channel), equalTo("content"));
+    }
+
+    verify(storage).reader(BlobId.of("bucket", "path/to/file"));
+    verify(storage, never()).get(any(BlobId.class));
   }
 
-  @SuppressWarnings("MustBeClosedChecker")
   @Test
-  void testWriterPropagatesCallToStorage() {
-    WriteChannel expectedChannel = mock(WriteChannel.class);
-    when(storage.writer(any(BlobInfo.class))).thenReturn(expectedChannel);
+  void testReaderReadsBlobsBelowThresholdWithSingleReader() throws IOException {
+    String content = "0123456789abcdefghij";
+    Blob blob = mock(Blob.class);
+    when(blob.getSize()).thenReturn((long) content.length());
+    when(storage.get(BlobId.of("bucket", "path/to/file"))).thenReturn(blob);
+    when(storage.reader(any(BlobId.class))).thenAnswer(invocation -> new FakeReadChannel(content));
+
+    GcsFileSystem fs =
+        new GcsFileSystem(
+            storage,
+            ParallelReadOptions.create(
+                /* parallelism= */ 2, /* chunkSize= */ 3, /* threshold= */ 100));
+
+    try (ReadableByteChannel channel = fs.reader("gs://bucket/path/to/file")) {
+      assertThat(read(channel), equalTo(content));
+    }
+
+    verify(storage).reader(BlobId.of("bucket", "path/to/file"));
+  }
+
+  @Test
+  void testClosingParallelReaderDoesntAffectOtherReaders() throws IOException {
+    String content = "0123456789abcdefghij";
+    Blob blob = mock(Blob.class);
+    when(blob.getSize()).thenReturn((long) content.length());
+    when(blob.getBucket()).thenReturn("bucket");
+    when(blob.getName()).thenReturn("path/to/file");
+    when(blob.getGeneration()).thenReturn(42L);
+    when(storage.get(BlobId.of("bucket", "path/to/file"))).thenReturn(blob);
+    when(storage.reader(BlobId.of("bucket", "path/to/file")))
+        .thenAnswer(invocation -> new FakeReadChannel(content));
+    when(storage.reader(BlobId.of("bucket", "path/to/file", 42L)))
+        .thenAnswer(invocation -> new FakeReadChannel(content));
+
+    GcsFileSystem fs =
+        new GcsFileSystem(
+            storage,
+            ParallelReadOptions.create(
+                /* parallelism= */ 2, /* chunkSize= */ 3, /* threshold= */ 0));
+
+    try (ReadableByteChannel channel = fs.reader("gs://bucket/path/to/file")) {
+      try (ReadableByteChannel other = fs.reader("gs://bucket/path/to/file")) {
+        assertThat(other.isOpen(), equalTo(true));
+      }
+
+      assertThat(read(channel), equalTo(content));
+    }
+  }
+
+  @Test
+  void testWriterUploadsSmallBlobsWithSingleRequest() throws IOException {
+    try (WritableByteChannel channel = gcsFs.writer("gs://bucket/path/to/file")) {
+      channel.write(ByteBuffer.wrap("content".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    verify(storage)
+        .create(
+            BlobInfo.newBuilder("bucket", "path/to/file").build(),
+            "content".getBytes(StandardCharsets.UTF_8));
+    verify(storage, never()).writer(any(BlobInfo.class));
+  }
+
+  @Test
+  void testWriterUsesResumableUploadsForLargeBlobs() throws IOException {
+    WriteChannel writeChannel = mock(WriteChannel.class);
+    when(storage.writer(any(BlobInfo.class))).thenReturn(writeChannel);
+    when(writeChannel.write(any()))
+        .thenAnswer(
+            invocation -> {
+              ByteBuffer src = invocation.getArgument(0);
+              int length = src.remaining();
+              src.position(src.limit());
+              return length;
+            });
+
+    GcsFileSystem fs =
+        new GcsFileSystem(storage, ParallelReadOptions.disabled(), /* writerChunkSize= */ 4);
 
-    WritableByteChannel actualChannel = gcsFs.writer("gs://bucket/path/to/file");
+    try (WritableByteChannel channel = fs.writer("gs://bucket/path/to/file")) {
+      channel.write(ByteBuffer.wrap("abc".getBytes(StandardCharsets.UTF_8)));
+      channel.write(ByteBuffer.wrap("defgh".getBytes(StandardCharsets.UTF_8)));
+    }
 
-    assertThat(actualChannel, sameInstance(expectedChannel));
     verify(storage).writer(BlobInfo.newBuilder("bucket", "path/to/file").build());
+    verify(writeChannel).setChunkSize(4);
+    verify(writeChannel).close();
+  }
+
+  @Test
+  void testParseWriterChunkSize() {
+    assertThat(GcsFileSystem.parseWriterChunkSize("524288"), equalTo(512 * 1024));
+    assertThat(GcsFileSystem.parseWriterChunkSize(null), equalTo(15 * 1024 * 1024));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"abc", "0", "-262144", "1000"})
+  void testParseWriterChunkSizeRejectsInvalidValues(String value) {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class, () -> GcsFileSystem.parseWriterChunkSize(value));
+
+    assertThat(e.getMessage(), containsString("FLYTE_GCS_WRITER_CHUNK_SIZE"));
   }
 
   @Test
   void testGetManifestPropagatesToStorage() {
-    WriteChannel expectedChannel = mock(WriteChannel.class);
-    when(storage.writer(any(BlobInfo.class))).thenReturn(expectedChannel);
+    when(storage.get(any(BlobId.class))).thenReturn(mock(Blob.class));
 
-    WritableByteChannel actualChannel = gcsFs.writer("gs://bucket/path/to/file");
+    Manifest manifest = gcsFs.getManifest("gs://bucket/path/to/file");
 
-    assertThat(actualChannel, sameInstance(expectedChannel));
-    verify(storage).writer(BlobInfo.newBuilder("bucket", "path/to/file").build());
+    assertThat(manifest, equalTo(Manifest.create()));
+    verify(storage).get(BlobId.of("bucket", "path/to/file"));
+  }
+
+  @Test
+  void testGetManifestsUsesBatchRequest() {
+    when(storage.get(ImmutableList.of(BlobId.of("bucket", "a"), BlobId.of("bucket", "b"))))
+        .thenReturn(Arrays.asList(mock(Blob.class), null));
+
+    Map<String, Manifest> manifests =
+        gcsFs.getManifests(ImmutableList.of("gs://bucket/a", "gs://bucket/b"));
+
+    assertThat(manifests, equalTo(ImmutableMap.of("gs://bucket/a", Manifest.create())));
+  }
+
+  @Test
+  void testCopyIsServerSide() {
+    CopyWriter copyWriter = mock(CopyWriter.class);
+    when(storage.copy(any(Storage.CopyRequest.class))).thenReturn(copyWriter);
+
+    gcsFs.copy("gs://bucket/a", "gs://other-bucket/b");
+
+    ArgumentCaptor<Storage.CopyRequest> request =
+        ArgumentCaptor.forClass(Storage.CopyRequest.class);
+    verify(storage).copy(request.capture());
+    verify(copyWriter).getResult();
+    assertThat(request.getValue().getSource(), equalTo(BlobId.of("bucket", "a")));
+    assertThat(request.getValue().getTarget().getBlobId(), equalTo(BlobId.of("other-bucket", "b")));
   }
 
   @ParameterizedTest
@@ -115,7 +304,7 @@ class GcsFileSystemTest {
 
   @Test
   void testReaderReportsUriOnStorageExceptions() {
-    doThrow(StorageException.class).when(storage).get(any(BlobId.class));
+    doThrow(StorageException.class).when(storage).reader(any(BlobId.class));
 
     RuntimeException exception =
         assertThrows(RuntimeException.class, () -> gcsFs.reader("gs://bucket/file"));
@@ -125,10 +314,10 @@ class GcsFileSystemTest {
 
   @Test
   void testWriterReportsUriOnStorageExceptions() {
-    doThrow(StorageException.class).when(storage).writer(any(BlobInfo.class));
+    doThrow(StorageException.class).when(storage).create(any(BlobInfo.class), any(byte[].class));
 
-    RuntimeException exception =
-        assertThrows(RuntimeException.class, () -> gcsFs.writer("gs://bucket/file"));
+    WritableByteChannel channel = gcsFs.writer("gs://bucket/file");
+    IOException exception = assertThrows(IOException.class, channel::close);
 
     assertThat(exception.getMessage(), equalTo("Couldn't write resource: gs://bucket/file"));
   }
@@ -143,4 +332,51 @@ class GcsFileSystemTest {
     assertThat(
         exception.getMessage(), equalTo("Couldn't get manifest for resource: gs://bucket/file"));
   }
+
+  private static String read(ReadableByteChannel channel) throws IOException {
+    byte[] bytes = ByteStreams.toByteArray(Channels.newInputStream(channel));
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static class FakeReadChannel implements ReadChannel {
+    private final ByteBuffer content;
+
+    private FakeReadChannel(String content) {
+      this.content = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void seek(long position) {
+      content.position((int) position);
+    }
+
+    @Override
+    public void setChunkSize(int chunkSize) {}
+
+    @Override
+    public int read(ByteBuffer dst) {
+      if (!content.hasRemaining()) {
+        return -1;
+      }
+
+      // return a single byte at a time, to check that ranges are read fully
+      dst.put(content.get());
+
+      return 1;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public RestorableState<ReadChannel> capture() {
+      throw new UnsupportedOperationException();
+    }
+  }
 }
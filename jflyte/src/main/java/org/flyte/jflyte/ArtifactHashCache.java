@@ -0,0 +1,252 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import com.google.auto.value.AutoValue;
+import com.google.errorprone.annotations.Var;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache of file hashes computed by {@link ArtifactStager}. Entries are keyed by absolute
+ * path, and are only reused if file size, modification time and file key (inode, if available)
+ * didn't change since the hash was computed.
+ *
+ * <p>Cache file is a plain text file with one tab-separated entry per line. Corrupted cache file
+ * isn't an error, it's ignored, and files are hashed again.
+ */
+class ArtifactHashCache {
+  private static final Logger LOG = LoggerFactory.getLogger(ArtifactHashCache.class);
+
+  private static final String VERSION = "v1";
+
+  @Nullable private final Path cacheFile;
+  private final Map<String, Entry> entries;
+
+  private ArtifactHashCache(@Nullable Path cacheFile, Map<String, Entry> entries) {
+    this.cacheFile = cacheFile;
+    this.entries = entries;
+  }
+
+  /**
+   * Returns cache that isn't persisted, and is always empty in the beginning.
+   *
+   * @return empty cache
+   */
+  static ArtifactHashCache empty() {
+    return new ArtifactHashCache(/* cacheFile= */ null, new ConcurrentHashMap<>());
+  }
+
+  static ArtifactHashCache load(Path cacheFile) {
+    Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    if (Files.exists(cacheFile)) {
+      try {
+        List<String> lines = Files.readAllLines(cacheFile, StandardCharsets.UTF_8);
+
+        if (!lines.isEmpty() && lines.get(0).equals(VERSION)) {
+          for (String line : lines.subList(1, lines.size())) {
+            Entry entry = Entry.parse(line);
+
+            if (entry != null) {
+              entries.put(entry.path(), entry);
+            }
+          }
+        } else {
+          LOG.warn("Ignoring hash cache [{}] with unknown format", cacheFile);
+        }
+      } catch (IOException e) {
+        LOG.warn("Failed to read hash cache [{}], ignoring it", cacheFile, e);
+      }
+    }
+
+    LOG.debug("Loaded {} entries from hash cache [{}]", entries.size(), cacheFile);
+
+    return new ArtifactHashCache(cacheFile, entries);
+  }
+
+  /**
+   * Returns cached hash if file didn't change since it was computed, or null otherwise.
+   *
+   * @param file file to look up
+   * @param attributes attributes of file read before hashing it
+   * @return hash, or null
+   */
+  @Nullable
+  String get(File file, BasicFileAttributes attributes) {
+    Entry entry = entries.get(file.getAbsolutePath());
+
+    if (entry != null && entry.matches(attributes)) {
+      return entry.hash();
+    }
+
+    return null;
+  }
+
+  void put(File file, BasicFileAttributes attributes, String hash) {
+    String path = file.getAbsolutePath();
+
+    entries.put(
+        path,
+        Entry.create(
+            /* path= */ path,
+            /* size= */ attributes.size(),
+            /* lastModifiedMillis= */ attributes.lastModifiedTime().toMillis(),
+            /* fileKey= */ fileKey(attributes),
+            /* hash= */ hash));
+  }
+
+  /**
+   * Writes cache to disk, if it's backed by a file. File is replaced atomically, so concurrent runs
+   * of jflyte never observe partially written cache. Entries for files that don't exist anymore are
+   * dropped, so cache doesn't grow with every build. Failure to write cache isn't an error, it's
+   * logged, and files are hashed again next time.
+   */
+  void save() {
+    if (cacheFile == null) {
+      return;
+    }
+
+    Path parent = cacheFile.toAbsolutePath().getParent();
+    if (parent == null) {
+      LOG.warn("Invalid hash cache location [{}], not saving it", cacheFile);
+      return;
+    }
+
+    entries.keySet().removeIf(path -> !Files.exists(Paths.get(path)));
+
+    @Var Path tmp = null;
+
+    try {
+      Files.createDirectories(parent);
+
+      tmp = Files.createTempFile(parent, "hash-cache", ".tmp");
+
+      try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+        writer.write(VERSION);
+        writer.newLine();
+
+        for (Entry entry : entries.values()) {
+          writer.write(entry.format());
+          writer.newLine();
+        }
+      }
+
+      Files.move(
+          tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOG.warn("Failed to write hash cache [{}], ignoring it", cacheFile, e);
+
+      deleteQuietly(tmp);
+    }
+  }
+
+  private static void deleteQuietly(@Nullable Path path) {
+    if (path == null) {
+      return;
+    }
+
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      LOG.debug("Failed to delete [{}]", path, e);
+    }
+  }
+
+  static BasicFileAttributes readAttributes(File file) {
+    try {
+      return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static String fileKey(BasicFileAttributes attributes) {
+    Object fileKey = attributes.fileKey();
+
+    return fileKey == null ? "" : fileKey.toString();
+  }
+
+  @AutoValue
+  abstract static class Entry {
+    abstract String path();
+
+    abstract long size();
+
+    abstract long lastModifiedMillis();
+
+    abstract String fileKey();
+
+    abstract String hash();
+
+    boolean matches(BasicFileAttributes attributes) {
+      return size() == attributes.size()
+          && lastModifiedMillis() == attributes.lastModifiedTime().toMillis()
+          && fileKey().equals(ArtifactHashCache.fileKey(attributes));
+    }
+
+    String format() {
+      // path goes last, because it's the only field that can contain tabs
+      return String.join(
+          "\t",
+          Long.toString(size()),
+          Long.toString(lastModifiedMillis()),
+          fileKey(),
+          hash(),
+          path());
+    }
+
+    @Nullable
+    static Entry parse(String line) {
+      String[] parts = line.split("\t", 5);
+
+      if (parts.length != 5) {
+        return null;
+      }
+
+      try {
+        return create(
+            /* path= */ parts[4],
+            /* size= */ Long.parseLong(parts[0]),
+            /* lastModifiedMillis= */ Long.parseLong(parts[1]),
+            /* fileKey= */ parts[2],
+            /* hash= */ parts[3]);
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+
+    static Entry create(
+        String path, long size, long lastModifiedMillis, String fileKey, String hash) {
+      return new AutoValue_ArtifactHashCache_Entry(path, size, lastModifiedMillis, fileKey, hash);
+    }
+  }
+}
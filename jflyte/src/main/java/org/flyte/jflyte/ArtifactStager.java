@@ -18,6 +18,7 @@ package org.flyte.jflyte;
 
 import static com.google.common.base.Verify.verify;
 
+import com.google.auto.value.AutoValue;
 import com.google.common.hash.Funnels;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
@@ -31,8 +32,13 @@ import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import org.flyte.jflyte.api.FileSystem;
 import org.flyte.jflyte.api.Manifest;
 import org.slf4j.Logger;
@@ -54,28 +60,58 @@ class ArtifactStager {
 
   private final String stagingLocation;
   private final FileSystem fileSystem;
+  private final ArtifactHashCache hashCache;
 
   ArtifactStager(String stagingLocation, FileSystem fileSystem) {
+    this(stagingLocation, fileSystem, ArtifactHashCache.empty());
+  }
+
+  ArtifactStager(String stagingLocation, FileSystem fileSystem, ArtifactHashCache hashCache) {
     this.stagingLocation = stagingLocation;
     this.fileSystem = fileSystem;
+    this.hashCache = hashCache;
   }
 
   List<Artifact> stageFiles(List<String> files) {
+    Map<String, File> filesByLocation = new LinkedHashMap<>();
     List<Artifact> artifacts = new ArrayList<>();
 
-    // TODO use multiple threads for better throughput
     for (String filePath : files) {
       File file = new File(filePath);
 
       verify(file.exists(), "file doesn't exist [%s]", filePath);
       verify(!file.isDirectory(), "directories aren't supported [%s]", filePath);
 
-      Artifact artifact = getArtifactForFile(file, stagingLocation);
-      stageArtifact(artifact, Files.asByteSource(file));
+      Artifact artifact = getArtifactForFile(file, stagingLocation, hashCache);
+      filesByLocation.put(artifact.location(), file);
 
       artifacts.add(artifact);
     }
 
+    hashCache.save();
+
+    // files are content-addressed, existing files don't need to be uploaded again
+    Map<String, Manifest> manifests =
+        fileSystem.getManifests(new ArrayList<>(filesByLocation.keySet()));
+    ExecutorService executor = FileTransfers.newExecutor("artifact-stager-%d");
+
+    try {
+      List<CompletableFuture<Void>> uploads = new ArrayList<>();
+
+      filesByLocation.forEach(
+          (location, file) -> {
+            if (!manifests.containsKey(location)) {
+              LOG.debug("Staging [{}] to [{}]", file, location);
+
+              uploads.add(fileSystem.writeAsync(file.toPath(), location, executor));
+            }
+          });
+
+      FileTransfers.awaitAll(uploads);
+    } finally {
+      executor.shutdownNow();
+    }
+
     return artifacts;
   }
 
@@ -118,7 +154,44 @@ class ArtifactStager {
     return getArtifact(file.getName(), Files.asByteSource(file), stagingLocation);
   }
 
+  static Artifact getArtifactForFile(
+      File file, String stagingLocation, ArtifactHashCache hashCache) {
+    // read attributes before hashing, if file is modified concurrently, it's hashed again next time
+    BasicFileAttributes attributes = ArtifactHashCache.readAttributes(file);
+    String cachedHash = hashCache.get(file, attributes);
+    String hash;
+
+    if (cachedHash == null) {
+      hash = hash(Files.asByteSource(file)).hash();
+      hashCache.put(file, attributes, hash);
+    } else {
+      LOG.debug("Using cached hash for [{}]", file);
+      hash = cachedHash;
+    }
+
+    String location =
+        getLocation(
+            /* stagingLocation= */ stagingLocation,
+            /* fileName= */ file.getName(),
+            /* hash= */ hash);
+
+    return Artifact.create(
+        /* location= */ location, /* name= */ file.getName(), /* size= */ attributes.size());
+  }
+
   static Artifact getArtifact(String name, ByteSource bs, String stagingLocation) {
+    ContentHash contentHash = hash(bs);
+    String location =
+        getLocation(
+            /* stagingLocation= */ stagingLocation,
+            /* fileName= */ name,
+            /* hash= */ contentHash.hash());
+
+    return Artifact.create(
+        /* location= */ location, /* name= */ name, /* size= */ contentHash.size());
+  }
+
+  private static ContentHash hash(ByteSource bs) {
     // md5 is fine, don't change because of compatibility
     @SuppressWarnings({"deprecation"})
     Hasher hasher = Hashing.md5().newHasher();
@@ -134,10 +207,18 @@ class ArtifactStager {
       throw new UncheckedIOException(e);
     }
 
-    String hash = BaseEncoding.base64Url().encode(hasher.hash().asBytes());
-    String location =
-        getLocation(/* stagingLocation= */ stagingLocation, /* fileName= */ name, /* hash= */ hash);
+    return ContentHash.create(
+        /* hash= */ BaseEncoding.base64Url().encode(hasher.hash().asBytes()), /* size= */ size);
+  }
 
-    return Artifact.create(/* location= */ location, /* name= */ name, /* size= */ size);
+  @AutoValue
+  abstract static class ContentHash {
+    abstract String hash();
+
+    abstract long size();
+
+    static ContentHash create(String hash, long size) {
+      return new AutoValue_ArtifactStager_ContentHash(hash, size);
+    }
   }
 }
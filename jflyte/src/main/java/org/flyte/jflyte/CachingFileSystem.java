@@ -0,0 +1,423 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Throwables;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.math.LongMath;
+import com.google.errorprone.annotations.MustBeClosed;
+import com.google.errorprone.annotations.Var;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.flyte.jflyte.api.FileSystem;
+import org.flyte.jflyte.api.Manifest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read-through cache of immutable objects in a local directory, in front of any {@link FileSystem}.
+ * Only URIs matching a pattern are cached, by default, artifacts staged by {@link ArtifactStager},
+ * that have content hash in their names.
+ *
+ * <p>Directory can be shared between processes on the same node. Files are downloaded into
+ * temporary files, and atomically moved into place, so partially downloaded files are never
+ * observed, even if process crashes. Concurrent misses of the same URI within a process are
+ * de-duplicated, and least recently used files are evicted once total size exceeds the limit.
+ * Objects larger than the limit aren't cached, they are streamed from the underlying file system.
+ *
+ * <p>Total size is tracked in memory, directory is only listed on the first miss, and then when the
+ * limit is exceeded, so files added by other processes are noticed by the next listing.
+ */
+class CachingFileSystem implements FileSystem {
+  private static final Logger LOG = LoggerFactory.getLogger(CachingFileSystem.class);
+
+  // artifacts staged by ArtifactStager have base64-encoded md5 in their names
+  static final String DEFAULT_URI_PATTERN = ".*-[A-Za-z0-9_-]{22}==\\.[^/]*";
+  static final long DEFAULT_MAX_SIZE_BYTES = 1024L * 1024L * 1024L;
+
+  private static final String TMP_PREFIX = ".tmp-";
+  private static final long STALE_TMP_MILLIS = TimeUnit.HOURS.toMillis(1);
+  private static final long UNKNOWN_SIZE = -1;
+
+  private final FileSystem delegate;
+  private final Path cacheDir;
+  private final long maxSizeBytes;
+  private final Pattern uriPattern;
+  // completed with null if object is too large to cache
+  private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+  private final Set<String> oversized = ConcurrentHashMap.newKeySet();
+  // size of directory as of the last listing, and files fetched since then
+  private final AtomicLong totalSize = new AtomicLong(UNKNOWN_SIZE);
+
+  CachingFileSystem(FileSystem delegate, Path cacheDir, long maxSizeBytes, Pattern uriPattern) {
+    this.delegate = delegate;
+    this.cacheDir = cacheDir;
+    this.maxSizeBytes = maxSizeBytes;
+    this.uriPattern = uriPattern;
+  }
+
+  /**
+   * Wraps file system into cache, if {@code FLYTE_FILE_CACHE_DIR} is set. Cache size and URIs to
+   * cache are configured with {@code FLYTE_FILE_CACHE_MAX_SIZE} and {@code
+   * FLYTE_FILE_CACHE_URI_PATTERN}.
+   *
+   * @param fileSystem file system
+   * @param env environment variables
+   * @return file system with cache, or the same file system if cache isn't configured
+   */
+  static FileSystem decorate(FileSystem fileSystem, Map<String, String> env) {
+    String cacheDir = env.get("FLYTE_FILE_CACHE_DIR");
+
+    if (cacheDir == null) {
+      return fileSystem;
+    }
+
+    String uriPattern = env.getOrDefault("FLYTE_FILE_CACHE_URI_PATTERN", DEFAULT_URI_PATTERN);
+
+    return new CachingFileSystem(
+        fileSystem,
+        Paths.get(cacheDir),
+        /* maxSizeBytes= */ parseMaxSize(env.get("FLYTE_FILE_CACHE_MAX_SIZE")),
+        Pattern.compile(uriPattern));
+  }
+
+  private static long parseMaxSize(@Nullable String value) {
+    if (value == null) {
+      return DEFAULT_MAX_SIZE_BYTES;
+    }
+
+    long maxSize;
+    try {
+      maxSize = Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+          "Environment variable 'FLYTE_FILE_CACHE_MAX_SIZE' isn't a number: " + value, e);
+    }
+
+    checkArgument(
+        maxSize > 0,
+        "Environment variable 'FLYTE_FILE_CACHE_MAX_SIZE' must be positive, but was %s",
+        maxSize);
+
+    return maxSize;
+  }
+
+  @Override
+  public String getScheme() {
+    return delegate.getScheme();
+  }
+
+  @Override
+  @MustBeClosed
+  public ReadableByteChannel reader(String uri) {
+    if (!isCacheable(uri) || oversized.contains(uri)) {
+      return delegate.reader(uri);
+    }
+
+    Path path = cachePath(uri);
+
+    if (Files.exists(path)) {
+      LOG.debug("Cache hit [{}]", uri);
+      touch(path);
+
+      return open(uri, path);
+    }
+
+    CompletableFuture<Path> future = new CompletableFuture<>();
+    CompletableFuture<Path> existing = inFlight.putIfAbsent(uri, future);
+
+    if (existing != null) {
+      LOG.debug("Waiting for concurrent fetch of [{}]", uri);
+      Path fetched = await(existing);
+
+      return fetched != null ? open(uri, fetched) : delegate.reader(uri);
+    }
+
+    try {
+      LOG.debug("Cache miss [{}]", uri);
+      ReadableByteChannel uncached = fetch(uri, path);
+      future.complete(uncached == null ? path : null);
+
+      return uncached != null ? uncached : open(uri, path);
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(uri, future);
+    }
+  }
+
+  @MustBeClosed
+  private ReadableByteChannel open(String uri, Path path) {
+    try {
+      return FileChannel.open(path, StandardOpenOption.READ);
+    } catch (NoSuchFileException e) {
+      // evicted by another process in the meantime
+      return delegate.reader(uri);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  @MustBeClosed
+  public WritableByteChannel writer(String uri) {
+    invalidate(uri);
+
+    return delegate.writer(uri);
+  }
+
+  @Nullable
+  @Override
+  public Manifest getManifest(String uri) {
+    // cached objects are immutable, if they are in cache, they exist
+    if (isCacheable(uri) && Files.exists(cachePath(uri))) {
+      return Manifest.create();
+    }
+
+    return delegate.getManifest(uri);
+  }
+
+  @Override
+  public Map<String, Manifest> getManifests(List<String> uris) {
+    return delegate.getManifests(uris);
+  }
+
+  @Override
+  public CompletableFuture<Void> readAsync(String uri, Path destination, Executor executor) {
+    if (!isCacheable(uri)) {
+      return delegate.readAsync(uri, destination, executor);
+    }
+
+    // reads through cache
+    return FileSystem.super.readAsync(uri, destination, executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> writeAsync(Path source, String uri, Executor executor) {
+    invalidate(uri);
+
+    return delegate.writeAsync(source, uri, executor);
+  }
+
+  @Override
+  public void copy(String sourceUri, String targetUri) {
+    invalidate(targetUri);
+
+    delegate.copy(sourceUri, targetUri);
+  }
+
+  Path cachePath(String uri) {
+    return cacheDir.resolve(Hashing.sha256().hashString(uri, StandardCharsets.UTF_8).toString());
+  }
+
+  private void invalidate(String uri) {
+    if (isCacheable(uri)) {
+      try {
+        Files.deleteIfExists(cachePath(uri));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private boolean isCacheable(String uri) {
+    return uriPattern.matcher(uri).matches();
+  }
+
+  /**
+   * Downloads object into cache. Objects larger than cache aren't cached, instead, the part that
+   * was already downloaded is returned followed by the rest of the object, so the object is still
+   * downloaded only once.
+   *
+   * @param uri uri of object
+   * @param path path in cache
+   * @return null if object was cached, or channel reading the whole object otherwise
+   */
+  @Nullable
+  // reader is closed in finally, or by the returned channel
+  @SuppressWarnings("MustBeClosedChecker")
+  private ReadableByteChannel fetch(String uri, Path path) {
+    @Var ReadableByteChannel uncached = null;
+    @Var long cachedSize = 0;
+
+    try {
+      Files.createDirectories(cacheDir);
+      Path tmp = Files.createTempFile(cacheDir, TMP_PREFIX, ".part");
+      @Var ReadableByteChannel reader = null;
+
+      try {
+        reader = delegate.reader(uri);
+        InputStream input = Channels.newInputStream(reader);
+        long copied;
+
+        try (FileChannel writer = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+          copied =
+              ByteStreams.copy(
+                  ByteStreams.limit(input, LongMath.saturatedAdd(maxSizeBytes, 1)),
+                  Channels.newOutputStream(writer));
+          writer.force(/* metaData= */ false);
+        }
+
+        if (copied > maxSizeBytes) {
+          LOG.debug("Not caching [{}], it's larger than cache", uri);
+          oversized.add(uri);
+
+          InputStream downloaded = Files.newInputStream(tmp, StandardOpenOption.DELETE_ON_CLOSE);
+          uncached = Channels.newChannel(new SequenceInputStream(downloaded, input));
+
+          return uncached;
+        }
+
+        // another process could have fetched the same object, it has the same content
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        cachedSize = copied;
+      } finally {
+        // otherwise, they are closed with the returned channel
+        if (uncached == null) {
+          try {
+            if (reader != null) {
+              reader.close();
+            }
+          } finally {
+            Files.deleteIfExists(tmp);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    evictIfFull(cachedSize);
+
+    return null;
+  }
+
+  private void evictIfFull(long addedSize) {
+    long size =
+        totalSize.updateAndGet(
+            current -> current == UNKNOWN_SIZE ? UNKNOWN_SIZE : current + addedSize);
+
+    if (size == UNKNOWN_SIZE || size > maxSizeBytes) {
+      evict();
+    }
+  }
+
+  private void evict() {
+    List<Entry> entries = new ArrayList<>();
+    long now = System.currentTimeMillis();
+
+    try (Stream<Path> files = Files.list(cacheDir)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        Path fileName = file.getFileName();
+
+        if (fileName != null && fileName.toString().startsWith(TMP_PREFIX)) {
+          // left by crashed processes
+          if (now - lastModified > STALE_TMP_MILLIS) {
+            Files.deleteIfExists(file);
+          }
+        } else {
+          entries.add(new Entry(file, attributes.size(), lastModified));
+        }
+      }
+
+      @Var long size = entries.stream().mapToLong(x -> x.size).sum();
+      entries.sort(Comparator.comparingLong(x -> x.lastModified));
+
+      for (Entry entry : entries) {
+        if (size <= maxSizeBytes) {
+          break;
+        }
+
+        LOG.debug("Evicting [{}]", entry.path);
+        Files.deleteIfExists(entry.path);
+        size -= entry.size;
+      }
+
+      totalSize.set(size);
+    } catch (IOException e) {
+      // cache works without eviction, it's not a reason to fail
+      LOG.warn("Failed to evict files from cache [{}]", cacheDir, e);
+    }
+  }
+
+  private static void touch(Path path) {
+    try {
+      Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      LOG.debug("Failed to update modification time of [{}]", path, e);
+    }
+  }
+
+  private static Path await(CompletableFuture<Path> future) {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for concurrent fetch", e);
+    }
+  }
+
+  private static class Entry {
+    private final Path path;
+    private final long size;
+    private final long lastModified;
+
+    private Entry(Path path, long size, long lastModified) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+  }
+}
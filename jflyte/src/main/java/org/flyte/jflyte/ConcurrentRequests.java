@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Issues asynchronous requests, keeping a bounded number of them in flight. {@link #awaitAll()}
+ * works as a barrier, it's used to make sure that requests that depend on each other are ordered,
+ * for instance, all tasks are created before workflows that reference them.
+ *
+ * <p>Failures don't stop other requests, instead, they are aggregated and reported from {@link
+ * #awaitAll()}.
+ */
+class ConcurrentRequests {
+  private static final Logger LOG = LoggerFactory.getLogger(ConcurrentRequests.class);
+
+  private final Semaphore permits;
+  private final List<Map.Entry<String, ListenableFuture<?>>> pending = new ArrayList<>();
+
+  ConcurrentRequests(int maxInFlight) {
+    checkArgument(maxInFlight > 0, "maxInFlight must be positive, but was %s", maxInFlight);
+
+    this.permits = new Semaphore(maxInFlight);
+  }
+
+  /**
+   * Starts a request, blocks if there are too many requests in flight.
+   *
+   * @param description human-readable description of request used in error messages
+   * @param request function starting a request
+   */
+  void submit(String description, Supplier<ListenableFuture<?>> request) {
+    permits.acquireUninterruptibly();
+
+    ListenableFuture<?> future;
+    try {
+      future = request.get();
+    } catch (RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+
+    future.addListener(permits::release, MoreExecutors.directExecutor());
+    pending.add(Maps.immutableEntry(description, future));
+  }
+
+  /** Waits for all submitted requests to complete, and throws if any of them has failed. */
+  void awaitAll() {
+    List<Throwable> failures = new ArrayList<>();
+
+    for (Map.Entry<String, ListenableFuture<?>> entry : pending) {
+      try {
+        entry.getValue().get();
+      } catch (ExecutionException e) {
+        LOG.error("Failed to {}", entry.getKey(), e.getCause());
+
+        failures.add(new RuntimeException("Failed to " + entry.getKey(), e.getCause()));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while waiting for requests", e);
+      }
+    }
+
+    pending.clear();
+
+    if (!failures.isEmpty()) {
+      RuntimeException exception =
+          new RuntimeException(String.format("%d request(s) have failed", failures.size()));
+      failures.forEach(exception::addSuppressed);
+
+      throw exception;
+    }
+  }
+}
@@ -32,15 +32,38 @@ abstract class Config {
 
   abstract String moduleDir();
 
+  @Nullable
+  abstract String stagingHashCache();
+
   abstract boolean platformInsecure();
 
+  abstract int platformMaxRetries();
+
+  abstract long platformRetryInitialDelayMillis();
+
+  abstract long platformRetryMaxDelayMillis();
+
+  // deadline for a single request attempt, or 0 if requests don't have a deadline
+  abstract long platformDeadlineMillis();
+
+  // size of retry token bucket, or 0 if retries aren't throttled
+  abstract int platformRetryBudget();
+
   static Config load() {
     return Config.builder()
         .platformUrl(getenv("FLYTE_PLATFORM_URL"))
         .moduleDir(getenv("FLYTE_INTERNAL_MODULE_DIR"))
         .image(getenv("FLYTE_INTERNAL_IMAGE"))
         .stagingLocation(getenvOrNull("FLYTE_STAGING_LOCATION"))
+        .stagingHashCache(getenvOrNull("FLYTE_STAGING_HASH_CACHE"))
         .platformInsecure(Boolean.parseBoolean(getenv("FLYTE_PLATFORM_INSECURE")))
+        .platformMaxRetries(getenvOrDefault("FLYTE_PLATFORM_MAX_RETRIES", 10))
+        .platformRetryInitialDelayMillis(
+            getenvOrDefault("FLYTE_PLATFORM_RETRY_INITIAL_DELAY_MS", 250L))
+        .platformRetryMaxDelayMillis(getenvOrDefault("FLYTE_PLATFORM_RETRY_MAX_DELAY_MS", 5_000L))
+        .platformDeadlineMillis(getenvOrDefault("FLYTE_PLATFORM_DEADLINE_MS", 60_000L))
+        .platformRetryBudget(
+            getenvOrDefault("FLYTE_PLATFORM_RETRY_BUDGET", GrpcRetries.DEFAULT_MAX_TOKENS))
         .build();
   }
 
@@ -58,6 +81,25 @@ abstract class Config {
     return System.getenv(name);
   }
 
+  private static int getenvOrDefault(String name, int defaultValue) {
+    return Math.toIntExact(getenvOrDefault(name, (long) defaultValue));
+  }
+
+  private static long getenvOrDefault(String name, long defaultValue) {
+    String value = System.getenv(name);
+
+    if (value == null) {
+      return defaultValue;
+    }
+
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+          "Environment variable '" + name + "' isn't a number: " + value, e);
+    }
+  }
+
   static Builder builder() {
     return new AutoValue_Config.Builder();
   }
@@ -73,8 +115,20 @@ abstract class Config {
 
     abstract Builder moduleDir(String moduleDir);
 
+    abstract Builder stagingHashCache(String stagingHashCache);
+
     abstract Builder platformInsecure(boolean platformInsecure);
 
+    abstract Builder platformMaxRetries(int platformMaxRetries);
+
+    abstract Builder platformRetryInitialDelayMillis(long platformRetryInitialDelayMillis);
+
+    abstract Builder platformRetryMaxDelayMillis(long platformRetryMaxDelayMillis);
+
+    abstract Builder platformDeadlineMillis(long platformDeadlineMillis);
+
+    abstract Builder platformRetryBudget(int platformRetryBudget);
+
     abstract Config build();
   }
 }
@@ -18,6 +18,7 @@ package org.flyte.jflyte;
 
 import static org.flyte.jflyte.ClassLoaders.withClassLoader;
 
+import com.google.common.util.concurrent.Uninterruptibles;
 import flyteidl.core.Errors;
 import flyteidl.core.Literals;
 import java.io.IOException;
@@ -28,18 +29,29 @@ import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Clock;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
+import org.flyte.api.v1.Checkpoint;
 import org.flyte.api.v1.ContainerError;
 import org.flyte.api.v1.Literal;
 import org.flyte.api.v1.RunnableTask;
 import org.flyte.api.v1.RunnableTaskRegistrar;
+import org.flyte.api.v1.TaskContext;
 import org.flyte.api.v1.TaskIdentifier;
+import org.flyte.api.v1.TaskPools;
 import org.flyte.jflyte.api.FileSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,8 +68,24 @@ public class Execute implements Callable<Integer> {
 
   @Option(
       names = {"--task"},
+      description = "Task to run, repeated for each member of a fused task",
       required = true)
-  private String task;
+  private List<String> tasks;
+
+  @Option(
+      names = {"--node"},
+      description = "Node id of each member of a fused task, in the same order as --task")
+  private List<String> nodes = new ArrayList<>();
+
+  @Option(
+      names = {"--binding"},
+      description = "Input of fused task member bound to output of the previous member")
+  private List<String> bindings = new ArrayList<>();
+
+  @Option(
+      names = {"--intermediateOutputs"},
+      description = "Write outputs of each member of a fused task, except the last one")
+  private boolean intermediateOutputs;
 
   @Option(
       names = {"--inputs"},
@@ -97,17 +125,43 @@ public class Execute implements Callable<Integer> {
       // ServiceLoaders and other things wouldn't work, for instance,
       // FileSystemRegister in Apache Beam
 
-      Map<String, Literal> outputs =
-          withClassLoader(
-              packageClassLoader,
-              () -> {
-                Map<String, Literal> input = getInput(inputFs, inputs);
-                RunnableTask runnableTask = getTask(task);
-
-                return runnableTask.run(input);
-              });
-
-      writeOutputs(outputFs, outputPrefix, outputs);
+      withClassLoader(
+          packageClassLoader,
+          () -> {
+            Map<String, Literal> input = getInput(inputFs, inputs);
+            RunnableTask runnableTask = getRunnableTask(outputFs);
+
+            runnableTask.setUp();
+
+            // everything after successful setUp is inside, so tearDown always runs
+            try {
+              Checkpoint checkpoint =
+                  FileSystemCheckpoint.forOutputPrefix(
+                      outputFs, outputPrefix, runnableTask.getRetries().retries());
+
+              try (TaskPools pools = TaskPools.forTask(runnableTask);
+                  TaskContext context =
+                      TaskContext.create(runnableTask, pools, checkpoint, Clock.systemUTC())) {
+                Map<String, Literal> outputs = runCancellable(context, runnableTask, input);
+
+                // outputs can be lazy, and depend on state created in setUp
+                writeOutputs(outputFs, outputPrefix, outputs);
+              }
+            } catch (Throwable e) {
+              // failure of tear down shouldn't hide failure of the task
+              try {
+                runnableTask.tearDown();
+              } catch (RuntimeException tearDownFailure) {
+                e.addSuppressed(tearDownFailure);
+              }
+
+              throw e;
+            }
+
+            runnableTask.tearDown();
+
+            return null;
+          });
     } catch (ContainerError e) {
       LOG.error("failed to run task", e);
 
@@ -119,17 +173,46 @@ public class Execute implements Callable<Integer> {
     }
   }
 
+  /**
+   * Runs task, and cancels it if container is shutting down, for instance, because execution was
+   * aborted. Shutdown waits for task to stop, until container is killed after grace period.
+   *
+   * @param context context of running task
+   * @param runnableTask task to run
+   * @param input task inputs
+   * @return task outputs
+   */
+  private static Map<String, Literal> runCancellable(
+      TaskContext context, RunnableTask runnableTask, Map<String, Literal> input) {
+    CountDownLatch done = new CountDownLatch(1);
+    Thread shutdownHook =
+        new Thread(
+            () -> {
+              LOG.warn("Shutting down, cancelling task");
+
+              context.cancel();
+              Uninterruptibles.awaitUninterruptibly(done);
+            });
+
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
+    try {
+      return context.call(() -> runnableTask.run(input));
+    } finally {
+      done.countDown();
+
+      try {
+        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+      } catch (IllegalStateException e) {
+        // shutdown is already in progress
+      }
+    }
+  }
+
   private static void writeOutputs(
       FileSystem fs, String outputPrefix, Map<String, Literal> outputs) {
     String outputUri = normalizeUri(outputPrefix, OUTPUTS_PB);
 
-    writeTo(
-        fs,
-        outputUri,
-        outputStream -> {
-          Literals.LiteralMap proto = ProtoUtil.serialize(outputs);
-          proto.writeTo(outputStream);
-        });
+    writeTo(fs, outputUri, outputStream -> LiteralMapWriter.write(outputs, outputStream));
   }
 
   private static void writeError(
@@ -176,7 +259,7 @@ public class Execute implements Callable<Integer> {
     }
   }
 
-  private static RunnableTask getTask(String name) {
+  private static Map<String, RunnableTask> loadTasks() {
     // be careful not to pass extra
     Map<String, String> env =
         System.getenv().entrySet().stream()
@@ -185,13 +268,87 @@ public class Execute implements Callable<Integer> {
 
     Map<TaskIdentifier, RunnableTask> tasks = Registrars.loadAll(RunnableTaskRegistrar.class, env);
 
-    for (Map.Entry<TaskIdentifier, RunnableTask> entry : tasks.entrySet()) {
-      if (entry.getKey().name().equals(name)) {
-        return entry.getValue();
+    return tasks.entrySet().stream()
+        .collect(
+            Collectors.toMap(
+                entry -> entry.getKey().name(),
+                Map.Entry::getValue,
+                // the same name can be registered more than once, the first task wins
+                (first, second) -> first));
+  }
+
+  private static RunnableTask getTask(Map<String, RunnableTask> tasks, String name) {
+    RunnableTask task = tasks.get(name);
+
+    if (task == null) {
+      throw new IllegalArgumentException("Task not found: " + name);
+    }
+
+    return task;
+  }
+
+  private RunnableTask getRunnableTask(FileSystem outputFs) {
+    Map<String, RunnableTask> runnableTasks = loadTasks();
+
+    if (nodes.isEmpty() && tasks.size() == 1) {
+      return getTask(runnableTasks, tasks.get(0));
+    }
+
+    return getFusedTask(runnableTasks, outputFs);
+  }
+
+  private FusedTask getFusedTask(Map<String, RunnableTask> runnableTasks, FileSystem outputFs) {
+    if (nodes.size() != tasks.size()) {
+      throw new IllegalArgumentException(
+          String.format("Expected a --node for each --task, but got %s and %s", nodes, tasks));
+    }
+
+    // binding is "<nodeId>.<input>=<output>", it's matched against inputs of each member,
+    // because node ids can contain dots
+    Map<String, String> bindingsByInput = new HashMap<>();
+    for (String binding : bindings) {
+      int separator = binding.lastIndexOf('=');
+
+      if (separator == -1) {
+        throw new IllegalArgumentException("Invalid --binding: " + binding);
+      }
+
+      bindingsByInput.put(binding.substring(0, separator), binding.substring(separator + 1));
+    }
+
+    List<FusedTask.Member> members = new ArrayList<>();
+    for (int i = 0; i < tasks.size(); i++) {
+      String nodeId = nodes.get(i);
+      RunnableTask task = getTask(runnableTasks, tasks.get(i));
+      Map<String, String> memberBindings = new LinkedHashMap<>();
+
+      for (String input : task.getInterface().inputs().keySet()) {
+        String output = bindingsByInput.remove(FusedTask.fusedInputName(nodeId, input));
+
+        if (output != null) {
+          memberBindings.put(input, output);
+        }
       }
+
+      members.add(FusedTask.Member.create(nodeId, task, memberBindings));
+    }
+
+    if (!bindingsByInput.isEmpty()) {
+      throw new IllegalArgumentException("Unknown --binding inputs: " + bindingsByInput.keySet());
     }
 
-    throw new IllegalArgumentException("Task not found: " + name);
+    // fusion requires all members to have the same retries
+    int retries = members.get(0).task().getRetries().retries();
+
+    return new FusedTask(
+        members,
+        (nodeId, nodeOutputs) -> {
+          if (intermediateOutputs) {
+            writeOutputs(outputFs, normalizeUri(outputPrefix, nodeId), nodeOutputs);
+          }
+        },
+        nodeId ->
+            FileSystemCheckpoint.forOutputPrefix(outputFs, outputPrefix, retries).child(nodeId));
   }
 
   private static List<String> readStagedFiles(
@@ -220,35 +377,40 @@ public class Execute implements Callable<Integer> {
 
   private static ClassLoader loadPackage(
       Map<String, FileSystem> fileSystems, List<String> stagedFiles) {
+    ExecutorService executor = FileTransfers.newExecutor("load-package-%d");
+
     try {
       Path tmp = Files.createTempDirectory("tasks");
-
-      // TODO do in parallel
+      Set<Path> paths = new HashSet<>();
+      List<CompletableFuture<Void>> downloads = new ArrayList<>();
 
       for (String stagedFile : stagedFiles) {
         FileSystem fileSystem = FileSystemLoader.getFileSystem(fileSystems, stagedFile);
 
-        try (ReadableByteChannel reader = fileSystem.reader(stagedFile)) {
-          // FIXME beam doesn't like = in jar names
-          // we should preserve original jar name, for now, just remove "="
-          String name = stagedFile.substring(stagedFile.lastIndexOf("/") + 1).replace("=", "");
-          Path path = tmp.resolve(name);
-
-          if (path.toFile().exists()) {
-            // file already exists, but we have checksums, so we should be ok
-            LOG.warn("Duplicate entry in --stagedFiles: [{}]", stagedFile);
-            continue;
-          }
-
-          LOG.info("Copied {} to {}", stagedFile, path);
+        // FIXME beam doesn't like = in jar names
+        // we should preserve original jar name, for now, just remove "="
+        String name = stagedFile.substring(stagedFile.lastIndexOf("/") + 1).replace("=", "");
+        Path path = tmp.resolve(name);
 
-          Files.copy(Channels.newInputStream(reader), path);
+        if (!paths.add(path)) {
+          // file already exists, but we have checksums, so we should be ok
+          LOG.warn("Duplicate entry in --stagedFiles: [{}]", stagedFile);
+          continue;
         }
+
+        downloads.add(
+            fileSystem
+                .readAsync(stagedFile, path, executor)
+                .thenRun(() -> LOG.info("Copied {} to {}", stagedFile, path)));
       }
 
+      FileTransfers.awaitAll(downloads);
+
       return ClassLoaders.forDirectory(tmp.toFile());
     } catch (IOException e) {
       throw new UncheckedIOException(e);
+    } finally {
+      executor.shutdownNow();
     }
   }
 
@@ -52,6 +52,13 @@ public class ExecuteLocal implements Callable<Integer> {
       required = false)
   private String packageDir;
 
+  @Option(
+      names = {"--optimize"},
+      description =
+          "Merge duplicate nodes, and skip nodes with unused outputs, if their tasks are side-effect"
+              + " free")
+  private boolean optimize;
+
   @Unmatched private String[] inputArgs;
 
   @Override
@@ -82,7 +89,7 @@ public class ExecuteLocal implements Callable<Integer> {
       ExecutionListener listener = NoopExecutionListener.create();
 
       Map<String, Literal> outputs =
-          LocalEngine.compileAndExecute(workflow, tasks, inputs, listener);
+          LocalEngine.compileAndExecute(workflow, tasks, inputs, listener, optimize);
       LOG.info("Outputs: " + StringUtil.serializeLiteralMap(outputs));
 
       return 0;
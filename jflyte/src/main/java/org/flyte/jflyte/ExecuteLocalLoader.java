@@ -27,10 +27,14 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.SortedSetMultimap;
 import java.io.File;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
+import javax.annotation.Nullable;
+import org.flyte.api.v1.BatchRunnableTask;
 import org.flyte.api.v1.Literal;
+import org.flyte.api.v1.Resources;
 import org.flyte.api.v1.RetryStrategy;
 import org.flyte.api.v1.RunnableTask;
 import org.flyte.api.v1.TypedInterface;
@@ -107,9 +111,7 @@ public class ExecuteLocalLoader {
 
     return tasks.entrySet().stream()
         .collect(
-            toMap(
-                Map.Entry::getKey,
-                entry -> new RunnableTaskWithClassLoader(entry.getValue(), classLoader)));
+            toMap(Map.Entry::getKey, entry -> withTaskClassLoader(entry.getValue(), classLoader)));
   }
 
   static Map<String, WorkflowTemplate> loadWorkflows(
@@ -117,6 +119,38 @@ public class ExecuteLocalLoader {
     return withClassLoader(classLoader, () -> Modules.loadWorkflows(env));
   }
 
+  private static RunnableTask withTaskClassLoader(RunnableTask task, ClassLoader classLoader) {
+    if (task instanceof BatchRunnableTask) {
+      return new BatchRunnableTaskWithClassLoader((BatchRunnableTask) task, classLoader);
+    }
+
+    return new RunnableTaskWithClassLoader(task, classLoader);
+  }
+
+  /** Wraps BatchRunnableTask to change ClassLoader before running, and keep batching. */
+  private static class BatchRunnableTaskWithClassLoader extends RunnableTaskWithClassLoader
+      implements BatchRunnableTask {
+    private final BatchRunnableTask runnableTask;
+    private final ClassLoader classLoader;
+
+    private BatchRunnableTaskWithClassLoader(
+        BatchRunnableTask runnableTask, ClassLoader classLoader) {
+      super(runnableTask, classLoader);
+      this.runnableTask = runnableTask;
+      this.classLoader = classLoader;
+    }
+
+    @Override
+    public List<Map<String, Literal>> runBatch(List<Map<String, Literal>> inputs) {
+      return withClassLoader(classLoader, () -> runnableTask.runBatch(inputs));
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+      return runnableTask.getMaxBatchSize();
+    }
+  }
+
   /** Wraps RunnableTask to change ClassLoader before running. */
   private static class RunnableTaskWithClassLoader implements RunnableTask {
     private final RunnableTask runnableTask;
@@ -137,14 +171,61 @@ public class ExecuteLocalLoader {
       return runnableTask.getInterface();
     }
 
+    @Override
+    public void setUp() {
+      withClassLoader(
+          classLoader,
+          () -> {
+            runnableTask.setUp();
+            return null;
+          });
+    }
+
     @Override
     public Map<String, Literal> run(Map<String, Literal> inputs) {
       return withClassLoader(classLoader, () -> runnableTask.run(inputs));
     }
 
+    @Override
+    public void tearDown() {
+      withClassLoader(
+          classLoader,
+          () -> {
+            runnableTask.tearDown();
+            return null;
+          });
+    }
+
     @Override
     public RetryStrategy getRetries() {
       return runnableTask.getRetries();
     }
+
+    @Override
+    public Resources getResources() {
+      return runnableTask.getResources();
+    }
+
+    @Override
+    @Nullable
+    public Duration getTimeout() {
+      return runnableTask.getTimeout();
+    }
+
+    @Override
+    public boolean isDiscoverable() {
+      return runnableTask.isDiscoverable();
+    }
+
+    @Override
+    public boolean isSideEffectFree() {
+      return runnableTask.isSideEffectFree();
+    }
+
+    @Override
+    @Nullable
+    public String getDiscoveryVersion() {
+      return runnableTask.getDiscoveryVersion();
+    }
   }
 }
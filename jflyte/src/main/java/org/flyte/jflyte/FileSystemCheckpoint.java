@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.flyte.api.v1.Checkpoint;
+import org.flyte.jflyte.api.FileSystem;
+import org.flyte.jflyte.api.Manifest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link Checkpoint} stored in {@link FileSystem} under output prefix of the current attempt.
+ *
+ * <p>Flyte uses a separate output prefix for each attempt, ending with attempt number, for
+ * instance, "gs://bucket/metadata/n0/data/1". Snapshots of previous attempts are looked up in
+ * sibling prefixes, starting from the latest attempt. If output prefix doesn't end with a number,
+ * there are no previous attempts. There are never more previous attempts than task retries, even if
+ * the number isn't an attempt.
+ */
+class FileSystemCheckpoint implements Checkpoint {
+  private static final Logger LOG = LoggerFactory.getLogger(FileSystemCheckpoint.class);
+
+  static final String CHECKPOINT = "checkpoint";
+
+  private final FileSystem fs;
+  private final String uri;
+  private final List<String> previousUris;
+
+  private boolean written;
+
+  FileSystemCheckpoint(FileSystem fs, String uri, List<String> previousUris) {
+    this.fs = fs;
+    this.uri = uri;
+    this.previousUris = previousUris;
+  }
+
+  static FileSystemCheckpoint forOutputPrefix(FileSystem fs, String outputPrefix, int retries) {
+    String prefix =
+        outputPrefix.endsWith("/")
+            ? outputPrefix.substring(0, outputPrefix.length() - 1)
+            : outputPrefix;
+
+    return new FileSystemCheckpoint(
+        fs, prefix + "/" + CHECKPOINT, getPreviousUris(prefix, retries));
+  }
+
+  /**
+   * Returns checkpoint nested under this one, for instance, for a member of a fused task. Snapshots
+   * of previous attempts are looked up under the same name.
+   *
+   * @param name name of nested checkpoint, for instance, node id
+   * @return checkpoint
+   */
+  FileSystemCheckpoint child(String name) {
+    List<String> childPreviousUris =
+        previousUris.stream().map(previousUri -> previousUri + "/" + name).collect(toList());
+
+    return new FileSystemCheckpoint(
+        fs, uri + "/" + name, Collections.unmodifiableList(childPreviousUris));
+  }
+
+  private static List<String> getPreviousUris(String prefix, int retries) {
+    int separator = prefix.lastIndexOf('/');
+    int attempt;
+
+    try {
+      attempt = Integer.parseInt(prefix.substring(separator + 1));
+    } catch (NumberFormatException e) {
+      return Collections.emptyList();
+    }
+
+    List<String> uris = new ArrayList<>();
+    for (int i = attempt - 1; i >= Math.max(0, attempt - retries); i--) {
+      uris.add(prefix.substring(0, separator + 1) + i + "/" + CHECKPOINT);
+    }
+
+    return Collections.unmodifiableList(uris);
+  }
+
+  @Nullable
+  @Override
+  public synchronized byte[] read() {
+    if (written) {
+      return readFrom(uri);
+    }
+
+    Map<String, Manifest> manifests = fs.getManifests(previousUris);
+
+    for (String previousUri : previousUris) {
+      if (manifests.containsKey(previousUri)) {
+        LOG.info("Resuming from checkpoint [{}]", previousUri);
+
+        return readFrom(previousUri);
+      }
+    }
+
+    return null;
+  }
+
+  @Override
+  public synchronized void write(byte[] snapshot) {
+    try (WritableByteChannel channel = fs.writer(uri);
+        OutputStream os = Channels.newOutputStream(channel)) {
+      os.write(snapshot);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    written = true;
+  }
+
+  private byte[] readFrom(String checkpointUri) {
+    try (ReadableByteChannel channel = fs.reader(checkpointUri);
+        InputStream is = Channels.newInputStream(channel)) {
+      return ByteStreams.toByteArray(is);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -21,10 +21,10 @@ import com.google.common.collect.ImmutableMap;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
-import java.util.stream.Collectors;
 import org.flyte.jflyte.api.FileSystem;
 import org.flyte.jflyte.api.FileSystemRegistrar;
 import org.slf4j.Logger;
@@ -34,9 +34,33 @@ class FileSystemLoader {
   private static final Logger LOG = LoggerFactory.getLogger(FileSystemLoader.class);
 
   static Map<String, FileSystem> loadFileSystems(Collection<ClassLoader> modules) {
-    return modules.stream()
-        .flatMap(module -> ClassLoaders.withClassLoader(module, () -> loadFileSystems().stream()))
-        .collect(Collectors.toMap(FileSystem::getScheme, x -> x));
+    Map<String, String> env = ImmutableMap.copyOf(System.getenv());
+    Map<String, FileSystem> fileSystems = new LinkedHashMap<>();
+
+    for (ClassLoader module : modules) {
+      for (FileSystem fileSystem :
+          ClassLoaders.withClassLoader(module, () -> loadFileSystems(env))) {
+        FileSystem existing = fileSystems.putIfAbsent(fileSystem.getScheme(), fileSystem);
+
+        if (existing != null) {
+          LOG.debug(
+              "Ignoring FileSystem [{}] for scheme [{}], already using [{}]",
+              fileSystem.getClass().getName(),
+              fileSystem.getScheme(),
+              existing.getClass().getName());
+        }
+      }
+    }
+
+    // decorated once per scheme, so there is one set of metrics for each scheme, and sinks are
+    // shared by all of them
+    List<IoMetricsSink> sinks = IoMetricsSink.fromEnv(env);
+    // metrics are inside of cache, so they only measure I/O of the underlying storage
+    fileSystems.replaceAll(
+        (scheme, fileSystem) ->
+            CachingFileSystem.decorate(MeteredFileSystem.decorate(fileSystem, sinks), env));
+
+    return fileSystems;
   }
 
   static FileSystem getFileSystem(Map<String, FileSystem> fileSystems, String uri) {
@@ -50,15 +74,13 @@ class FileSystemLoader {
     return Verify.verifyNotNull(fileSystem, "Can't find FileSystem for [%s]", scheme);
   }
 
-  static List<FileSystem> loadFileSystems() {
+  private static List<FileSystem> loadFileSystems(Map<String, String> env) {
     ServiceLoader<FileSystemRegistrar> loader = ServiceLoader.load(FileSystemRegistrar.class);
 
     LOG.debug("Discovering FileSystemRegistrar");
 
     List<FileSystem> fileSystems = new ArrayList<>();
 
-    Map<String, String> env = ImmutableMap.copyOf(System.getenv());
-
     for (FileSystemRegistrar registrar : loader) {
       for (FileSystem fileSystem : registrar.load(env)) {
         LOG.debug(String.format("Discovered FileSystem [%s]", fileSystem.getClass().getName()));
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** Utilities to run {@link org.flyte.jflyte.api.FileSystem} transfers concurrently. */
+class FileTransfers {
+  static final int DEFAULT_PARALLELISM = 8;
+
+  private FileTransfers() {
+    throw new UnsupportedOperationException();
+  }
+
+  static ExecutorService newExecutor(String nameFormat) {
+    return Executors.newFixedThreadPool(
+        DEFAULT_PARALLELISM,
+        new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build());
+  }
+
+  /**
+   * Waits for all transfers to complete, and rethrows failure of the first failed transfer.
+   *
+   * @param transfers transfers
+   */
+  static void awaitAll(List<CompletableFuture<Void>> transfers) {
+    try {
+      CompletableFuture.allOf(transfers.toArray(new CompletableFuture<?>[0])).join();
+    } catch (CompletionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+}
@@ -19,6 +19,10 @@ package org.flyte.jflyte;
 import static com.google.common.base.Verify.verifyNotNull;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import flyteidl.admin.Common;
 import flyteidl.admin.Common.ResourceListRequest;
 import flyteidl.admin.ExecutionOuterClass;
@@ -31,6 +35,8 @@ import flyteidl.service.AdminServiceGrpc;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.flyte.api.v1.LaunchPlan;
@@ -44,8 +50,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * This is a thin synchronous wrapper around the auto-generated GRPC stubs for communicating with
- * the admin service.
+ * This is a thin wrapper around the auto-generated GRPC stubs for communicating with the admin
+ * service. Create operations are available both as blocking calls, and as futures for issuing
+ * requests concurrently.
  */
 class FlyteAdminClient implements AutoCloseable {
 
@@ -54,18 +61,34 @@ class FlyteAdminClient implements AutoCloseable {
   static final int USER_TRIGGERED_EXECUTION_NESTING = 0;
 
   private final AdminServiceGrpc.AdminServiceBlockingStub stub;
+  private final AdminServiceGrpc.AdminServiceFutureStub futureStub;
   private final ManagedChannel channel;
   private final GrpcRetries retries;
+  private final ScheduledExecutorService retryExecutor;
 
   @VisibleForTesting
   FlyteAdminClient(
-      AdminServiceGrpc.AdminServiceBlockingStub stub, ManagedChannel channel, GrpcRetries retries) {
+      AdminServiceGrpc.AdminServiceBlockingStub stub,
+      AdminServiceGrpc.AdminServiceFutureStub futureStub,
+      ManagedChannel channel,
+      GrpcRetries retries) {
     this.stub = stub;
+    this.futureStub = futureStub;
     this.channel = channel;
     this.retries = retries;
+    this.retryExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat("flyte-admin-retries-%d")
+                .setDaemon(true)
+                .build());
   }
 
   static FlyteAdminClient create(String target, boolean insecure) {
+    return create(target, insecure, GrpcRetries.create());
+  }
+
+  static FlyteAdminClient create(String target, boolean insecure, GrpcRetries retries) {
     ManagedChannelBuilder<?> builder = ManagedChannelBuilder.forTarget(target);
 
     if (insecure) {
@@ -73,52 +96,101 @@ class FlyteAdminClient implements AutoCloseable {
     }
 
     ManagedChannel channel = builder.build();
-    GrpcRetries retries = GrpcRetries.create();
 
     return new FlyteAdminClient(
-        AdminServiceGrpc.newBlockingStub(builder.build()), channel, retries);
+        AdminServiceGrpc.newBlockingStub(channel),
+        AdminServiceGrpc.newFutureStub(channel),
+        channel,
+        retries);
   }
 
   void createTask(TaskIdentifier id, TaskTemplate template) {
     LOG.debug("createTask {}", id);
 
-    TaskOuterClass.TaskCreateRequest request =
-        TaskOuterClass.TaskCreateRequest.newBuilder()
-            .setId(ProtoUtil.serialize(id))
-            .setSpec(
-                TaskOuterClass.TaskSpec.newBuilder()
-                    .setTemplate(ProtoUtil.serialize(template))
-                    .build())
-            .build();
+    TaskOuterClass.TaskCreateRequest request = createTaskRequest(id, template);
 
     // create operation is idempotent, so it's fine to retry
-    TaskOuterClass.TaskCreateResponse response = retries.retry(() -> stub.createTask(request));
+    TaskOuterClass.TaskCreateResponse response = retries.retry(() -> stub().createTask(request));
 
     verifyNotNull(response, "Unexpected null response when creating task: %s", id);
   }
 
+  ListenableFuture<TaskOuterClass.TaskCreateResponse> createTaskAsync(
+      TaskIdentifier id, TaskTemplate template) {
+    LOG.debug("createTaskAsync {}", id);
+
+    TaskOuterClass.TaskCreateRequest request = createTaskRequest(id, template);
+
+    // create operation is idempotent, so it's fine to retry
+    return retries.retryAsync(() -> futureStub().createTask(request), retryExecutor);
+  }
+
   void createWorkflow(WorkflowIdentifier id, WorkflowTemplate template) {
     LOG.debug("createWorkflow {}", id);
 
-    WorkflowOuterClass.WorkflowCreateRequest request =
-        WorkflowOuterClass.WorkflowCreateRequest.newBuilder()
-            .setId(ProtoUtil.serialize(id))
-            .setSpec(
-                WorkflowOuterClass.WorkflowSpec.newBuilder()
-                    .setTemplate(ProtoUtil.serialize(template))
-                    .build())
-            .build();
+    WorkflowOuterClass.WorkflowCreateRequest request = createWorkflowRequest(id, template);
 
     // create operation is idempotent, so it's fine to retry
     WorkflowOuterClass.WorkflowCreateResponse response =
-        retries.retry(() -> stub.createWorkflow(request));
+        retries.retry(() -> stub().createWorkflow(request));
 
     verifyNotNull(response, "Unexpected null response when creating workflow: %s", id);
   }
 
+  ListenableFuture<WorkflowOuterClass.WorkflowCreateResponse> createWorkflowAsync(
+      WorkflowIdentifier id, WorkflowTemplate template) {
+    LOG.debug("createWorkflowAsync {}", id);
+
+    WorkflowOuterClass.WorkflowCreateRequest request = createWorkflowRequest(id, template);
+
+    // create operation is idempotent, so it's fine to retry
+    return retries.retryAsync(() -> futureStub().createWorkflow(request), retryExecutor);
+  }
+
   void createLaunchPlan(LaunchPlanIdentifier id, LaunchPlan launchPlan) {
     LOG.debug("createLaunchPlan {}", id);
 
+    LaunchPlanOuterClass.LaunchPlanCreateRequest request = createLaunchPlanRequest(id, launchPlan);
+
+    // create operation is idempotent, so it's fine to retry
+    LaunchPlanOuterClass.LaunchPlanCreateResponse response =
+        retries.retry(() -> stub().createLaunchPlan(request));
+
+    verifyNotNull(response, "Unexpected null response when creating launch plan: %s", id);
+  }
+
+  ListenableFuture<LaunchPlanOuterClass.LaunchPlanCreateResponse> createLaunchPlanAsync(
+      LaunchPlanIdentifier id, LaunchPlan launchPlan) {
+    LOG.debug("createLaunchPlanAsync {}", id);
+
+    LaunchPlanOuterClass.LaunchPlanCreateRequest request = createLaunchPlanRequest(id, launchPlan);
+
+    // create operation is idempotent, so it's fine to retry
+    return retries.retryAsync(() -> futureStub().createLaunchPlan(request), retryExecutor);
+  }
+
+  static TaskOuterClass.TaskCreateRequest createTaskRequest(
+      TaskIdentifier id, TaskTemplate template) {
+    return TaskOuterClass.TaskCreateRequest.newBuilder()
+        .setId(ProtoUtil.serialize(id))
+        .setSpec(
+            TaskOuterClass.TaskSpec.newBuilder().setTemplate(ProtoUtil.serialize(template)).build())
+        .build();
+  }
+
+  static WorkflowOuterClass.WorkflowCreateRequest createWorkflowRequest(
+      WorkflowIdentifier id, WorkflowTemplate template) {
+    return WorkflowOuterClass.WorkflowCreateRequest.newBuilder()
+        .setId(ProtoUtil.serialize(id))
+        .setSpec(
+            WorkflowOuterClass.WorkflowSpec.newBuilder()
+                .setTemplate(ProtoUtil.serialize(template))
+                .build())
+        .build();
+  }
+
+  static LaunchPlanOuterClass.LaunchPlanCreateRequest createLaunchPlanRequest(
+      LaunchPlanIdentifier id, LaunchPlan launchPlan) {
     LaunchPlanOuterClass.LaunchPlanSpec.Builder specBuilder =
         LaunchPlanOuterClass.LaunchPlanSpec.newBuilder()
             .setWorkflowId(ProtoUtil.serialize(launchPlan.workflowId()))
@@ -130,17 +202,10 @@ class FlyteAdminClient implements AutoCloseable {
           LaunchPlanOuterClass.LaunchPlanMetadata.newBuilder().setSchedule(schedule).build());
     }
 
-    LaunchPlanOuterClass.LaunchPlanCreateRequest request =
-        LaunchPlanOuterClass.LaunchPlanCreateRequest.newBuilder()
-            .setId(ProtoUtil.serialize(id))
-            .setSpec(specBuilder)
-            .build();
-
-    // create operation is idempotent, so it's fine to retry
-    LaunchPlanOuterClass.LaunchPlanCreateResponse response =
-        retries.retry(() -> stub.createLaunchPlan(request));
-
-    verifyNotNull(response, "Unexpected null response when creating launch plan: %s", id);
+    return LaunchPlanOuterClass.LaunchPlanCreateRequest.newBuilder()
+        .setId(ProtoUtil.serialize(id))
+        .setSpec(specBuilder)
+        .build();
   }
 
   void createExecution(String domain, String project, LaunchPlanIdentifier launchPlanId) {
@@ -168,7 +233,7 @@ class FlyteAdminClient implements AutoCloseable {
 
     // create operation is idempotent, so it's fine to retry
     ExecutionOuterClass.ExecutionCreateResponse response =
-        retries.retry(() -> stub.createExecution(request));
+        retries.retry(() -> stub().createExecution(request));
 
     verifyNotNull(
         response,
@@ -182,7 +247,7 @@ class FlyteAdminClient implements AutoCloseable {
   TaskIdentifier fetchLatestTaskId(NamedEntityIdentifier taskId) {
     return fetchLatestResource(
         taskId,
-        request -> stub.listTasks(request).getTasksList(),
+        request -> stub().listTasks(request).getTasksList(),
         TaskOuterClass.Task::getId,
         ProtoUtil::deserializeTaskId);
   }
@@ -191,7 +256,32 @@ class FlyteAdminClient implements AutoCloseable {
   WorkflowIdentifier fetchLatestWorkflowId(NamedEntityIdentifier workflowId) {
     return fetchLatestResource(
         workflowId,
-        request -> stub.listWorkflows(request).getWorkflowsList(),
+        request -> stub().listWorkflows(request).getWorkflowsList(),
+        WorkflowOuterClass.Workflow::getId,
+        ProtoUtil::deserializeWorkflowId);
+  }
+
+  ListenableFuture<TaskIdentifier> fetchLatestTaskIdAsync(NamedEntityIdentifier taskId) {
+    return fetchLatestResourceAsync(
+        taskId,
+        request ->
+            Futures.transform(
+                futureStub().listTasks(request),
+                TaskOuterClass.TaskList::getTasksList,
+                MoreExecutors.directExecutor()),
+        TaskOuterClass.Task::getId,
+        ProtoUtil::deserializeTaskId);
+  }
+
+  ListenableFuture<WorkflowIdentifier> fetchLatestWorkflowIdAsync(
+      NamedEntityIdentifier workflowId) {
+    return fetchLatestResourceAsync(
+        workflowId,
+        request ->
+            Futures.transform(
+                futureStub().listWorkflows(request),
+                WorkflowOuterClass.WorkflowList::getWorkflowsList,
+                MoreExecutors.directExecutor()),
         WorkflowOuterClass.Workflow::getId,
         ProtoUtil::deserializeWorkflowId);
   }
@@ -202,19 +292,44 @@ class FlyteAdminClient implements AutoCloseable {
       Function<ResourceListRequest, List<RespT>> performRequestFn,
       Function<RespT, IdentifierOuterClass.Identifier> extractIdFn,
       Function<IdentifierOuterClass.Identifier, T> deserializeFn) {
-    ResourceListRequest request =
-        ResourceListRequest.newBuilder()
-            .setLimit(1)
-            .setId(ProtoUtil.serialize(nameId))
-            .setSortBy(
-                Common.Sort.newBuilder()
-                    .setKey("created_at")
-                    .setDirection(Common.Sort.Direction.DESCENDING)
-                    .build())
-            .build();
+    ResourceListRequest request = createLatestResourceRequest(nameId);
 
     List<RespT> list = retries.retry(() -> performRequestFn.apply(request));
 
+    return getFirstId(list, extractIdFn, deserializeFn);
+  }
+
+  private <T, RespT> ListenableFuture<T> fetchLatestResourceAsync(
+      NamedEntityIdentifier nameId,
+      Function<ResourceListRequest, ListenableFuture<List<RespT>>> performRequestFn,
+      Function<RespT, IdentifierOuterClass.Identifier> extractIdFn,
+      Function<IdentifierOuterClass.Identifier, T> deserializeFn) {
+    ResourceListRequest request = createLatestResourceRequest(nameId);
+
+    ListenableFuture<List<RespT>> list =
+        retries.retryAsync(() -> performRequestFn.apply(request), retryExecutor);
+
+    return Futures.transform(
+        list, x -> getFirstId(x, extractIdFn, deserializeFn), MoreExecutors.directExecutor());
+  }
+
+  private static ResourceListRequest createLatestResourceRequest(NamedEntityIdentifier nameId) {
+    return ResourceListRequest.newBuilder()
+        .setLimit(1)
+        .setId(ProtoUtil.serialize(nameId))
+        .setSortBy(
+            Common.Sort.newBuilder()
+                .setKey("created_at")
+                .setDirection(Common.Sort.Direction.DESCENDING)
+                .build())
+        .build();
+  }
+
+  @Nullable
+  private static <T, RespT> T getFirstId(
+      List<RespT> list,
+      Function<RespT, IdentifierOuterClass.Identifier> extractIdFn,
+      Function<IdentifierOuterClass.Identifier, T> deserializeFn) {
     if (list.isEmpty()) {
       return null;
     }
@@ -223,8 +338,20 @@ class FlyteAdminClient implements AutoCloseable {
     return deserializeFn.apply(id);
   }
 
+  private AdminServiceGrpc.AdminServiceBlockingStub stub() {
+    return retries.withDeadline(stub);
+  }
+
+  private AdminServiceGrpc.AdminServiceFutureStub futureStub() {
+    return retries.withDeadline(futureStub);
+  }
+
   @Override
   public void close() {
+    LOG.info("Requests to Flyte Admin: {}", retries.stats());
+
+    retryExecutor.shutdownNow();
+
     if (channel != null) {
       channel.shutdown();
     }
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.errorprone.annotations.Var;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.flyte.api.v1.Checkpoint;
+import org.flyte.api.v1.Literal;
+import org.flyte.api.v1.Resources;
+import org.flyte.api.v1.RetryStrategy;
+import org.flyte.api.v1.RunnableTask;
+import org.flyte.api.v1.TaskContext;
+import org.flyte.api.v1.TypedInterface;
+import org.flyte.api.v1.Variable;
+
+/**
+ * Runs a linear chain of tasks back-to-back in a single container, passing outputs of each task to
+ * the next one in memory. Chains are detected by {@link TaskFusion}.
+ *
+ * <p>Inputs of a chain member that aren't bound to outputs of the previous member become inputs of
+ * the fused task, named {@code <nodeId>.<input>}. Outputs of the fused task are outputs of the last
+ * member.
+ */
+class FusedTask implements RunnableTask {
+  private final List<Member> members;
+  private final TypedInterface interface_;
+  private final BiConsumer<String, Map<String, Literal>> intermediateOutputs;
+  private final Map<String, Checkpoint> checkpoints;
+
+  FusedTask(List<Member> members) {
+    this(members, (nodeId, outputs) -> {});
+  }
+
+  FusedTask(List<Member> members, BiConsumer<String, Map<String, Literal>> intermediateOutputs) {
+    this(members, intermediateOutputs, nodeId -> Checkpoint.inMemory());
+  }
+
+  /**
+   * Creates fused task.
+   *
+   * @param members tasks in a chain, in the order they run
+   * @param intermediateOutputs called with node id and outputs of each member except the last one
+   * @param memberCheckpoint creates checkpoint for node id of each member, members can't share a
+   *     checkpoint, because they would resume from snapshots of each other
+   */
+  FusedTask(
+      List<Member> members,
+      BiConsumer<String, Map<String, Literal>> intermediateOutputs,
+      Function<String, Checkpoint> memberCheckpoint) {
+    checkArgument(members.size() >= 2, "Fused task needs at least 2 members, but got %s", members);
+
+    this.members = Collections.unmodifiableList(new ArrayList<>(members));
+    this.interface_ = createInterface(members);
+    this.intermediateOutputs = intermediateOutputs;
+    this.checkpoints =
+        members.stream()
+            .map(Member::nodeId)
+            .distinct()
+            .collect(Collectors.toMap(nodeId -> nodeId, memberCheckpoint));
+  }
+
+  List<Member> members() {
+    return members;
+  }
+
+  /**
+   * Returns arguments of "execute" command describing the chain. For each member, there is a pair
+   * of {@code --task} and {@code --node}, followed by {@code --binding} for each input bound to an
+   * output of the previous member.
+   *
+   * @return arguments
+   */
+  List<String> executeArgs() {
+    List<String> args = new ArrayList<>();
+
+    for (Member member : members) {
+      args.add("--task");
+      args.add(member.task().getName());
+      args.add("--node");
+      args.add(member.nodeId());
+
+      member
+          .bindings()
+          .forEach(
+              (input, output) -> {
+                args.add("--binding");
+                args.add(fusedInputName(member.nodeId(), input) + "=" + output);
+              });
+    }
+
+    return args;
+  }
+
+  @Override
+  public String getName() {
+    Hasher hasher = Hashing.sha256().newHasher();
+    executeArgs().forEach(arg -> hasher.putString(arg, StandardCharsets.UTF_8).putByte((byte) 0));
+
+    // name is derived from the chain, so different chains never share the same task
+    return members.get(0).task().getName() + "-fused-" + hasher.hash().toString().substring(0, 8);
+  }
+
+  @Override
+  public TypedInterface getInterface() {
+    return interface_;
+  }
+
+  @Override
+  public void setUp() {
+    // the same task can be used by several members, but it's set up only once
+    List<RunnableTask> tasks = distinctTasks();
+
+    for (int i = 0; i < tasks.size(); i++) {
+      try {
+        tasks.get(i).setUp();
+      } catch (RuntimeException e) {
+        // tearDown isn't called if setUp fails, release tasks that were already set up
+        try {
+          tearDown(tasks.subList(0, i));
+        } catch (RuntimeException tearDownFailure) {
+          e.addSuppressed(tearDownFailure);
+        }
+
+        throw e;
+      }
+    }
+  }
+
+  @Override
+  public Map<String, Literal> run(Map<String, Literal> inputs) {
+    @Var Map<String, Literal> outputs = Collections.emptyMap();
+
+    for (int i = 0; i < members.size(); i++) {
+      Member member = members.get(i);
+      Map<String, Literal> memberInputs = new LinkedHashMap<>();
+
+      for (String input : member.task().getInterface().inputs().keySet()) {
+        String output = member.bindings().get(input);
+        Literal value =
+            output != null
+                ? outputs.get(output)
+                : inputs.get(fusedInputName(member.nodeId(), input));
+
+        if (value != null) {
+          memberInputs.put(input, value);
+        }
+      }
+
+      // each member saves progress to its own checkpoint
+      TaskContext memberContext =
+          TaskContext.current().withCheckpoint(checkpoints.get(member.nodeId()));
+      outputs = memberContext.call(() -> member.task().run(memberInputs));
+
+      if (i < members.size() - 1) {
+        intermediateOutputs.accept(member.nodeId(), outputs);
+      }
+    }
+
+    return outputs;
+  }
+
+  @Override
+  public void tearDown() {
+    tearDown(distinctTasks());
+  }
+
+  private static void tearDown(List<RunnableTask> tasks) {
+    // tear down in reverse order, and make sure that all tasks are torn down
+    @Var RuntimeException failure = null;
+    for (int i = tasks.size() - 1; i >= 0; i--) {
+      try {
+        tasks.get(i).tearDown();
+      } catch (RuntimeException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private List<RunnableTask> distinctTasks() {
+    Set<RunnableTask> tasks = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    return members.stream().map(Member::task).filter(tasks::add).collect(Collectors.toList());
+  }
+
+  @Override
+  public RetryStrategy getRetries() {
+    // fusion requires all members to have the same retries and resources
+    return members.get(0).task().getRetries();
+  }
+
+  @Override
+  public Resources getResources() {
+    return members.get(0).task().getResources();
+  }
+
+  @Override
+  @Nullable
+  public Duration getTimeout() {
+    // members run one after another, so fused task needs as much time as all of them
+    @Var Duration timeout = Duration.ZERO;
+
+    for (Member member : members) {
+      Duration memberTimeout = member.task().getTimeout();
+
+      if (memberTimeout == null) {
+        return null;
+      }
+
+      timeout = timeout.plus(memberTimeout);
+    }
+
+    return timeout;
+  }
+
+  @Override
+  public boolean isDiscoverable() {
+    return false;
+  }
+
+  @Override
+  public boolean isSideEffectFree() {
+    return members.stream().allMatch(member -> member.task().isSideEffectFree());
+  }
+
+  @Override
+  @Nullable
+  public String getDiscoveryVersion() {
+    return null;
+  }
+
+  static String fusedInputName(String nodeId, String input) {
+    return nodeId + "." + input;
+  }
+
+  private static TypedInterface createInterface(List<Member> members) {
+    Map<String, Variable> inputs = new LinkedHashMap<>();
+
+    for (Member member : members) {
+      member
+          .task()
+          .getInterface()
+          .inputs()
+          .forEach(
+              (input, variable) -> {
+                if (member.bindings().containsKey(input)) {
+                  return;
+                }
+
+                String name = fusedInputName(member.nodeId(), input);
+                Variable previous = inputs.put(name, variable);
+
+                checkArgument(previous == null, "Duplicate input [%s] of fused task", name);
+              });
+    }
+
+    return TypedInterface.builder()
+        .inputs(Collections.unmodifiableMap(inputs))
+        .outputs(members.get(members.size() - 1).task().getInterface().outputs())
+        .build();
+  }
+
+  /** Task in a chain, and node it was used in. */
+  @AutoValue
+  abstract static class Member {
+    abstract String nodeId();
+
+    abstract RunnableTask task();
+
+    // inputs bound to outputs of the previous member, mapped to output names
+    abstract Map<String, String> bindings();
+
+    static Member create(String nodeId, RunnableTask task, Map<String, String> bindings) {
+      return new AutoValue_FusedTask_Member(nodeId, task, bindings);
+    }
+  }
+}
@@ -17,51 +17,112 @@
 package org.flyte.jflyte;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.errorprone.annotations.Var;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.grpc.stub.AbstractStub;
 import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Tiny utility to retry gRPC requests. */
+/**
+ * Tiny utility to retry gRPC requests. Retries use exponential backoff with jitter, and are limited
+ * by {@link RetryBudget} shared by all requests.
+ */
 @AutoValue
 abstract class GrpcRetries {
   private static final Logger LOG = LoggerFactory.getLogger(GrpcRetries.class);
 
+  // same defaults as gRPC retry throttling
+  static final int DEFAULT_MAX_TOKENS = 100;
+  static final double DEFAULT_TOKEN_RATIO = 0.1;
+
+  /** Delays the full range of backoff, so that clients failed together don't retry together. */
+  static final Jitter FULL_JITTER = delay -> ThreadLocalRandom.current().nextLong(delay + 1);
+
+  static final Jitter NO_JITTER = delay -> delay;
+
   public abstract int maxRetries();
 
   public abstract long maxDelayMilliseconds();
 
   public abstract long initialDelayMilliseconds();
 
+  /**
+   * Returns deadline for a single attempt.
+   *
+   * @return deadline in milliseconds, or 0 if attempts don't have a deadline
+   */
+  public abstract long deadlineMilliseconds();
+
   abstract Sleeper sleeper();
 
+  abstract Jitter jitter();
+
+  abstract RetryBudget budget();
+
+  abstract Stats stats();
+
   public interface Sleeper {
     void sleep(long millis) throws InterruptedException;
   }
 
+  /** Randomizes backoff delay, returns a value between 0 and {@code delay}. */
+  interface Jitter {
+    long apply(long delay);
+  }
+
   /** Like Callable, but doesn't throw an exception. */
   interface Retryable<T> extends Callable<T> {
     @Override
     T call();
   }
 
+  /** Like Retryable, but returns a future instead of blocking. */
+  interface AsyncRetryable<T> {
+    ListenableFuture<T> call();
+  }
+
+  /**
+   * Applies per-attempt deadline to a stub. Deadline starts when this method is called, so it has
+   * to be called for every attempt.
+   *
+   * @param stub stub
+   * @param <StubT> type of stub
+   * @return stub with deadline
+   */
+  <StubT extends AbstractStub<StubT>> StubT withDeadline(StubT stub) {
+    if (deadlineMilliseconds() > 0) {
+      return stub.withDeadlineAfter(deadlineMilliseconds(), TimeUnit.MILLISECONDS);
+    }
+
+    return stub;
+  }
+
   public <T> T retry(Retryable<T> retryable) {
     @Var int attempt = 0;
 
     do {
       try {
-        return retryable.call();
-      } catch (StatusRuntimeException e) {
-        Status.Code code = e.getStatus().getCode();
-
-        boolean isRetryable =
-            code == Status.Code.UNAVAILABLE || code == Status.Code.DEADLINE_EXCEEDED;
+        stats().attempts.incrementAndGet();
+        T result = retryable.call();
+        budget().onSuccess();
 
-        if (attempt < maxRetries() && isRetryable) {
-          long delay =
-              Math.min(maxDelayMilliseconds(), (1 << attempt) * initialDelayMilliseconds());
+        return result;
+      } catch (StatusRuntimeException e) {
+        if (shouldRetry(e, attempt)) {
+          long delay = getDelayMilliseconds(attempt);
+          stats().recordRetry(delay);
           LOG.warn("Retrying in " + delay + " ms", e);
 
           try {
@@ -78,17 +139,214 @@ abstract class GrpcRetries {
     } while (true);
   }
 
+  /**
+   * Same as {@link #retry(Retryable)}, but doesn't block. Instead of sleeping, retries are
+   * scheduled on {@code executor}.
+   *
+   * @param retryable function starting a request
+   * @param executor executor to schedule retries
+   * @param <T> type of response
+   * @return future completed with the result of the last attempt
+   */
+  public <T> ListenableFuture<T> retryAsync(
+      AsyncRetryable<T> retryable, ScheduledExecutorService executor) {
+    SettableFuture<T> result = SettableFuture.create();
+
+    retryAsync(retryable, executor, /* attempt= */ 0, result);
+
+    return result;
+  }
+
+  private <T> void retryAsync(
+      AsyncRetryable<T> retryable,
+      ScheduledExecutorService executor,
+      int attempt,
+      SettableFuture<T> result) {
+    ListenableFuture<T> future;
+
+    try {
+      stats().attempts.incrementAndGet();
+      future = retryable.call();
+    } catch (RuntimeException e) {
+      result.setException(e);
+      return;
+    }
+
+    Futures.addCallback(
+        future,
+        new FutureCallback<T>() {
+          @Override
+          public void onSuccess(T value) {
+            budget().onSuccess();
+            result.set(value);
+          }
+
+          @Override
+          @SuppressWarnings("FutureReturnValueIgnored")
+          public void onFailure(Throwable t) {
+            if (t instanceof StatusRuntimeException
+                && shouldRetry((StatusRuntimeException) t, attempt)) {
+              long delay = getDelayMilliseconds(attempt);
+              stats().recordRetry(delay);
+              LOG.warn("Retrying in " + delay + " ms", t);
+
+              try {
+                // result is completed by the scheduled attempt
+                executor.schedule(
+                    () -> retryAsync(retryable, executor, attempt + 1, result),
+                    delay,
+                    TimeUnit.MILLISECONDS);
+              } catch (RejectedExecutionException e) {
+                result.setException(t);
+              }
+            } else {
+              result.setException(t);
+            }
+          }
+        },
+        MoreExecutors.directExecutor());
+  }
+
+  private boolean shouldRetry(StatusRuntimeException e, int attempt) {
+    if (!isRetryable(e)) {
+      return false;
+    }
+
+    // failed attempts consume budget even if they aren't retried
+    boolean allowed = budget().onFailure();
+
+    if (attempt >= maxRetries()) {
+      return false;
+    }
+
+    if (!allowed) {
+      stats().throttled.incrementAndGet();
+      LOG.warn("Not retrying, retry budget is exhausted");
+    }
+
+    return allowed;
+  }
+
+  private static boolean isRetryable(StatusRuntimeException e) {
+    Status.Code code = e.getStatus().getCode();
+
+    return code == Status.Code.UNAVAILABLE || code == Status.Code.DEADLINE_EXCEEDED;
+  }
+
+  private long getDelayMilliseconds(int attempt) {
+    long delay =
+        Math.min(
+            maxDelayMilliseconds(), (1L << Math.min(attempt, 30)) * initialDelayMilliseconds());
+
+    return jitter().apply(delay);
+  }
+
   static GrpcRetries create() {
-    return create(
-        /* maxRetries= */ 10,
-        /* maxDelayMilliseconds= */ 5_000L,
-        /* initialDelayMilliseconds= */ 250L,
-        /* sleeper= */ Thread::sleep);
+    return builder().build();
+  }
+
+  static GrpcRetries create(Config config) {
+    return builder()
+        .maxRetries(config.platformMaxRetries())
+        .initialDelayMilliseconds(config.platformRetryInitialDelayMillis())
+        .maxDelayMilliseconds(config.platformRetryMaxDelayMillis())
+        .deadlineMilliseconds(config.platformDeadlineMillis())
+        .budget(
+            config.platformRetryBudget() > 0
+                ? RetryBudget.create(config.platformRetryBudget(), DEFAULT_TOKEN_RATIO)
+                : RetryBudget.unlimited())
+        .build();
   }
 
+  /**
+   * Creates retries without jitter, deadlines and retry budget, with deterministic delays.
+   *
+   * @param maxRetries max number of retries
+   * @param maxDelayMilliseconds max delay between attempts
+   * @param initialDelayMilliseconds delay before the first retry
+   * @param sleeper sleeper
+   * @return retries
+   */
   static GrpcRetries create(
       int maxRetries, long maxDelayMilliseconds, long initialDelayMilliseconds, Sleeper sleeper) {
-    return new AutoValue_GrpcRetries(
-        maxRetries, maxDelayMilliseconds, initialDelayMilliseconds, sleeper);
+    return builder()
+        .maxRetries(maxRetries)
+        .maxDelayMilliseconds(maxDelayMilliseconds)
+        .initialDelayMilliseconds(initialDelayMilliseconds)
+        .deadlineMilliseconds(0)
+        .sleeper(sleeper)
+        .jitter(NO_JITTER)
+        .budget(RetryBudget.unlimited())
+        .build();
+  }
+
+  static Builder builder() {
+    return new AutoValue_GrpcRetries.Builder()
+        .maxRetries(10)
+        .maxDelayMilliseconds(5_000L)
+        .initialDelayMilliseconds(250L)
+        .deadlineMilliseconds(60_000L)
+        .sleeper(Thread::sleep)
+        .jitter(FULL_JITTER)
+        .budget(RetryBudget.create(DEFAULT_MAX_TOKENS, DEFAULT_TOKEN_RATIO))
+        .stats(new Stats());
+  }
+
+  /** Builder for {@link GrpcRetries}. */
+  @AutoValue.Builder
+  abstract static class Builder {
+    abstract Builder maxRetries(int maxRetries);
+
+    abstract Builder maxDelayMilliseconds(long maxDelayMilliseconds);
+
+    abstract Builder initialDelayMilliseconds(long initialDelayMilliseconds);
+
+    abstract Builder deadlineMilliseconds(long deadlineMilliseconds);
+
+    abstract Builder sleeper(Sleeper sleeper);
+
+    abstract Builder jitter(Jitter jitter);
+
+    abstract Builder budget(RetryBudget budget);
+
+    abstract Builder stats(Stats stats);
+
+    abstract GrpcRetries build();
+  }
+
+  /** Counters of requests made through {@link GrpcRetries}. */
+  static class Stats {
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong backoffMilliseconds = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    long attempts() {
+      return attempts.get();
+    }
+
+    long retries() {
+      return retries.get();
+    }
+
+    long backoffMilliseconds() {
+      return backoffMilliseconds.get();
+    }
+
+    long throttled() {
+      return throttled.get();
+    }
+
+    private void recordRetry(long delay) {
+      retries.incrementAndGet();
+      backoffMilliseconds.addAndGet(delay);
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "attempts=%d, retries=%d, backoff=%d ms, throttled=%d",
+          attempts(), retries(), backoffMilliseconds(), throttled());
+    }
   }
 }
@@ -19,20 +19,32 @@ package org.flyte.jflyte;
 import com.google.auto.value.AutoValue;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Verify;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.flyte.api.v1.LaunchPlan;
 import org.flyte.api.v1.NamedEntityIdentifier;
 import org.flyte.api.v1.Node;
+import org.flyte.api.v1.PartialIdentifier;
 import org.flyte.api.v1.PartialTaskIdentifier;
 import org.flyte.api.v1.PartialWorkflowIdentifier;
-import org.flyte.api.v1.TaskIdentifier;
 import org.flyte.api.v1.TaskNode;
-import org.flyte.api.v1.WorkflowIdentifier;
 import org.flyte.api.v1.WorkflowTemplate;
 
-/** Overrides project, domain and version for nodes in {@link WorkflowTemplate}. */
+/**
+ * Overrides project, domain and version for nodes in {@link WorkflowTemplate}.
+ *
+ * <p>Latest versions of remote entities are kept in {@link LatestVersionCache}, because the same
+ * entity is usually referenced many times. Use {@link #prefetch} to look them up concurrently
+ * before rewriting.
+ */
 @AutoValue
 abstract class IdentifierRewrite {
 
@@ -44,6 +56,8 @@ abstract class IdentifierRewrite {
 
   abstract FlyteAdminClient adminClient();
 
+  abstract LatestVersionCache latestVersions();
+
   WorkflowTemplate apply(WorkflowTemplate template) {
     List<Node> newNodes = template.nodes().stream().map(this::apply).collect(Collectors.toList());
 
@@ -82,15 +96,19 @@ abstract class IdentifierRewrite {
   }
 
   private String getLatestTaskVersion(String project, String domain, String name) {
-    TaskIdentifier latestTaskId =
-        adminClient()
-            .fetchLatestTaskId(
-                NamedEntityIdentifier.builder().domain(domain).project(project).name(name).build());
+    NamedEntityIdentifier id =
+        NamedEntityIdentifier.builder().domain(domain).project(project).name(name).build();
+    Optional<String> latestVersion =
+        latestVersions().getTaskVersion(id, adminClient()::fetchLatestTaskId);
 
-    Verify.verifyNotNull(
-        latestTaskId, "task not found domain=[%s], project=[%s], name=[%s]", domain, project, name);
+    Verify.verify(
+        latestVersion.isPresent(),
+        "task not found domain=[%s], project=[%s], name=[%s]",
+        domain,
+        project,
+        name);
 
-    return latestTaskId.version();
+    return latestVersion.get();
   }
 
   LaunchPlan apply(LaunchPlan launchPlan) {
@@ -125,19 +143,96 @@ abstract class IdentifierRewrite {
   }
 
   private String getLatestWorkflowVersion(String project, String domain, String name) {
-    WorkflowIdentifier latestWorkflowId =
-        adminClient()
-            .fetchLatestWorkflowId(
-                NamedEntityIdentifier.builder().project(project).domain(domain).name(name).build());
+    NamedEntityIdentifier id =
+        NamedEntityIdentifier.builder().project(project).domain(domain).name(name).build();
+    Optional<String> latestVersion =
+        latestVersions().getWorkflowVersion(id, adminClient()::fetchLatestWorkflowId);
 
-    Verify.verifyNotNull(
-        latestWorkflowId,
+    Verify.verify(
+        latestVersion.isPresent(),
         "workflow not found domain=[%s], project=[%s], name=[%s]",
         domain,
         project,
         name);
 
-    return latestWorkflowId.version();
+    return latestVersion.get();
+  }
+
+  /**
+   * Looks up latest versions of all distinct remote entities referenced without version, issuing up
+   * to {@code concurrency} requests at once. Entities that aren't found are cached as well, and
+   * reported later, when templates are rewritten.
+   *
+   * @param workflows workflows to rewrite
+   * @param launchPlans launch plans to rewrite
+   * @param concurrency maximum number of concurrent requests
+   */
+  void prefetch(
+      Collection<WorkflowTemplate> workflows, Collection<LaunchPlan> launchPlans, int concurrency) {
+    Set<NamedEntityIdentifier> taskIds = new LinkedHashSet<>();
+    Set<NamedEntityIdentifier> workflowIds = new LinkedHashSet<>();
+
+    for (WorkflowTemplate workflow : workflows) {
+      for (Node node : workflow.nodes()) {
+        NamedEntityIdentifier taskId = getRemoteId(node.taskNode().referenceId());
+
+        if (taskId != null && !latestVersions().containsTask(taskId)) {
+          taskIds.add(taskId);
+        }
+      }
+    }
+
+    for (LaunchPlan launchPlan : launchPlans) {
+      NamedEntityIdentifier workflowId = getRemoteId(launchPlan.workflowId());
+
+      if (workflowId != null && !latestVersions().containsWorkflow(workflowId)) {
+        workflowIds.add(workflowId);
+      }
+    }
+
+    ConcurrentRequests requests = new ConcurrentRequests(concurrency);
+
+    for (NamedEntityIdentifier taskId : taskIds) {
+      requests.submit(
+          "fetch latest task " + taskId,
+          () ->
+              Futures.transform(
+                  adminClient().fetchLatestTaskIdAsync(taskId),
+                  latestTaskId -> {
+                    latestVersions().putTask(taskId, latestTaskId);
+                    return null;
+                  },
+                  MoreExecutors.directExecutor()));
+    }
+
+    for (NamedEntityIdentifier workflowId : workflowIds) {
+      requests.submit(
+          "fetch latest workflow " + workflowId,
+          () ->
+              Futures.transform(
+                  adminClient().fetchLatestWorkflowIdAsync(workflowId),
+                  latestWorkflowId -> {
+                    latestVersions().putWorkflow(workflowId, latestWorkflowId);
+                    return null;
+                  },
+                  MoreExecutors.directExecutor()));
+    }
+
+    requests.awaitAll();
+  }
+
+  @Nullable
+  private NamedEntityIdentifier getRemoteId(PartialIdentifier id) {
+    // see apply(PartialTaskIdentifier), only entities from other projects are looked up
+    if (id.version() != null || id.project() == null) {
+      return null;
+    }
+
+    return NamedEntityIdentifier.builder()
+        .project(id.project())
+        .domain(coalesce(id.domain(), domain()))
+        .name(id.name())
+        .build();
   }
 
   private static <T> T coalesce(T value1, T value2) {
@@ -162,6 +257,8 @@ abstract class IdentifierRewrite {
 
     abstract Builder adminClient(FlyteAdminClient adminClient);
 
+    abstract Builder latestVersions(LatestVersionCache latestVersions);
+
     abstract IdentifierRewrite build();
   }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Publishes {@link OperationMetrics} collected by {@link MeteredFileSystem}. */
+interface IoMetricsSink {
+
+  /**
+   * Called once for every scheme and operation, when it's used for the first time. Sinks keep a
+   * reference to metrics, and read them when they need to.
+   *
+   * @param metrics metrics
+   */
+  void register(OperationMetrics metrics);
+
+  /**
+   * Creates sinks listed in {@code FLYTE_IO_METRICS}, comma-separated, "log" for JSON log and "jmx"
+   * for JMX.
+   *
+   * @param env environment variables
+   * @return sinks, empty if metrics are disabled
+   */
+  static List<IoMetricsSink> fromEnv(Map<String, String> env) {
+    String value = env.get("FLYTE_IO_METRICS");
+    List<IoMetricsSink> sinks = new ArrayList<>();
+
+    if (value == null) {
+      return sinks;
+    }
+
+    for (String name : value.split(",", -1)) {
+      switch (name.trim()) {
+        case "log":
+          sinks.add(new JsonLogSink());
+          break;
+        case "jmx":
+          sinks.add(new JmxSink());
+          break;
+        case "":
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown FLYTE_IO_METRICS sink: " + name);
+      }
+    }
+
+    return sinks;
+  }
+
+  /** Logs metrics as a JSON line per operation when JVM exits. */
+  class JsonLogSink implements IoMetricsSink {
+    private static final Logger LOG = LoggerFactory.getLogger(JsonLogSink.class);
+
+    private final List<OperationMetrics> registered = new ArrayList<>();
+
+    JsonLogSink() {
+      Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "io-metrics-log"));
+    }
+
+    @Override
+    public synchronized void register(OperationMetrics metrics) {
+      registered.add(metrics);
+    }
+
+    synchronized void flush() {
+      registered.forEach(metrics -> LOG.info(metrics.toJson()));
+    }
+  }
+
+  /** Registers MBean per operation, under {@code org.flyte.jflyte:type=FileSystem}. */
+  class JmxSink implements IoMetricsSink {
+    private static final Logger LOG = LoggerFactory.getLogger(JmxSink.class);
+
+    @Override
+    public void register(OperationMetrics metrics) {
+      try {
+        ObjectName name =
+            new ObjectName(
+                String.format(
+                    "org.flyte.jflyte:type=FileSystem,scheme=%s,operation=%s",
+                    ObjectName.quote(metrics.getScheme()), metrics.getOperation()));
+
+        ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+      } catch (JMException e) {
+        LOG.warn(
+            "Failed to register MBean for {}/{}", metrics.getScheme(), metrics.getOperation(), e);
+      }
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.google.errorprone.annotations.Var;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Histogram of durations with fixed exponential buckets, cheap enough to record every request. */
+class LatencyHistogram {
+  private static final long[] BOUNDS_MILLIS = {
+    1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000, 30_000, 60_000
+  };
+
+  // the last bucket counts durations above the largest bound
+  private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MILLIS.length + 1);
+
+  void record(long nanos) {
+    long millis = NANOSECONDS.toMillis(nanos);
+
+    for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+      if (millis <= BOUNDS_MILLIS[i]) {
+        counts.incrementAndGet(i);
+        return;
+      }
+    }
+
+    counts.incrementAndGet(BOUNDS_MILLIS.length);
+  }
+
+  long count() {
+    @Var long count = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      count += counts.get(i);
+    }
+
+    return count;
+  }
+
+  /**
+   * Returns upper bound of the bucket containing given percentile, or -1 if it's above the largest
+   * bucket, or there are no values.
+   *
+   * @param percentile percentile between 0 and 1
+   * @return upper bound in milliseconds
+   */
+  long percentileMillis(double percentile) {
+    long count = count();
+
+    if (count == 0) {
+      return -1;
+    }
+
+    long rank = (long) Math.ceil(percentile * count);
+    @Var long cumulative = 0;
+
+    for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+      cumulative += counts.get(i);
+
+      if (cumulative >= rank) {
+        return BOUNDS_MILLIS[i];
+      }
+    }
+
+    return -1;
+  }
+
+  String toJson() {
+    StringJoiner buckets = new StringJoiner(",", "{", "}");
+
+    for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+      buckets.add("\"le_" + BOUNDS_MILLIS[i] + "\":" + counts.get(i));
+    }
+    buckets.add("\"le_inf\":" + counts.get(BOUNDS_MILLIS.length));
+
+    return String.format(
+        "{\"p50\":%d,\"p99\":%d,\"buckets\":%s}",
+        percentileMillis(0.5), percentileMillis(0.99), buckets);
+  }
+}
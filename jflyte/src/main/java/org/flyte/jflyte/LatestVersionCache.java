@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.flyte.api.v1.Identifier;
+import org.flyte.api.v1.NamedEntityIdentifier;
+
+/**
+ * Latest versions of remote tasks and workflows, looked up by {@link IdentifierRewrite}. Entities
+ * that weren't found are remembered as well, so they aren't looked up again.
+ *
+ * <p>Latest version changes whenever remote entity is registered, so cache should only live as long
+ * as a single registration.
+ */
+final class LatestVersionCache {
+  // empty value means that entity wasn't found
+  private final Map<NamedEntityIdentifier, Optional<String>> taskVersions =
+      new ConcurrentHashMap<>();
+  private final Map<NamedEntityIdentifier, Optional<String>> workflowVersions =
+      new ConcurrentHashMap<>();
+
+  boolean containsTask(NamedEntityIdentifier id) {
+    return taskVersions.containsKey(id);
+  }
+
+  boolean containsWorkflow(NamedEntityIdentifier id) {
+    return workflowVersions.containsKey(id);
+  }
+
+  /**
+   * Returns cached latest version of a task, or fetches it if it isn't cached yet.
+   *
+   * @param id task id
+   * @param fetch function returning latest task id, or null if task doesn't exist
+   * @return latest version, or empty if task doesn't exist
+   */
+  Optional<String> getTaskVersion(
+      NamedEntityIdentifier id, Function<NamedEntityIdentifier, Identifier> fetch) {
+    return get(taskVersions, id, fetch);
+  }
+
+  /**
+   * Returns cached latest version of a workflow, or fetches it if it isn't cached yet.
+   *
+   * @param id workflow id
+   * @param fetch function returning latest workflow id, or null if workflow doesn't exist
+   * @return latest version, or empty if workflow doesn't exist
+   */
+  Optional<String> getWorkflowVersion(
+      NamedEntityIdentifier id, Function<NamedEntityIdentifier, Identifier> fetch) {
+    return get(workflowVersions, id, fetch);
+  }
+
+  void putTask(NamedEntityIdentifier id, @Nullable Identifier latestId) {
+    put(taskVersions, id, latestId);
+  }
+
+  void putWorkflow(NamedEntityIdentifier id, @Nullable Identifier latestId) {
+    put(workflowVersions, id, latestId);
+  }
+
+  private static Optional<String> get(
+      Map<NamedEntityIdentifier, Optional<String>> versions,
+      NamedEntityIdentifier id,
+      Function<NamedEntityIdentifier, Identifier> fetch) {
+    Optional<String> cachedVersion = versions.get(id);
+
+    if (cachedVersion != null) {
+      return cachedVersion;
+    }
+
+    // not using computeIfAbsent to avoid blocking other keys during a remote call
+    return put(versions, id, fetch.apply(id));
+  }
+
+  private static Optional<String> put(
+      Map<NamedEntityIdentifier, Optional<String>> versions,
+      NamedEntityIdentifier id,
+      @Nullable Identifier latestId) {
+    Optional<String> latestVersion = Optional.ofNullable(latestId).map(Identifier::version);
+    versions.put(id, latestVersion);
+
+    return latestVersion;
+  }
+}
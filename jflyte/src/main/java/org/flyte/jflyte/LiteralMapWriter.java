@@ -0,0 +1,230 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import com.google.errorprone.annotations.Var;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import flyteidl.core.Literals;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.flyte.api.v1.Literal;
+
+/**
+ * Writes literal map in the same format as serialized {@link Literals.LiteralMap}, without building
+ * it in memory. Collections are written element by element, so peak memory is bounded by the
+ * largest element, and not by the size of collection. It matters for {@link
+ * org.flyte.api.v1.LazyCollection}, which elements don't have to be in memory at the same time.
+ *
+ * <p>Protobuf prefixes messages with their size, so collections are iterated twice, first to
+ * compute the size, and then to write elements. Only sizes of collections are kept in between, so
+ * {@link org.flyte.api.v1.LazyCollection} must return the same elements on every iteration,
+ * including its nested collections.
+ */
+class LiteralMapWriter {
+  private static final int LITERAL_MAP_LITERALS = Literals.LiteralMap.LITERALS_FIELD_NUMBER;
+  private static final int LITERAL_COLLECTION = Literals.Literal.COLLECTION_FIELD_NUMBER;
+  private static final int COLLECTION_LITERALS = Literals.LiteralCollection.LITERALS_FIELD_NUMBER;
+
+  // field numbers of map entries are fixed by protobuf specification
+  private static final int MAP_ENTRY_KEY = 1;
+  private static final int MAP_ENTRY_VALUE = 2;
+
+  private LiteralMapWriter() {
+    throw new UnsupportedOperationException();
+  }
+
+  static void write(Map<String, Literal> literals, OutputStream outputStream) throws IOException {
+    CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+
+    for (Map.Entry<String, Literal> entry : literals.entrySet()) {
+      SizedLiteral value = SizedLiteral.of(entry.getValue());
+      int entrySize =
+          checkSize(
+              (long) CodedOutputStream.computeStringSize(MAP_ENTRY_KEY, entry.getKey())
+                  + CodedOutputStream.computeTagSize(MAP_ENTRY_VALUE)
+                  + CodedOutputStream.computeUInt32SizeNoTag(value.size())
+                  + value.size());
+
+      output.writeTag(LITERAL_MAP_LITERALS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      output.writeUInt32NoTag(entrySize);
+      output.writeString(MAP_ENTRY_KEY, entry.getKey());
+      output.writeTag(MAP_ENTRY_VALUE, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      value.write(output);
+    }
+
+    output.flush();
+  }
+
+  // sizes are computed as long, because int silently overflows for large collections
+  private static int checkSize(long size) {
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Literal map is too large to serialize, message size %s bytes exceeds %s bytes"
+                  + " allowed by protobuf",
+              size, Integer.MAX_VALUE));
+    }
+
+    return (int) size;
+  }
+
+  /**
+   * Literal with known serialized size. Collections aren't serialized in advance, only sizes of
+   * collection and its nested collections are computed, and elements are iterated again when
+   * writing, other literals are serialized into protobuf.
+   */
+  private static class SizedLiteral {
+    private static final int[] NO_COLLECTIONS = new int[0];
+
+    private final Literal literal;
+    @Nullable private final Literals.Literal proto;
+    // sizes of this collection and nested collections in the order they are written, elements
+    // aren't kept, so they don't have to be in memory at the same time
+    private final int[] collectionSizes;
+
+    private SizedLiteral(Literal literal, @Nullable Literals.Literal proto, int[] collectionSizes) {
+      this.literal = literal;
+      this.proto = proto;
+      this.collectionSizes = collectionSizes;
+    }
+
+    static SizedLiteral of(Literal literal) {
+      if (literal.kind() == Literal.Kind.COLLECTION) {
+        CollectionSizes collectionSizes = new CollectionSizes();
+        computeCollectionSize(literal, collectionSizes);
+
+        return new SizedLiteral(literal, /* proto= */ null, collectionSizes.toArray());
+      }
+
+      return new SizedLiteral(literal, ProtoUtil.serialize(literal), NO_COLLECTIONS);
+    }
+
+    // size of LiteralCollection message, without tag and length prefix
+    private static int computeCollectionSize(Literal literal, CollectionSizes collectionSizes) {
+      // sizes are in the order of writing, so size of collection goes before its elements
+      int index = collectionSizes.add();
+      @Var long size = 0;
+
+      for (Literal element : literal.collection()) {
+        int elementSize =
+            element.kind() == Literal.Kind.COLLECTION
+                ? literalSize(computeCollectionSize(element, collectionSizes))
+                // elements are serialized again when written, so they aren't in memory at once
+                : ProtoUtil.serialize(element).getSerializedSize();
+
+        size +=
+            CodedOutputStream.computeTagSize(COLLECTION_LITERALS)
+                + CodedOutputStream.computeUInt32SizeNoTag(elementSize)
+                + (long) elementSize;
+      }
+
+      int collectionSize = checkSize(size);
+      collectionSizes.set(index, collectionSize);
+
+      return collectionSize;
+    }
+
+    // size of Literal message with a collection
+    private static int literalSize(int collectionSize) {
+      return checkSize(
+          (long) CodedOutputStream.computeTagSize(LITERAL_COLLECTION)
+              + CodedOutputStream.computeUInt32SizeNoTag(collectionSize)
+              + collectionSize);
+    }
+
+    int size() {
+      if (proto != null) {
+        return proto.getSerializedSize();
+      }
+
+      return literalSize(collectionSizes[0]);
+    }
+
+    // writes literal prefixed with its size
+    void write(CodedOutputStream output) throws IOException {
+      output.writeUInt32NoTag(size());
+
+      if (proto != null) {
+        proto.writeTo(output);
+        return;
+      }
+
+      writeCollection(output, literal, /* index= */ 0);
+    }
+
+    // writes Literal message with a collection, returns index of size of the next collection
+    private int writeCollection(CodedOutputStream output, Literal literal, int index)
+        throws IOException {
+      output.writeTag(LITERAL_COLLECTION, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      output.writeUInt32NoTag(collectionSize(index));
+
+      @Var int next = index + 1;
+      for (Literal element : literal.collection()) {
+        output.writeTag(COLLECTION_LITERALS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+
+        if (element.kind() == Literal.Kind.COLLECTION) {
+          output.writeUInt32NoTag(literalSize(collectionSize(next)));
+          next = writeCollection(output, element, next);
+        } else {
+          Literals.Literal proto = ProtoUtil.serialize(element);
+
+          output.writeUInt32NoTag(proto.getSerializedSize());
+          proto.writeTo(output);
+        }
+      }
+
+      return next;
+    }
+
+    private int collectionSize(int index) {
+      if (index >= collectionSizes.length) {
+        throw new IllegalStateException(
+            "Collection has more nested collections than when its size was computed,"
+                + " lazy collections must return the same elements on every iteration");
+      }
+
+      return collectionSizes[index];
+    }
+  }
+
+  /** Growable array of collection sizes, sizes are set after elements are iterated. */
+  private static class CollectionSizes {
+    private int[] sizes = new int[8];
+    private int count = 0;
+
+    // reserves space for the next size, and returns its index
+    int add() {
+      if (count == sizes.length) {
+        sizes = Arrays.copyOf(sizes, count * 2);
+      }
+
+      return count++;
+    }
+
+    void set(int index, int size) {
+      sizes[index] = size;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(sizes, count);
+    }
+  }
+}
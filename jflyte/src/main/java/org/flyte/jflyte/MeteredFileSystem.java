@@ -0,0 +1,305 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import com.google.errorprone.annotations.MustBeClosed;
+import com.google.errorprone.annotations.Var;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.flyte.jflyte.api.FileSystem;
+import org.flyte.jflyte.api.Manifest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decorator for {@link FileSystem} that collects I/O metrics per operation, and publishes them into
+ * {@link IoMetricsSink}.
+ *
+ * <p>Latency of readers and writers is measured from opening a channel to closing it, time to first
+ * byte is measured from opening a reader to the first read that returns any data.
+ */
+class MeteredFileSystem implements FileSystem {
+  private static final Logger LOG = LoggerFactory.getLogger(MeteredFileSystem.class);
+
+  private final FileSystem delegate;
+  private final List<IoMetricsSink> sinks;
+  private final Map<String, OperationMetrics> metrics = new ConcurrentHashMap<>();
+
+  MeteredFileSystem(FileSystem delegate, List<IoMetricsSink> sinks) {
+    this.delegate = delegate;
+    this.sinks = sinks;
+  }
+
+  /**
+   * Wraps file system into metrics decorator, if there are any sinks.
+   *
+   * @param fileSystem file system
+   * @param sinks sinks, see {@link IoMetricsSink#fromEnv(Map)}
+   * @return file system with metrics, or the same file system if there are no sinks
+   */
+  static FileSystem decorate(FileSystem fileSystem, List<IoMetricsSink> sinks) {
+    if (sinks.isEmpty()) {
+      return fileSystem;
+    }
+
+    return new MeteredFileSystem(fileSystem, sinks);
+  }
+
+  @Override
+  public String getScheme() {
+    return delegate.getScheme();
+  }
+
+  @Override
+  @MustBeClosed
+  // channel of delegate is closed by the wrapper
+  @SuppressWarnings("MustBeClosedChecker")
+  public ReadableByteChannel reader(String uri) {
+    OperationMetrics operation = metrics("reader");
+    long startNanos = System.nanoTime();
+
+    try {
+      return new MeteredReadableByteChannel(delegate.reader(uri), operation, startNanos);
+    } catch (RuntimeException e) {
+      operation.record(System.nanoTime() - startNanos, /* bytes= */ 0, /* failed= */ true);
+      throw e;
+    }
+  }
+
+  @Override
+  @MustBeClosed
+  // channel of delegate is closed by the wrapper
+  @SuppressWarnings("MustBeClosedChecker")
+  public WritableByteChannel writer(String uri) {
+    OperationMetrics operation = metrics("writer");
+    long startNanos = System.nanoTime();
+
+    try {
+      return new MeteredWritableByteChannel(delegate.writer(uri), operation, startNanos);
+    } catch (RuntimeException e) {
+      operation.record(System.nanoTime() - startNanos, /* bytes= */ 0, /* failed= */ true);
+      throw e;
+    }
+  }
+
+  @Nullable
+  @Override
+  public Manifest getManifest(String uri) {
+    return measure("getManifest", () -> delegate.getManifest(uri));
+  }
+
+  @Override
+  public Map<String, Manifest> getManifests(List<String> uris) {
+    return measure("getManifests", () -> delegate.getManifests(uris));
+  }
+
+  @Override
+  public CompletableFuture<Void> readAsync(String uri, Path destination, Executor executor) {
+    OperationMetrics operation = metrics("readAsync");
+    long startNanos = System.nanoTime();
+
+    return delegate
+        .readAsync(uri, destination, executor)
+        .whenComplete((result, error) -> recordTransfer(operation, startNanos, destination, error));
+  }
+
+  @Override
+  public CompletableFuture<Void> writeAsync(Path source, String uri, Executor executor) {
+    OperationMetrics operation = metrics("writeAsync");
+    long startNanos = System.nanoTime();
+
+    return delegate
+        .writeAsync(source, uri, executor)
+        .whenComplete((result, error) -> recordTransfer(operation, startNanos, source, error));
+  }
+
+  @Override
+  public void copy(String sourceUri, String targetUri) {
+    measure(
+        "copy",
+        () -> {
+          delegate.copy(sourceUri, targetUri);
+          return null;
+        });
+  }
+
+  OperationMetrics metrics(String operation) {
+    return metrics.computeIfAbsent(
+        operation,
+        name -> {
+          OperationMetrics created = new OperationMetrics(delegate.getScheme(), name);
+          sinks.forEach(sink -> sink.register(created));
+          return created;
+        });
+  }
+
+  private <T> T measure(String name, Supplier<T> fn) {
+    OperationMetrics operation = metrics(name);
+    long startNanos = System.nanoTime();
+    @Var boolean failed = true;
+
+    try {
+      T result = fn.get();
+      failed = false;
+      return result;
+    } finally {
+      operation.record(System.nanoTime() - startNanos, /* bytes= */ 0, failed);
+    }
+  }
+
+  // runs in completion callback, so it must not throw, otherwise successful transfer would fail
+  private static void recordTransfer(
+      OperationMetrics operation, long startNanos, Path file, @Nullable Throwable error) {
+    long nanos = System.nanoTime() - startNanos;
+
+    if (error != null) {
+      operation.record(nanos, /* bytes= */ 0, /* failed= */ true);
+      return;
+    }
+
+    long bytes;
+    try {
+      bytes = Files.size(file);
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Failed to get size of [{}] for metrics", file, e);
+      operation.record(nanos, /* bytes= */ 0, /* failed= */ true);
+      return;
+    }
+
+    operation.record(nanos, bytes, /* failed= */ false);
+  }
+
+  private static class MeteredReadableByteChannel implements ReadableByteChannel {
+    private final ReadableByteChannel delegate;
+    private final OperationMetrics operation;
+    private final long startNanos;
+    private long bytes = 0;
+    private boolean failed = false;
+    private boolean closed = false;
+
+    MeteredReadableByteChannel(
+        ReadableByteChannel delegate, OperationMetrics operation, long startNanos) {
+      this.delegate = delegate;
+      this.operation = operation;
+      this.startNanos = startNanos;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      try {
+        int read = delegate.read(dst);
+
+        if (read > 0) {
+          if (bytes == 0) {
+            operation.recordTimeToFirstByte(System.nanoTime() - startNanos);
+          }
+
+          bytes += read;
+        }
+
+        return read;
+      } catch (IOException | RuntimeException e) {
+        failed = true;
+        throw e;
+      }
+    }
+
+    @Override
+    public boolean isOpen() {
+      return delegate.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+
+      try {
+        delegate.close();
+      } catch (IOException | RuntimeException e) {
+        failed = true;
+        throw e;
+      } finally {
+        operation.record(System.nanoTime() - startNanos, bytes, failed);
+      }
+    }
+  }
+
+  private static class MeteredWritableByteChannel implements WritableByteChannel {
+    private final WritableByteChannel delegate;
+    private final OperationMetrics operation;
+    private final long startNanos;
+    private long bytes = 0;
+    private boolean failed = false;
+    private boolean closed = false;
+
+    MeteredWritableByteChannel(
+        WritableByteChannel delegate, OperationMetrics operation, long startNanos) {
+      this.delegate = delegate;
+      this.operation = operation;
+      this.startNanos = startNanos;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      try {
+        int written = delegate.write(src);
+        bytes += written;
+
+        return written;
+      } catch (IOException | RuntimeException e) {
+        failed = true;
+        throw e;
+      }
+    }
+
+    @Override
+    public boolean isOpen() {
+      return delegate.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+
+      try {
+        delegate.close();
+      } catch (IOException | RuntimeException e) {
+        failed = true;
+        throw e;
+      } finally {
+        operation.record(System.nanoTime() - startNanos, bytes, failed);
+      }
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** I/O metrics of a single operation of a single {@link org.flyte.jflyte.api.FileSystem}. */
+class OperationMetrics implements OperationMetricsMBean {
+  private final String scheme;
+  private final String operation;
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder bytes = new LongAdder();
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+
+  OperationMetrics(String scheme, String operation) {
+    this.scheme = scheme;
+    this.operation = operation;
+  }
+
+  void record(long nanos, long bytes, boolean failed) {
+    this.requests.increment();
+    this.bytes.add(bytes);
+    this.latency.record(nanos);
+
+    if (failed) {
+      this.errors.increment();
+    }
+  }
+
+  void recordTimeToFirstByte(long nanos) {
+    timeToFirstByte.record(nanos);
+  }
+
+  @Override
+  public String getScheme() {
+    return scheme;
+  }
+
+  @Override
+  public String getOperation() {
+    return operation;
+  }
+
+  @Override
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  @Override
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  @Override
+  public long getBytes() {
+    return bytes.sum();
+  }
+
+  @Override
+  public long getLatencyP50Millis() {
+    return latency.percentileMillis(0.5);
+  }
+
+  @Override
+  public long getLatencyP99Millis() {
+    return latency.percentileMillis(0.99);
+  }
+
+  @Override
+  public long getTimeToFirstByteP50Millis() {
+    return timeToFirstByte.percentileMillis(0.5);
+  }
+
+  @Override
+  public long getTimeToFirstByteP99Millis() {
+    return timeToFirstByte.percentileMillis(0.99);
+  }
+
+  String toJson() {
+    // scheme and operation names never need escaping
+    return String.format(
+        "{\"scheme\":\"%s\",\"operation\":\"%s\",\"requests\":%d,\"errors\":%d,\"bytes\":%d,"
+            + "\"latency_ms\":%s,\"ttfb_ms\":%s}",
+        scheme,
+        operation,
+        getRequests(),
+        getErrors(),
+        getBytes(),
+        latency.toJson(),
+        timeToFirstByte.toJson());
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+/**
+ * JMX view of {@link OperationMetrics}. Percentiles are upper bounds of histogram buckets, -1 if
+ * unknown.
+ */
+public interface OperationMetricsMBean {
+  String getScheme();
+
+  String getOperation();
+
+  long getRequests();
+
+  long getErrors();
+
+  long getBytes();
+
+  long getLatencyP50Millis();
+
+  long getLatencyP99Millis();
+
+  long getTimeToFirstByteP50Millis();
+
+  long getTimeToFirstByteP99Millis();
+}
@@ -22,6 +22,7 @@ import static java.util.stream.Collectors.toList;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.errorprone.annotations.Var;
 import flyteidl.admin.Common;
 import flyteidl.admin.ScheduleOuterClass;
 import flyteidl.core.Errors;
@@ -36,10 +37,12 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.flyte.api.v1.Binding;
 import org.flyte.api.v1.BindingData;
 import org.flyte.api.v1.BlobType;
@@ -57,6 +60,8 @@ import org.flyte.api.v1.PartialIdentifier;
 import org.flyte.api.v1.PartialTaskIdentifier;
 import org.flyte.api.v1.PartialWorkflowIdentifier;
 import org.flyte.api.v1.Primitive;
+import org.flyte.api.v1.PrimitiveCollection;
+import org.flyte.api.v1.Resources;
 import org.flyte.api.v1.RetryStrategy;
 import org.flyte.api.v1.Scalar;
 import org.flyte.api.v1.SchemaType;
@@ -138,11 +143,83 @@ class ProtoUtil {
   }
 
   static List<Literal> deserialize(Literals.LiteralCollection literalCollection) {
+    Literals.Primitive.ValueCase packedCase = getPackedCase(literalCollection);
+
+    if (packedCase != null) {
+      return deserializePacked(literalCollection, packedCase);
+    }
+
     return literalCollection.getLiteralsList().stream()
         .map(ProtoUtil::deserialize)
         .collect(collectingAndThen(toList(), Collections::unmodifiableList));
   }
 
+  // returns type of primitives if collection is non-empty, and all elements are primitives of the
+  // same type that can be packed into PrimitiveCollection, or null otherwise
+  @Nullable
+  private static Literals.Primitive.ValueCase getPackedCase(
+      Literals.LiteralCollection literalCollection) {
+    if (literalCollection.getLiteralsCount() == 0) {
+      return null;
+    }
+
+    @Var Literals.Primitive.ValueCase packedCase = null;
+
+    for (Literals.Literal literal : literalCollection.getLiteralsList()) {
+      if (!literal.hasScalar() || !literal.getScalar().hasPrimitive()) {
+        return null;
+      }
+
+      Literals.Primitive.ValueCase valueCase = literal.getScalar().getPrimitive().getValueCase();
+
+      if (packedCase == null) {
+        packedCase = valueCase;
+      } else if (packedCase != valueCase) {
+        return null;
+      }
+    }
+
+    switch (packedCase) {
+      case INTEGER:
+      case FLOAT_VALUE:
+      case BOOLEAN:
+        return packedCase;
+      default:
+        return null;
+    }
+  }
+
+  private static PrimitiveCollection deserializePacked(
+      Literals.LiteralCollection literalCollection, Literals.Primitive.ValueCase packedCase) {
+    int size = literalCollection.getLiteralsCount();
+
+    switch (packedCase) {
+      case INTEGER:
+        long[] integers = new long[size];
+        for (int i = 0; i < size; i++) {
+          integers[i] = literalCollection.getLiterals(i).getScalar().getPrimitive().getInteger();
+        }
+        return PrimitiveCollection.ofIntegers(integers);
+
+      case FLOAT_VALUE:
+        double[] floats = new double[size];
+        for (int i = 0; i < size; i++) {
+          floats[i] = literalCollection.getLiterals(i).getScalar().getPrimitive().getFloatValue();
+        }
+        return PrimitiveCollection.ofFloats(floats);
+
+      case BOOLEAN:
+        BitSet booleans = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+          booleans.set(i, literalCollection.getLiterals(i).getScalar().getPrimitive().getBoolean());
+        }
+        return PrimitiveCollection.ofBooleans(booleans, size);
+
+      default:
+        throw new AssertionError("Unexpected packed type: " + packedCase);
+    }
+  }
+
   static IdentifierOuterClass.Identifier serialize(PartialIdentifier id) {
     IdentifierOuterClass.ResourceType type = getResourceType(id);
 
@@ -175,11 +252,25 @@ class ProtoUtil {
             .setVersion(RUNTIME_VERSION)
             .build();
 
-    Tasks.TaskMetadata metadata =
+    Tasks.TaskMetadata.Builder metadata =
         Tasks.TaskMetadata.newBuilder()
             .setRuntime(runtime)
             .setRetries(serialize(taskTemplate.retries()))
-            .build();
+            .setDiscoverable(taskTemplate.discoverable());
+
+    String discoveryVersion = taskTemplate.discoveryVersion();
+    if (discoveryVersion != null) {
+      metadata.setDiscoveryVersion(discoveryVersion);
+    }
+
+    Duration timeout = taskTemplate.timeout();
+    if (timeout != null) {
+      metadata.setTimeout(
+          com.google.protobuf.Duration.newBuilder()
+              .setSeconds(timeout.getSeconds())
+              .setNanos(timeout.getNano())
+              .build());
+    }
 
     Container container =
         requireNonNull(
@@ -325,9 +416,48 @@ class ProtoUtil {
 
     container.env().forEach(pair -> builder.addEnv(serialize(pair)));
 
+    Resources resources = container.resources();
+    if (resources != null) {
+      builder.setResources(serialize(resources));
+    }
+
     return builder.build();
   }
 
+  private static Tasks.Resources serialize(Resources resources) {
+    Tasks.Resources.Builder builder = Tasks.Resources.newBuilder();
+
+    resources.requests().forEach((name, value) -> builder.addRequests(serialize(name, value)));
+    resources.limits().forEach((name, value) -> builder.addLimits(serialize(name, value)));
+
+    return builder.build();
+  }
+
+  private static Tasks.Resources.ResourceEntry serialize(
+      Resources.ResourceName name, String value) {
+    return Tasks.Resources.ResourceEntry.newBuilder()
+        .setName(serialize(name))
+        .setValue(value)
+        .build();
+  }
+
+  private static Tasks.Resources.ResourceName serialize(Resources.ResourceName name) {
+    switch (name) {
+      case UNKNOWN:
+        return Tasks.Resources.ResourceName.UNKNOWN;
+      case CPU:
+        return Tasks.Resources.ResourceName.CPU;
+      case GPU:
+        return Tasks.Resources.ResourceName.GPU;
+      case MEMORY:
+        return Tasks.Resources.ResourceName.MEMORY;
+      case STORAGE:
+        return Tasks.Resources.ResourceName.STORAGE;
+    }
+
+    throw new AssertionError("Unexpected Resources.ResourceName: " + name);
+  }
+
   private static Literals.KeyValuePair serialize(KeyValuePair pair) {
     Literals.KeyValuePair.Builder builder = Literals.KeyValuePair.newBuilder();
 
@@ -437,11 +567,43 @@ class ProtoUtil {
   }
 
   private static Literals.LiteralCollection serialize(List<Literal> literals) {
+    if (literals instanceof PrimitiveCollection) {
+      return serializePacked((PrimitiveCollection) literals);
+    }
+
     Literals.LiteralCollection.Builder builder = Literals.LiteralCollection.newBuilder();
     literals.forEach(literal -> builder.addLiterals(serialize(literal)));
     return builder.build();
   }
 
+  // reads primitives directly from arrays, without wrapping each of them into Literal first
+  private static Literals.LiteralCollection serializePacked(PrimitiveCollection collection) {
+    Literals.LiteralCollection.Builder builder = Literals.LiteralCollection.newBuilder();
+    Literals.Primitive.Builder primitive = Literals.Primitive.newBuilder();
+
+    for (int i = 0; i < collection.size(); i++) {
+      switch (collection.type()) {
+        case INTEGER:
+          primitive.setInteger(collection.integer(i));
+          break;
+        case FLOAT:
+          primitive.setFloatValue(collection.float_(i));
+          break;
+        case BOOLEAN:
+          primitive.setBoolean(collection.boolean_(i));
+          break;
+        default:
+          throw new AssertionError("Unexpected packed type: " + collection.type());
+      }
+
+      builder.addLiterals(
+          Literals.Literal.newBuilder()
+              .setScalar(Literals.Scalar.newBuilder().setPrimitive(primitive)));
+    }
+
+    return builder.build();
+  }
+
   static Literals.LiteralMap serialize(Map<String, Literal> literals) {
     Literals.LiteralMap.Builder builder = Literals.LiteralMap.newBuilder();
     literals.forEach((name, literal) -> builder.putLiterals(name, serialize(literal)));
@@ -19,6 +19,7 @@ package org.flyte.jflyte;
 import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.common.io.ByteSource;
 import java.io.File;
 import java.io.IOException;
@@ -30,6 +31,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -40,20 +43,28 @@ import org.flyte.api.v1.KeyValuePair;
 import org.flyte.api.v1.LaunchPlan;
 import org.flyte.api.v1.LaunchPlanIdentifier;
 import org.flyte.api.v1.LaunchPlanRegistrar;
+import org.flyte.api.v1.Node;
+import org.flyte.api.v1.PartialIdentifier;
+import org.flyte.api.v1.PartialTaskIdentifier;
+import org.flyte.api.v1.PartialWorkflowIdentifier;
 import org.flyte.api.v1.RunnableTask;
 import org.flyte.api.v1.RunnableTaskRegistrar;
 import org.flyte.api.v1.TaskIdentifier;
+import org.flyte.api.v1.TaskNode;
 import org.flyte.api.v1.TaskTemplate;
 import org.flyte.api.v1.WorkflowIdentifier;
 import org.flyte.api.v1.WorkflowTemplate;
 import org.flyte.api.v1.WorkflowTemplateRegistrar;
 import org.flyte.jflyte.api.FileSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
 /** Registers all workflows on classpath. */
 @Command(name = "workflows")
 public class RegisterWorkflows implements Callable<Integer> {
+  private static final Logger LOG = LoggerFactory.getLogger(RegisterWorkflows.class);
 
   @SuppressWarnings("UnusedVariable")
   @Option(
@@ -82,68 +93,142 @@ public class RegisterWorkflows implements Callable<Integer> {
       required = true)
   private String packageDir;
 
+  @Option(
+      names = {"--concurrency"},
+      description = "Maximum number of concurrent requests to Flyte Admin",
+      defaultValue = "1")
+  private int concurrency;
+
+  @Option(
+      names = {"--incremental"},
+      description =
+          "Skip entities that didn't change since previous registration, and reuse their versions")
+  private boolean incremental;
+
+  @Option(
+      names = {"--fuseTasks"},
+      description =
+          "Run linear chains of tasks with the same resources and retries in a single container")
+  private boolean fuseTasks;
+
+  @Option(
+      names = {"--fusedIntermediateOutputs"},
+      description = "Write outputs of each task in a fused chain, for debugging")
+  private boolean fusedIntermediateOutputs;
+
   @Override
   public Integer call() {
     Config config = Config.load();
-    ArtifactStager stager = getArtifactStager(config);
+    String stagingLocation = getStagingLocation(config);
+    FileSystem stagingFileSystem = getStagingFileSystem(config, stagingLocation);
+
+    ArtifactStager stager =
+        new ArtifactStager(stagingLocation, stagingFileSystem, getHashCache(config));
+    RegistrationFingerprints fingerprints = getFingerprints(stagingLocation, stagingFileSystem);
 
     try (FlyteAdminClient adminClient =
-        FlyteAdminClient.create(config.platformUrl(), config.platformInsecure())) {
-      registerAll(stager, config.image(), adminClient);
+        FlyteAdminClient.create(
+            config.platformUrl(), config.platformInsecure(), GrpcRetries.create(config))) {
+      registerAll(stager, fingerprints, config.image(), adminClient);
     }
 
     return 0;
   }
 
-  private ArtifactStager getArtifactStager(Config config) {
-    try {
-      String stagingLocation = config.stagingLocation();
+  private static String getStagingLocation(Config config) {
+    String stagingLocation = config.stagingLocation();
 
-      if (stagingLocation == null) {
-        throw new IllegalArgumentException(
-            "Environment variable 'FLYTE_STAGING_LOCATION' isn't set");
-      }
+    if (stagingLocation == null) {
+      throw new IllegalArgumentException("Environment variable 'FLYTE_STAGING_LOCATION' isn't set");
+    }
+
+    return stagingLocation;
+  }
 
+  private static FileSystem getStagingFileSystem(Config config, String stagingLocation) {
+    try {
       URI stagingUri = new URI(stagingLocation);
       Collection<ClassLoader> modules = ClassLoaders.forModuleDir(config.moduleDir()).values();
       Map<String, FileSystem> fileSystems = FileSystemLoader.loadFileSystems(modules);
-      FileSystem stagingFileSystem = FileSystemLoader.getFileSystem(fileSystems, stagingUri);
 
-      return new ArtifactStager(stagingLocation, stagingFileSystem);
+      return FileSystemLoader.getFileSystem(fileSystems, stagingUri);
     } catch (URISyntaxException e) {
       throw new IllegalArgumentException("Failed to parse stagingLocation", e);
     }
   }
 
+  private RegistrationFingerprints getFingerprints(
+      String stagingLocation, FileSystem stagingFileSystem) {
+    if (!incremental) {
+      return RegistrationFingerprints.empty();
+    }
+
+    String prefix = stagingLocation.endsWith("/") ? stagingLocation : stagingLocation + "/";
+    String uri = prefix + "fingerprints/" + project + "/" + domain;
+
+    return RegistrationFingerprints.load(stagingFileSystem, uri);
+  }
+
+  private static ArtifactHashCache getHashCache(Config config) {
+    String stagingHashCache = config.stagingHashCache();
+
+    if (stagingHashCache == null) {
+      return ArtifactHashCache.empty();
+    }
+
+    return ArtifactHashCache.load(Paths.get(stagingHashCache));
+  }
+
   private TaskTemplate createTaskTemplate(
       RunnableTask task, String indexFileLocation, String image, List<KeyValuePair> env) {
     Container container =
         Container.builder()
             .command(ImmutableList.of())
-            .args(
-                ImmutableList.of(
-                    "jflyte",
-                    "execute",
-                    "--task",
-                    task.getName(),
-                    "--inputs",
-                    "{{.input}}",
-                    "--outputPrefix",
-                    "{{.outputPrefix}}",
-                    "--indexFileLocation",
-                    indexFileLocation))
+            .args(createExecuteArgs(task, indexFileLocation))
             .image(image)
             .env(env)
+            .resources(task.getResources())
             .build();
 
     return TaskTemplate.builder()
         .container(container)
         .interface_(task.getInterface())
         .retries(task.getRetries())
+        .discoverable(task.isDiscoverable())
+        .discoveryVersion(task.getDiscoveryVersion())
+        .timeout(task.getTimeout())
+        .build();
+  }
+
+  private List<String> createExecuteArgs(RunnableTask task, String indexFileLocation) {
+    ImmutableList.Builder<String> args = ImmutableList.builder();
+    args.add("jflyte", "execute");
+
+    if (task instanceof FusedTask) {
+      args.addAll(((FusedTask) task).executeArgs());
+
+      if (fusedIntermediateOutputs) {
+        args.add("--intermediateOutputs");
+      }
+    } else {
+      args.add("--task", task.getName());
+    }
+
+    return args.add(
+            "--inputs",
+            "{{.input}}",
+            "--outputPrefix",
+            "{{.outputPrefix}}",
+            "--indexFileLocation",
+            indexFileLocation)
         .build();
   }
 
-  private void registerAll(ArtifactStager stager, String image, FlyteAdminClient adminClient) {
+  private void registerAll(
+      ArtifactStager stager,
+      RegistrationFingerprints fingerprints,
+      String image,
+      FlyteAdminClient adminClient) {
     ClassLoader packageClassLoader = ClassLoaders.forDirectory(new File(packageDir));
 
     List<Artifact> artifacts = stagePackageFiles(stager, packageDir);
@@ -155,21 +240,29 @@ public class RegisterWorkflows implements Callable<Integer> {
             "JFLYTE_PROJECT", project,
             "JFLYTE_VERSION", version);
 
-    List<KeyValuePair> envList =
-        env.entrySet().stream()
-            .map(entry -> KeyValuePair.of(entry.getKey(), entry.getValue()))
-            .collect(Collectors.toList());
+    List<KeyValuePair> envList = toKeyValuePairs(env);
+
+    // version is always different, it shouldn't change fingerprint
+    List<KeyValuePair> fingerprintEnvList =
+        toKeyValuePairs(Maps.filterKeys(env, key -> !key.equals("JFLYTE_VERSION")));
 
     // before we run anything, switch class loader, because we will be touching user classes;
     // setting it in thread context will give us access to the right class loader
 
     Map<TaskIdentifier, RunnableTask> tasks =
-        ClassLoaders.withClassLoader(
-            packageClassLoader, () -> Registrars.loadAll(RunnableTaskRegistrar.class, env));
+        new LinkedHashMap<>(
+            ClassLoaders.withClassLoader(
+                packageClassLoader, () -> Registrars.loadAll(RunnableTaskRegistrar.class, env)));
 
     Map<WorkflowIdentifier, WorkflowTemplate> workflows =
-        ClassLoaders.withClassLoader(
-            packageClassLoader, () -> Registrars.loadAll(WorkflowTemplateRegistrar.class, env));
+        new LinkedHashMap<>(
+            ClassLoaders.withClassLoader(
+                packageClassLoader,
+                () -> Registrars.loadAll(WorkflowTemplateRegistrar.class, env)));
+
+    if (fuseTasks) {
+      fuseTasks(tasks, workflows);
+    }
 
     Map<LaunchPlanIdentifier, LaunchPlan> launchPlans =
         ClassLoaders.withClassLoader(
@@ -178,11 +271,23 @@ public class RegisterWorkflows implements Callable<Integer> {
     IdentifierRewrite identifierRewrite =
         IdentifierRewrite.builder()
             .adminClient(adminClient)
+            .latestVersions(new LatestVersionCache())
             .domain(domain)
             .project(project)
             .version(version)
             .build();
 
+    // look up latest versions of remote entities at once, instead of one by one while rewriting
+    identifierRewrite.prefetch(workflows.values(), launchPlans.values(), concurrency);
+
+    // requests are issued concurrently, but workflows can reference tasks, and launch plans
+    // reference workflows, so we wait for each kind of entity before moving on to the next one
+    ConcurrentRequests requests = new ConcurrentRequests(concurrency);
+
+    // versions of entities that didn't change, and weren't registered again
+    Map<String, String> reusedTaskVersions = new HashMap<>();
+    Map<String, String> reusedWorkflowVersions = new HashMap<>();
+
     for (Map.Entry<TaskIdentifier, RunnableTask> entry : tasks.entrySet()) {
       TaskIdentifier taskId = entry.getKey();
       RunnableTask task = entry.getValue();
@@ -194,22 +299,200 @@ public class RegisterWorkflows implements Callable<Integer> {
               /* image= */ image,
               /* env= */ envList);
 
-      adminClient.createTask(taskId, taskTemplate);
+      TaskTemplate fingerprintTemplate =
+          createTaskTemplate(
+              task,
+              /* indexFileLocation= */ indexFile.location(),
+              /* image= */ image,
+              /* env= */ fingerprintEnvList);
+
+      String fingerprint =
+          RegistrationFingerprints.fingerprint(ProtoUtil.serialize(fingerprintTemplate));
+      String previousVersion =
+          fingerprints.getVersion(RegistrationFingerprints.Kind.TASK, taskId.name(), fingerprint);
+
+      if (previousVersion != null) {
+        LOG.info("Task [{}] didn't change, reusing version [{}]", taskId.name(), previousVersion);
+        reusedTaskVersions.put(taskId.name(), previousVersion);
+        continue;
+      }
+
+      fingerprints.put(RegistrationFingerprints.Kind.TASK, taskId.name(), version, fingerprint);
+      requests.submit(
+          "create task " + taskId, () -> adminClient.createTaskAsync(taskId, taskTemplate));
     }
 
+    requests.awaitAll();
+
     for (Map.Entry<WorkflowIdentifier, WorkflowTemplate> entry : workflows.entrySet()) {
       WorkflowIdentifier workflowId = entry.getKey();
-      WorkflowTemplate workflowTemplate = identifierRewrite.apply(entry.getValue());
+      WorkflowTemplate workflowTemplate =
+          reuseTaskVersions(identifierRewrite.apply(entry.getValue()), reusedTaskVersions);
+
+      String fingerprint =
+          RegistrationFingerprints.fingerprint(ProtoUtil.serialize(workflowTemplate));
+      String previousVersion =
+          fingerprints.getVersion(
+              RegistrationFingerprints.Kind.WORKFLOW, workflowId.name(), fingerprint);
+
+      if (previousVersion != null) {
+        LOG.info(
+            "Workflow [{}] didn't change, reusing version [{}]",
+            workflowId.name(),
+            previousVersion);
+        reusedWorkflowVersions.put(workflowId.name(), previousVersion);
+        continue;
+      }
 
-      adminClient.createWorkflow(workflowId, workflowTemplate);
+      fingerprints.put(
+          RegistrationFingerprints.Kind.WORKFLOW, workflowId.name(), version, fingerprint);
+      requests.submit(
+          "create workflow " + workflowId,
+          () -> adminClient.createWorkflowAsync(workflowId, workflowTemplate));
     }
 
+    requests.awaitAll();
+
     for (Map.Entry<LaunchPlanIdentifier, LaunchPlan> entry : launchPlans.entrySet()) {
       LaunchPlanIdentifier launchPlanId = entry.getKey();
-      LaunchPlan launchPlan = identifierRewrite.apply(entry.getValue());
+      LaunchPlan launchPlan =
+          reuseWorkflowVersion(identifierRewrite.apply(entry.getValue()), reusedWorkflowVersions);
+
+      String fingerprint =
+          RegistrationFingerprints.fingerprint(
+              FlyteAdminClient.createLaunchPlanRequest(launchPlanId, launchPlan).getSpec());
+      String previousVersion =
+          fingerprints.getVersion(
+              RegistrationFingerprints.Kind.LAUNCH_PLAN, launchPlanId.name(), fingerprint);
+
+      if (previousVersion != null) {
+        LOG.info(
+            "Launch plan [{}] didn't change, reusing version [{}]",
+            launchPlanId.name(),
+            previousVersion);
+        continue;
+      }
 
-      adminClient.createLaunchPlan(launchPlanId, launchPlan);
+      fingerprints.put(
+          RegistrationFingerprints.Kind.LAUNCH_PLAN, launchPlanId.name(), version, fingerprint);
+      requests.submit(
+          "create launch plan " + launchPlanId,
+          () -> adminClient.createLaunchPlanAsync(launchPlanId, launchPlan));
     }
+
+    requests.awaitAll();
+
+    // only save fingerprints once everything is registered, otherwise, we could skip entities
+    // that failed to register
+    fingerprints.save();
+  }
+
+  /**
+   * Replaces linear chains of tasks in workflows with fused tasks, and adds fused tasks to tasks
+   * that are registered. Original tasks are still registered, because they can be used elsewhere.
+   *
+   * @param tasks tasks to register, fused tasks are added to it
+   * @param workflows workflows to register, they are replaced with fused workflows
+   */
+  private void fuseTasks(
+      Map<TaskIdentifier, RunnableTask> tasks,
+      Map<WorkflowIdentifier, WorkflowTemplate> workflows) {
+    Map<String, RunnableTask> tasksByName =
+        tasks.entrySet().stream()
+            .collect(
+                Collectors.toMap(
+                    entry -> entry.getKey().name(),
+                    Map.Entry::getValue,
+                    // must pick the same task as Execute does
+                    (first, second) -> first));
+
+    for (Map.Entry<WorkflowIdentifier, WorkflowTemplate> entry : workflows.entrySet()) {
+      TaskFusion.Result result = TaskFusion.apply(entry.getValue(), tasksByName);
+
+      for (FusedTask fusedTask : result.fusedTasks()) {
+        LOG.info(
+            "Fused tasks in workflow [{}] into [{}]", entry.getKey().name(), fusedTask.getName());
+
+        TaskIdentifier taskId =
+            TaskIdentifier.builder()
+                .domain(domain)
+                .project(project)
+                .name(fusedTask.getName())
+                .version(version)
+                .build();
+
+        tasks.put(taskId, fusedTask);
+      }
+
+      entry.setValue(result.workflowTemplate());
+    }
+  }
+
+  private static List<KeyValuePair> toKeyValuePairs(Map<String, String> env) {
+    return env.entrySet().stream()
+        .map(entry -> KeyValuePair.of(entry.getKey(), entry.getValue()))
+        .collect(Collectors.toList());
+  }
+
+  private WorkflowTemplate reuseTaskVersions(
+      WorkflowTemplate template, Map<String, String> reusedTaskVersions) {
+    List<Node> nodes =
+        template.nodes().stream()
+            .map(
+                node -> {
+                  PartialTaskIdentifier taskId = node.taskNode().referenceId();
+                  String reusedVersion = reusedTaskVersions.get(taskId.name());
+
+                  if (reusedVersion == null || !isRegisteredByUs(taskId)) {
+                    return node;
+                  }
+
+                  PartialTaskIdentifier newTaskId =
+                      PartialTaskIdentifier.builder()
+                          .project(taskId.project())
+                          .domain(taskId.domain())
+                          .name(taskId.name())
+                          .version(reusedVersion)
+                          .build();
+
+                  return node.toBuilder()
+                      .taskNode(TaskNode.builder().referenceId(newTaskId).build())
+                      .build();
+                })
+            .collect(Collectors.toList());
+
+    return template.toBuilder().nodes(nodes).build();
+  }
+
+  private LaunchPlan reuseWorkflowVersion(
+      LaunchPlan launchPlan, Map<String, String> reusedWorkflowVersions) {
+    PartialWorkflowIdentifier workflowId = launchPlan.workflowId();
+    String reusedVersion = reusedWorkflowVersions.get(workflowId.name());
+
+    if (reusedVersion == null || !isRegisteredByUs(workflowId)) {
+      return launchPlan;
+    }
+
+    PartialWorkflowIdentifier newWorkflowId =
+        PartialWorkflowIdentifier.builder()
+            .project(workflowId.project())
+            .domain(workflowId.domain())
+            .name(workflowId.name())
+            .version(reusedVersion)
+            .build();
+
+    return LaunchPlan.builder()
+        .name(launchPlan.name())
+        .fixedInputs(launchPlan.fixedInputs())
+        .workflowId(newWorkflowId)
+        .cronSchedule(launchPlan.cronSchedule())
+        .build();
+  }
+
+  private boolean isRegisteredByUs(PartialIdentifier id) {
+    return project.equals(id.project())
+        && domain.equals(id.domain())
+        && version.equals(id.version());
   }
 
   private static List<Artifact> stagePackageFiles(ArtifactStager stager, String packageDir) {
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.errorprone.annotations.Var;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Message;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import org.flyte.jflyte.api.FileSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers fingerprints of entity specs registered by previous runs of jflyte, and versions they
+ * were registered with. It allows to skip registration of entities that didn't change, and reuse
+ * previous versions instead.
+ *
+ * <p>Fingerprints are stored as a single object in {@link FileSystem}, one entry per line.
+ */
+class RegistrationFingerprints {
+  private static final Logger LOG = LoggerFactory.getLogger(RegistrationFingerprints.class);
+
+  private static final String VERSION = "v1";
+
+  @Nullable private final FileSystem fileSystem;
+  @Nullable private final String uri;
+  private final Map<String, Entry> entries;
+
+  private RegistrationFingerprints(
+      @Nullable FileSystem fileSystem, @Nullable String uri, Map<String, Entry> entries) {
+    this.fileSystem = fileSystem;
+    this.uri = uri;
+    this.entries = entries;
+  }
+
+  /** Kind of registered entity. Names are only unique within the same kind. */
+  enum Kind {
+    TASK,
+    WORKFLOW,
+    LAUNCH_PLAN
+  }
+
+  /**
+   * Returns fingerprints that aren't persisted, and don't have any entries in the beginning.
+   *
+   * @return empty fingerprints
+   */
+  static RegistrationFingerprints empty() {
+    return new RegistrationFingerprints(/* fileSystem= */ null, /* uri= */ null, new TreeMap<>());
+  }
+
+  static RegistrationFingerprints load(FileSystem fileSystem, String uri) {
+    Map<String, Entry> entries = new TreeMap<>();
+
+    if (fileSystem.getManifest(uri) != null) {
+      try (ReadableByteChannel channel = fileSystem.reader(uri);
+          BufferedReader reader =
+              new BufferedReader(
+                  Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1))) {
+        String header = reader.readLine();
+
+        if (VERSION.equals(header)) {
+          @Var String line;
+          while ((line = reader.readLine()) != null) {
+            Entry entry = Entry.parse(line);
+
+            // fingerprints only allow to skip registration, it's safe to start over
+            if (entry == null) {
+              LOG.warn("Ignoring corrupt fingerprints [{}], invalid entry [{}]", uri, line);
+              entries.clear();
+              break;
+            }
+
+            entries.put(key(entry.kind(), entry.name()), entry);
+          }
+        } else {
+          LOG.warn("Ignoring fingerprints [{}] with unknown format", uri);
+        }
+      } catch (IOException e) {
+        LOG.warn("Failed to read fingerprints [{}], ignoring them", uri, e);
+        entries.clear();
+      }
+    }
+
+    LOG.debug("Loaded {} fingerprints from [{}]", entries.size(), uri);
+
+    return new RegistrationFingerprints(fileSystem, uri, entries);
+  }
+
+  /**
+   * Returns version entity was previously registered with, if it has the same fingerprint, or null
+   * otherwise.
+   *
+   * @param kind kind of entity
+   * @param name name of entity
+   * @param fingerprint fingerprint of entity spec
+   * @return previous version, or null
+   */
+  @Nullable
+  String getVersion(Kind kind, String name, String fingerprint) {
+    Entry entry = entries.get(key(kind, name));
+
+    if (entry != null && entry.fingerprint().equals(fingerprint)) {
+      return entry.version();
+    }
+
+    return null;
+  }
+
+  void put(Kind kind, String name, String version, String fingerprint) {
+    entries.put(key(kind, name), Entry.create(kind, name, version, fingerprint));
+  }
+
+  void save() {
+    if (fileSystem == null || uri == null) {
+      return;
+    }
+
+    try (WritableByteChannel channel = fileSystem.writer(uri);
+        OutputStream os = Channels.newOutputStream(channel);
+        Writer writer = new OutputStreamWriter(os, StandardCharsets.UTF_8)) {
+      writer.write(VERSION);
+      writer.write('\n');
+
+      for (Entry entry : entries.values()) {
+        writer.write(entry.format());
+        writer.write('\n');
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Computes fingerprint of a spec. Uses deterministic serialization, because otherwise map fields
+   * could be serialized in different order.
+   *
+   * @param message spec
+   * @return fingerprint
+   */
+  static String fingerprint(Message message) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+      output.useDeterministicSerialization();
+
+      message.writeTo(output);
+      output.flush();
+
+      return BaseEncoding.base64Url()
+          .encode(Hashing.sha256().hashBytes(bytes.toByteArray()).asBytes());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static String key(Kind kind, String name) {
+    return kind + "/" + name;
+  }
+
+  @AutoValue
+  abstract static class Entry {
+    abstract Kind kind();
+
+    abstract String name();
+
+    abstract String version();
+
+    abstract String fingerprint();
+
+    String format() {
+      return String.join("\t", kind().name(), name(), version(), fingerprint());
+    }
+
+    @Nullable
+    static Entry parse(String line) {
+      String[] parts = line.split("\t", -1);
+
+      if (parts.length != 4) {
+        return null;
+      }
+
+      try {
+        return create(Kind.valueOf(parts[0]), parts[1], parts[2], parts[3]);
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    }
+
+    static Entry create(Kind kind, String name, String version, String fingerprint) {
+      return new AutoValue_RegistrationFingerprints_Entry(kind, name, version, fingerprint);
+    }
+  }
+}
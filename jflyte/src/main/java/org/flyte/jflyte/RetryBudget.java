@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Token bucket shared by all requests of a client. It stops retries when most of the requests are
+ * failing, so that retries don't make an outage of Flyte Admin worse.
+ *
+ * <p>Follows gRPC retry throttling: every failed attempt takes one token, every successful attempt
+ * returns {@code tokenRatio} tokens, and retries are allowed only while the bucket is more than
+ * half full.
+ */
+class RetryBudget {
+  private final double maxTokens;
+  private final double tokenRatio;
+  private double tokens;
+
+  private RetryBudget(double maxTokens, double tokenRatio) {
+    this.maxTokens = maxTokens;
+    this.tokenRatio = tokenRatio;
+    this.tokens = maxTokens;
+  }
+
+  static RetryBudget create(int maxTokens, double tokenRatio) {
+    checkArgument(maxTokens > 0, "maxTokens must be positive, but was %s", maxTokens);
+    checkArgument(tokenRatio > 0, "tokenRatio must be positive, but was %s", tokenRatio);
+
+    return new RetryBudget(maxTokens, tokenRatio);
+  }
+
+  /**
+   * Returns budget that never stops retries.
+   *
+   * @return unlimited budget
+   */
+  static RetryBudget unlimited() {
+    return new RetryBudget(/* maxTokens= */ 0, /* tokenRatio= */ 0);
+  }
+
+  synchronized void onSuccess() {
+    if (isUnlimited()) {
+      return;
+    }
+
+    tokens = Math.min(maxTokens, tokens + tokenRatio);
+  }
+
+  /**
+   * Records failed attempt, and returns if it can be retried.
+   *
+   * @return true if retry is allowed
+   */
+  synchronized boolean onFailure() {
+    if (isUnlimited()) {
+      return true;
+    }
+
+    tokens = Math.max(0, tokens - 1);
+
+    return tokens > maxTokens / 2;
+  }
+
+  private boolean isUnlimited() {
+    return maxTokens <= 0;
+  }
+}
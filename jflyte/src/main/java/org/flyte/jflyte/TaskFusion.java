@@ -0,0 +1,281 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import com.google.auto.value.AutoValue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.flyte.api.v1.Binding;
+import org.flyte.api.v1.BindingData;
+import org.flyte.api.v1.Node;
+import org.flyte.api.v1.PartialTaskIdentifier;
+import org.flyte.api.v1.RunnableTask;
+import org.flyte.api.v1.TaskNode;
+import org.flyte.api.v1.WorkflowTemplate;
+
+/**
+ * Collapses linear chains of runnable tasks in a workflow into {@link FusedTask}, so they run in a
+ * single container, instead of a container per task.
+ *
+ * <p>Node B follows node A in a chain if B only depends on A (and workflow inputs), nothing else
+ * depends on A, and A is bound to B directly, without nesting promises into collections or maps.
+ * Both nodes have to reference tasks registered by us, with the same resources and retries, and
+ * tasks can't be cached, because cache is looked up per task.
+ *
+ * <p>Fused node keeps id of the last node in the chain, so downstream nodes and workflow outputs
+ * don't need to be rewritten.
+ */
+class TaskFusion {
+
+  private TaskFusion() {
+    throw new UnsupportedOperationException();
+  }
+
+  /** Workflow with fused nodes, and fused tasks they reference. */
+  @AutoValue
+  abstract static class Result {
+    abstract WorkflowTemplate workflowTemplate();
+
+    abstract List<FusedTask> fusedTasks();
+
+    static Result create(WorkflowTemplate workflowTemplate, List<FusedTask> fusedTasks) {
+      return new AutoValue_TaskFusion_Result(workflowTemplate, fusedTasks);
+    }
+  }
+
+  /**
+   * Fuses linear chains of nodes in a workflow.
+   *
+   * @param template workflow template
+   * @param tasks runnable tasks registered by us, by name
+   * @return workflow with fused nodes, or the same workflow if there is nothing to fuse
+   */
+  static Result apply(WorkflowTemplate template, Map<String, RunnableTask> tasks) {
+    Map<String, Set<String>> dependents = new HashMap<>();
+
+    for (Node node : template.nodes()) {
+      for (String dependency : dependencies(node)) {
+        dependents.computeIfAbsent(dependency, k -> new HashSet<>()).add(node.id());
+      }
+    }
+
+    Set<String> workflowOutputDependencies = new HashSet<>();
+    template
+        .outputs()
+        .forEach(binding -> collectPromises(binding.binding(), workflowOutputDependencies));
+
+    Map<String, Node> nodes = new HashMap<>();
+    template.nodes().forEach(node -> nodes.put(node.id(), node));
+
+    // next node in a chain for each node that has one
+    Map<String, Node> next = new HashMap<>();
+    Set<String> chained = new HashSet<>();
+
+    for (Node node : template.nodes()) {
+      Set<String> nodeDependents = dependents.getOrDefault(node.id(), Collections.emptySet());
+
+      if (nodeDependents.size() != 1 || workflowOutputDependencies.contains(node.id())) {
+        continue;
+      }
+
+      Node dependent = nodes.get(nodeDependents.iterator().next());
+
+      if (dependent != null && canFuse(node, dependent, tasks)) {
+        next.put(node.id(), dependent);
+        chained.add(dependent.id());
+      }
+    }
+
+    List<Node> newNodes = new ArrayList<>();
+    List<FusedTask> fusedTasks = new ArrayList<>();
+
+    for (Node node : template.nodes()) {
+      if (chained.contains(node.id())) {
+        // already part of a chain started by one of the previous nodes
+        continue;
+      }
+
+      if (!next.containsKey(node.id())) {
+        newNodes.add(node);
+        continue;
+      }
+
+      List<Node> chain = new ArrayList<>();
+      for (Node current = node; current != null; current = next.get(current.id())) {
+        chain.add(current);
+      }
+
+      FusedTask fusedTask = createFusedTask(chain, tasks);
+
+      fusedTasks.add(fusedTask);
+      newNodes.add(createFusedNode(chain, fusedTask));
+    }
+
+    if (fusedTasks.isEmpty()) {
+      return Result.create(template, Collections.emptyList());
+    }
+
+    return Result.create(
+        template.toBuilder().nodes(Collections.unmodifiableList(newNodes)).build(),
+        Collections.unmodifiableList(fusedTasks));
+  }
+
+  private static boolean canFuse(Node node, Node dependent, Map<String, RunnableTask> tasks) {
+    RunnableTask task = getTask(node, tasks);
+    RunnableTask dependentTask = getTask(dependent, tasks);
+
+    if (task == null || dependentTask == null) {
+      return false;
+    }
+
+    if (task.isDiscoverable()
+        || dependentTask.isDiscoverable()
+        || !Objects.equals(task.getResources(), dependentTask.getResources())
+        || !Objects.equals(task.getRetries(), dependentTask.getRetries())) {
+      return false;
+    }
+
+    if (!dependencies(dependent).equals(Collections.singleton(node.id()))) {
+      return false;
+    }
+
+    // promises nested into collections and maps can't be passed in memory
+    for (Binding binding : dependent.inputs()) {
+      Set<String> promises = new HashSet<>();
+      collectPromises(binding.binding(), promises);
+
+      if (promises.contains(node.id()) && binding.binding().kind() != BindingData.Kind.PROMISE) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Nullable
+  private static RunnableTask getTask(Node node, Map<String, RunnableTask> tasks) {
+    PartialTaskIdentifier taskId = node.taskNode().referenceId();
+
+    // tasks with explicit project, domain or version are remote, even if name is the same
+    if (taskId.project() != null || taskId.domain() != null || taskId.version() != null) {
+      return null;
+    }
+
+    return tasks.get(taskId.name());
+  }
+
+  private static FusedTask createFusedTask(List<Node> chain, Map<String, RunnableTask> tasks) {
+    List<FusedTask.Member> members = new ArrayList<>();
+
+    for (int i = 0; i < chain.size(); i++) {
+      Node node = chain.get(i);
+      Map<String, String> bindings = new LinkedHashMap<>();
+
+      if (i > 0) {
+        String previousId = chain.get(i - 1).id();
+
+        for (Binding binding : node.inputs()) {
+          if (isPromiseTo(binding, previousId)) {
+            bindings.put(binding.var_(), binding.binding().promise().var());
+          }
+        }
+      }
+
+      members.add(
+          FusedTask.Member.create(
+              node.id(),
+              Objects.requireNonNull(getTask(node, tasks)),
+              Collections.unmodifiableMap(bindings)));
+    }
+
+    return new FusedTask(members);
+  }
+
+  private static Node createFusedNode(List<Node> chain, FusedTask fusedTask) {
+    List<Binding> inputs = new ArrayList<>();
+
+    for (int i = 0; i < chain.size(); i++) {
+      Node node = chain.get(i);
+      String previousId = i > 0 ? chain.get(i - 1).id() : null;
+
+      for (Binding binding : node.inputs()) {
+        if (previousId != null && isPromiseTo(binding, previousId)) {
+          continue;
+        }
+
+        inputs.add(
+            Binding.builder()
+                .var_(FusedTask.fusedInputName(node.id(), binding.var_()))
+                .binding(binding.binding())
+                .build());
+      }
+    }
+
+    Node head = chain.get(0);
+    Node last = chain.get(chain.size() - 1);
+
+    return Node.builder()
+        .id(last.id())
+        .taskNode(
+            TaskNode.builder()
+                .referenceId(PartialTaskIdentifier.builder().name(fusedTask.getName()).build())
+                .build())
+        .inputs(Collections.unmodifiableList(inputs))
+        .upstreamNodeIds(head.upstreamNodeIds())
+        .build();
+  }
+
+  private static boolean isPromiseTo(Binding binding, String nodeId) {
+    return binding.binding().kind() == BindingData.Kind.PROMISE
+        && binding.binding().promise().nodeId().equals(nodeId);
+  }
+
+  private static Set<String> dependencies(Node node) {
+    Set<String> dependencies = new HashSet<>(node.upstreamNodeIds());
+    node.inputs().forEach(binding -> collectPromises(binding.binding(), dependencies));
+
+    dependencies.remove(Node.START_NODE_ID);
+
+    return dependencies;
+  }
+
+  private static void collectPromises(BindingData bindingData, Set<String> nodeIds) {
+    switch (bindingData.kind()) {
+      case SCALAR:
+        return;
+      case PROMISE:
+        nodeIds.add(bindingData.promise().nodeId());
+        return;
+      case COLLECTION:
+        bindingData.collection().forEach(element -> collectPromises(element, nodeIds));
+        return;
+      case MAP:
+        bindingData.map().values().forEach(value -> collectPromises(value, nodeIds));
+        return;
+    }
+
+    throw new AssertionError("Unexpected BindingData.Kind: " + bindingData.kind());
+  }
+}
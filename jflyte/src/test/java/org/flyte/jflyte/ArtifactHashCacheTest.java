@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ArtifactHashCacheTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void testPersistsHashes() throws IOException {
+    File file = writeFile("foo.jar", "foo");
+    Path cacheFile = tempDir.resolve("cache/hashes");
+
+    ArtifactHashCache cache = ArtifactHashCache.load(cacheFile);
+    Artifact expected = ArtifactStager.getArtifactForFile(file, "gs://bucket", cache);
+    cache.save();
+
+    ArtifactHashCache reloaded = ArtifactHashCache.load(cacheFile);
+    String hash = reloaded.get(file, ArtifactHashCache.readAttributes(file));
+
+    assertEquals("rL0Y20zC-Fzt72VPzMSk2A==", hash);
+    assertEquals(expected, ArtifactStager.getArtifactForFile(file, "gs://bucket", reloaded));
+    assertEquals(expected, ArtifactStager.getArtifactForFile(file, "gs://bucket"));
+  }
+
+  @Test
+  void testIgnoresModifiedFiles() throws IOException {
+    File file = writeFile("foo.jar", "foo");
+
+    ArtifactHashCache cache = ArtifactHashCache.empty();
+    ArtifactStager.getArtifactForFile(file, "gs://bucket", cache);
+
+    Files.write(file.toPath(), "bar".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(0));
+
+    assertNull(cache.get(file, ArtifactHashCache.readAttributes(file)));
+    assertEquals(
+        ArtifactStager.getArtifactForFile(file, "gs://bucket"),
+        ArtifactStager.getArtifactForFile(file, "gs://bucket", cache));
+  }
+
+  @Test
+  void testIgnoresCorruptedCache() throws IOException {
+    File file = writeFile("foo.jar", "foo");
+    Path cacheFile = tempDir.resolve("hashes");
+    Files.write(cacheFile, Collections.singletonList("garbage"));
+
+    ArtifactHashCache cache = ArtifactHashCache.load(cacheFile);
+
+    assertNull(cache.get(file, ArtifactHashCache.readAttributes(file)));
+  }
+
+  @Test
+  void testPrunesDeletedFiles() throws IOException {
+    File foo = writeFile("foo.jar", "foo");
+    File bar = writeFile("bar.jar", "bar");
+    Path cacheFile = tempDir.resolve("cache/hashes");
+
+    ArtifactHashCache cache = ArtifactHashCache.load(cacheFile);
+    ArtifactStager.getArtifactForFile(foo, "gs://bucket", cache);
+    ArtifactStager.getArtifactForFile(bar, "gs://bucket", cache);
+
+    Files.delete(bar.toPath());
+    cache.save();
+
+    List<String> lines = Files.readAllLines(cacheFile, StandardCharsets.UTF_8);
+
+    assertEquals(2, lines.size());
+    assertTrue(lines.get(1).endsWith(foo.getAbsolutePath()));
+  }
+
+  @Test
+  void testIgnoresFailureToSave() throws IOException {
+    File file = writeFile("foo.jar", "foo");
+    // parent of cache file is a regular file, so cache can't be written
+    Path cacheFile = file.toPath().resolve("hashes");
+
+    ArtifactHashCache cache = ArtifactHashCache.load(cacheFile);
+    ArtifactStager.getArtifactForFile(file, "gs://bucket", cache);
+
+    assertDoesNotThrow(cache::save);
+    assertFalse(Files.exists(cacheFile));
+  }
+
+  private File writeFile(String name, String content) throws IOException {
+    Path path = tempDir.resolve(name);
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+
+    return path.toFile();
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ArtifactStagerTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void testStagesOnlyMissingFiles() throws IOException {
+    InMemoryFileSystem fileSystem = new InMemoryFileSystem();
+    ArtifactStager stager = new ArtifactStager("mem://staging", fileSystem);
+
+    Path foo = writeFile("foo.jar", "foo");
+    Path bar = writeFile("bar.jar", "bar");
+
+    String fooLocation = "mem://staging/foo-rL0Y20zC-Fzt72VPzMSk2A==.jar";
+    byte[] existing = "already staged".getBytes(StandardCharsets.UTF_8);
+    fileSystem.files.put(fooLocation, existing);
+
+    List<Artifact> artifacts = stager.stageFiles(Arrays.asList(foo.toString(), bar.toString()));
+
+    assertEquals(2, artifacts.size());
+    assertEquals(fooLocation, artifacts.get(0).location());
+    assertArrayEquals(existing, fileSystem.files.get(fooLocation));
+    assertArrayEquals(
+        "bar".getBytes(StandardCharsets.UTF_8), fileSystem.files.get(artifacts.get(1).location()));
+  }
+
+  @Test
+  void testDefaultReadAsyncAndCopy() throws Exception {
+    InMemoryFileSystem fileSystem = new InMemoryFileSystem();
+    fileSystem.files.put("mem://a", "content".getBytes(StandardCharsets.UTF_8));
+
+    fileSystem.copy("mem://a", "mem://b");
+    Path destination = tempDir.resolve("b");
+    fileSystem.readAsync("mem://b", destination, Runnable::run).get();
+
+    assertEquals("content", new String(Files.readAllBytes(destination), StandardCharsets.UTF_8));
+  }
+
+  private Path writeFile(String name, String content) throws IOException {
+    Path path = tempDir.resolve(name);
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+
+    return path;
+  }
+}
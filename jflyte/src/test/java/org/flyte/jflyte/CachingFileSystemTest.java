@@ -0,0 +1,239 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import org.flyte.jflyte.api.FileSystem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class CachingFileSystemTest {
+  private static final String FOO_URI = "mem://bucket/foo-rL0Y20zC-Fzt72VPzMSk2A==.jar";
+  private static final String BAR_URI = "mem://bucket/bar-N7UdGUp1E-RbVvZSTy1R8g==.jar";
+  private static final String BAZ_URI = "mem://bucket/baz-c1eS9Rg3B3VaZabXchoK6Q==.jar";
+
+  @TempDir Path cacheDir;
+
+  private InMemoryFileSystem delegate;
+
+  @BeforeEach
+  void setUp() {
+    delegate = new InMemoryFileSystem();
+    delegate.files.put(FOO_URI, utf8("foo"));
+    delegate.files.put(BAR_URI, utf8("bar"));
+    delegate.files.put(BAZ_URI, utf8("baz"));
+    delegate.files.put("mem://bucket/inputs.pb", utf8("inputs"));
+  }
+
+  @Test
+  void testServesCachedCopy() {
+    CachingFileSystem fs = newFileSystem(delegate, Long.MAX_VALUE);
+
+    assertEquals("foo", read(fs, FOO_URI));
+
+    delegate.files.remove(FOO_URI);
+
+    assertEquals("foo", read(fs, FOO_URI));
+    assertNotNull(fs.getManifest(FOO_URI));
+  }
+
+  @Test
+  void testDoesntCacheMutableUris() {
+    CachingFileSystem fs = newFileSystem(delegate, Long.MAX_VALUE);
+
+    assertEquals("inputs", read(fs, "mem://bucket/inputs.pb"));
+    assertFalse(Files.exists(fs.cachePath("mem://bucket/inputs.pb")));
+  }
+
+  @Test
+  void testEvictsLeastRecentlyUsed() throws IOException {
+    CachingFileSystem fs = newFileSystem(delegate, /* maxSizeBytes= */ 6);
+
+    read(fs, FOO_URI);
+    read(fs, BAR_URI);
+    Files.setLastModifiedTime(fs.cachePath(FOO_URI), FileTime.fromMillis(1000));
+    Files.setLastModifiedTime(fs.cachePath(BAR_URI), FileTime.fromMillis(2000));
+
+    read(fs, FOO_URI); // touch
+    read(fs, BAZ_URI);
+
+    assertTrue(Files.exists(fs.cachePath(FOO_URI)));
+    assertFalse(Files.exists(fs.cachePath(BAR_URI)));
+    assertTrue(Files.exists(fs.cachePath(BAZ_URI)));
+  }
+
+  @Test
+  void testListsCacheDirectoryOnlyWhenFull() throws IOException {
+    CachingFileSystem fs = newFileSystem(delegate, /* maxSizeBytes= */ 1024);
+
+    read(fs, FOO_URI);
+
+    // would be deleted by the next listing
+    Path staleTmp = cacheDir.resolve(".tmp-stale.part");
+    Files.write(staleTmp, utf8("stale"));
+    Files.setLastModifiedTime(staleTmp, FileTime.fromMillis(0));
+
+    read(fs, BAR_URI);
+
+    assertTrue(Files.exists(staleTmp));
+  }
+
+  @Test
+  void testDeduplicatesConcurrentMisses() throws Exception {
+    AtomicInteger reads = new AtomicInteger();
+    FileSystem slowDelegate =
+        new InMemoryFileSystem() {
+          @Override
+          public ReadableByteChannel reader(String uri) {
+            reads.incrementAndGet();
+            sleep(200);
+
+            return delegate.reader(uri);
+          }
+        };
+    CachingFileSystem fs = newFileSystem(slowDelegate, Long.MAX_VALUE);
+
+    int threads = 4;
+    CyclicBarrier barrier = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  barrier.await();
+                  return read(fs, FOO_URI);
+                }));
+      }
+
+      for (Future<String> result : results) {
+        assertEquals("foo", result.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(1, reads.get());
+  }
+
+  @Test
+  void testStreamsObjectsLargerThanCache() {
+    AtomicInteger reads = new AtomicInteger();
+    FileSystem countingDelegate =
+        new InMemoryFileSystem() {
+          @Override
+          public ReadableByteChannel reader(String uri) {
+            reads.incrementAndGet();
+
+            return delegate.reader(uri);
+          }
+        };
+    CachingFileSystem fs = newFileSystem(countingDelegate, /* maxSizeBytes= */ 2);
+
+    assertEquals("foo", read(fs, FOO_URI));
+    assertEquals(1, reads.get());
+    assertFalse(Files.exists(fs.cachePath(FOO_URI)));
+
+    // next reads go straight to delegate, without trying to cache it again
+    assertEquals("foo", read(fs, FOO_URI));
+    assertEquals(2, reads.get());
+    assertEquals(0, cacheDir.toFile().list().length);
+  }
+
+  @Test
+  void testDoesntLeaveTemporaryFilesForMissingObjects() {
+    CachingFileSystem fs = newFileSystem(delegate, /* maxSizeBytes= */ 1024);
+    String missingUri = "mem://bucket/missing-rL0Y20zC-Fzt72VPzMSk2A==.jar";
+
+    assertThrows(IllegalArgumentException.class, () -> fs.reader(missingUri));
+    assertEquals(0, cacheDir.toFile().list().length);
+  }
+
+  @Test
+  void testDecorateIsNoopWithoutCacheDir() {
+    assertSame(delegate, CachingFileSystem.decorate(delegate, ImmutableMap.of()));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "1G", "0", "-1"})
+  void testDecorateRejectsInvalidMaxSize(String maxSize) {
+    ImmutableMap<String, String> env =
+        ImmutableMap.of(
+            "FLYTE_FILE_CACHE_DIR", cacheDir.toString(), "FLYTE_FILE_CACHE_MAX_SIZE", maxSize);
+
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class, () -> CachingFileSystem.decorate(delegate, env));
+
+    assertTrue(e.getMessage().contains("FLYTE_FILE_CACHE_MAX_SIZE"), e.getMessage());
+  }
+
+  private CachingFileSystem newFileSystem(FileSystem delegate, long maxSizeBytes) {
+    return new CachingFileSystem(
+        delegate, cacheDir, maxSizeBytes, Pattern.compile(CachingFileSystem.DEFAULT_URI_PATTERN));
+  }
+
+  private static String read(FileSystem fs, String uri) {
+    try (ReadableByteChannel channel = fs.reader(uri)) {
+      return new String(
+          ByteStreams.toByteArray(Channels.newInputStream(channel)), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static byte[] utf8(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
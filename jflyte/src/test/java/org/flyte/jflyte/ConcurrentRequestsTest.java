@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentRequestsTest {
+
+  @Test
+  void testBoundsRequestsInFlight() throws InterruptedException {
+    ConcurrentRequests requests = new ConcurrentRequests(/* maxInFlight= */ 2);
+    List<SettableFuture<Void>> futures = new ArrayList<>();
+    AtomicInteger started = new AtomicInteger();
+
+    for (int i = 0; i < 3; i++) {
+      futures.add(SettableFuture.create());
+    }
+
+    Thread thread =
+        new Thread(
+            () -> {
+              for (SettableFuture<Void> future : futures) {
+                requests.submit(
+                    "request",
+                    () -> {
+                      started.incrementAndGet();
+                      return future;
+                    });
+              }
+            });
+    thread.start();
+
+    while (started.get() < 2) {
+      Thread.sleep(1);
+    }
+
+    // third request waits until one of the first two completes
+    Thread.sleep(50);
+    assertEquals(2, started.get());
+
+    futures.get(0).set(null);
+    thread.join();
+    assertEquals(3, started.get());
+
+    futures.get(1).set(null);
+    futures.get(2).set(null);
+    requests.awaitAll();
+  }
+
+  @Test
+  void testAggregatesFailures() {
+    ConcurrentRequests requests = new ConcurrentRequests(/* maxInFlight= */ 1);
+
+    requests.submit("create foo", () -> Futures.immediateFailedFuture(new RuntimeException("a")));
+    requests.submit("create bar", () -> Futures.immediateFuture(null));
+    requests.submit("create baz", () -> Futures.immediateFailedFuture(new RuntimeException("b")));
+
+    RuntimeException e = assertThrows(RuntimeException.class, requests::awaitAll);
+
+    assertEquals("2 request(s) have failed", e.getMessage());
+    assertEquals(2, e.getSuppressed().length);
+    assertEquals("Failed to create foo", e.getSuppressed()[0].getMessage());
+    assertEquals("Failed to create baz", e.getSuppressed()[1].getMessage());
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class FileSystemCheckpointTest {
+
+  private static final String PREFIX = "mem://bucket/metadata/n0/data";
+  private static final int RETRIES = 3;
+
+  @Test
+  void testResumesFromLatestPreviousAttempt() {
+    InMemoryFileSystem fs = new InMemoryFileSystem();
+
+    FileSystemCheckpoint.forOutputPrefix(fs, PREFIX + "/0", RETRIES).write(bytes("first"));
+    FileSystemCheckpoint.forOutputPrefix(fs, PREFIX + "/1", RETRIES).write(bytes("second"));
+
+    // third attempt didn't write a snapshot
+    FileSystemCheckpoint.forOutputPrefix(fs, PREFIX + "/2/", RETRIES);
+
+    FileSystemCheckpoint checkpoint =
+        FileSystemCheckpoint.forOutputPrefix(fs, PREFIX + "/3", RETRIES);
+
+    assertArrayEquals(bytes("second"), checkpoint.read());
+  }
+
+  @Test
+  void testLooksUpAtMostRetriesPreviousAttempts() {
+    InMemoryFileSystem fs = new InMemoryFileSystem();
+    FileSystemCheckpoint.forOutputPrefix(fs, PREFIX + "/0", RETRIES).write(bytes("first"));
+
+    // attempt is beyond retries, for instance, prefix ends with a number that isn't an attempt
+    FileSystemCheckpoint checkpoint =
+        FileSystemCheckpoint.forOutputPrefix(fs, PREFIX + "/1000000", RETRIES);
+
+    assertNull(checkpoint.read());
+    assertArrayEquals(
+        bytes("first"), FileSystemCheckpoint.forOutputPrefix(fs, PREFIX + "/3", RETRIES).read());
+  }
+
+  @Test
+  void testReadsOwnSnapshotAfterWrite() {
+    InMemoryFileSystem fs = new InMemoryFileSystem();
+    FileSystemCheckpoint.forOutputPrefix(fs, PREFIX + "/0", RETRIES).write(bytes("first"));
+
+    FileSystemCheckpoint checkpoint =
+        FileSystemCheckpoint.forOutputPrefix(fs, PREFIX + "/1", RETRIES);
+    checkpoint.write(bytes("second"));
+
+    assertArrayEquals(bytes("second"), checkpoint.read());
+    assertArrayEquals(bytes("second"), fs.files.get(PREFIX + "/1/checkpoint"));
+  }
+
+  @Test
+  void testChildResumesFromSameChildOfPreviousAttempt() {
+    InMemoryFileSystem fs = new InMemoryFileSystem();
+    FileSystemCheckpoint previous =
+        FileSystemCheckpoint.forOutputPrefix(fs, PREFIX + "/0", RETRIES);
+    previous.child("a").write(bytes("a"));
+    previous.child("b").write(bytes("b"));
+
+    FileSystemCheckpoint checkpoint =
+        FileSystemCheckpoint.forOutputPrefix(fs, PREFIX + "/1", RETRIES);
+
+    assertArrayEquals(bytes("a"), checkpoint.child("a").read());
+    assertArrayEquals(bytes("b"), checkpoint.child("b").read());
+    assertNull(checkpoint.read());
+    assertArrayEquals(bytes("a"), fs.files.get(PREFIX + "/0/checkpoint/a"));
+  }
+
+  @Test
+  void testFirstAttemptHasNoSnapshot() {
+    InMemoryFileSystem fs = new InMemoryFileSystem();
+
+    assertNull(FileSystemCheckpoint.forOutputPrefix(fs, PREFIX + "/0", RETRIES).read());
+    assertNull(FileSystemCheckpoint.forOutputPrefix(fs, "mem://bucket/outputs", RETRIES).read());
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -113,7 +113,10 @@ public class FlyteAdminClientTest {
     ManagedChannel channel = GrpcUtils.buildChannel(serverName);
     client =
         new FlyteAdminClient(
-            AdminServiceGrpc.newBlockingStub(channel), channel, GrpcRetries.create());
+            AdminServiceGrpc.newBlockingStub(channel),
+            AdminServiceGrpc.newFutureStub(channel),
+            channel,
+            GrpcRetries.create());
     grpcCleanup.register(build.start());
     grpcCleanup.register(channel);
   }
@@ -162,6 +165,45 @@ public class FlyteAdminClientTest {
                 .build()));
   }
 
+  @Test
+  public void shouldPropagateCreateTaskAsyncToStub() throws Exception {
+    TaskIdentifier identifier =
+        TaskIdentifier.builder()
+            .domain(DOMAIN)
+            .project(PROJECT)
+            .name(TASK_NAME)
+            .version(TASK_VERSION)
+            .build();
+
+    TypedInterface interface_ =
+        TypedInterface.builder()
+            .inputs(ImmutableMap.of("x", createVar(SimpleType.STRING)))
+            .outputs(ImmutableMap.of("y", createVar(SimpleType.INTEGER)))
+            .build();
+
+    Container container =
+        Container.builder()
+            .command(ImmutableList.of(COMMAND))
+            .args(ImmutableList.of())
+            .image(IMAGE_NAME)
+            .env(ImmutableList.of(KeyValuePair.of("key", "value")))
+            .build();
+
+    RetryStrategy retries = RetryStrategy.builder().retries(4).build();
+    TaskTemplate template =
+        TaskTemplate.builder().container(container).interface_(interface_).retries(retries).build();
+
+    client.createTaskAsync(identifier, template).get();
+
+    assertThat(
+        stubService.createTaskRequest,
+        equalTo(
+            TaskOuterClass.TaskCreateRequest.newBuilder()
+                .setId(newIdentifier(ResourceType.TASK, TASK_NAME, TASK_VERSION))
+                .setSpec(newTaskSpec())
+                .build()));
+  }
+
   @Test
   public void shouldPropagateCreateWorkflowToStub() {
     String nodeId = "node";
@@ -18,9 +18,17 @@ package org.flyte.jflyte;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.Test;
 
@@ -124,5 +132,142 @@ public class GrpcRetriesTest {
     assertEquals(1, attempts.get());
   }
 
+  @Test
+  void testSuccessfulAsyncRetry() throws Exception {
+    AtomicLong attempts = new AtomicLong();
+    GrpcRetries retries =
+        GrpcRetries.create(
+            /* maxRetries= */ 7,
+            /* maxDelayMilliseconds= */ Long.MAX_VALUE,
+            /* initialDelayMilliseconds= */ 1,
+            GrpcRetriesTest::noopSleeper);
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    try {
+      ListenableFuture<Integer> out =
+          retries.retryAsync(
+              () -> {
+                if (attempts.incrementAndGet() <= 5L) {
+                  return Futures.immediateFailedFuture(
+                      new StatusRuntimeException(Status.UNAVAILABLE));
+                } else {
+                  return Futures.immediateFuture(10);
+                }
+              },
+              executor);
+
+      assertEquals(10, out.get());
+      assertEquals(6, attempts.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testNonRetryableAsync() {
+    AtomicLong attempts = new AtomicLong();
+    GrpcRetries retries =
+        GrpcRetries.create(
+            /* maxRetries= */ 7,
+            /* maxDelayMilliseconds= */ Long.MAX_VALUE,
+            /* initialDelayMilliseconds= */ 1,
+            GrpcRetriesTest::noopSleeper);
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    try {
+      ListenableFuture<Integer> out =
+          retries.retryAsync(
+              () -> {
+                attempts.incrementAndGet();
+                return Futures.immediateFailedFuture(new StatusRuntimeException(Status.INTERNAL));
+              },
+              executor);
+
+      ExecutionException e = assertThrows(ExecutionException.class, out::get);
+
+      assertEquals(Status.INTERNAL, Status.fromThrowable(e.getCause()));
+      assertEquals(1, attempts.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testFullJitter() {
+    List<Long> delays = new ArrayList<>();
+    GrpcRetries retries =
+        GrpcRetries.builder()
+            .maxRetries(5)
+            .initialDelayMilliseconds(100)
+            .maxDelayMilliseconds(1_000)
+            .sleeper(delays::add)
+            .budget(RetryBudget.unlimited())
+            .build();
+
+    assertThrows(
+        StatusRuntimeException.class,
+        () ->
+            retries.retry(
+                () -> {
+                  throw new StatusRuntimeException(Status.UNAVAILABLE);
+                }));
+
+    assertEquals(5, delays.size());
+    for (int i = 0; i < delays.size(); i++) {
+      long delay = delays.get(i);
+      assertTrue(delay >= 0 && delay <= Math.min(1_000, 100L << i), "delay=" + delay);
+    }
+  }
+
+  @Test
+  void testRetryBudget() {
+    AtomicLong attempts = new AtomicLong();
+    GrpcRetries retries =
+        GrpcRetries.builder()
+            .maxRetries(100)
+            .sleeper(GrpcRetriesTest::noopSleeper)
+            .budget(RetryBudget.create(/* maxTokens= */ 10, /* tokenRatio= */ 0.1))
+            .build();
+
+    assertThrows(
+        StatusRuntimeException.class,
+        () ->
+            retries.retry(
+                () -> {
+                  attempts.incrementAndGet();
+                  throw new StatusRuntimeException(Status.UNAVAILABLE);
+                }));
+
+    // retries are allowed while bucket is more than half full
+    assertEquals(5, attempts.get());
+    assertEquals(1, retries.stats().throttled());
+  }
+
+  @Test
+  void testStats() {
+    AtomicLong attempts = new AtomicLong();
+    GrpcRetries retries =
+        GrpcRetries.create(
+            /* maxRetries= */ 7,
+            /* maxDelayMilliseconds= */ Long.MAX_VALUE,
+            /* initialDelayMilliseconds= */ 10,
+            GrpcRetriesTest::noopSleeper);
+
+    int result =
+        retries.retry(
+            () -> {
+              if (attempts.incrementAndGet() < 3) {
+                throw new StatusRuntimeException(Status.UNAVAILABLE);
+              }
+
+              return 42;
+            });
+
+    assertEquals(42, result);
+    assertEquals(3, retries.stats().attempts());
+    assertEquals(2, retries.stats().retries());
+    assertEquals(10 + 20, retries.stats().backoffMilliseconds());
+  }
+
   static void noopSleeper(long delay) {}
 }
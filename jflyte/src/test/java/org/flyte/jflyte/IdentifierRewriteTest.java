@@ -18,19 +18,31 @@ package org.flyte.jflyte;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import com.google.common.base.VerifyException;
+import com.google.common.util.concurrent.Futures;
+import java.util.Arrays;
 import java.util.Collections;
 import org.flyte.api.v1.LaunchPlan;
 import org.flyte.api.v1.Literal;
 import org.flyte.api.v1.NamedEntityIdentifier;
+import org.flyte.api.v1.Node;
 import org.flyte.api.v1.PartialTaskIdentifier;
 import org.flyte.api.v1.PartialWorkflowIdentifier;
 import org.flyte.api.v1.Primitive;
 import org.flyte.api.v1.Scalar;
 import org.flyte.api.v1.TaskIdentifier;
+import org.flyte.api.v1.TaskNode;
+import org.flyte.api.v1.TypedInterface;
 import org.flyte.api.v1.WorkflowIdentifier;
+import org.flyte.api.v1.WorkflowMetadata;
+import org.flyte.api.v1.WorkflowTemplate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -47,6 +59,7 @@ class IdentifierRewriteTest {
     rewriter =
         IdentifierRewrite.builder()
             .adminClient(client)
+            .latestVersions(new LatestVersionCache())
             .project("rewritten-project")
             .domain("rewritten-domain")
             .version("rewritten-version")
@@ -249,6 +262,130 @@ class IdentifierRewriteTest {
     verifyNoInteractions(client);
   }
 
+  @Test
+  void shouldMemoizeLatestTaskVersion() {
+    NamedEntityIdentifier externalTask =
+        NamedEntityIdentifier.builder()
+            .project("external-project")
+            .domain("rewritten-domain")
+            .name("external-task")
+            .build();
+    when(client.fetchLatestTaskId(externalTask))
+        .thenReturn(
+            TaskIdentifier.builder()
+                .project("external-project")
+                .domain("rewritten-domain")
+                .name("external-task")
+                .version("latest-version")
+                .build());
+
+    PartialTaskIdentifier taskId =
+        PartialTaskIdentifier.builder().project("external-project").name("external-task").build();
+
+    rewriter.apply(taskId);
+    PartialTaskIdentifier rewrittenTaskId = rewriter.apply(taskId);
+
+    assertThat(rewrittenTaskId.version(), equalTo("latest-version"));
+    verify(client, times(1)).fetchLatestTaskId(externalTask);
+  }
+
+  @Test
+  void shouldMemoizeMissingTask() {
+    NamedEntityIdentifier externalTask =
+        NamedEntityIdentifier.builder()
+            .project("external-project")
+            .domain("rewritten-domain")
+            .name("external-task")
+            .build();
+    when(client.fetchLatestTaskId(externalTask)).thenReturn(null);
+
+    PartialTaskIdentifier taskId =
+        PartialTaskIdentifier.builder().project("external-project").name("external-task").build();
+
+    assertThrows(VerifyException.class, () -> rewriter.apply(taskId));
+    assertThrows(VerifyException.class, () -> rewriter.apply(taskId));
+
+    verify(client, times(1)).fetchLatestTaskId(externalTask);
+  }
+
+  @Test
+  void shouldPrefetchLatestVersions() {
+    NamedEntityIdentifier externalTask =
+        NamedEntityIdentifier.builder()
+            .project("external-project")
+            .domain("rewritten-domain")
+            .name("external-task")
+            .build();
+    NamedEntityIdentifier externalWorkflow =
+        NamedEntityIdentifier.builder()
+            .project("external-project")
+            .domain("external-domain")
+            .name("external-workflow")
+            .build();
+    when(client.fetchLatestTaskIdAsync(externalTask))
+        .thenReturn(
+            Futures.immediateFuture(
+                TaskIdentifier.builder()
+                    .project("external-project")
+                    .domain("rewritten-domain")
+                    .name("external-task")
+                    .version("latest-version")
+                    .build()));
+    when(client.fetchLatestWorkflowIdAsync(externalWorkflow))
+        .thenReturn(
+            Futures.immediateFuture(
+                WorkflowIdentifier.builder()
+                    .project("external-project")
+                    .domain("external-domain")
+                    .name("external-workflow")
+                    .version("latest-version")
+                    .build()));
+
+    PartialTaskIdentifier taskId =
+        PartialTaskIdentifier.builder().project("external-project").name("external-task").build();
+    Node node =
+        Node.builder()
+            .id("node-1")
+            .taskNode(TaskNode.builder().referenceId(taskId).build())
+            .inputs(Collections.emptyList())
+            .upstreamNodeIds(Collections.emptyList())
+            .build();
+    WorkflowTemplate workflow =
+        WorkflowTemplate.builder()
+            .nodes(Arrays.asList(node, node.toBuilder().id("node-2").build()))
+            .metadata(WorkflowMetadata.builder().build())
+            .interface_(
+                TypedInterface.builder()
+                    .inputs(Collections.emptyMap())
+                    .outputs(Collections.emptyMap())
+                    .build())
+            .outputs(Collections.emptyList())
+            .build();
+    LaunchPlan launchPlan =
+        launchPlan(
+            PartialWorkflowIdentifier.builder()
+                .project("external-project")
+                .domain("external-domain")
+                .name("external-workflow")
+                .build());
+
+    rewriter.prefetch(
+        Collections.singletonList(workflow),
+        Collections.singletonList(launchPlan),
+        /* concurrency= */ 4);
+
+    WorkflowTemplate rewrittenWorkflow = rewriter.apply(workflow);
+    LaunchPlan rewrittenLaunchPlan = rewriter.apply(launchPlan);
+
+    assertThat(
+        rewrittenWorkflow.nodes().get(1).taskNode().referenceId().version(),
+        equalTo("latest-version"));
+    assertThat(rewrittenLaunchPlan.workflowId().version(), equalTo("latest-version"));
+    verify(client, times(1)).fetchLatestTaskIdAsync(externalTask);
+    verify(client, times(1)).fetchLatestWorkflowIdAsync(externalWorkflow);
+    verifyNoMoreInteractions(client);
+  }
+
   private LaunchPlan launchPlan(PartialWorkflowIdentifier workflowId) {
     return LaunchPlan.builder()
         .name("launch-plan-name")
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.flyte.jflyte.api.FileSystem;
+import org.flyte.jflyte.api.Manifest;
+
+/** {@link FileSystem} keeping all files in memory, for testing. */
+class InMemoryFileSystem implements FileSystem {
+
+  final Map<String, byte[]> files = new ConcurrentHashMap<>();
+
+  @Override
+  public String getScheme() {
+    return "mem";
+  }
+
+  @Override
+  public ReadableByteChannel reader(String uri) {
+    byte[] bytes = files.get(uri);
+
+    if (bytes == null) {
+      throw new IllegalArgumentException("File not found: " + uri);
+    }
+
+    return Channels.newChannel(new ByteArrayInputStream(bytes));
+  }
+
+  @Override
+  public WritableByteChannel writer(String uri) {
+    ByteArrayOutputStream bytes =
+        new ByteArrayOutputStream() {
+          @Override
+          public void close() {
+            files.put(uri, toByteArray());
+          }
+        };
+
+    return Channels.newChannel(bytes);
+  }
+
+  @Nullable
+  @Override
+  public Manifest getManifest(String uri) {
+    return files.containsKey(uri) ? Manifest.create() : null;
+  }
+}
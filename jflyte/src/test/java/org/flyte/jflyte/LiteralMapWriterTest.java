@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import flyteidl.core.Literals;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import org.flyte.api.v1.Literal;
+import org.flyte.api.v1.Primitive;
+import org.flyte.api.v1.Scalar;
+import org.junit.jupiter.api.Test;
+
+public class LiteralMapWriterTest {
+
+  @Test
+  void testWritesSameBytesAsProto() throws IOException {
+    Map<String, Literal> literals =
+        ImmutableMap.of(
+            "scalar",
+            literalOf(Primitive.ofString("foo")),
+            "packed",
+            Literal.ofIntegerCollection(new long[] {1, 2, 3}),
+            "nested",
+            Literal.ofCollection(
+                Arrays.asList(
+                    Literal.ofCollection(Arrays.asList(literalOf(Primitive.ofFloat(1.0)))),
+                    Literal.ofCollection(Arrays.asList()))),
+            "map",
+            Literal.ofMap(ImmutableMap.of("bar", literalOf(Primitive.ofBoolean(true)))));
+
+    assertEquals(ProtoUtil.serialize(literals), Literals.LiteralMap.parseFrom(write(literals)));
+  }
+
+  @Test
+  void testStreamsLazyCollection() throws IOException {
+    AtomicInteger iterations = new AtomicInteger();
+    Iterable<Literal> elements =
+        () -> {
+          iterations.incrementAndGet();
+
+          Iterator<Literal> iterator =
+              LongStream.range(0, 1000).mapToObj(i -> literalOf(Primitive.ofInteger(i))).iterator();
+
+          return iterator;
+        };
+    Map<String, Literal> literals = ImmutableMap.of("lazy", Literal.ofLazyCollection(elements));
+
+    Literals.LiteralMap output = Literals.LiteralMap.parseFrom(write(literals));
+
+    // once to compute size, and once to write elements
+    assertEquals(2, iterations.get());
+    assertEquals(1000, output.getLiteralsOrThrow("lazy").getCollection().getLiteralsCount());
+    assertEquals(
+        999L,
+        output
+            .getLiteralsOrThrow("lazy")
+            .getCollection()
+            .getLiterals(999)
+            .getScalar()
+            .getPrimitive()
+            .getInteger());
+  }
+
+  @Test
+  void testComputesSizeOfNestedCollectionsOnce() throws IOException {
+    AtomicInteger iterations = new AtomicInteger();
+    Iterable<Literal> elements =
+        () -> {
+          iterations.incrementAndGet();
+
+          return Arrays.asList(literalOf(Primitive.ofInteger(1))).iterator();
+        };
+    Literal nested =
+        Literal.ofCollection(
+            Arrays.asList(Literal.ofCollection(Arrays.asList(Literal.ofLazyCollection(elements)))));
+
+    Literals.LiteralMap output =
+        Literals.LiteralMap.parseFrom(write(ImmutableMap.of("nested", nested)));
+
+    // once to compute size, and once to write elements, regardless of nesting depth
+    assertEquals(2, iterations.get());
+    assertEquals(ProtoUtil.serialize(ImmutableMap.of("nested", nested)), output);
+  }
+
+  @Test
+  void testStreamsLazyCollectionOfCollections() throws IOException {
+    // number of times inner collections were iterated, by outer iteration that created them, the
+    // last one is used to build expected output
+    AtomicInteger[] innerIterations = {
+      new AtomicInteger(), new AtomicInteger(), new AtomicInteger()
+    };
+    AtomicInteger outerIterations = new AtomicInteger();
+    Iterable<Literal> elements =
+        () -> {
+          AtomicInteger iterations = innerIterations[outerIterations.getAndIncrement()];
+
+          return LongStream.range(0, 100)
+              .mapToObj(
+                  i ->
+                      Literal.ofLazyCollection(
+                          () -> {
+                            iterations.incrementAndGet();
+
+                            return Arrays.asList(literalOf(Primitive.ofInteger(i))).iterator();
+                          }))
+              .iterator();
+        };
+    Map<String, Literal> literals = ImmutableMap.of("lazy", Literal.ofLazyCollection(elements));
+
+    Literals.LiteralMap output = Literals.LiteralMap.parseFrom(write(literals));
+
+    // inner collections from the first iteration are only used to compute size, and aren't kept
+    // until they are written
+    assertEquals(2, outerIterations.get());
+    assertEquals(100, innerIterations[0].get());
+    assertEquals(100, innerIterations[1].get());
+    assertEquals(ProtoUtil.serialize(literals), output);
+  }
+
+  @Test
+  void testRejectsMessagesLargerThan2GiB() {
+    // the same element is repeated, so the test doesn't need 2 GiB of memory
+    String value = Strings.repeat("a", 16 * 1024 * 1024);
+    Literal element = literalOf(Primitive.ofString(value));
+    Map<String, Literal> literals =
+        ImmutableMap.of("large", Literal.ofCollection(Collections.nCopies(128, element)));
+
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> write(literals));
+
+    assertThat(e.getMessage(), containsString("Literal map is too large to serialize"));
+  }
+
+  private static byte[] write(Map<String, Literal> literals) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    LiteralMapWriter.write(literals, bytes);
+
+    return bytes.toByteArray();
+  }
+
+  private static Literal literalOf(Primitive primitive) {
+    return Literal.ofScalar(Scalar.ofPrimitive(primitive));
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.flyte.jflyte.api.FileSystem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MeteredFileSystemTest {
+
+  @TempDir Path tempDir;
+
+  private InMemoryFileSystem delegate;
+  private List<OperationMetrics> registered;
+  private FileSystem fileSystem;
+
+  @BeforeEach
+  void setUp() {
+    delegate = new InMemoryFileSystem();
+    registered = new ArrayList<>();
+    fileSystem = MeteredFileSystem.decorate(delegate, Collections.singletonList(registered::add));
+  }
+
+  @Test
+  void testCountsBytesAndRequests() throws IOException {
+    try (WritableByteChannel channel = fileSystem.writer("mem://foo");
+        OutputStream os = Channels.newOutputStream(channel)) {
+      os.write("hello".getBytes(StandardCharsets.UTF_8));
+    }
+
+    try (ReadableByteChannel channel = fileSystem.reader("mem://foo");
+        InputStream is = Channels.newInputStream(channel)) {
+      assertEquals("hello", new String(ByteStreams.toByteArray(is), StandardCharsets.UTF_8));
+    }
+
+    OperationMetrics writer = find("writer");
+    OperationMetrics reader = find("reader");
+
+    assertEquals(2, registered.size());
+    assertEquals("mem", reader.getScheme());
+    assertEquals(1, writer.getRequests());
+    assertEquals(5, writer.getBytes());
+    assertEquals(1, reader.getRequests());
+    assertEquals(5, reader.getBytes());
+    assertEquals(0, reader.getErrors());
+    assertTrue(reader.getLatencyP99Millis() > 0);
+    assertTrue(reader.getTimeToFirstByteP50Millis() > 0);
+  }
+
+  @Test
+  void testCountsErrors() {
+    assertThrows(IllegalArgumentException.class, () -> fileSystem.reader("mem://missing"));
+    assertNull(fileSystem.getManifest("mem://missing"));
+
+    assertEquals(1, find("reader").getErrors());
+    assertEquals(1, find("getManifest").getRequests());
+    assertEquals(0, find("getManifest").getErrors());
+  }
+
+  @Test
+  void testSizeFailureDoesntFailTransfer() {
+    FileSystem noopDelegate =
+        new InMemoryFileSystem() {
+          @Override
+          public CompletableFuture<Void> readAsync(
+              String uri, Path destination, Executor executor) {
+            // completes without creating destination, so its size can't be read
+            return CompletableFuture.completedFuture(null);
+          }
+        };
+    FileSystem metered =
+        MeteredFileSystem.decorate(noopDelegate, Collections.singletonList(registered::add));
+
+    metered.readAsync("mem://foo", tempDir.resolve("missing"), Runnable::run).join();
+
+    assertEquals(1, find("readAsync").getRequests());
+    assertEquals(1, find("readAsync").getErrors());
+  }
+
+  @Test
+  void testToJson() {
+    OperationMetrics metrics = new OperationMetrics("gs", "reader");
+    metrics.record(/* nanos= */ 3_000_000, /* bytes= */ 10, /* failed= */ false);
+    metrics.record(/* nanos= */ 90_000_000_000L, /* bytes= */ 0, /* failed= */ true);
+
+    assertEquals(
+        "{\"scheme\":\"gs\",\"operation\":\"reader\",\"requests\":2,\"errors\":1,\"bytes\":10,"
+            + "\"latency_ms\":{\"p50\":5,\"p99\":-1,\"buckets\":{\"le_1\":0,\"le_2\":0,\"le_5\":1,"
+            + "\"le_10\":0,\"le_20\":0,\"le_50\":0,\"le_100\":0,\"le_200\":0,\"le_500\":0,"
+            + "\"le_1000\":0,\"le_2000\":0,\"le_5000\":0,\"le_10000\":0,\"le_30000\":0,"
+            + "\"le_60000\":0,\"le_inf\":1}},"
+            + "\"ttfb_ms\":{\"p50\":-1,\"p99\":-1,\"buckets\":{\"le_1\":0,\"le_2\":0,\"le_5\":0,"
+            + "\"le_10\":0,\"le_20\":0,\"le_50\":0,\"le_100\":0,\"le_200\":0,\"le_500\":0,"
+            + "\"le_1000\":0,\"le_2000\":0,\"le_5000\":0,\"le_10000\":0,\"le_30000\":0,"
+            + "\"le_60000\":0,\"le_inf\":0}}}",
+        metrics.toJson());
+  }
+
+  @Test
+  void testNoSinks() {
+    assertSame(delegate, MeteredFileSystem.decorate(delegate, Collections.emptyList()));
+    assertEquals(
+        Collections.emptyList(), IoMetricsSink.fromEnv(Collections.<String, String>emptyMap()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> IoMetricsSink.fromEnv(ImmutableMap.of("FLYTE_IO_METRICS", "foo")));
+  }
+
+  private OperationMetrics find(String operation) {
+    return registered.stream()
+        .filter(metrics -> metrics.getOperation().equals(operation))
+        .findFirst()
+        .orElseThrow(() -> new AssertionError("Missing metrics: " + operation));
+  }
+}
@@ -26,6 +26,8 @@ import static java.util.Collections.singletonMap;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertEquals;
 
 import com.google.common.collect.ImmutableList;
@@ -42,6 +44,7 @@ import flyteidl.core.Workflow;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -61,6 +64,8 @@ import org.flyte.api.v1.Node;
 import org.flyte.api.v1.OutputReference;
 import org.flyte.api.v1.PartialTaskIdentifier;
 import org.flyte.api.v1.Primitive;
+import org.flyte.api.v1.PrimitiveCollection;
+import org.flyte.api.v1.Resources;
 import org.flyte.api.v1.RetryStrategy;
 import org.flyte.api.v1.Scalar;
 import org.flyte.api.v1.SchemaType;
@@ -159,6 +164,69 @@ class ProtoUtilTest {
             Literal.ofMap(Collections.singletonMap("name", apiLiteral))));
   }
 
+  @ParameterizedTest
+  @MethodSource("createPackedCollectionsArguments")
+  void shouldSerializeAndDeserializePackedCollections(
+      Literal packed, Literals.Primitive first, Literals.Primitive second) {
+    Literals.Literal expected =
+        Literals.Literal.newBuilder()
+            .setCollection(
+                Literals.LiteralCollection.newBuilder()
+                    .addLiterals(protoLiteralOf(first))
+                    .addLiterals(protoLiteralOf(second)))
+            .build();
+
+    Literals.Literal serialized = ProtoUtil.serialize(packed);
+    Literal deserialized = ProtoUtil.deserialize(serialized);
+
+    assertEquals(expected, serialized);
+    assertThat(deserialized, equalTo(packed));
+    assertThat(deserialized.collection(), instanceOf(PrimitiveCollection.class));
+  }
+
+  static Stream<Arguments> createPackedCollectionsArguments() {
+    BitSet booleans = new BitSet();
+    booleans.set(0);
+
+    return Stream.of(
+        Arguments.of(
+            Literal.ofIntegerCollection(new long[] {1L, 2L}),
+            Literals.Primitive.newBuilder().setInteger(1L).build(),
+            Literals.Primitive.newBuilder().setInteger(2L).build()),
+        Arguments.of(
+            Literal.ofFloatCollection(new double[] {1.0, 2.0}),
+            Literals.Primitive.newBuilder().setFloatValue(1.0).build(),
+            Literals.Primitive.newBuilder().setFloatValue(2.0).build()),
+        Arguments.of(
+            Literal.ofBooleanCollection(booleans, 2),
+            Literals.Primitive.newBuilder().setBoolean(true).build(),
+            Literals.Primitive.newBuilder().setBoolean(false).build()));
+  }
+
+  @Test
+  void shouldNotPackMixedCollections() {
+    Literals.Literal input =
+        Literals.Literal.newBuilder()
+            .setCollection(
+                Literals.LiteralCollection.newBuilder()
+                    .addLiterals(
+                        protoLiteralOf(Literals.Primitive.newBuilder().setInteger(1L).build()))
+                    .addLiterals(
+                        protoLiteralOf(Literals.Primitive.newBuilder().setFloatValue(2.0).build())))
+            .build();
+
+    Literal output = ProtoUtil.deserialize(input);
+
+    assertThat(output.collection(), not(instanceOf(PrimitiveCollection.class)));
+    assertThat(
+        output,
+        equalTo(
+            Literal.ofCollection(
+                Arrays.asList(
+                    Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofInteger(1L))),
+                    Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofFloat(2.0)))))));
+  }
+
   @Test
   void shouldSerializeLiteralMap() {
     Map<String, Literal> input =
@@ -391,6 +459,75 @@ class ProtoUtilTest {
                 .build()));
   }
 
+  @Test
+  void shouldSerializeContainerResources() {
+    Resources resources =
+        Resources.builder()
+            .requests(ImmutableMap.of(Resources.ResourceName.CPU, "500m"))
+            .limits(
+                ImmutableMap.of(
+                    Resources.ResourceName.CPU, "2", Resources.ResourceName.MEMORY, "1Gi"))
+            .build();
+    Container container =
+        Container.builder()
+            .command(ImmutableList.of())
+            .args(ImmutableList.of())
+            .env(ImmutableList.of())
+            .image("alpine:3.7")
+            .resources(resources)
+            .build();
+    TaskTemplate template =
+        TaskTemplate.builder()
+            .container(container)
+            .interface_(TypedInterface.builder().inputs(emptyMap()).outputs(emptyMap()).build())
+            .retries(RetryStrategy.builder().retries(0).build())
+            .build();
+
+    Tasks.TaskTemplate serializedTemplate = ProtoUtil.serialize(template);
+
+    assertThat(
+        serializedTemplate.getContainer().getResources(),
+        equalTo(
+            Tasks.Resources.newBuilder()
+                .addRequests(resourceEntry(Tasks.Resources.ResourceName.CPU, "500m"))
+                .addLimits(resourceEntry(Tasks.Resources.ResourceName.CPU, "2"))
+                .addLimits(resourceEntry(Tasks.Resources.ResourceName.MEMORY, "1Gi"))
+                .build()));
+  }
+
+  @Test
+  void shouldSerializeDiscoverableTaskTemplate() {
+    Container container =
+        Container.builder()
+            .command(ImmutableList.of())
+            .args(ImmutableList.of())
+            .env(ImmutableList.of())
+            .image("alpine:3.7")
+            .build();
+    TaskTemplate template =
+        TaskTemplate.builder()
+            .container(container)
+            .interface_(TypedInterface.builder().inputs(emptyMap()).outputs(emptyMap()).build())
+            .retries(RetryStrategy.builder().retries(0).build())
+            .discoverable(true)
+            .discoveryVersion("1.0")
+            .timeout(Duration.ofMinutes(90).plusNanos(5))
+            .build();
+
+    Tasks.TaskMetadata metadata = ProtoUtil.serialize(template).getMetadata();
+
+    assertThat(metadata.getDiscoverable(), equalTo(true));
+    assertThat(metadata.getDiscoveryVersion(), equalTo("1.0"));
+    assertThat(
+        metadata.getTimeout(),
+        equalTo(com.google.protobuf.Duration.newBuilder().setSeconds(5400).setNanos(5).build()));
+  }
+
+  private static Tasks.Resources.ResourceEntry resourceEntry(
+      Tasks.Resources.ResourceName name, String value) {
+    return Tasks.Resources.ResourceEntry.newBuilder().setName(name).setValue(value).build();
+  }
+
   @Test
   void shouldSerializeWorkflowTemplate() {
     Node nodeA = createNode("a").toBuilder().upstreamNodeIds(singletonList("b")).build();
@@ -823,4 +960,10 @@ class ProtoUtilTest {
       return null;
     }
   }
+
+  private static Literals.Literal protoLiteralOf(Literals.Primitive primitive) {
+    return Literals.Literal.newBuilder()
+        .setScalar(Literals.Scalar.newBuilder().setPrimitive(primitive))
+        .build();
+  }
 }
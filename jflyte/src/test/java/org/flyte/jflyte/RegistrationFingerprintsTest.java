@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import flyteidl.core.Literals;
+import java.nio.charset.StandardCharsets;
+import org.flyte.jflyte.RegistrationFingerprints.Kind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class RegistrationFingerprintsTest {
+
+  private static final String URI = "mem://bucket/fingerprints/project/domain";
+
+  @Test
+  void testReusesVersionOfUnchangedEntities() {
+    InMemoryFileSystem fs = new InMemoryFileSystem();
+
+    RegistrationFingerprints fingerprints = RegistrationFingerprints.load(fs, URI);
+    fingerprints.put(Kind.TASK, "foo", "v1", "fingerprint-1");
+    fingerprints.put(Kind.WORKFLOW, "foo", "v1", "fingerprint-2");
+    fingerprints.save();
+
+    RegistrationFingerprints reloaded = RegistrationFingerprints.load(fs, URI);
+
+    assertEquals("v1", reloaded.getVersion(Kind.TASK, "foo", "fingerprint-1"));
+    assertEquals("v1", reloaded.getVersion(Kind.WORKFLOW, "foo", "fingerprint-2"));
+    assertNull(reloaded.getVersion(Kind.TASK, "foo", "fingerprint-2"));
+    assertNull(reloaded.getVersion(Kind.LAUNCH_PLAN, "foo", "fingerprint-1"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"TASK\tfoo\tv1", "FUNCTION\tfoo\tv1\tfingerprint-1"})
+  void testIgnoresCorruptFingerprints(String corruptLine) {
+    InMemoryFileSystem fs = new InMemoryFileSystem();
+    fs.files.put(
+        URI,
+        ("v1\nTASK\tbar\tv1\tfingerprint-1\n" + corruptLine + "\n")
+            .getBytes(StandardCharsets.UTF_8));
+
+    RegistrationFingerprints fingerprints = RegistrationFingerprints.load(fs, URI);
+
+    assertNull(fingerprints.getVersion(Kind.TASK, "bar", "fingerprint-1"));
+  }
+
+  @Test
+  void testEmptyIsNotPersisted() {
+    RegistrationFingerprints fingerprints = RegistrationFingerprints.empty();
+    fingerprints.put(Kind.TASK, "foo", "v1", "fingerprint-1");
+    fingerprints.save();
+
+    assertEquals("v1", fingerprints.getVersion(Kind.TASK, "foo", "fingerprint-1"));
+  }
+
+  @Test
+  void testFingerprintIsIndependentOfMapOrder() {
+    Literals.Literal literal = Literals.Literal.getDefaultInstance();
+
+    Literals.LiteralMap map1 =
+        Literals.LiteralMap.newBuilder()
+            .putLiterals("a", literal)
+            .putLiterals("b", literal)
+            .build();
+    Literals.LiteralMap map2 =
+        Literals.LiteralMap.newBuilder()
+            .putLiterals("b", literal)
+            .putLiterals("a", literal)
+            .build();
+    Literals.LiteralMap map3 = Literals.LiteralMap.newBuilder().putLiterals("a", literal).build();
+
+    assertEquals(
+        RegistrationFingerprints.fingerprint(map1), RegistrationFingerprints.fingerprint(map2));
+    assertNotEquals(
+        RegistrationFingerprints.fingerprint(map1), RegistrationFingerprints.fingerprint(map3));
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class RetryBudgetTest {
+
+  @Test
+  void testRecoversAfterSuccesses() {
+    RetryBudget budget = RetryBudget.create(/* maxTokens= */ 4, /* tokenRatio= */ 0.5);
+
+    assertTrue(budget.onFailure()); // 3 tokens
+    assertFalse(budget.onFailure()); // 2 tokens
+
+    budget.onSuccess();
+    budget.onSuccess(); // 3 tokens
+
+    assertFalse(budget.onFailure()); // 2 tokens
+
+    budget.onSuccess();
+    budget.onSuccess();
+    budget.onSuccess();
+    budget.onSuccess(); // 4 tokens
+
+    assertTrue(budget.onFailure());
+  }
+
+  @Test
+  void testUnlimited() {
+    RetryBudget budget = RetryBudget.unlimited();
+
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(budget.onFailure());
+    }
+  }
+}
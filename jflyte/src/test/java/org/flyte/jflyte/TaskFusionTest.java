@@ -0,0 +1,368 @@
+/*
+ * Copyright 2020 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.flyte.jflyte;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.flyte.jflyte.ApiUtils.createVar;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.ImmutableMap;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.flyte.api.v1.Binding;
+import org.flyte.api.v1.BindingData;
+import org.flyte.api.v1.Checkpoint;
+import org.flyte.api.v1.Literal;
+import org.flyte.api.v1.Node;
+import org.flyte.api.v1.OutputReference;
+import org.flyte.api.v1.PartialTaskIdentifier;
+import org.flyte.api.v1.Primitive;
+import org.flyte.api.v1.Resources;
+import org.flyte.api.v1.RetryStrategy;
+import org.flyte.api.v1.RunnableTask;
+import org.flyte.api.v1.Scalar;
+import org.flyte.api.v1.SimpleType;
+import org.flyte.api.v1.TaskContext;
+import org.flyte.api.v1.TaskNode;
+import org.flyte.api.v1.TaskPools;
+import org.flyte.api.v1.TypedInterface;
+import org.flyte.api.v1.WorkflowMetadata;
+import org.flyte.api.v1.WorkflowTemplate;
+import org.junit.jupiter.api.Test;
+
+public class TaskFusionTest {
+
+  private static final ImmutableMap<String, RunnableTask> TASKS =
+      ImmutableMap.of(
+          "add", new AddTask("add", Resources.builder().build()),
+          "add-gpu",
+              new AddTask(
+                  "add-gpu",
+                  Resources.builder()
+                      .limits(singletonMap(Resources.ResourceName.GPU, "1"))
+                      .build()));
+
+  @Test
+  void testFusesLinearChain() {
+    WorkflowTemplate template =
+        workflow(
+            Arrays.asList(
+                node("a", "add", startNode("x"), startNode("y")),
+                node("b", "add", promise("a", "c"), startNode("y")),
+                node("c", "add", promise("b", "c"), scalar(1))),
+            promise("c", "c"));
+
+    TaskFusion.Result result = TaskFusion.apply(template, TASKS);
+
+    FusedTask fusedTask = result.fusedTasks().get(0);
+    Node fusedNode = result.workflowTemplate().nodes().get(0);
+
+    assertEquals(1, result.fusedTasks().size());
+    assertEquals(1, result.workflowTemplate().nodes().size());
+    assertEquals("c", fusedNode.id());
+    assertEquals(fusedTask.getName(), fusedNode.taskNode().referenceId().name());
+    assertThat(fusedTask.getInterface().inputs().keySet(), contains("a.a", "a.b", "b.b", "c.b"));
+    assertThat(
+        fusedNode.inputs(),
+        contains(
+            binding("a.a", startNode("x")),
+            binding("a.b", startNode("y")),
+            binding("b.b", startNode("y")),
+            binding("c.b", scalar(1))));
+    assertThat(
+        fusedTask.executeArgs(),
+        contains(
+            "--task",
+            "add",
+            "--node",
+            "a",
+            "--task",
+            "add",
+            "--node",
+            "b",
+            "--binding",
+            "b.a=c",
+            "--task",
+            "add",
+            "--node",
+            "c",
+            "--binding",
+            "c.a=c"));
+  }
+
+  @Test
+  void testRunsMembersInMemory() {
+    WorkflowTemplate template =
+        workflow(
+            Arrays.asList(
+                node("a", "add", startNode("x"), startNode("y")),
+                node("b", "add", promise("a", "c"), scalar(10))),
+            promise("b", "c"));
+
+    List<FusedTask.Member> members =
+        TaskFusion.apply(template, TASKS).fusedTasks().get(0).members();
+    Map<String, Map<String, Literal>> intermediateOutputs = new HashMap<>();
+    FusedTask fusedTask = new FusedTask(members, intermediateOutputs::put);
+
+    Map<String, Literal> outputs =
+        runInContext(
+            fusedTask, ImmutableMap.of("a.a", literal(1), "a.b", literal(2), "b.b", literal(10)));
+
+    assertEquals(singletonMap("c", literal(13)), outputs);
+    assertEquals(singletonMap("a", singletonMap("c", literal(3))), intermediateOutputs);
+  }
+
+  @Test
+  void testMembersHaveSeparateCheckpoints() {
+    List<String> events = new ArrayList<>();
+    FusedTask fusedTask =
+        new FusedTask(
+            Arrays.asList(
+                FusedTask.Member.create("a", new CheckpointingTask("a", events), emptyMap()),
+                FusedTask.Member.create(
+                    "b", new CheckpointingTask("b", events), singletonMap("a", "c"))));
+    Map<String, Literal> inputs =
+        ImmutableMap.of("a.a", literal(1), "a.b", literal(2), "b.b", literal(10));
+
+    // second run is a retry, and each member resumes from its own snapshot
+    runInContext(fusedTask, inputs);
+    runInContext(fusedTask, inputs);
+
+    assertEquals(Arrays.asList("a read null", "b read null", "a read a", "b read b"), events);
+  }
+
+  @Test
+  void testTearsDownMembersIfSetUpFails() {
+    List<String> events = new ArrayList<>();
+    FusedTask fusedTask =
+        new FusedTask(
+            Arrays.asList(
+                FusedTask.Member.create("a", new LifecycleTask("a", events), emptyMap()),
+                FusedTask.Member.create("b", new LifecycleTask("b", events), emptyMap()),
+                FusedTask.Member.create("c", new LifecycleTask("c", events), emptyMap())));
+
+    RuntimeException e = assertThrows(RuntimeException.class, fusedTask::setUp);
+
+    assertEquals("c failed to set up", e.getMessage());
+    assertEquals(Arrays.asList("setUp a", "setUp b", "tearDown b", "tearDown a"), events);
+  }
+
+  @Test
+  void testDoesNotFuseNodesWithOtherDependents() {
+    WorkflowTemplate template =
+        workflow(
+            Arrays.asList(
+                node("a", "add", startNode("x"), startNode("y")),
+                node("b", "add", promise("a", "c"), startNode("y")),
+                node("c", "add", promise("a", "c"), startNode("y"))),
+            promise("c", "c"));
+
+    TaskFusion.Result result = TaskFusion.apply(template, TASKS);
+
+    assertEquals(emptyList(), result.fusedTasks());
+    assertSame(template, result.workflowTemplate());
+  }
+
+  @Test
+  void testDoesNotFuseTasksWithDifferentResources() {
+    WorkflowTemplate template =
+        workflow(
+            Arrays.asList(
+                node("a", "add", startNode("x"), startNode("y")),
+                node("b", "add-gpu", promise("a", "c"), startNode("y")),
+                node("c", "add-gpu", promise("b", "c"), startNode("y"))),
+            promise("c", "c"));
+
+    TaskFusion.Result result = TaskFusion.apply(template, TASKS);
+
+    assertEquals(1, result.fusedTasks().size());
+    assertThat(
+        result.fusedTasks().get(0).executeArgs(),
+        contains(
+            "--task",
+            "add-gpu",
+            "--node",
+            "b",
+            "--task",
+            "add-gpu",
+            "--node",
+            "c",
+            "--binding",
+            "c.a=c"));
+    assertEquals(template.nodes().get(0), result.workflowTemplate().nodes().get(0));
+    assertThat(
+        result.workflowTemplate().nodes().get(1).inputs(),
+        contains(
+            binding("b.a", promise("a", "c")),
+            binding("b.b", startNode("y")),
+            binding("c.b", startNode("y"))));
+  }
+
+  private static WorkflowTemplate workflow(List<Node> nodes, BindingData output) {
+    return WorkflowTemplate.builder()
+        .nodes(nodes)
+        .metadata(WorkflowMetadata.builder().build())
+        .interface_(
+            TypedInterface.builder()
+                .inputs(
+                    ImmutableMap.of(
+                        "x", createVar(SimpleType.INTEGER), "y", createVar(SimpleType.INTEGER)))
+                .outputs(singletonMap("c", createVar(SimpleType.INTEGER)))
+                .build())
+        .outputs(singletonList(binding("c", output)))
+        .build();
+  }
+
+  private static Node node(String id, String taskName, BindingData a, BindingData b) {
+    return Node.builder()
+        .id(id)
+        .taskNode(
+            TaskNode.builder()
+                .referenceId(PartialTaskIdentifier.builder().name(taskName).build())
+                .build())
+        .inputs(Arrays.asList(binding("a", a), binding("b", b)))
+        .upstreamNodeIds(emptyList())
+        .build();
+  }
+
+  private static Binding binding(String var, BindingData bindingData) {
+    return Binding.builder().var_(var).binding(bindingData).build();
+  }
+
+  private static BindingData startNode(String var) {
+    return promise(Node.START_NODE_ID, var);
+  }
+
+  private static BindingData promise(String nodeId, String var) {
+    return BindingData.ofOutputReference(OutputReference.builder().nodeId(nodeId).var(var).build());
+  }
+
+  private static BindingData scalar(long value) {
+    return BindingData.ofScalar(Scalar.ofPrimitive(Primitive.ofInteger(value)));
+  }
+
+  private static Literal literal(long value) {
+    return Literal.ofScalar(Scalar.ofPrimitive(Primitive.ofInteger(value)));
+  }
+
+  private static Map<String, Literal> runInContext(
+      FusedTask fusedTask, Map<String, Literal> inputs) {
+    try (TaskPools pools = TaskPools.create(/* parallelism= */ 1);
+        TaskContext context =
+            TaskContext.create(fusedTask, pools, Checkpoint.inMemory(), Clock.systemUTC())) {
+      return context.call(() -> fusedTask.run(inputs));
+    }
+  }
+
+  private static class CheckpointingTask extends AddTask {
+    private final List<String> events;
+
+    private CheckpointingTask(String name, List<String> events) {
+      super(name, Resources.builder().build());
+      this.events = events;
+    }
+
+    @Override
+    public Map<String, Literal> run(Map<String, Literal> inputs) {
+      Checkpoint checkpoint = TaskContext.current().checkpoint();
+      byte[] snapshot = checkpoint.read();
+
+      events.add(getName() + " read " + (snapshot != null ? new String(snapshot, UTF_8) : null));
+      checkpoint.write(getName().getBytes(UTF_8));
+
+      return super.run(inputs);
+    }
+  }
+
+  private static class LifecycleTask extends AddTask {
+    private final List<String> events;
+
+    private LifecycleTask(String name, List<String> events) {
+      super(name, Resources.builder().build());
+      this.events = events;
+    }
+
+    @Override
+    public void setUp() {
+      if (getName().equals("c")) {
+        throw new RuntimeException("c failed to set up");
+      }
+
+      events.add("setUp " + getName());
+    }
+
+    @Override
+    public void tearDown() {
+      events.add("tearDown " + getName());
+    }
+  }
+
+  private static class AddTask implements RunnableTask {
+    private final String name;
+    private final Resources resources;
+
+    private AddTask(String name, Resources resources) {
+      this.name = name;
+      this.resources = resources;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public TypedInterface getInterface() {
+      return TypedInterface.builder()
+          .inputs(
+              ImmutableMap.of(
+                  "a", createVar(SimpleType.INTEGER), "b", createVar(SimpleType.INTEGER)))
+          .outputs(singletonMap("c", createVar(SimpleType.INTEGER)))
+          .build();
+    }
+
+    @Override
+    public Map<String, Literal> run(Map<String, Literal> inputs) {
+      long a = inputs.get("a").scalar().primitive().integer();
+      long b = inputs.get("b").scalar().primitive().integer();
+
+      return singletonMap("c", literal(a + b));
+    }
+
+    @Override
+    public RetryStrategy getRetries() {
+      return RetryStrategy.builder().retries(0).build();
+    }
+
+    @Override
+    public Resources getResources() {
+      return resources;
+    }
+  }
+}